@@ -0,0 +1,111 @@
+package com.redhat.emergency.response.mission.map;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.redhat.emergency.response.mission.map.graph.LandmarkRouter;
+import com.redhat.emergency.response.mission.map.graph.RoadNetworkLoader;
+import com.redhat.emergency.response.mission.model.Location;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Responder selection on a 200² grid road network: {@link RoutePlanner#getDistanceMatrix} for 500
+ * responders and {@code incidents} incidents, against routing every responder/incident pair with
+ * the point-to-point router as callers did before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DistanceMatrixBenchmark {
+
+    private static final int GRID_SIZE = 200;
+
+    private static final double ORIGIN_LAT = 34.15;
+
+    private static final double ORIGIN_LON = -77.95;
+
+    private static final double SPACING = 0.001;
+
+    @Param({ "1", "10" })
+    int incidents;
+
+    private final RoutePlanner planner = new RoutePlanner();
+
+    private List<Location> responders;
+
+    private List<Location> incidentLocations;
+
+    @Setup
+    public void setup() throws IOException {
+        Path graph = Files.createTempFile("road-network", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(graph)) {
+            for (int row = 0; row < GRID_SIZE; row++) {
+                for (int column = 0; column < GRID_SIZE; column++) {
+                    int node = row * GRID_SIZE + column;
+                    writer.write("node," + node + "," + (ORIGIN_LAT + row * SPACING) + "," + (ORIGIN_LON + column * SPACING) + "\n");
+                    if (column > 0) {
+                        writer.write("edge," + (node - 1) + "," + node + ",92," + (row % 10 == 0 ? 80 : 40) + "\n");
+                    }
+                    if (row > 0) {
+                        writer.write("edge," + (node - GRID_SIZE) + "," + node + ",111," + (column % 10 == 0 ? 80 : 40) + "\n");
+                    }
+                }
+            }
+        }
+        try {
+            planner.router = new LandmarkRouter(RoadNetworkLoader.load(graph), 8);
+        } finally {
+            Files.delete(graph);
+        }
+        Random random = new Random(42);
+        responders = locations(random, 500);
+        incidentLocations = locations(random, incidents);
+    }
+
+    @Benchmark
+    public DistanceMatrix matrix() {
+        return planner.getDistanceMatrix(responders, incidentLocations).await().indefinitely();
+    }
+
+    @Benchmark
+    public long pairwise() {
+        LandmarkRouter router = planner.router;
+        long total = 0;
+        for (Location responder : responders) {
+            for (Location incident : incidentLocations) {
+                LandmarkRouter.Path path = router.route(router.nearestNode(responder.latitude(), responder.longitude()),
+                        router.nearestNode(incident.latitude(), incident.longitude()));
+                total += path == null ? 0 : path.travelTimeMs();
+            }
+        }
+        return total;
+    }
+
+    private static List<Location> locations(Random random, int count) {
+        double extent = (GRID_SIZE - 1) * SPACING;
+        List<Location> locations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            locations.add(Location.of(ORIGIN_LAT + random.nextDouble() * extent, ORIGIN_LON + random.nextDouble() * extent));
+        }
+        return locations;
+    }
+}
@@ -0,0 +1,96 @@
+package com.redhat.emergency.response.mission.map;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.redhat.emergency.response.mission.map.graph.LandmarkRouter;
+import com.redhat.emergency.response.mission.map.graph.RoadNetworkLoader;
+import com.redhat.emergency.response.mission.model.Location;
+import com.redhat.emergency.response.mission.model.MissionStep;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link RoutePlanner#getDirections} on a synthetic grid road network of {@code gridSize}²
+ * nodes, with and without the route cache. Queries are drawn from a fixed set of locations, so
+ * the cached variant sees a realistic mix of repeats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutePlannerBenchmark {
+
+    private static final double ORIGIN_LAT = 34.15;
+
+    private static final double ORIGIN_LON = -77.95;
+
+    private static final double SPACING = 0.001;
+
+    @Param({ "50", "200" })
+    int gridSize;
+
+    @Param({ "true", "false" })
+    boolean cache;
+
+    private final RoutePlanner planner = new RoutePlanner();
+
+    private Location[] locations;
+
+    @Setup
+    public void setup() throws IOException {
+        Path graph = Files.createTempFile("road-network", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(graph)) {
+            for (int row = 0; row < gridSize; row++) {
+                for (int column = 0; column < gridSize; column++) {
+                    int node = row * gridSize + column;
+                    writer.write("node," + node + "," + (ORIGIN_LAT + row * SPACING) + "," + (ORIGIN_LON + column * SPACING) + "\n");
+                    if (column > 0) {
+                        writer.write("edge," + (node - 1) + "," + node + ",92," + (row % 10 == 0 ? 80 : 40) + "\n");
+                    }
+                    if (row > 0) {
+                        writer.write("edge," + (node - gridSize) + "," + node + ",111," + (column % 10 == 0 ? 80 : 40) + "\n");
+                    }
+                }
+            }
+        }
+        try {
+            planner.router = new LandmarkRouter(RoadNetworkLoader.load(graph), 8);
+        } finally {
+            Files.delete(graph);
+        }
+        planner.cache = cache ? new RouteCache(7, 10_000) : null;
+        Random random = new Random(42);
+        locations = new Location[256];
+        for (int i = 0; i < locations.length; i++) {
+            double extent = (gridSize - 1) * SPACING;
+            locations[i] = Location.of(BigDecimal.valueOf(ORIGIN_LAT + random.nextDouble() * extent),
+                    BigDecimal.valueOf(ORIGIN_LON + random.nextDouble() * extent));
+        }
+    }
+
+    @Benchmark
+    public List<MissionStep> getDirections() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return planner.getDirections(locations[random.nextInt(locations.length)], locations[random.nextInt(locations.length)],
+                locations[random.nextInt(locations.length)]).await().indefinitely();
+    }
+}
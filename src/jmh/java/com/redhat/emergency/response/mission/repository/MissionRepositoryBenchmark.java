@@ -0,0 +1,70 @@
+package com.redhat.emergency.response.mission.repository;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.redhat.emergency.response.mission.model.Mission;
+import com.redhat.emergency.response.mission.model.MissionStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Concurrent writes and reads against one repository. Run with {@code -t <threads>}; a small
+ * {@code keys} value makes threads collide on the same missions and responders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MissionRepositoryBenchmark {
+
+    @Param({ "16", "100000" })
+    int keys;
+
+    private final MissionRepository repository = new MissionRepository();
+
+    private Mission[] missions;
+
+    @Setup
+    public void setup() {
+        missions = new Mission[keys];
+        for (int i = 0; i < keys; i++) {
+            Mission mission = Mission.builder().incidentId("incident-" + i).responderId(String.valueOf(i % 1000))
+                    .responderStartLocation(new BigDecimal("34.19439"), new BigDecimal("-77.81453"))
+                    .incidentLocation(new BigDecimal("34.2176"), new BigDecimal("-77.8589"))
+                    .destinationLocation(new BigDecimal("34.1706"), new BigDecimal("-77.949"))
+                    .build();
+            mission.status(i % 2 == 0 ? MissionStatus.CREATED : MissionStatus.UPDATED);
+            missions[i] = mission;
+            repository.put(mission);
+        }
+    }
+
+    @Benchmark
+    public void put() {
+        repository.put(missions[ThreadLocalRandom.current().nextInt(keys)]);
+    }
+
+    @Benchmark
+    public Object get() {
+        Mission mission = missions[ThreadLocalRandom.current().nextInt(keys)];
+        return repository.get(mission.missionKey());
+    }
+
+    @Benchmark
+    public Object findActiveByResponderId() {
+        return repository.findActiveByResponderId(missions[ThreadLocalRandom.current().nextInt(keys)].getResponderId());
+    }
+}
@@ -0,0 +1,90 @@
+package com.redhat.emergency.response.mission.repository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.redhat.emergency.response.mission.model.Mission;
+import com.redhat.emergency.response.mission.model.MissionPoint;
+import com.redhat.emergency.response.mission.model.MissionStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Proximity queries over active missions spread uniformly across a 0.6 by 0.6 degree metro area
+ * (about 65 by 55 km).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MissionSpatialBenchmark {
+
+    private static final double SOUTH = 33.9;
+
+    private static final double WEST = -78.2;
+
+    private static final double SIZE = 0.6;
+
+    @Param({ "100000" })
+    int missions;
+
+    @Param({ "0.01" })
+    double cellDegrees;
+
+    private final MissionRepository repository = new MissionRepository();
+
+    @Setup
+    public void setup() {
+        repository.spatialCellDegrees = cellDegrees;
+        try {
+            repository.init();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < missions; i++) {
+            repository.put(Mission.builder().incidentId("incident-" + i).responderId("responder-" + i)
+                    .responderStartLocation(coordinate(SOUTH, random), coordinate(WEST, random))
+                    .incidentLocation(coordinate(SOUTH, random), coordinate(WEST, random))
+                    .destinationLocation(coordinate(SOUTH, random), coordinate(WEST, random))
+                    .build().status(MissionStatus.CREATED));
+        }
+    }
+
+    @Benchmark
+    public Object within500Meters() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return repository.findActiveWithin(SOUTH + random.nextDouble() * SIZE, WEST + random.nextDouble() * SIZE, 500);
+    }
+
+    @Benchmark
+    public Object respondersWithin2Kilometers() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return repository.findActiveWithin(SOUTH + random.nextDouble() * SIZE, WEST + random.nextDouble() * SIZE, 2000,
+                MissionPoint.RESPONDER);
+    }
+
+    @Benchmark
+    public Object nearest10() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return repository.findNearestActive(SOUTH + random.nextDouble() * SIZE, WEST + random.nextDouble() * SIZE, 10);
+    }
+
+    private static BigDecimal coordinate(double origin, Random random) {
+        return BigDecimal.valueOf(origin + random.nextDouble() * SIZE).setScale(5, RoundingMode.HALF_UP);
+    }
+}
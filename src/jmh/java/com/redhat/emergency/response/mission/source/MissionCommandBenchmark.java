@@ -0,0 +1,55 @@
+package com.redhat.emergency.response.mission.source;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import com.redhat.emergency.response.mission.repository.MissionRepository;
+import io.smallrye.metrics.MetricsRegistryImpl;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing and validation of incoming mission-command records, for a realistic create command and
+ * for the kinds of junk the shared topic carries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MissionCommandBenchmark {
+
+    @Param({ "create", "create-body-first", "other-type", "missing-data", "not-json" })
+    String payload;
+
+    private MissionCommandSource source;
+
+    private Message<String> message;
+
+    @Setup
+    public void setup() {
+        source = new MissionCommandSource();
+        source.metrics = PipelineMetrics.create(new MetricsRegistryImpl(), new MissionRepository());
+        source.parser = new MissionCommandParser();
+        source.parser.metrics = source.metrics;
+        // records that do not come from Kafka are acknowledged directly, nothing is committed
+        source.committer = new OffsetCommitter(0);
+        message = Message.of(Payloads.command(payload));
+    }
+
+    @Benchmark
+    public Optional<MissionCommand> accept() {
+        return source.accept(message);
+    }
+}
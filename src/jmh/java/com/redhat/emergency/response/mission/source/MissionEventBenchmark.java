@@ -0,0 +1,68 @@
+package com.redhat.emergency.response.mission.source;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.redhat.emergency.response.mission.model.Mission;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding of MissionStartedEvent: the direct serializer against the JsonObject tree it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MissionEventBenchmark {
+
+    @Param({ "0", "50", "200" })
+    int steps;
+
+    private final MissionEventSerializer serializer = new MissionEventSerializer();
+
+    private Mission mission;
+
+    @Setup
+    public void setup() {
+        mission = Payloads.mission(steps);
+    }
+
+    @Benchmark
+    public byte[] serializer() {
+        return serializer.missionStartedEvent(mission);
+    }
+
+    /**
+     * The previous path: a JsonObject tree encoded to a String, then to bytes by the Kafka
+     * StringSerializer.
+     */
+    @Benchmark
+    public byte[] jsonObject() {
+        JsonObject message = new JsonObject().put("id", UUID.randomUUID().toString())
+                .put("invokingService", "MissionService")
+                .put("timestamp", Instant.now().toEpochMilli())
+                .put("messageType", "MissionStartedEvent")
+                .put("body", JsonObject.mapFrom(mission));
+        return message.encode().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public JsonObject missionMapping() {
+        return JsonObject.mapFrom(mission);
+    }
+}
@@ -0,0 +1,102 @@
+package com.redhat.emergency.response.mission.source;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.redhat.emergency.response.mission.map.RouteBulkhead;
+import com.redhat.emergency.response.mission.map.RoutePlanner;
+import com.redhat.emergency.response.mission.model.Location;
+import com.redhat.emergency.response.mission.model.MissionStep;
+import com.redhat.emergency.response.mission.repository.MissionRepository;
+import io.smallrye.metrics.MetricsRegistryImpl;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end throughput of {@link MissionCommandSource#process}: a stream of mission-command
+ * records, as the connector delivers them, through parsing, routing against a stub planner,
+ * storage and event encoding. One operation is one command.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MissionPipelineBenchmark {
+
+    private static final int COMMANDS = 2_000;
+
+    @Param({ "1", "4" })
+    int lanes;
+
+    @Param({ "1", "64" })
+    int batchSize;
+
+    @Param({ "20" })
+    int steps;
+
+    private final MissionCommandSource source = new MissionCommandSource();
+
+    private List<Message<String>> commands;
+
+    @Setup
+    public void setup() {
+        List<MissionStep> route = Payloads.mission(steps).getSteps();
+        source.registry = new MetricsRegistryImpl();
+        source.repository = new MissionRepository();
+        source.metrics = PipelineMetrics.create(source.registry, source.repository);
+        source.parser = new MissionCommandParser();
+        source.parser.metrics = source.metrics;
+        source.serializer = new MissionEventSerializer();
+        source.routeplanner = new RoutePlanner() {
+            @Override
+            public Uni<List<MissionStep>> getDirections(Location origin, Location destination, Location waypoint) {
+                return Uni.createFrom().item(route);
+            }
+        };
+        source.laneCount = lanes;
+        source.batchSize = batchSize;
+        source.batchLingerMs = 5;
+        // The default bulkhead without its timeout, which the stub planner never hits. Lookups then
+        // only use the bulkhead's daemon threads, so nothing is left behind in Mutiny's worker pool
+        // to keep the VM alive.
+        source.routingExecution = RouteBulkhead.Execution.POOL;
+        source.routingMaxConcurrent = 8;
+        source.routingMaxQueued = 256;
+        source.routingTimeoutMs = 0;
+        source.init();
+        commands = new ArrayList<>(COMMANDS);
+        for (int i = 0; i < COMMANDS; i++) {
+            String payload = i % 10 == 9 ? Payloads.command("other-type")
+                    : Payloads.create("mission-" + i, "incident-" + i % 500, String.valueOf(i % 200));
+            commands.add(Message.of(payload));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        source.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COMMANDS)
+    public List<Message<byte[]>> process() {
+        return source.process(Multi.createFrom().iterable(commands)).collectItems().asList().await().indefinitely();
+    }
+}
@@ -0,0 +1,62 @@
+package com.redhat.emergency.response.mission.source;
+
+import java.math.BigDecimal;
+
+import com.redhat.emergency.response.mission.model.Mission;
+import com.redhat.emergency.response.mission.model.MissionStatus;
+import com.redhat.emergency.response.mission.model.MissionStep;
+
+/**
+ * Representative mission-command records and missions for the benchmarks.
+ */
+final class Payloads {
+
+    private static final String BODY = "{\"id\":\"%s\",\"incidentId\":\"%s\",\"responderId\":\"%s\",\"responderStartLat\":\"34.19439\","
+            + "\"responderStartLong\":\"-77.81453\",\"incidentLat\":\"34.2176\",\"incidentLong\":\"-77.8589\","
+            + "\"destinationLat\":\"34.1706\",\"destinationLong\":\"-77.949\",\"processId\":\"38\"}";
+
+    private static final String ENVELOPE = "{\"id\":\"91cf5e82-8135-476d-ade4-5fe00dca2cc6\",\"messageType\":\"%s\","
+            + "\"invokingService\":\"IncidentProcessService\",\"timestamp\":1593363522344,\"body\":%s}";
+
+    private Payloads() {
+    }
+
+    static String command(String kind) {
+        switch (kind) {
+            case "create":
+                return create("mission", "incident", "responder");
+            case "create-body-first":
+                return "{\"body\":" + String.format(BODY, "mission", "incident", "responder")
+                        + ",\"messageType\":\"CreateMissionCommand\",\"id\":\"91cf5e82-8135-476d-ade4-5fe00dca2cc6\"}";
+            case "other-type":
+                return String.format(ENVELOPE, "IncidentReportedEvent",
+                        "{\"id\":\"incident\",\"lat\":34.2176,\"lon\":-77.8589,\"numberOfPeople\":3,\"medicalNeeded\":true,"
+                                + "\"victimName\":\"Jane Doe\",\"victimPhoneNumber\":\"(651) 555-0100\",\"status\":\"REPORTED\"}");
+            case "missing-data":
+                return String.format(ENVELOPE, "CreateMissionCommand", "{\"incidentId\":\"incident\",\"responderId\":\"responder\"}");
+            case "not-json":
+                return "Mission for incident at 34.2176,-77.8589";
+            default:
+                throw new IllegalArgumentException(kind);
+        }
+    }
+
+    static String create(String missionId, String incidentId, String responderId) {
+        return String.format(ENVELOPE, "CreateMissionCommand", String.format(BODY, missionId, incidentId, responderId));
+    }
+
+    static Mission mission(int steps) {
+        Mission mission = Mission.builder().id("8fb4b2a1-1f46-4e5d-a4e3-0d1e2c3b4a59")
+                .incidentId("3f3b7c1e-5e3a-4a8b-9a7e-1c2d3e4f5a6b").responderId("64")
+                .responderStartLocation(new BigDecimal("34.19439"), new BigDecimal("-77.81453"))
+                .incidentLocation(new BigDecimal("34.2176"), new BigDecimal("-77.8589"))
+                .destinationLocation(new BigDecimal("34.1706"), new BigDecimal("-77.949"))
+                .build();
+        mission.status(MissionStatus.CREATED);
+        for (int i = 0; i < steps; i++) {
+            mission.getSteps().add(MissionStep.builder(BigDecimal.valueOf(34.19439 + i * 0.0001), BigDecimal.valueOf(-77.81453 - i * 0.0001))
+                    .wayPoint(i == steps / 2).destination(i == steps - 1).build());
+        }
+        return mission;
+    }
+}
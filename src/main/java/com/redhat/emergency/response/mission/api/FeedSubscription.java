@@ -0,0 +1,116 @@
+package com.redhat.emergency.response.mission.api;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import com.redhat.emergency.response.mission.model.Mission;
+import com.redhat.emergency.response.mission.model.MissionKey;
+
+/**
+ * One consumer of the {@link MissionChangeFeed}: the changes waiting to be written to it, at most
+ * {@code capacity} missions.
+ * <p>
+ * The buffer holds the latest state per mission, so a mission that changes again before the
+ * consumer has read it replaces its buffered state in place instead of queueing behind it. A
+ * consumer that falls behind by more than {@code capacity} distinct missions is overflowed: its
+ * buffer is dropped and it receives nothing more, so it has to subscribe again and start over
+ * from a snapshot.
+ */
+final class FeedSubscription {
+
+    private final String incidentId;
+
+    private final String responderId;
+
+    private final int capacity;
+
+    private final Runnable signal;
+
+    private final Map<MissionKey, Mission> buffer = new LinkedHashMap<>();
+
+    private boolean overflowed;
+
+    private boolean closed;
+
+    /**
+     * @param incidentId only missions of this incident, or all when null
+     * @param responderId only missions of this responder, or all when null
+     * @param signal called, on the thread offering the change, when the buffer stops being empty
+     *            or the subscription overflows
+     */
+    FeedSubscription(String incidentId, String responderId, int capacity, Runnable signal) {
+        this.incidentId = incidentId;
+        this.responderId = responderId;
+        this.capacity = capacity;
+        this.signal = signal;
+    }
+
+    boolean matches(Mission mission) {
+        return (incidentId == null || incidentId.equals(mission.getIncidentId()))
+                && (responderId == null || responderId.equals(mission.getResponderId()));
+    }
+
+    /**
+     * Buffers the latest state of a mission. Returns false when the subscription is closed or
+     * overflowed by this change.
+     */
+    boolean offer(Mission mission) {
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            MissionKey key = mission.missionKey();
+            if (buffer.containsKey(key)) {
+                buffer.put(key, mission);
+                return true;
+            }
+            if (buffer.size() >= capacity) {
+                overflowed = true;
+                closed = true;
+                buffer.clear();
+            } else {
+                boolean wasEmpty = buffer.isEmpty();
+                buffer.put(key, mission);
+                if (!wasEmpty) {
+                    return true;
+                }
+            }
+        }
+        signal.run();
+        return !overflowed();
+    }
+
+    /**
+     * The oldest buffered mission, or null.
+     */
+    synchronized Mission poll() {
+        Iterator<Mission> missions = buffer.values().iterator();
+        if (!missions.hasNext()) {
+            return null;
+        }
+        Mission mission = missions.next();
+        missions.remove();
+        return mission;
+    }
+
+    synchronized int buffered() {
+        return buffer.size();
+    }
+
+    synchronized boolean overflowed() {
+        return overflowed;
+    }
+
+    synchronized void close() {
+        closed = true;
+        buffer.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "FeedSubscription[incidentId=" + Objects.toString(incidentId, "*") + ", responderId="
+                + Objects.toString(responderId, "*") + "]";
+    }
+}
@@ -0,0 +1,156 @@
+package com.redhat.emergency.response.mission.api;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.jboss.logging.Logger;
+
+import com.redhat.emergency.response.mission.model.Mission;
+import com.redhat.emergency.response.mission.model.MissionKey;
+import com.redhat.emergency.response.mission.repository.MissionListener;
+import com.redhat.emergency.response.mission.repository.MissionRepository;
+
+/**
+ * Fans mission changes out to the subscribers of the change stream, coalesced per mission.
+ * <p>
+ * Listening to the repository costs the writer one map put per change, and nothing while there
+ * are no subscribers: changes are only collected, latest state per mission, in a pending map.
+ * Every {@code mission.api.feed.window-ms} a single flusher thread hands the pending missions to
+ * each matching {@link FeedSubscription}, which coalesces them again until its consumer catches
+ * up. Writers never wait for subscribers and never hold more than one pending state per mission,
+ * and each subscriber holds at most {@code mission.api.feed.buffer-capacity} missions, so a slow
+ * consumer costs neither latency nor unbounded memory on the command path; it is dropped instead.
+ * <p>
+ * The feed is created, and starts listening, with its first subscription.
+ */
+@ApplicationScoped
+public class MissionChangeFeed implements MissionListener {
+
+    private static final Logger log = Logger.getLogger(MissionChangeFeed.class);
+
+    @ConfigProperty(name = "mission.api.feed.window-ms", defaultValue = "250")
+    long windowMs;
+
+    @ConfigProperty(name = "mission.api.feed.buffer-capacity", defaultValue = "1000")
+    int bufferCapacity;
+
+    @Inject
+    MissionRepository repository;
+
+    @Inject
+    MetricRegistry registry;
+
+    private final Map<MissionKey, Mission> pending = new ConcurrentHashMap<>();
+
+    private final Set<FeedSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    private final LongAdder overflowed = new LongAdder();
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    void init() {
+        repository.listen(this);
+        registry.register(Metadata.builder().withName("mission.feed.subscribers")
+                .withDescription("Open mission change streams").withType(MetricType.GAUGE).build(),
+                (Gauge<Integer>) subscriptions::size);
+        registry.register(Metadata.builder().withName("mission.feed.coalesced")
+                .withDescription("Mission changes superseded by a later change of the same mission within a window")
+                .withType(MetricType.GAUGE).build(),
+                (Gauge<Long>) coalesced::sum);
+        registry.register(Metadata.builder().withName("mission.feed.overflowed")
+                .withDescription("Mission change streams dropped because their consumer fell too far behind")
+                .withType(MetricType.GAUGE).build(),
+                (Gauge<Long>) overflowed::sum);
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "mission-change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("Unable to publish mission changes", e);
+            }
+        }, windowMs, windowMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void close() {
+        repository.unlisten(this);
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        subscriptions.forEach(FeedSubscription::close);
+        subscriptions.clear();
+    }
+
+    @Override
+    public void changed(Mission mission) {
+        if (!subscriptions.isEmpty() && pending.put(mission.missionKey(), mission) != null) {
+            coalesced.increment();
+        }
+    }
+
+    /**
+     * Subscribes to the changes of the missions of an incident and/or a responder, or of all
+     * missions when both are null; see {@link FeedSubscription}.
+     */
+    FeedSubscription subscribe(String incidentId, String responderId, Runnable signal) {
+        FeedSubscription subscription = new FeedSubscription(incidentId, responderId, bufferCapacity, signal);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    void unsubscribe(FeedSubscription subscription) {
+        subscriptions.remove(subscription);
+        subscription.close();
+    }
+
+    /**
+     * Hands the pending changes to the subscriptions they match, dropping overflowed ones.
+     */
+    void flush() {
+        for (MissionKey key : pending.keySet()) {
+            Mission mission = pending.remove(key);
+            if (mission == null) {
+                continue;
+            }
+            for (FeedSubscription subscription : subscriptions) {
+                if (subscription.matches(mission) && !subscription.offer(mission)) {
+                    subscriptions.remove(subscription);
+                    if (subscription.overflowed()) {
+                        overflowed.increment();
+                        log.warn("Mission change stream " + subscription + " fell more than " + bufferCapacity
+                                + " missions behind, closing it");
+                    }
+                }
+            }
+        }
+    }
+
+    int subscribers() {
+        return subscriptions.size();
+    }
+
+    long coalesced() {
+        return coalesced.sum();
+    }
+}
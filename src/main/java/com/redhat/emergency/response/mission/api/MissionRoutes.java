@@ -0,0 +1,226 @@
+package com.redhat.emergency.response.mission.api;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.redhat.emergency.response.mission.model.Mission;
+import com.redhat.emergency.response.mission.model.MissionKey;
+import com.redhat.emergency.response.mission.model.MissionStatus;
+import com.redhat.emergency.response.mission.repository.MissionRepository;
+import io.vertx.core.Context;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.Json;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * Read API over the {@link MissionRepository}, for dashboards.
+ * <ul>
+ * <li>{@code GET /missions?incidentId=&responderId=&status=&after=&limit=}: a page of the
+ * missions matching the given filters, at least one of them, in creation order, as
+ * {@code {"total":..,"limit":..,"next":..,"missions":[..]}}. {@code next} is the {@code after} of
+ * the following page, {@code null} on the last one.</li>
+ * <li>{@code GET /missions/{incidentId}/{responderId}}: one mission, live or archived.</li>
+ * <li>{@code GET /missions/stream?incidentId=&responderId=}: a server-sent event stream of the
+ * matching missions, all active missions without filters, as {@code snapshot} events, then a
+ * {@code ready} event, then a {@code mission} event with the latest state of each mission as it
+ * changes, see {@link MissionChangeFeed}. A consumer too slow to keep up receives an
+ * {@code overflow} event and the stream ends; it should reconnect.</li>
+ * </ul>
+ * Routes run on the event loop; the stream is written with the response's own backpressure, so
+ * the snapshot and buffered changes are only pulled as fast as the consumer reads them.
+ */
+@ApplicationScoped
+public class MissionRoutes {
+
+    private static final Comparator<Mission> CREATION_ORDER = Comparator.comparing(Mission::getId,
+            Comparator.nullsLast(Comparator.naturalOrder()));
+
+    @ConfigProperty(name = "mission.api.page.default-limit", defaultValue = "100")
+    int defaultLimit;
+
+    @ConfigProperty(name = "mission.api.page.max-limit", defaultValue = "1000")
+    int maxLimit;
+
+    @Inject
+    MissionRepository repository;
+
+    @Inject
+    MissionChangeFeed feed;
+
+    void routes(@Observes Router router) {
+        router.get("/missions").handler(this::find);
+        router.get("/missions/stream").handler(this::stream);
+        // archived missions are read from disk
+        router.get("/missions/:incidentId/:responderId").blockingHandler(this::get, false);
+    }
+
+    private void find(RoutingContext context) {
+        String incidentId = context.request().getParam("incidentId");
+        String responderId = context.request().getParam("responderId");
+        String after = context.request().getParam("after");
+        MissionStatus status;
+        int limit;
+        try {
+            String statusParam = context.request().getParam("status");
+            status = statusParam == null ? null : MissionStatus.valueOf(statusParam.toUpperCase());
+            limit = Math.min(intParam(context, "limit", defaultLimit), maxLimit);
+        } catch (IllegalArgumentException e) {
+            badRequest(context, e.getMessage());
+            return;
+        }
+        if (incidentId == null && responderId == null && status == null) {
+            badRequest(context, "One of incidentId, responderId or status is required");
+            return;
+        }
+
+        int total;
+        List<Mission> page;
+        if (incidentId == null && responderId == null) {
+            total = repository.count(status);
+            page = repository.findByStatus(status, after, limit);
+        } else {
+            List<Mission> missions = (incidentId != null ? repository.findByIncidentId(incidentId)
+                    : repository.findByResponderId(responderId)).stream()
+                    .filter(m -> responderId == null || responderId.equals(m.getResponderId()))
+                    .filter(m -> status == null || status.name().equals(m.getStatus()))
+                    .sorted(CREATION_ORDER).collect(Collectors.toList());
+            total = missions.size();
+            page = missions.stream().filter(m -> after == null || (m.getId() != null && m.getId().compareTo(after) > 0))
+                    .limit(limit).collect(Collectors.toList());
+        }
+        String next = page.size() < limit || page.isEmpty() ? null : page.get(page.size() - 1).getId();
+
+        StringBuilder body = new StringBuilder(256 + 1024 * page.size());
+        body.append("{\"total\":").append(total).append(",\"limit\":").append(limit)
+                .append(",\"next\":").append(next == null ? "null" : Json.encode(next)).append(",\"missions\":[");
+        for (int i = 0; i < page.size(); i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append(Json.encode(page.get(i)));
+        }
+        body.append("]}");
+        context.response().putHeader("Content-Type", "application/json").end(body.toString());
+    }
+
+    private void get(RoutingContext context) {
+        MissionKey key = MissionKey.of(context.pathParam("incidentId"), context.pathParam("responderId"));
+        Optional<Mission> mission = repository.get(key).or(() -> repository.findArchived(key));
+        if (mission.isEmpty()) {
+            context.response().setStatusCode(404).end();
+            return;
+        }
+        context.response().putHeader("Content-Type", "application/json").end(Json.encode(mission.get()));
+    }
+
+    private void stream(RoutingContext context) {
+        String incidentId = context.request().getParam("incidentId");
+        String responderId = context.request().getParam("responderId");
+        HttpServerResponse response = context.response();
+        response.setChunked(true).putHeader("Content-Type", "text/event-stream").putHeader("Cache-Control", "no-cache");
+
+        EventStream stream = new EventStream(response);
+        Context eventLoop = context.vertx().getOrCreateContext();
+        // subscribe before taking the snapshot so that no change falls in between
+        stream.subscription = feed.subscribe(incidentId, responderId, () -> eventLoop.runOnContext(v -> stream.drain()));
+        stream.snapshot = snapshot(incidentId, responderId).iterator();
+        response.closeHandler(v -> feed.unsubscribe(stream.subscription));
+        stream.drain();
+    }
+
+    private List<Mission> snapshot(String incidentId, String responderId) {
+        if (incidentId == null && responderId == null) {
+            List<Mission> active = new ArrayList<>(repository.findByStatus(MissionStatus.CREATED));
+            active.addAll(repository.findByStatus(MissionStatus.UPDATED));
+            return active;
+        }
+        Stream<Mission> missions = (incidentId != null ? repository.findByIncidentId(incidentId)
+                : repository.findByResponderId(responderId)).stream();
+        return missions.filter(m -> responderId == null || responderId.equals(m.getResponderId()))
+                .sorted(CREATION_ORDER).collect(Collectors.toList());
+    }
+
+    private static int intParam(RoutingContext context, String name, int defaultValue) {
+        String value = context.request().getParam(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        int parsed;
+        try {
+            parsed = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+        if (parsed < 0) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+        return parsed;
+    }
+
+    private static void badRequest(RoutingContext context, String message) {
+        context.response().setStatusCode(400).putHeader("Content-Type", "text/plain").end(message);
+    }
+
+    /**
+     * One open stream, only touched on its connection's event loop.
+     */
+    private static final class EventStream {
+
+        private final HttpServerResponse response;
+
+        private FeedSubscription subscription;
+
+        private Iterator<Mission> snapshot;
+
+        private boolean ready;
+
+        private boolean ended;
+
+        EventStream(HttpServerResponse response) {
+            this.response = response;
+        }
+
+        /**
+         * Writes the rest of the snapshot, then buffered changes, until the response's write
+         * queue is full, in which case it continues once the queue drains.
+         */
+        void drain() {
+            while (!ended && !response.closed()) {
+                if (response.writeQueueFull()) {
+                    response.drainHandler(v -> drain());
+                    return;
+                }
+                if (snapshot.hasNext()) {
+                    write("snapshot", snapshot.next());
+                } else if (!ready) {
+                    ready = true;
+                    response.write("event: ready\ndata: {}\n\n");
+                } else if (subscription.overflowed()) {
+                    ended = true;
+                    response.end("event: overflow\ndata: {}\n\n");
+                } else {
+                    Mission mission = subscription.poll();
+                    if (mission == null) {
+                        return;
+                    }
+                    write("mission", mission);
+                }
+            }
+        }
+
+        private void write(String event, Mission mission) {
+            response.write("event: " + event + "\nid: " + mission.getId() + "\ndata: " + Json.encode(mission) + "\n\n");
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.redhat.emergency.response.mission.map;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.redhat.emergency.response.mission.map.graph.LandmarkRouter;
+
+/**
+ * Road travel times and distances from every origin to every destination.
+ * <p>
+ * The matrix is computed with one search per distinct road node on the smaller side: forward
+ * searches from the origins when there are fewer of them, otherwise searches of the reverse graph
+ * from the destinations. Each search settles the nodes it needs and stops, and the searches run in
+ * parallel on a fork-join pool. Locations that snap to the same road node share a search.
+ */
+public final class DistanceMatrix {
+
+    private final int origins;
+
+    private final int destinations;
+
+    private final int[] travelTimeMs;
+
+    private final float[] meters;
+
+    private DistanceMatrix(int origins, int destinations) {
+        this.origins = origins;
+        this.destinations = destinations;
+        this.travelTimeMs = new int[origins * destinations];
+        this.meters = new float[origins * destinations];
+        Arrays.fill(travelTimeMs, LandmarkRouter.UNREACHABLE);
+        Arrays.fill(meters, Float.NaN);
+    }
+
+    static DistanceMatrix unreachable(int origins, int destinations) {
+        return new DistanceMatrix(origins, destinations);
+    }
+
+    /**
+     * Computes the matrix between the given road nodes; a negative node is a location that could
+     * not be placed on the road network and has no route.
+     */
+    static DistanceMatrix compute(LandmarkRouter router, int[] originNodes, int[] destinationNodes, ForkJoinPool pool) {
+        DistanceMatrix matrix = new DistanceMatrix(originNodes.length, destinationNodes.length);
+        int[] sources = distinct(originNodes);
+        int[] targets = distinct(destinationNodes);
+        if (sources.length == 0 || targets.length == 0) {
+            return matrix;
+        }
+        boolean forward = sources.length <= targets.length;
+        int[] roots = forward ? sources : targets;
+        int[] others = forward ? targets : sources;
+        int[][] times = new int[roots.length][others.length];
+        float[][] lengths = new float[roots.length][others.length];
+        pool.invoke(new Searches(router, roots, others, forward, times, lengths, 0, roots.length));
+        for (int i = 0; i < originNodes.length; i++) {
+            if (originNodes[i] < 0) {
+                continue;
+            }
+            int source = Arrays.binarySearch(sources, originNodes[i]);
+            for (int j = 0; j < destinationNodes.length; j++) {
+                if (destinationNodes[j] < 0) {
+                    continue;
+                }
+                int target = Arrays.binarySearch(targets, destinationNodes[j]);
+                int root = forward ? source : target;
+                int other = forward ? target : source;
+                matrix.travelTimeMs[i * matrix.destinations + j] = times[root][other];
+                matrix.meters[i * matrix.destinations + j] = lengths[root][other];
+            }
+        }
+        return matrix;
+    }
+
+    public int origins() {
+        return origins;
+    }
+
+    public int destinations() {
+        return destinations;
+    }
+
+    public boolean isReachable(int origin, int destination) {
+        return travelTimeMs[index(origin, destination)] != LandmarkRouter.UNREACHABLE;
+    }
+
+    /**
+     * Travel time from the origin to the destination, or {@code -1} if there is no route.
+     */
+    public long travelTimeMs(int origin, int destination) {
+        int time = travelTimeMs[index(origin, destination)];
+        return time == LandmarkRouter.UNREACHABLE ? -1 : time;
+    }
+
+    /**
+     * Road distance from the origin to the destination, or {@code NaN} if there is no route.
+     */
+    public double meters(int origin, int destination) {
+        return meters[index(origin, destination)];
+    }
+
+    private int index(int origin, int destination) {
+        if (origin < 0 || origin >= origins || destination < 0 || destination >= destinations) {
+            throw new IndexOutOfBoundsException("Cell " + origin + "," + destination + " of a " + origins + "x" + destinations + " matrix");
+        }
+        return origin * destinations + destination;
+    }
+
+    private static int[] distinct(int[] nodes) {
+        return Arrays.stream(nodes).filter(n -> n >= 0).sorted().distinct().toArray();
+    }
+
+    /**
+     * Runs the searches of a range of roots, splitting the range until one search is left per task.
+     */
+    private static final class Searches extends RecursiveAction {
+
+        private final LandmarkRouter router;
+
+        private final int[] roots;
+
+        private final int[] targets;
+
+        private final boolean forward;
+
+        private final int[][] times;
+
+        private final float[][] lengths;
+
+        private final int from;
+
+        private final int to;
+
+        Searches(LandmarkRouter router, int[] roots, int[] targets, boolean forward, int[][] times, float[][] lengths, int from, int to) {
+            this.router = router;
+            this.roots = roots;
+            this.targets = targets;
+            this.forward = forward;
+            this.times = times;
+            this.lengths = lengths;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                router.oneToMany(roots[from], targets, forward, times[from], lengths[from]);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Searches(router, roots, targets, forward, times, lengths, from, middle),
+                    new Searches(router, roots, targets, forward, times, lengths, middle, to));
+        }
+    }
+}
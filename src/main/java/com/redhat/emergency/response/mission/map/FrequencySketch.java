@@ -0,0 +1,67 @@
+package com.redhat.emergency.response.mission.map;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Count-min sketch estimating how often a key was requested, used as the TinyLFU admission
+ * filter of the {@link RouteCache}. Counters are halved every {@code 10 * capacity} increments,
+ * so the estimate follows recent popularity instead of all-time totals.
+ * <p>
+ * Increments come from any thread without a lock. The thread that moves the count of increments
+ * back below the sample size halves the counters, so one sample is only aged once.
+ */
+final class FrequencySketch {
+
+    private static final int DEPTH = 4;
+
+    private static final int[] SEEDS = { 0x97cb3127, 0xab7c3e25, 0x3ae2fd3b, 0xd4e1d66b };
+
+    private final AtomicIntegerArray counters;
+
+    private final int mask;
+
+    private final int sampleSize;
+
+    private final AtomicInteger additions = new AtomicInteger();
+
+    FrequencySketch(int capacity) {
+        int width = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1;
+        this.counters = new AtomicIntegerArray(DEPTH * width);
+        this.mask = width - 1;
+        this.sampleSize = 10 * Math.max(16, capacity);
+    }
+
+    void increment(int hash) {
+        for (int i = 0; i < DEPTH; i++) {
+            int index = index(hash, i);
+            if (counters.get(index) < Integer.MAX_VALUE) {
+                counters.incrementAndGet(index);
+            }
+        }
+        int added = additions.incrementAndGet();
+        if (added >= sampleSize && additions.compareAndSet(added, added - sampleSize)) {
+            reset();
+        }
+    }
+
+    int frequency(int hash) {
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            frequency = Math.min(frequency, counters.get(index(hash, i)));
+        }
+        return frequency;
+    }
+
+    private void reset() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, counters.get(i) >>> 1);
+        }
+    }
+
+    private int index(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+        h ^= h >>> 16;
+        return row * (mask + 1) + (h & mask);
+    }
+}
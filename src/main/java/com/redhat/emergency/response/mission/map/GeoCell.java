@@ -0,0 +1,41 @@
+package com.redhat.emergency.response.mission.map;
+
+/**
+ * Snaps coordinates to a geohash-style grid. A precision of {@code p} characters gives the same
+ * cell size as a geohash of length {@code p} ({@code 5p} bits, split between longitude and
+ * latitude), but the cell is returned as a packed {@code long} instead of a base-32 string.
+ */
+final class GeoCell {
+
+    static final int MAX_PRECISION = 12;
+
+    private final int latBits;
+
+    private final int lonBits;
+
+    private final double latCells;
+
+    private final double lonCells;
+
+    GeoCell(int precision) {
+        if (precision < 1 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Geohash precision must be between 1 and " + MAX_PRECISION + ": " + precision);
+        }
+        int bits = 5 * precision;
+        this.lonBits = (bits + 1) / 2;
+        this.latBits = bits / 2;
+        this.latCells = 1L << latBits;
+        this.lonCells = 1L << lonBits;
+    }
+
+    long cell(double lat, double lon) {
+        long row = quantize((lat + 90) / 180, latCells);
+        long column = quantize((lon + 180) / 360, lonCells);
+        return row << lonBits | column;
+    }
+
+    private static long quantize(double fraction, double cells) {
+        long index = (long) (fraction * cells);
+        return Math.max(0, Math.min((long) cells - 1, index));
+    }
+}
@@ -0,0 +1,280 @@
+package com.redhat.emergency.response.mission.map;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.logging.Logger;
+
+import com.redhat.emergency.response.mission.model.Location;
+import com.redhat.emergency.response.mission.model.MissionStep;
+import io.smallrye.mutiny.Uni;
+
+/**
+ * Bounded concurrency and a time budget around {@link RoutePlanner#getDirections}.
+ * <p>
+ * At most {@code maxConcurrent} lookups run at once, on threads of their own, and at most
+ * {@code maxQueued} more wait for one of them; any lookup beyond that is rejected straight away.
+ * A lookup that is rejected, fails or is still running after {@code timeoutMs} is answered with
+ * {@link RoutePlanner#straightLine} and flagged with the reason. A late lookup keeps running and
+ * its result is handed out as the route's {@link Route#refinement()}.
+ * <p>
+ * With {@code timeoutMs} of 0 every lookup is waited for.
+ * <p>
+ * Where lookups run is the {@link Execution} mode: on a pool of {@code maxConcurrent} platform
+ * threads with a bounded queue, on virtual threads limited the same way, or on the caller's
+ * thread, which is also what a {@code maxConcurrent} of 0 means. Offloaded lookups report how
+ * long they waited for a thread and how long they then took to the {@link Timings}, so a
+ * saturated planner can be told apart from a slow one.
+ */
+public final class RouteBulkhead {
+
+    private static final Logger log = Logger.getLogger(RouteBulkhead.class);
+
+    /**
+     * Why a route is a straight-line stand-in.
+     */
+    public enum Fallback {
+        TIMEOUT, REJECTED, FAILED
+    }
+
+    /**
+     * Where lookups run.
+     */
+    public enum Execution {
+        /**
+         * On the thread that asks for the route, without a limit.
+         */
+        CALLER,
+        /**
+         * On a dedicated pool of platform threads with a bounded queue.
+         */
+        POOL,
+        /**
+         * On a virtual thread per lookup with the same limits as {@link #POOL}; falls back to
+         * {@link #POOL} on JDKs without virtual threads.
+         */
+        VIRTUAL
+    }
+
+    /**
+     * Receives the timings of offloaded lookups, in nanoseconds.
+     */
+    public interface Timings {
+
+        Timings NONE = new Timings() {
+            @Override
+            public void routeQueued(long nanos) {
+            }
+
+            @Override
+            public void routeComputed(long nanos) {
+            }
+        };
+
+        /**
+         * Time from the lookup being submitted to it starting on a thread.
+         */
+        void routeQueued(long nanos);
+
+        /**
+         * Time from the lookup starting on a thread to the planner answering.
+         */
+        void routeComputed(long nanos);
+    }
+
+    private final RoutePlanner planner;
+
+    private final Execution execution;
+
+    private final ThreadPoolExecutor pool;
+
+    private final VirtualThreadExecutor virtual;
+
+    private final Duration timeout;
+
+    private final Timings timings;
+
+    public RouteBulkhead(RoutePlanner planner, int maxConcurrent, int maxQueued, long timeoutMs) {
+        this(planner, Execution.POOL, maxConcurrent, maxQueued, timeoutMs, Timings.NONE);
+    }
+
+    public RouteBulkhead(RoutePlanner planner, Execution execution, int maxConcurrent, int maxQueued, long timeoutMs,
+            Timings timings) {
+        this.planner = planner;
+        this.timeout = timeoutMs > 0 ? Duration.ofMillis(timeoutMs) : null;
+        this.timings = timings;
+        if (maxConcurrent <= 0) {
+            execution = Execution.CALLER;
+        }
+        VirtualThreadExecutor virtual = null;
+        if (execution == Execution.VIRTUAL) {
+            virtual = VirtualThreadExecutor.create("mission-routing-virtual-", maxConcurrent, Math.max(0, maxQueued));
+            if (virtual == null) {
+                log.warn("Virtual threads are not available on this JDK, route lookups run on a thread pool");
+                execution = Execution.POOL;
+            }
+        }
+        this.virtual = virtual;
+        if (execution == Execution.POOL) {
+            BlockingQueue<Runnable> queue = maxQueued > 0 ? new ArrayBlockingQueue<>(maxQueued) : new SynchronousQueue<>();
+            AtomicInteger threads = new AtomicInteger();
+            pool = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS, queue, r -> {
+                Thread thread = new Thread(r, "mission-routing-" + threads.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+            pool.allowCoreThreadTimeOut(true);
+        } else {
+            pool = null;
+        }
+        this.execution = execution;
+    }
+
+    /**
+     * The mode lookups actually run in.
+     */
+    public Execution execution() {
+        return execution;
+    }
+
+    /**
+     * Lookups waiting for a thread.
+     */
+    public int queued() {
+        if (pool != null) {
+            return pool.getQueue().size();
+        }
+        return virtual != null ? virtual.queued() : 0;
+    }
+
+    public Uni<Route> getDirections(Location origin, Location destination, Location waypoint) {
+        return Uni.createFrom().deferred(() -> {
+            CompletableFuture<List<MissionStep>> routed = new CompletableFuture<>();
+            if (execution == Execution.CALLER) {
+                lookup(origin, destination, waypoint, routed, 0);
+            } else {
+                long submitted = System.nanoTime();
+                Runnable lookup = () -> {
+                    long started = System.nanoTime();
+                    timings.routeQueued(started - submitted);
+                    lookup(origin, destination, waypoint, routed, started);
+                };
+                try {
+                    if (pool != null) {
+                        pool.execute(lookup);
+                    } else {
+                        virtual.execute(lookup);
+                    }
+                } catch (RejectedExecutionException e) {
+                    return Uni.createFrom().item(() -> fallback(origin, destination, waypoint, Fallback.REJECTED, null));
+                }
+            }
+            // The timeout cancels the stage it waits on, so it waits on a dependent stage and the
+            // lookup itself stays available as the refinement.
+            Uni<Route> route = Uni.createFrom().completionStage(routed.thenApply(Route::new));
+            if (timeout != null) {
+                route = route.ifNoItem().after(timeout)
+                        .recoverWithItem(() -> fallback(origin, destination, waypoint, Fallback.TIMEOUT, routed));
+            }
+            return route.onFailure().recoverWithItem(failure -> {
+                log.warn("Route lookup failed, using a straight line", failure);
+                return fallback(origin, destination, waypoint, Fallback.FAILED, null);
+            });
+        });
+    }
+
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+        if (virtual != null) {
+            virtual.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the planner into {@code routed}. The compute time of an offloaded lookup, started at
+     * {@code startedNanos}, is reported before the route is handed on.
+     */
+    private void lookup(Location origin, Location destination, Location waypoint, CompletableFuture<List<MissionStep>> routed,
+            long startedNanos) {
+        try {
+            planner.getDirections(origin, destination, waypoint).subscribe().with(steps -> {
+                computed(startedNanos);
+                routed.complete(steps);
+            }, failure -> {
+                computed(startedNanos);
+                routed.completeExceptionally(failure);
+            });
+        } catch (RuntimeException e) {
+            computed(startedNanos);
+            routed.completeExceptionally(e);
+        }
+    }
+
+    private void computed(long startedNanos) {
+        if (execution != Execution.CALLER) {
+            timings.routeComputed(System.nanoTime() - startedNanos);
+        }
+    }
+
+    private static Route fallback(Location origin, Location destination, Location waypoint, Fallback reason,
+            CompletionStage<List<MissionStep>> refinement) {
+        return new Route(RoutePlanner.straightLine(origin, destination, waypoint), reason, refinement);
+    }
+
+    /**
+     * Outcome of a lookup: the steps to use now and, for a degraded route that may still be
+     * replaced, the pending real route.
+     */
+    public static final class Route {
+
+        private final List<MissionStep> steps;
+
+        private final Fallback fallback;
+
+        private final CompletionStage<List<MissionStep>> refinement;
+
+        Route(List<MissionStep> steps) {
+            this(steps, null, null);
+        }
+
+        Route(List<MissionStep> steps, Fallback fallback, CompletionStage<List<MissionStep>> refinement) {
+            this.steps = steps;
+            this.fallback = fallback;
+            this.refinement = refinement;
+        }
+
+        public List<MissionStep> steps() {
+            return steps;
+        }
+
+        public boolean isDegraded() {
+            return fallback != null;
+        }
+
+        /**
+         * Why the route is degraded, or null.
+         */
+        public Fallback fallback() {
+            return fallback;
+        }
+
+        /**
+         * Completes with the real route of a lookup that ran out of time, or null when there is
+         * nothing to wait for.
+         */
+        public CompletionStage<List<MissionStep>> refinement() {
+            return refinement;
+        }
+    }
+}
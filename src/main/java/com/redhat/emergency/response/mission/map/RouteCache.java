@@ -0,0 +1,199 @@
+package com.redhat.emergency.response.mission.map;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.redhat.emergency.response.mission.model.Location;
+import com.redhat.emergency.response.mission.model.MissionStep;
+import io.smallrye.mutiny.Uni;
+
+/**
+ * Size-bounded cache of computed routes keyed on grid-snapped origin, waypoint and destination.
+ * <p>
+ * Lookups are lock-free. Misses for the same key while a route is being computed share a single
+ * in-flight computation. When the cache is full, a newly computed route is only admitted if the
+ * {@link FrequencySketch} has seen its key more often than a victim picked by sampling a few
+ * resident entries (TinyLFU), so one-off routes cannot flush popular ones.
+ */
+public class RouteCache {
+
+    private static final int EVICTION_SAMPLES = 8;
+
+    private final GeoCell grid;
+
+    private final int maximumSize;
+
+    private final FrequencySketch sketch;
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Key, CompletableFuture<List<MissionStep>>> inFlight = new ConcurrentHashMap<>();
+
+    private final Entry[] slots;
+
+    private int occupied;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder rejections = new LongAdder();
+
+    public RouteCache(int precision, int maximumSize) {
+        this.grid = new GeoCell(precision);
+        this.maximumSize = maximumSize;
+        this.sketch = new FrequencySketch(maximumSize);
+        this.slots = new Entry[maximumSize];
+    }
+
+    public Uni<List<MissionStep>> get(Location origin, Location destination, Location waypoint, Supplier<Uni<List<MissionStep>>> loader) {
+        return Uni.createFrom().deferred(() -> {
+            Key key = new Key(cell(origin), cell(waypoint), cell(destination));
+            sketch.increment(key.hash);
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits.increment();
+                return Uni.createFrom().item(entry.steps);
+            }
+            CompletableFuture<List<MissionStep>> future = new CompletableFuture<>();
+            CompletableFuture<List<MissionStep>> existing = inFlight.putIfAbsent(key, future);
+            if (existing != null) {
+                coalesced.increment();
+                return Uni.createFrom().completionStage(existing);
+            }
+            misses.increment();
+            loader.get().subscribe().with(steps -> {
+                List<MissionStep> cached = Collections.unmodifiableList(steps);
+                admit(key, cached);
+                inFlight.remove(key, future);
+                future.complete(cached);
+            }, failure -> {
+                inFlight.remove(key, future);
+                future.completeExceptionally(failure);
+            });
+            return Uni.createFrom().completionStage(future);
+        });
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public long rejections() {
+        return rejections.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private synchronized void admit(Key key, List<MissionStep> steps) {
+        if (entries.containsKey(key) || maximumSize <= 0) {
+            return;
+        }
+        if (occupied == maximumSize) {
+            Entry victim = sampleVictim();
+            if (sketch.frequency(key.hash) <= sketch.frequency(victim.key.hash)) {
+                rejections.increment();
+                return;
+            }
+            entries.remove(victim.key);
+            Entry last = slots[--occupied];
+            slots[victim.slot] = last;
+            last.slot = victim.slot;
+            slots[occupied] = null;
+            evictions.increment();
+        }
+        Entry entry = new Entry(key, steps, occupied);
+        slots[occupied++] = entry;
+        entries.put(key, entry);
+    }
+
+    private Entry sampleVictim() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Entry victim = null;
+        int victimFrequency = Integer.MAX_VALUE;
+        for (int i = 0; i < EVICTION_SAMPLES; i++) {
+            Entry candidate = slots[random.nextInt(occupied)];
+            int frequency = sketch.frequency(candidate.key.hash);
+            if (frequency < victimFrequency) {
+                victim = candidate;
+                victimFrequency = frequency;
+            }
+        }
+        return victim;
+    }
+
+    private long cell(Location location) {
+        return grid.cell(location.latitude(), location.longitude());
+    }
+
+    private static final class Key {
+
+        private final long origin;
+
+        private final long waypoint;
+
+        private final long destination;
+
+        private final int hash;
+
+        private Key(long origin, long waypoint, long destination) {
+            this.origin = origin;
+            this.waypoint = waypoint;
+            this.destination = destination;
+            long h = origin * 0x9e3779b97f4a7c15L + waypoint;
+            h = h * 0x9e3779b97f4a7c15L + destination;
+            this.hash = (int) (h ^ (h >>> 32));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return origin == key.origin && waypoint == key.waypoint && destination == key.destination;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+
+        private final Key key;
+
+        private final List<MissionStep> steps;
+
+        private int slot;
+
+        private Entry(Key key, List<MissionStep> steps, int slot) {
+            this.key = key;
+            this.steps = steps;
+            this.slot = slot;
+        }
+    }
+}
@@ -1,19 +1,192 @@
 package com.redhat.emergency.response.mission.map;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Supplier;
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.jboss.logging.Logger;
+
+import com.redhat.emergency.response.mission.map.graph.LandmarkRouter;
+import com.redhat.emergency.response.mission.map.graph.RoadNetwork;
+import com.redhat.emergency.response.mission.map.graph.RoadNetworkLoader;
 import com.redhat.emergency.response.mission.model.Location;
 import com.redhat.emergency.response.mission.model.MissionStep;
+import com.redhat.emergency.response.mission.model.RouteSimplifier;
+import io.quarkus.runtime.StartupEvent;
 import io.smallrye.mutiny.Uni;
 
 @ApplicationScoped
 public class RoutePlanner {
 
+    private static final Logger log = Logger.getLogger(RoutePlanner.class);
+
+    @ConfigProperty(name = "mission.routing.graph.file")
+    Optional<String> graphFile;
+
+    @ConfigProperty(name = "mission.routing.landmarks", defaultValue = "8")
+    int landmarks;
+
+    /**
+     * Steps within this distance of the simplified route are dropped before a route is cached and
+     * stored; 0 keeps every road node.
+     */
+    @ConfigProperty(name = "mission.routing.simplify.tolerance-meters", defaultValue = "0")
+    double simplifyToleranceMeters;
+
+    @ConfigProperty(name = "mission.routing.cache.enabled", defaultValue = "true")
+    boolean cacheEnabled;
+
+    @ConfigProperty(name = "mission.routing.cache.precision", defaultValue = "7")
+    int cachePrecision;
+
+    @ConfigProperty(name = "mission.routing.cache.maximum-size", defaultValue = "10000")
+    int cacheMaximumSize;
+
+    /**
+     * Threads computing distance matrices; 0 uses one per available processor.
+     */
+    @ConfigProperty(name = "mission.routing.matrix.parallelism", defaultValue = "0")
+    int matrixParallelism;
+
+    @Inject
+    MetricRegistry metrics;
+
+    volatile LandmarkRouter router;
+
+    volatile RouteCache cache;
+
+    volatile ForkJoinPool matrixPool;
+
+    void onStart(@Observes StartupEvent event) throws IOException {
+        if (graphFile.isPresent()) {
+            long start = System.nanoTime();
+            RoadNetwork network = RoadNetworkLoader.load(Paths.get(graphFile.get()));
+            router = new LandmarkRouter(network, landmarks);
+            log.info("Loaded road network '" + graphFile.get() + "' with " + network.nodeCount() + " nodes and "
+                    + network.edgeCount() + " edges in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } else {
+            log.warn("No road network configured (mission.routing.graph.file), missions are created without directions");
+        }
+        int parallelism = matrixParallelism > 0 ? matrixParallelism : Runtime.getRuntime().availableProcessors();
+        matrixPool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("mission-routing-matrix-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+        if (cacheEnabled) {
+            RouteCache cache = new RouteCache(cachePrecision, cacheMaximumSize);
+            register("mission.routing.cache.hits", "Route lookups answered from the cache", cache::hits);
+            register("mission.routing.cache.misses", "Route lookups that computed a route", cache::misses);
+            register("mission.routing.cache.coalesced", "Route lookups that joined an identical in-flight computation", cache::coalesced);
+            register("mission.routing.cache.evictions", "Routes evicted to admit a more frequent one", cache::evictions);
+            register("mission.routing.cache.rejections", "Computed routes not admitted because they were less frequent than the eviction victim", cache::rejections);
+            register("mission.routing.cache.size", "Routes currently cached", () -> (long) cache.size());
+            this.cache = cache;
+        }
+    }
+
     public Uni<List<MissionStep>> getDirections(Location origin, Location destination, Location waypoint) {
+        LandmarkRouter router = this.router;
+        if (router == null) {
+            return Uni.createFrom().item(Collections::emptyList);
+        }
+        Uni<List<MissionStep>> directions = Uni.createFrom().item(() -> directions(router, origin, destination, waypoint));
+        RouteCache cache = this.cache;
+        return cache == null ? directions : cache.get(origin, destination, waypoint, () -> directions);
+    }
+
+    /**
+     * Stand-in route for when directions are not available in time: from the origin straight to
+     * the waypoint and on to the destination.
+     */
+    public static List<MissionStep> straightLine(Location origin, Location destination, Location waypoint) {
+        return List.of(MissionStep.builder(origin).build(),
+                MissionStep.builder(waypoint).wayPoint(true).build(),
+                MissionStep.builder(destination).destination(true).build());
+    }
+
+    /**
+     * Travel times and road distances from every origin to every destination, computed as one
+     * batch rather than a route per pair; see {@link DistanceMatrix}. Without a road network every
+     * pair is unreachable.
+     */
+    public Uni<DistanceMatrix> getDistanceMatrix(List<Location> origins, List<Location> destinations) {
+        LandmarkRouter router = this.router;
+        if (router == null) {
+            return Uni.createFrom().item(() -> DistanceMatrix.unreachable(origins.size(), destinations.size()));
+        }
+        ForkJoinPool pool = matrixPool != null ? matrixPool : ForkJoinPool.commonPool();
+        return Uni.createFrom().item(() -> DistanceMatrix.compute(router, nearestNodes(router, origins), nearestNodes(router, destinations), pool))
+                .runSubscriptionOn(pool);
+    }
+
+    private static int[] nearestNodes(LandmarkRouter router, List<Location> locations) {
+        int[] nodes = new int[locations.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            Location location = locations.get(i);
+            boolean missing = Double.isNaN(location.latitude()) || Double.isNaN(location.longitude());
+            nodes[i] = missing ? -1 : nearestNode(router, location);
+        }
+        return nodes;
+    }
+
+    private void register(String name, String description, Supplier<Long> value) {
+        metrics.register(Metadata.builder().withName(name).withDescription(description).withType(MetricType.GAUGE).build(),
+                (Gauge<Long>) value::get);
+    }
+
+    private List<MissionStep> directions(LandmarkRouter router, Location origin, Location destination, Location waypoint) {
+        int from = nearestNode(router, origin);
+        int via = nearestNode(router, waypoint);
+        int to = nearestNode(router, destination);
+        if (from < 0) {
+            return Collections.emptyList();
+        }
+        LandmarkRouter.Path toWaypoint = router.route(from, via);
+        LandmarkRouter.Path toDestination = toWaypoint == null ? null : router.route(via, to);
+        if (toDestination == null) {
+            log.warn("No route found from " + describe(origin) + " via " + describe(waypoint) + " to " + describe(destination));
+            return Collections.emptyList();
+        }
+        List<MissionStep> steps = new ArrayList<>(toWaypoint.nodes().length + toDestination.nodes().length);
+        addLeg(router.network(), toWaypoint.nodes(), 0, steps);
+        steps.add(MissionStep.builder(waypoint).wayPoint(true).build());
+        addLeg(router.network(), toDestination.nodes(), 1, steps);
+        steps.add(MissionStep.builder(destination).destination(true).build());
+        return RouteSimplifier.simplify(steps, simplifyToleranceMeters);
+    }
+
+    /**
+     * Adds the nodes of a leg except the last one, which is replaced by the exact waypoint or
+     * destination coordinate rather than the road node it was snapped to.
+     */
+    private static void addLeg(RoadNetwork network, int[] nodes, int from, List<MissionStep> steps) {
+        for (int i = from; i < nodes.length - 1; i++) {
+            steps.add(MissionStep.builder(network.latitude(nodes[i]), network.longitude(nodes[i])).build());
+        }
+    }
+
+    private static int nearestNode(LandmarkRouter router, Location location) {
+        return router.nearestNode(location.latitude(), location.longitude());
+    }
 
-        return Uni.createFrom().item(Collections::emptyList);
+    private static String describe(Location location) {
+        return "[" + location.getLatitude() + "," + location.getLongitude() + "]";
     }
 
 }
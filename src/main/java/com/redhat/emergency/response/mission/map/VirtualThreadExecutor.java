@@ -0,0 +1,99 @@
+package com.redhat.emergency.response.mission.map;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+import org.jboss.logging.Logger;
+
+/**
+ * Runs each task on a virtual thread of its own, at most {@code maxConcurrent} at once and at most
+ * {@code maxQueued} more waiting, in arrival order, for a permit; further tasks are rejected like
+ * by a full thread pool. Waiting tasks park their virtual thread, which costs a few hundred bytes
+ * instead of a platform thread.
+ * <p>
+ * Virtual threads are looked up reflectively so the service still builds and runs on JDKs
+ * without them; {@link #create} returns null there.
+ */
+final class VirtualThreadExecutor implements Executor {
+
+    private static final Logger log = Logger.getLogger(VirtualThreadExecutor.class);
+
+    private final ThreadFactory factory;
+
+    private final Semaphore admitted;
+
+    private final Semaphore running;
+
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean shutdown;
+
+    private VirtualThreadExecutor(ThreadFactory factory, int maxConcurrent, int maxQueued) {
+        this.factory = factory;
+        this.admitted = new Semaphore(maxConcurrent + maxQueued);
+        this.running = new Semaphore(maxConcurrent, true);
+    }
+
+    /**
+     * A virtual thread executor, or null when the JDK has no virtual threads.
+     */
+    static VirtualThreadExecutor create(String name, int maxConcurrent, int maxQueued) {
+        ThreadFactory factory = factory(name);
+        return factory == null ? null : new VirtualThreadExecutor(factory, maxConcurrent, maxQueued);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (shutdown || !admitted.tryAcquire()) {
+            throw new RejectedExecutionException("Too many route lookups");
+        }
+        Thread thread = factory.newThread(() -> {
+            try {
+                running.acquire();
+                try {
+                    task.run();
+                } finally {
+                    running.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                admitted.release();
+                threads.remove(Thread.currentThread());
+            }
+        });
+        threads.add(thread);
+        thread.start();
+    }
+
+    /**
+     * Tasks admitted and waiting for a permit.
+     */
+    int queued() {
+        return Math.max(0, running.getQueueLength());
+    }
+
+    void shutdownNow() {
+        shutdown = true;
+        threads.forEach(Thread::interrupt);
+    }
+
+    /**
+     * {@code Thread.ofVirtual().name(name, 0).factory()}, when available.
+     */
+    private static ThreadFactory factory(String name) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, name, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Virtual threads are not available", e);
+            return null;
+        }
+    }
+}
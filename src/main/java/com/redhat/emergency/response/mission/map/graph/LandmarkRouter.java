@@ -0,0 +1,286 @@
+package com.redhat.emergency.response.mission.map.graph;
+
+import java.util.Arrays;
+
+/**
+ * Shortest travel-time routing with A*, landmarks and the triangle inequality (ALT).
+ * <p>
+ * Preprocessing picks landmarks with the farthest-node heuristic and stores exact travel times
+ * from and to each of them. At query time the few landmarks giving the tightest bound between
+ * source and target provide a consistent potential, so A* settles a fraction of the nodes plain
+ * Dijkstra would. The router is thread-safe; every thread searches in its own {@link SearchSpace}.
+ */
+public final class LandmarkRouter {
+
+    /**
+     * Travel time reported for targets that cannot be reached.
+     */
+    public static final int UNREACHABLE = SearchSpace.INFINITY;
+
+    private static final int ACTIVE_LANDMARKS = 4;
+
+    private static final double SNAP_CELL_DEGREES = 0.005;
+
+    private final RoadNetwork network;
+
+    private final NodeLocator locator;
+
+    private final int[][] fromLandmark;
+
+    private final int[][] toLandmark;
+
+    private final ThreadLocal<SearchSpace> searchSpaces;
+
+    public LandmarkRouter(RoadNetwork network, int landmarks) {
+        this.network = network;
+        this.locator = new NodeLocator(network, SNAP_CELL_DEGREES);
+        this.searchSpaces = ThreadLocal.withInitial(() -> new SearchSpace(network.nodeCount()));
+        int count = Math.min(landmarks, network.nodeCount());
+        this.fromLandmark = new int[count][];
+        this.toLandmark = new int[count][];
+        selectLandmarks();
+    }
+
+    public RoadNetwork network() {
+        return network;
+    }
+
+    public int landmarkCount() {
+        return fromLandmark.length;
+    }
+
+    public int nearestNode(double lat, double lon) {
+        return locator.nearest(lat, lon);
+    }
+
+    /**
+     * Fastest path between two nodes.
+     *
+     * @return the path, or {@code null} if the target cannot be reached
+     */
+    public Path route(int source, int target) {
+        SearchSpace space = searchSpaces.get();
+        space.reset();
+        int[] active = activeLandmarks(source, target);
+        space.relax(source, 0, -1, potential(source, target, active));
+        while (!space.isEmpty()) {
+            int u = space.poll();
+            if (u == target) {
+                return path(space, target);
+            }
+            int du = space.distance[u];
+            for (int e = network.firstOut[u]; e < network.firstOut[u + 1]; e++) {
+                int v = network.head[e];
+                int dv = du + network.weight[e];
+                if (dv < space.distance(v) && !space.settled(v)) {
+                    int h = space.potential(v);
+                    space.relax(v, dv, u, h >= 0 ? h : potential(v, target, active));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Travel times and lengths between one node and many with a single Dijkstra search that stops
+     * once every target is settled. Searching forward gives the paths from {@code root} to the
+     * targets; searching the reverse graph gives the paths from the targets to {@code root}.
+     *
+     * @param targets distinct target nodes
+     * @param travelTimeMs receives the travel time to or from each target, or {@link #UNREACHABLE}
+     * @param meters receives the length of each path, or {@code NaN} if there is none
+     */
+    public void oneToMany(int root, int[] targets, boolean forward, int[] travelTimeMs, float[] meters) {
+        SearchSpace space = searchSpaces.get();
+        space.reset();
+        int[] first = forward ? network.firstOut : network.firstIn;
+        int[] adjacent = forward ? network.head : network.tail;
+        int[] weights = forward ? network.weight : network.inWeight;
+        long[] pending = new long[(network.nodeCount() + 63) >>> 6];
+        for (int target : targets) {
+            pending[target >>> 6] |= 1L << target;
+        }
+        int remaining = targets.length;
+        space.relax(root, 0, -1, 0);
+        while (!space.isEmpty() && remaining > 0) {
+            int u = space.poll();
+            if ((pending[u >>> 6] & 1L << u) != 0) {
+                remaining--;
+            }
+            int du = space.distance[u];
+            for (int e = first[u]; e < first[u + 1]; e++) {
+                int v = adjacent[e];
+                int dv = du + weights[e];
+                if (dv < space.distance(v)) {
+                    space.relax(v, dv, u, 0);
+                }
+            }
+        }
+        for (int i = 0; i < targets.length; i++) {
+            int target = targets[i];
+            if (!space.settled(target)) {
+                travelTimeMs[i] = UNREACHABLE;
+                meters[i] = Float.NaN;
+                continue;
+            }
+            travelTimeMs[i] = space.distance[target];
+            double length = 0;
+            for (int v = target, u = space.parent[v]; u >= 0; v = u, u = space.parent[v]) {
+                length += network.length[forward ? network.edge(u, v) : network.edge(v, u)];
+            }
+            meters[i] = (float) length;
+        }
+    }
+
+    private Path path(SearchSpace space, int target) {
+        int hops = 0;
+        for (int v = target; v >= 0; v = space.parent[v]) {
+            hops++;
+        }
+        int[] nodes = new int[hops];
+        double meters = 0;
+        for (int v = target, i = hops - 1; v >= 0; v = space.parent[v], i--) {
+            nodes[i] = v;
+            int u = space.parent[v];
+            if (u >= 0) {
+                meters += network.length[network.edge(u, v)];
+            }
+        }
+        return new Path(nodes, space.distance[target], meters);
+    }
+
+    /**
+     * ALT lower bound on the travel time from {@code node} to {@code target}.
+     */
+    private int potential(int node, int target, int[] active) {
+        int bound = 0;
+        for (int l : active) {
+            bound = Math.max(bound, bound(l, node, target));
+        }
+        return bound;
+    }
+
+    private int bound(int landmark, int node, int target) {
+        int[] from = fromLandmark[landmark];
+        int[] to = toLandmark[landmark];
+        int bound = 0;
+        if (from[node] != SearchSpace.INFINITY && from[target] != SearchSpace.INFINITY) {
+            bound = from[target] - from[node];
+        }
+        if (to[node] != SearchSpace.INFINITY && to[target] != SearchSpace.INFINITY) {
+            bound = Math.max(bound, to[node] - to[target]);
+        }
+        return bound;
+    }
+
+    private int[] activeLandmarks(int source, int target) {
+        int count = fromLandmark.length;
+        if (count <= ACTIVE_LANDMARKS) {
+            int[] all = new int[count];
+            Arrays.setAll(all, i -> i);
+            return all;
+        }
+        int[] bounds = new int[count];
+        Integer[] order = new Integer[count];
+        for (int l = 0; l < count; l++) {
+            order[l] = l;
+            bounds[l] = bound(l, source, target);
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(bounds[b], bounds[a]));
+        int[] active = new int[ACTIVE_LANDMARKS];
+        for (int i = 0; i < ACTIVE_LANDMARKS; i++) {
+            active[i] = order[i];
+        }
+        return active;
+    }
+
+    private void selectLandmarks() {
+        int count = fromLandmark.length;
+        if (count == 0) {
+            return;
+        }
+        int nodes = network.nodeCount();
+        int[] closest = new int[nodes];
+        Arrays.fill(closest, SearchSpace.INFINITY);
+        int landmark = farthest(dijkstra(0, true));
+        for (int l = 0; l < count; l++) {
+            fromLandmark[l] = dijkstra(landmark, true);
+            toLandmark[l] = dijkstra(landmark, false);
+            for (int v = 0; v < nodes; v++) {
+                closest[v] = Math.min(closest[v], fromLandmark[l][v]);
+            }
+            landmark = farthest(closest);
+        }
+    }
+
+    private static int farthest(int[] distance) {
+        int best = 0;
+        int bestDistance = -1;
+        for (int v = 0; v < distance.length; v++) {
+            int d = distance[v];
+            if (d != SearchSpace.INFINITY && d > bestDistance) {
+                best = v;
+                bestDistance = d;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Full single-source search, on the forward graph or on the reverse graph.
+     */
+    private int[] dijkstra(int source, boolean forward) {
+        SearchSpace space = searchSpaces.get();
+        space.reset();
+        int[] first = forward ? network.firstOut : network.firstIn;
+        int[] adjacent = forward ? network.head : network.tail;
+        int[] weights = forward ? network.weight : network.inWeight;
+        space.relax(source, 0, -1, 0);
+        while (!space.isEmpty()) {
+            int u = space.poll();
+            int du = space.distance[u];
+            for (int e = first[u]; e < first[u + 1]; e++) {
+                int v = adjacent[e];
+                int dv = du + weights[e];
+                if (dv < space.distance(v)) {
+                    space.relax(v, dv, u, 0);
+                }
+            }
+        }
+        int[] distance = new int[network.nodeCount()];
+        for (int v = 0; v < distance.length; v++) {
+            distance[v] = space.distance(v);
+        }
+        return distance;
+    }
+
+    /**
+     * A path through the graph as node indices, with its travel time and length.
+     */
+    public static final class Path {
+
+        private final int[] nodes;
+
+        private final int travelTimeMs;
+
+        private final double meters;
+
+        Path(int[] nodes, int travelTimeMs, double meters) {
+            this.nodes = nodes;
+            this.travelTimeMs = travelTimeMs;
+            this.meters = meters;
+        }
+
+        public int[] nodes() {
+            return nodes;
+        }
+
+        public int travelTimeMs() {
+            return travelTimeMs;
+        }
+
+        public double meters() {
+            return meters;
+        }
+    }
+}
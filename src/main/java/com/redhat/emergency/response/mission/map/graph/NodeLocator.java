@@ -0,0 +1,119 @@
+package com.redhat.emergency.response.mission.map.graph;
+
+/**
+ * Uniform grid over the graph nodes used to snap an arbitrary coordinate to its nearest node.
+ * Nodes are bucketed by cell with a counting sort, so the index is two int arrays.
+ */
+final class NodeLocator {
+
+    private static final int MAX_CELLS_PER_AXIS = 2048;
+
+    private final RoadNetwork network;
+
+    private final double minLat;
+
+    private final double minLon;
+
+    private final double cellSize;
+
+    private final int rows;
+
+    private final int columns;
+
+    private final int[] cellStart;
+
+    private final int[] cellNodes;
+
+    NodeLocator(RoadNetwork network, double cellSizeDegrees) {
+        this.network = network;
+        int nodes = network.nodeCount();
+        double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE, minLon = Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
+        for (int i = 0; i < nodes; i++) {
+            minLat = Math.min(minLat, network.latitude[i]);
+            maxLat = Math.max(maxLat, network.latitude[i]);
+            minLon = Math.min(minLon, network.longitude[i]);
+            maxLon = Math.max(maxLon, network.longitude[i]);
+        }
+        if (nodes == 0) {
+            minLat = maxLat = minLon = maxLon = 0;
+        }
+        double span = Math.max(maxLat - minLat, maxLon - minLon);
+        this.cellSize = Math.max(cellSizeDegrees, span / MAX_CELLS_PER_AXIS);
+        this.minLat = minLat;
+        this.minLon = minLon;
+        this.rows = (int) ((maxLat - minLat) / cellSize) + 1;
+        this.columns = (int) ((maxLon - minLon) / cellSize) + 1;
+        this.cellStart = new int[rows * columns + 1];
+        this.cellNodes = new int[nodes];
+        int[] cellOf = new int[nodes];
+        for (int i = 0; i < nodes; i++) {
+            cellOf[i] = row(network.latitude[i]) * columns + column(network.longitude[i]);
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < rows * columns; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] next = new int[rows * columns];
+        for (int i = 0; i < nodes; i++) {
+            cellNodes[cellStart[cellOf[i]] + next[cellOf[i]]++] = i;
+        }
+    }
+
+    /**
+     * Nearest node to the coordinate, or {@code -1} for an empty graph. Rings of cells are
+     * searched outwards until no unvisited cell can hold a closer node.
+     */
+    int nearest(double lat, double lon) {
+        if (cellNodes.length == 0) {
+            return -1;
+        }
+        double scale = Math.cos(Math.toRadians(lat));
+        int row = clamp(row(lat), rows);
+        int column = clamp(column(lon), columns);
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        int maxRing = Math.max(rows, columns);
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int r = row - ring; r <= row + ring; r++) {
+                if (r < 0 || r >= rows) {
+                    continue;
+                }
+                boolean edgeRow = r == row - ring || r == row + ring;
+                int step = edgeRow ? 1 : 2 * ring;
+                for (int c = column - ring; c <= column + ring; c += Math.max(step, 1)) {
+                    if (c < 0 || c >= columns) {
+                        continue;
+                    }
+                    int cell = r * columns + c;
+                    for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                        int node = cellNodes[i];
+                        double dLat = network.latitude[node] - lat;
+                        double dLon = (network.longitude[node] - lon) * scale;
+                        double distance = dLat * dLat + dLon * dLon;
+                        if (distance < bestDistance) {
+                            bestDistance = distance;
+                            best = node;
+                        }
+                    }
+                }
+            }
+            double covered = ring * cellSize * Math.min(1, scale);
+            if (best >= 0 && covered * covered >= bestDistance) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    private int row(double lat) {
+        return (int) ((lat - minLat) / cellSize);
+    }
+
+    private int column(double lon) {
+        return (int) ((lon - minLon) / cellSize);
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+}
@@ -0,0 +1,91 @@
+package com.redhat.emergency.response.mission.map.graph;
+
+/**
+ * Immutable directed road graph in compressed sparse row form.
+ * <p>
+ * Outgoing edges of node {@code u} are {@code firstOut[u] .. firstOut[u + 1] - 1}, with their target
+ * in {@code head}; the reverse graph is stored the same way in {@code firstIn} / {@code tail} so
+ * backward searches do not need a transpose. Edge weights are travel times in milliseconds.
+ */
+public final class RoadNetwork {
+
+    final double[] latitude;
+
+    final double[] longitude;
+
+    final int[] firstOut;
+
+    final int[] head;
+
+    final int[] weight;
+
+    final float[] length;
+
+    final int[] firstIn;
+
+    final int[] tail;
+
+    final int[] inWeight;
+
+    RoadNetwork(double[] latitude, double[] longitude, int[] edgeFrom, int[] edgeTo, int[] edgeWeight, float[] edgeLength, int edgeCount) {
+        int nodes = latitude.length;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.firstOut = new int[nodes + 1];
+        this.head = new int[edgeCount];
+        this.weight = new int[edgeCount];
+        this.length = new float[edgeCount];
+        this.firstIn = new int[nodes + 1];
+        this.tail = new int[edgeCount];
+        this.inWeight = new int[edgeCount];
+
+        for (int e = 0; e < edgeCount; e++) {
+            firstOut[edgeFrom[e] + 1]++;
+            firstIn[edgeTo[e] + 1]++;
+        }
+        for (int u = 0; u < nodes; u++) {
+            firstOut[u + 1] += firstOut[u];
+            firstIn[u + 1] += firstIn[u];
+        }
+        int[] nextOut = new int[nodes];
+        int[] nextIn = new int[nodes];
+        for (int e = 0; e < edgeCount; e++) {
+            int out = firstOut[edgeFrom[e]] + nextOut[edgeFrom[e]]++;
+            head[out] = edgeTo[e];
+            weight[out] = edgeWeight[e];
+            length[out] = edgeLength[e];
+            int in = firstIn[edgeTo[e]] + nextIn[edgeTo[e]]++;
+            tail[in] = edgeFrom[e];
+            inWeight[in] = edgeWeight[e];
+        }
+    }
+
+    public int nodeCount() {
+        return latitude.length;
+    }
+
+    public int edgeCount() {
+        return head.length;
+    }
+
+    public double latitude(int node) {
+        return latitude[node];
+    }
+
+    public double longitude(int node) {
+        return longitude[node];
+    }
+
+    /**
+     * Index of the cheapest edge from {@code from} to {@code to}, or {@code -1} if there is none.
+     */
+    int edge(int from, int to) {
+        int best = -1;
+        for (int e = firstOut[from]; e < firstOut[from + 1]; e++) {
+            if (head[e] == to && (best < 0 || weight[e] < weight[best])) {
+                best = e;
+            }
+        }
+        return best;
+    }
+}
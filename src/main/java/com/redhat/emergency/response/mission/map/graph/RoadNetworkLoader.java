@@ -0,0 +1,107 @@
+package com.redhat.emergency.response.mission.map.graph;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads a road network from a plain-text edge list, typically exported from OpenStreetMap.
+ * <p>
+ * Blank lines and lines starting with {@code #} are ignored. Every other line is either
+ * <pre>
+ * node,&lt;id&gt;,&lt;lat&gt;,&lt;lon&gt;
+ * edge,&lt;from id&gt;,&lt;to id&gt;,&lt;length in meters&gt;[,&lt;speed in km/h&gt;[,oneway]]
+ * </pre>
+ * Edges are two-way unless the last column is {@code oneway}, and default to
+ * {@value #DEFAULT_SPEED_KMH} km/h. Nodes must be declared before the edges that use them.
+ */
+public final class RoadNetworkLoader {
+
+    static final double DEFAULT_SPEED_KMH = 50;
+
+    private RoadNetworkLoader() {
+    }
+
+    public static RoadNetwork load(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return load(reader);
+        }
+    }
+
+    static RoadNetwork load(BufferedReader reader) throws IOException {
+        Map<Long, Integer> ids = new HashMap<>();
+        double[] latitude = new double[1024];
+        double[] longitude = new double[1024];
+        int nodes = 0;
+        int[] from = new int[4096];
+        int[] to = new int[4096];
+        int[] weight = new int[4096];
+        float[] length = new float[4096];
+        int edges = 0;
+
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.charAt(0) == '#') {
+                continue;
+            }
+            String[] columns = line.split(",");
+            try {
+                if ("node".equals(columns[0])) {
+                    if (nodes == latitude.length) {
+                        latitude = Arrays.copyOf(latitude, nodes * 2);
+                        longitude = Arrays.copyOf(longitude, nodes * 2);
+                    }
+                    ids.put(Long.parseLong(columns[1].trim()), nodes);
+                    latitude[nodes] = Double.parseDouble(columns[2].trim());
+                    longitude[nodes] = Double.parseDouble(columns[3].trim());
+                    nodes++;
+                } else if ("edge".equals(columns[0])) {
+                    int u = node(ids, columns[1]);
+                    int v = node(ids, columns[2]);
+                    float meters = Float.parseFloat(columns[3].trim());
+                    double speed = columns.length > 4 && !columns[4].isBlank() ? Double.parseDouble(columns[4].trim()) : DEFAULT_SPEED_KMH;
+                    boolean oneway = columns.length > 5 && "oneway".equalsIgnoreCase(columns[5].trim());
+                    int millis = (int) Math.round(meters / (speed / 3.6) * 1000);
+                    if (edges + 2 > from.length) {
+                        int capacity = from.length * 2;
+                        from = Arrays.copyOf(from, capacity);
+                        to = Arrays.copyOf(to, capacity);
+                        weight = Arrays.copyOf(weight, capacity);
+                        length = Arrays.copyOf(length, capacity);
+                    }
+                    from[edges] = u;
+                    to[edges] = v;
+                    weight[edges] = millis;
+                    length[edges++] = meters;
+                    if (!oneway) {
+                        from[edges] = v;
+                        to[edges] = u;
+                        weight[edges] = millis;
+                        length[edges++] = meters;
+                    }
+                } else {
+                    throw new IllegalArgumentException("unknown record type '" + columns[0] + "'");
+                }
+            } catch (RuntimeException e) {
+                throw new IOException("Invalid road network line " + lineNumber + ": " + line, e);
+            }
+        }
+        return new RoadNetwork(Arrays.copyOf(latitude, nodes), Arrays.copyOf(longitude, nodes), from, to, weight, length, edges);
+    }
+
+    private static int node(Map<Long, Integer> ids, String column) {
+        Integer node = ids.get(Long.parseLong(column.trim()));
+        if (node == null) {
+            throw new IllegalArgumentException("undeclared node " + column);
+        }
+        return node;
+    }
+}
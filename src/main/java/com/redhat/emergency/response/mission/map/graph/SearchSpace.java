@@ -0,0 +1,147 @@
+package com.redhat.emergency.response.mission.map.graph;
+
+import java.util.Arrays;
+
+/**
+ * Per-thread working memory for graph searches: tentative distances, parents and an indexed
+ * binary min-heap with decrease-key. Arrays are sized once for the whole graph and invalidated
+ * in O(1) between searches by bumping a generation stamp, so a query only touches the nodes it
+ * actually reaches.
+ */
+final class SearchSpace {
+
+    static final int INFINITY = Integer.MAX_VALUE;
+
+    private final int[] stamp;
+
+    final int[] distance;
+
+    final int[] parent;
+
+    private final int[] potential;
+
+    private final int[] key;
+
+    private final int[] position;
+
+    private final int[] heap;
+
+    private int size;
+
+    private int generation;
+
+    SearchSpace(int nodes) {
+        stamp = new int[nodes];
+        distance = new int[nodes];
+        parent = new int[nodes];
+        potential = new int[nodes];
+        key = new int[nodes];
+        position = new int[nodes];
+        heap = new int[nodes];
+    }
+
+    void reset() {
+        size = 0;
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+    }
+
+    boolean reached(int node) {
+        return stamp[node] == generation;
+    }
+
+    int distance(int node) {
+        return reached(node) ? distance[node] : INFINITY;
+    }
+
+    /**
+     * Lower bound cached for the node by the current search, or {@code -1} if not computed yet.
+     */
+    int potential(int node) {
+        return reached(node) ? potential[node] : -1;
+    }
+
+    /**
+     * Records a shorter tentative distance and (re)positions the node in the heap.
+     */
+    void relax(int node, int dist, int from, int nodePotential) {
+        if (!reached(node)) {
+            stamp[node] = generation;
+            potential[node] = nodePotential;
+            position[node] = -1;
+        }
+        distance[node] = dist;
+        parent[node] = from;
+        long priority = (long) dist + potential[node];
+        key[node] = priority > INFINITY ? INFINITY : (int) priority;
+        if (position[node] < 0) {
+            heap[size] = node;
+            position[node] = size;
+            up(size++);
+        } else {
+            up(position[node]);
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int poll() {
+        int top = heap[0];
+        position[top] = -2;
+        if (--size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            down(0);
+        }
+        return top;
+    }
+
+    /**
+     * Whether the node was already removed from the heap, i.e. its distance is final.
+     */
+    boolean settled(int node) {
+        return reached(node) && position[node] == -2;
+    }
+
+    private void up(int index) {
+        int node = heap[index];
+        int nodeKey = key[node];
+        while (index > 0) {
+            int parentIndex = (index - 1) >>> 1;
+            int parentNode = heap[parentIndex];
+            if (key[parentNode] <= nodeKey) {
+                break;
+            }
+            heap[index] = parentNode;
+            position[parentNode] = index;
+            index = parentIndex;
+        }
+        heap[index] = node;
+        position[node] = index;
+    }
+
+    private void down(int index) {
+        int node = heap[index];
+        int nodeKey = key[node];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && key[heap[right]] < key[heap[child]]) {
+                child = right;
+            }
+            if (nodeKey <= key[heap[child]]) {
+                break;
+            }
+            heap[index] = heap[child];
+            position[heap[index]] = index;
+            index = child;
+        }
+        heap[index] = node;
+        position[node] = index;
+    }
+}
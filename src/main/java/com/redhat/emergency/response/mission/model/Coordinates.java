@@ -0,0 +1,127 @@
+package com.redhat.emergency.response.mission.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point coordinates: degrees times 10<sup>7</sup> in an {@code int}, a resolution of about
+ * 1 cm. Coordinates are kept in this form in memory and converted to {@link BigDecimal} only at
+ * the API boundary; {@link #toDecimal} gives the shortest decimal for a value, so a coordinate
+ * received with up to seven decimals is written back as it came in.
+ */
+public final class Coordinates {
+
+    public static final int SCALE = 7;
+
+    /**
+     * Marks a missing coordinate.
+     */
+    public static final int NONE = Integer.MIN_VALUE;
+
+    private static final double FACTOR = 1e7;
+
+    private static final long MAX = 180 * 10_000_000L;
+
+    private Coordinates() {
+    }
+
+    public static int fromDecimal(BigDecimal degrees) {
+        if (degrees == null) {
+            return NONE;
+        }
+        BigDecimal fixed = degrees.movePointRight(SCALE).setScale(0, RoundingMode.HALF_UP);
+        if (fixed.abs().compareTo(BigDecimal.valueOf(MAX)) > 0) {
+            throw new IllegalArgumentException("Coordinate out of range: " + degrees);
+        }
+        return fixed.intValue();
+    }
+
+    public static int fromDegrees(double degrees) {
+        if (Double.isNaN(degrees)) {
+            return NONE;
+        }
+        long fixed = Math.round(degrees * FACTOR);
+        if (Math.abs(fixed) > MAX) {
+            throw new IllegalArgumentException("Coordinate out of range: " + degrees);
+        }
+        return (int) fixed;
+    }
+
+    public static BigDecimal toDecimal(int fixed) {
+        if (fixed == NONE) {
+            return null;
+        }
+        BigDecimal decimal = BigDecimal.valueOf(fixed, SCALE).stripTrailingZeros();
+        return decimal.scale() < 0 ? decimal.setScale(0) : decimal;
+    }
+
+    /**
+     * The coordinate in degrees, or {@link Double#NaN} when missing.
+     */
+    public static double toDegrees(int fixed) {
+        return fixed == NONE ? Double.NaN : fixed / FACTOR;
+    }
+
+    /**
+     * Parses a decimal number of degrees straight from characters, rounding half up beyond seven
+     * decimals. Surrounding whitespace is ignored and blank text is a missing coordinate. Numbers
+     * in exponent notation are handed to {@link BigDecimal}.
+     */
+    public static int parse(char[] text, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        while (i < end && Character.isWhitespace(text[i])) {
+            i++;
+        }
+        while (end > i && Character.isWhitespace(text[end - 1])) {
+            end--;
+        }
+        if (i == end) {
+            return NONE;
+        }
+        int start = i;
+        boolean negative = text[i] == '-';
+        if (negative) {
+            i++;
+        }
+        long value = 0;
+        int digits = 0;
+        int decimals = -1;
+        boolean roundUp = false;
+        for (; i < end; i++) {
+            char c = text[i];
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (decimals < 0) {
+                    value = value * 10 + (c - '0');
+                    if (value > MAX) {
+                        throw new IllegalArgumentException("Coordinate out of range: " + new String(text, start, end - start));
+                    }
+                } else if (decimals < SCALE) {
+                    value = value * 10 + (c - '0');
+                    decimals++;
+                } else if (decimals == SCALE) {
+                    roundUp = c >= '5';
+                    decimals++;
+                }
+            } else if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                return fromDecimal(new BigDecimal(text, start, end - start));
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("Not a coordinate: " + new String(text, start, end - start));
+        }
+        for (int d = Math.max(0, decimals); d < SCALE; d++) {
+            value *= 10;
+        }
+        if (roundUp) {
+            value++;
+        }
+        if (value > MAX) {
+            throw new IllegalArgumentException("Coordinate out of range: " + new String(text, start, end - start));
+        }
+        return (int) (negative ? -value : value);
+    }
+}
@@ -0,0 +1,11 @@
+package com.redhat.emergency.response.mission.model;
+
+/**
+ * Source of the ids of missions and of outgoing events, in the standard UUID string format.
+ * The generator in use is set with {@link Ids#use}.
+ */
+@FunctionalInterface
+public interface IdGenerator {
+
+    String next();
+}
@@ -0,0 +1,27 @@
+package com.redhat.emergency.response.mission.model;
+
+import java.util.Objects;
+
+/**
+ * Holds the {@link IdGenerator} that new missions and events take their id from,
+ * {@link StandardIdGenerator#TIME_ORDERED} unless another one is set.
+ */
+public final class Ids {
+
+    private static volatile IdGenerator generator = StandardIdGenerator.TIME_ORDERED;
+
+    private Ids() {
+    }
+
+    public static String next() {
+        return generator.next();
+    }
+
+    public static IdGenerator generator() {
+        return generator;
+    }
+
+    public static void use(IdGenerator generator) {
+        Ids.generator = Objects.requireNonNull(generator);
+    }
+}
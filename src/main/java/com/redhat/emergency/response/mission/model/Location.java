@@ -2,13 +2,29 @@ package com.redhat.emergency.response.mission.model;
 
 import java.math.BigDecimal;
 
+/**
+ * A point in degrees, held as fixed-point {@link Coordinates}.
+ */
 public class Location {
 
-    private BigDecimal latitude;
+    /**
+     * Mean earth radius, used for great-circle distances.
+     */
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8;
 
-    private BigDecimal longitude;
+    private int latitude = Coordinates.NONE;
+
+    private int longitude = Coordinates.NONE;
 
     public static Location of(BigDecimal latitude, BigDecimal longitude) {
+        return fixed(Coordinates.fromDecimal(latitude), Coordinates.fromDecimal(longitude));
+    }
+
+    public static Location of(double latitude, double longitude) {
+        return fixed(Coordinates.fromDegrees(latitude), Coordinates.fromDegrees(longitude));
+    }
+
+    public static Location fixed(int latitude, int longitude) {
         Location location = new Location();
         location.latitude = latitude;
         location.longitude = longitude;
@@ -16,10 +32,37 @@ public class Location {
     }
 
     public BigDecimal getLatitude() {
-        return latitude;
+        return Coordinates.toDecimal(latitude);
     }
 
     public BigDecimal getLongitude() {
+        return Coordinates.toDecimal(longitude);
+    }
+
+    public double latitude() {
+        return Coordinates.toDegrees(latitude);
+    }
+
+    public double longitude() {
+        return Coordinates.toDegrees(longitude);
+    }
+
+    public int fixedLatitude() {
+        return latitude;
+    }
+
+    public int fixedLongitude() {
         return longitude;
     }
+
+    /**
+     * Great-circle (haversine) distance between two points given in degrees.
+     */
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
 }
@@ -0,0 +1,203 @@
+package com.redhat.emergency.response.mission.model;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Bounded, downsampled trail of responder positions, kept in primitive arrays.
+ * <p>
+ * Positions are stored as parallel fixed-point {@link Coordinates} and {@code long} arrays used as
+ * a ring: once the capacity is reached the oldest position is overwritten. The arrays start small and grow up to
+ * the capacity, so missions that never move cost next to nothing. A position is only recorded
+ * when the responder moved at least the minimum distance or the minimum interval has passed
+ * since the last recorded position.
+ */
+public final class LocationHistory {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int[] lat = new int[0];
+
+    private int[] lon = new int[0];
+
+    private long[] timestamp = new long[0];
+
+    private int head;
+
+    private int size;
+
+    /**
+     * Records a position unless it is too close in both distance and time to the last recorded
+     * one. Returns whether the position was recorded.
+     */
+    public boolean record(double latitude, double longitude, long time, Sampling sampling) {
+        return recordFixed(Coordinates.fromDegrees(latitude), Coordinates.fromDegrees(longitude), time, sampling);
+    }
+
+    /**
+     * Same as {@link #record(double, double, long, Sampling)} with fixed-point coordinates.
+     */
+    public synchronized boolean recordFixed(int latitude, int longitude, long time, Sampling sampling) {
+        if (size > 0) {
+            int last = index(size - 1);
+            if (time - timestamp[last] < sampling.minIntervalMs
+                    && Location.distanceMeters(Coordinates.toDegrees(lat[last]), Coordinates.toDegrees(lon[last]),
+                            Coordinates.toDegrees(latitude), Coordinates.toDegrees(longitude)) < sampling.minDistanceMeters) {
+                return false;
+            }
+        }
+        int slot;
+        if (size < sampling.capacity) {
+            if (size == lat.length) {
+                grow(Math.min(Math.max(INITIAL_CAPACITY, size * 2), sampling.capacity));
+            }
+            slot = index(size++);
+        } else {
+            if (size != sampling.capacity || lat.length != size) {
+                keepNewest(sampling.capacity);
+            }
+            slot = head;
+            head = (head + 1) % lat.length;
+        }
+        lat[slot] = latitude;
+        lon[slot] = longitude;
+        timestamp[slot] = time;
+        return true;
+    }
+
+    /**
+     * Appends a position as is, without sampling, growing as needed. Used when a history is read
+     * back from its JSON or archived form.
+     */
+    public synchronized void append(int latitude, int longitude, long time) {
+        if (size == lat.length) {
+            grow(Math.max(INITIAL_CAPACITY, size * 2));
+        }
+        int slot = index(size++);
+        lat[slot] = latitude;
+        lon[slot] = longitude;
+        timestamp[slot] = time;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Approximate heap size of the position arrays, in bytes.
+     */
+    public synchronized long estimatedBytes() {
+        return 3 * 16 + 16L * lat.length;
+    }
+
+    /**
+     * Visits the positions from oldest to newest.
+     */
+    public synchronized void forEach(Visitor visitor) {
+        for (int i = 0; i < size; i++) {
+            int slot = index(i);
+            visitor.visit(lat[slot], lon[slot], timestamp[slot]);
+        }
+    }
+
+    synchronized ResponderLocationHistory get(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + ", size " + size);
+        }
+        int slot = index(i);
+        return new ResponderLocationHistory(Coordinates.toDecimal(lat[slot]), Coordinates.toDecimal(lon[slot]), timestamp[slot]);
+    }
+
+    /**
+     * Live list view of the positions, oldest first. Adding to the view appends without sampling.
+     */
+    public List<ResponderLocationHistory> asList() {
+        return new AbstractList<>() {
+
+            @Override
+            public ResponderLocationHistory get(int index) {
+                return LocationHistory.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return LocationHistory.this.size();
+            }
+
+            @Override
+            public void add(int index, ResponderLocationHistory element) {
+                if (index != size()) {
+                    throw new UnsupportedOperationException("Positions can only be appended");
+                }
+                append(Coordinates.fromDecimal(element.getLat()), Coordinates.fromDecimal(element.getLon()), element.getTimestamp());
+            }
+        };
+    }
+
+    private int index(int i) {
+        int slot = head + i;
+        return slot < lat.length ? slot : slot - lat.length;
+    }
+
+    private void grow(int capacity) {
+        resize(capacity, 0);
+    }
+
+    /**
+     * Drops all but the newest {@code count} positions and shrinks the arrays to fit them.
+     */
+    private void keepNewest(int count) {
+        int skipped = Math.max(0, size - count);
+        size -= skipped;
+        resize(count, skipped);
+    }
+
+    private void resize(int capacity, int skipped) {
+        int[] newLat = new int[capacity];
+        int[] newLon = new int[capacity];
+        long[] newTimestamp = new long[capacity];
+        for (int i = 0; i < size; i++) {
+            int slot = index(skipped + i);
+            newLat[i] = lat[slot];
+            newLon[i] = lon[slot];
+            newTimestamp[i] = timestamp[slot];
+        }
+        lat = newLat;
+        lon = newLon;
+        timestamp = newTimestamp;
+        head = 0;
+    }
+
+    /**
+     * Receives positions with their coordinates in fixed-point form.
+     */
+    public interface Visitor {
+
+        void visit(int lat, int lon, long timestamp);
+    }
+
+    /**
+     * Downsampling and size limits applied when recording positions.
+     */
+    public static final class Sampling {
+
+        private final int capacity;
+
+        private final double minDistanceMeters;
+
+        private final long minIntervalMs;
+
+        public Sampling(int capacity, double minDistanceMeters, long minIntervalMs) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("Location history capacity must be at least 1: " + capacity);
+            }
+            this.capacity = capacity;
+            this.minDistanceMeters = minDistanceMeters;
+            this.minIntervalMs = minIntervalMs;
+        }
+
+        public int capacity() {
+            return capacity;
+        }
+    }
+}
@@ -1,16 +1,19 @@
 package com.redhat.emergency.response.mission.model;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.UUID;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import io.vertx.core.json.Json;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
+@JsonPropertyOrder({"id", "incidentId", "responderId", "responderStartLat", "responderStartLong", "incidentLat", "incidentLong",
+        "destinationLat", "destinationLong", "responderLocationHistory", "status", "steps", "degraded"})
 public class Mission {
 
     private String id;
@@ -19,28 +22,33 @@ public class Mission {
 
     private String responderId;
 
-    private BigDecimal responderStartLat;
+    private int responderStartLat = Coordinates.NONE;
 
-    private BigDecimal responderStartLong;
+    private int responderStartLong = Coordinates.NONE;
 
-    private BigDecimal incidentLat;
+    private int incidentLat = Coordinates.NONE;
 
-    private BigDecimal incidentLong;
+    private int incidentLong = Coordinates.NONE;
 
-    private BigDecimal destinationLat;
+    private int destinationLat = Coordinates.NONE;
 
-    private BigDecimal destinationLong;
+    private int destinationLong = Coordinates.NONE;
 
-    private List<ResponderLocationHistory> responderLocationHistory;
+    private transient LocationHistory locationHistory;
 
     private String status;
 
-    private List<MissionStep> steps;
+    private final transient MissionSteps missionSteps = new MissionSteps();
+
+    private boolean degraded;
+
+    private transient MissionKey missionKey;
+
+    private transient volatile RouteProgress progress;
 
     public Mission() {
-        id = UUID.randomUUID().toString();
-        responderLocationHistory = new ArrayList<>();
-        steps = new ArrayList<>();
+        id = Ids.next();
+        locationHistory = new LocationHistory();
     }
 
     public String getId() {
@@ -56,31 +64,78 @@ public class Mission {
     }
 
     public BigDecimal getResponderStartLat() {
-        return responderStartLat;
+        return Coordinates.toDecimal(responderStartLat);
+    }
+
+    @JsonProperty("responderStartLat")
+    private void setResponderStartLat(BigDecimal responderStartLat) {
+        this.responderStartLat = Coordinates.fromDecimal(responderStartLat);
     }
 
     public BigDecimal getResponderStartLong() {
-        return responderStartLong;
+        return Coordinates.toDecimal(responderStartLong);
+    }
+
+    @JsonProperty("responderStartLong")
+    private void setResponderStartLong(BigDecimal responderStartLong) {
+        this.responderStartLong = Coordinates.fromDecimal(responderStartLong);
     }
 
     public BigDecimal getIncidentLat() {
-        return incidentLat;
+        return Coordinates.toDecimal(incidentLat);
+    }
+
+    @JsonProperty("incidentLat")
+    private void setIncidentLat(BigDecimal incidentLat) {
+        this.incidentLat = Coordinates.fromDecimal(incidentLat);
     }
 
     public BigDecimal getIncidentLong() {
-        return incidentLong;
+        return Coordinates.toDecimal(incidentLong);
+    }
+
+    @JsonProperty("incidentLong")
+    private void setIncidentLong(BigDecimal incidentLong) {
+        this.incidentLong = Coordinates.fromDecimal(incidentLong);
     }
 
     public BigDecimal getDestinationLat() {
-        return destinationLat;
+        return Coordinates.toDecimal(destinationLat);
+    }
+
+    @JsonProperty("destinationLat")
+    private void setDestinationLat(BigDecimal destinationLat) {
+        this.destinationLat = Coordinates.fromDecimal(destinationLat);
     }
 
     public BigDecimal getDestinationLong() {
-        return destinationLong;
+        return Coordinates.toDecimal(destinationLong);
+    }
+
+    @JsonProperty("destinationLong")
+    private void setDestinationLong(BigDecimal destinationLong) {
+        this.destinationLong = Coordinates.fromDecimal(destinationLong);
     }
 
     public List<ResponderLocationHistory> getResponderLocationHistory() {
-        return responderLocationHistory;
+        return locationHistory.asList();
+    }
+
+    public LocationHistory locationHistory() {
+        return locationHistory;
+    }
+
+    /**
+     * Approximate heap size of the mission with its ids, steps and location history, in bytes.
+     */
+    public long estimatedBytes() {
+        return 96 + estimatedBytes(id) + estimatedBytes(incidentId) + estimatedBytes(responderId)
+                + missionSteps.estimatedBytes() + locationHistory.estimatedBytes()
+                + (progress == null ? 0 : progress.estimatedBytes());
+    }
+
+    private static long estimatedBytes(String value) {
+        return value == null ? 0 : 40 + value.length();
     }
 
     public String getStatus() {
@@ -93,19 +148,66 @@ public class Mission {
     }
 
     public List<MissionStep> getSteps() {
-        return steps;
+        return missionSteps.asList();
+    }
+
+    public MissionSteps missionSteps() {
+        return missionSteps;
+    }
+
+    /**
+     * The responder's progress along the steps, created on first use and started over when the
+     * mission is rerouted.
+     */
+    public RouteProgress progress() {
+        RouteProgress current = progress;
+        if (current != null) {
+            return current;
+        }
+        synchronized (missionSteps) {
+            if (progress == null) {
+                progress = RouteProgress.of(missionSteps);
+            }
+            return progress;
+        }
+    }
+
+    /**
+     * Whether the steps are a straight-line stand-in because the real route was not available in
+     * time. Only written when set.
+     */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    public Mission degraded(boolean degraded) {
+        this.degraded = degraded;
+        return this;
+    }
+
+    /**
+     * Replaces the steps with a new route and clears the degraded flag.
+     */
+    public Mission reroute(List<MissionStep> steps) {
+        synchronized (missionSteps) {
+            missionSteps.replace(steps);
+            progress = null;
+        }
+        degraded = false;
+        return this;
     }
 
     public Location responderLocation() {
-        return Location.of(responderStartLat, responderStartLong);
+        return Location.fixed(responderStartLat, responderStartLong);
     }
 
     public Location incidentLocation() {
-        return Location.of(incidentLat, incidentLong);
+        return Location.fixed(incidentLat, incidentLong);
     }
 
     public Location destinationLocation() {
-        return Location.of(destinationLat, destinationLong);
+        return Location.fixed(destinationLat, destinationLong);
     }
 
     public String toJson() {
@@ -130,8 +232,88 @@ public class Mission {
         return this.incidentId + ":" + this.responderId;
     }
 
+    public MissionKey missionKey() {
+        MissionKey key = missionKey;
+        if (key == null || !Objects.equals(key.getIncidentId(), incidentId) || !Objects.equals(key.getResponderId(), responderId)) {
+            key = MissionKey.of(incidentId, responderId);
+            missionKey = key;
+        }
+        return key;
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hash(getKey());
+        return missionKey().hashCode();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+
+        private final Mission mission = new Mission();
+
+        public Builder id(String id) {
+            mission.id = id;
+            return this;
+        }
+
+        public Builder incidentId(String incidentId) {
+            mission.incidentId = incidentId;
+            return this;
+        }
+
+        public Builder responderId(String responderId) {
+            mission.responderId = responderId;
+            return this;
+        }
+
+        public Builder responderStartLocation(BigDecimal lat, BigDecimal lon) {
+            return responderStartLocation(Location.of(lat, lon));
+        }
+
+        public Builder responderStartLocation(Location location) {
+            mission.responderStartLat = location.fixedLatitude();
+            mission.responderStartLong = location.fixedLongitude();
+            return this;
+        }
+
+        public Builder incidentLocation(BigDecimal lat, BigDecimal lon) {
+            return incidentLocation(Location.of(lat, lon));
+        }
+
+        public Builder incidentLocation(Location location) {
+            mission.incidentLat = location.fixedLatitude();
+            mission.incidentLong = location.fixedLongitude();
+            return this;
+        }
+
+        public Builder destinationLocation(BigDecimal lat, BigDecimal lon) {
+            return destinationLocation(Location.of(lat, lon));
+        }
+
+        public Builder destinationLocation(Location location) {
+            mission.destinationLat = location.fixedLatitude();
+            mission.destinationLong = location.fixedLongitude();
+            return this;
+        }
+
+        public Builder status(String status) {
+            mission.status = status;
+            return this;
+        }
+
+        public Builder steps(List<MissionStep> steps) {
+            for (MissionStep step : steps) {
+                mission.missionSteps.add(step);
+            }
+            mission.missionSteps.trim();
+            return this;
+        }
+
+        public Mission build() {
+            return mission;
+        }
     }
 }
@@ -0,0 +1,52 @@
+package com.redhat.emergency.response.mission.model;
+
+import java.util.Objects;
+
+/**
+ * Compound identity of a mission: the incident and the responder assigned to it.
+ * The hash is computed once at construction so map lookups never rebuild a string key.
+ */
+public final class MissionKey {
+
+    private final String incidentId;
+
+    private final String responderId;
+
+    private final int hash;
+
+    private MissionKey(String incidentId, String responderId) {
+        this.incidentId = incidentId;
+        this.responderId = responderId;
+        this.hash = 31 * Objects.hashCode(incidentId) + Objects.hashCode(responderId);
+    }
+
+    public static MissionKey of(String incidentId, String responderId) {
+        return new MissionKey(incidentId, responderId);
+    }
+
+    public String getIncidentId() {
+        return incidentId;
+    }
+
+    public String getResponderId() {
+        return responderId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MissionKey key = (MissionKey) o;
+        return hash == key.hash && Objects.equals(incidentId, key.incidentId) && Objects.equals(responderId, key.responderId);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return incidentId + ":" + responderId;
+    }
+}
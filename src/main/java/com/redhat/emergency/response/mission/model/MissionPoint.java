@@ -0,0 +1,10 @@
+package com.redhat.emergency.response.mission.model;
+
+/**
+ * The coordinates of a mission that can be searched by location.
+ */
+public enum MissionPoint {
+    RESPONDER,
+    INCIDENT,
+    DESTINATION
+}
@@ -4,5 +4,25 @@ public enum MissionStatus {
     CREATED,
     UPDATED,
     COMPLETED,
-    FAILED
+    FAILED;
+
+    /**
+     * Whether a mission in this status may be moved to {@code next}. Missions only move forward:
+     * {@link #CREATED} and {@link #UPDATED} may be repeated, and {@link #COMPLETED} and
+     * {@link #FAILED} are final.
+     */
+    public boolean canMoveTo(MissionStatus next) {
+        switch (this) {
+            case CREATED:
+                return true;
+            case UPDATED:
+                return next != CREATED;
+            default:
+                return false;
+        }
+    }
+
+    public boolean isActive() {
+        return this == CREATED || this == UPDATED;
+    }
 }
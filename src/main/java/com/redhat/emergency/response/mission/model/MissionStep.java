@@ -2,23 +2,54 @@ package com.redhat.emergency.response.mission.model;
 
 import java.math.BigDecimal;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import io.vertx.core.json.Json;
 
+@JsonPropertyOrder({"lat", "lon", "wayPoint", "destination"})
 public class MissionStep {
 
-    private BigDecimal lat;
+    private int lat = Coordinates.NONE;
 
-    private BigDecimal lon;
+    private int lon = Coordinates.NONE;
 
     private boolean wayPoint = false;
 
     private boolean destination = false;
 
+    public MissionStep() {
+    }
+
+    MissionStep(int lat, int lon, boolean wayPoint, boolean destination) {
+        this.lat = lat;
+        this.lon = lon;
+        this.wayPoint = wayPoint;
+        this.destination = destination;
+    }
+
     public BigDecimal getLat() {
-        return lat;
+        return Coordinates.toDecimal(lat);
+    }
+
+    @JsonProperty("lat")
+    private void setLat(BigDecimal lat) {
+        this.lat = Coordinates.fromDecimal(lat);
     }
 
     public BigDecimal getLon() {
+        return Coordinates.toDecimal(lon);
+    }
+
+    @JsonProperty("lon")
+    private void setLon(BigDecimal lon) {
+        this.lon = Coordinates.fromDecimal(lon);
+    }
+
+    public int fixedLat() {
+        return lat;
+    }
+
+    public int fixedLon() {
         return lon;
     }
 
@@ -35,11 +66,12 @@ public class MissionStep {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         MissionStep step = (MissionStep) o;
+        return lat == step.lat && lon == step.lon && destination == step.destination && wayPoint == step.wayPoint;
+    }
 
-        return (lat != null && step.lat != null && lat.compareTo(step.lat) == 0) || (lat == null && step.lat == null) &&
-                (lon != null && step.lon != null && lon.compareTo(step.lon) == 0) || (lat == null && step.lat == null) &&
-                step.destination == destination &&
-                step.wayPoint == wayPoint;
+    @Override
+    public int hashCode() {
+        return 31 * (31 * lat + lon) + (wayPoint ? 2 : 0) + (destination ? 1 : 0);
     }
 
     public String toJson() {
@@ -55,11 +87,23 @@ public class MissionStep {
         return new Builder(lat, lon);
     }
 
+    public static Builder builder(Location location) {
+        return new Builder(location.fixedLatitude(), location.fixedLongitude());
+    }
+
+    public static Builder builder(double lat, double lon) {
+        return new Builder(Coordinates.fromDegrees(lat), Coordinates.fromDegrees(lon));
+    }
+
     public static class Builder {
 
         private final MissionStep missionStep = new MissionStep();
 
         public Builder(BigDecimal lat, BigDecimal lon) {
+            this(Coordinates.fromDecimal(lat), Coordinates.fromDecimal(lon));
+        }
+
+        Builder(int lat, int lon) {
             missionStep.lat = lat;
             missionStep.lon = lon;
         }
@@ -0,0 +1,172 @@
+package com.redhat.emergency.response.mission.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The route of a mission, packed into parallel arrays of fixed-point {@link Coordinates} and flag
+ * bytes: about nine bytes a step instead of a {@link MissionStep} with two {@code BigDecimal}s.
+ * Steps are materialized only when read through {@link #get} or the {@link #asList()} view.
+ */
+public final class MissionSteps {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final byte WAYPOINT = 1;
+
+    private static final byte DESTINATION = 2;
+
+    private int[] lat = new int[0];
+
+    private int[] lon = new int[0];
+
+    private byte[] flags = new byte[0];
+
+    private int size;
+
+    public synchronized void add(int latitude, int longitude, boolean wayPoint, boolean destination) {
+        if (size == lat.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, size + (size >> 1));
+            lat = Arrays.copyOf(lat, capacity);
+            lon = Arrays.copyOf(lon, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+        }
+        lat[size] = latitude;
+        lon[size] = longitude;
+        flags[size] = (byte) ((wayPoint ? WAYPOINT : 0) | (destination ? DESTINATION : 0));
+        size++;
+    }
+
+    public void add(MissionStep step) {
+        add(step.fixedLat(), step.fixedLon(), step.isWayPoint(), step.isDestination());
+    }
+
+    /**
+     * Replaces all steps at once, so readers holding the monitor see either the old or the new
+     * route.
+     */
+    public synchronized void replace(List<MissionStep> steps) {
+        clear();
+        steps.forEach(this::add);
+        trim();
+    }
+
+    /**
+     * Releases the spare capacity left by growing, once the route is complete.
+     */
+    public synchronized void trim() {
+        if (size < lat.length) {
+            lat = Arrays.copyOf(lat, size);
+            lon = Arrays.copyOf(lon, size);
+            flags = Arrays.copyOf(flags, size);
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Approximate heap size of the step arrays, in bytes.
+     */
+    public synchronized long estimatedBytes() {
+        return 3 * 16 + 8L * lat.length + flags.length;
+    }
+
+    public synchronized int lat(int i) {
+        check(i);
+        return lat[i];
+    }
+
+    public synchronized int lon(int i) {
+        check(i);
+        return lon[i];
+    }
+
+    public synchronized boolean isWayPoint(int i) {
+        check(i);
+        return (flags[i] & WAYPOINT) != 0;
+    }
+
+    public synchronized boolean isDestination(int i) {
+        check(i);
+        return (flags[i] & DESTINATION) != 0;
+    }
+
+    /**
+     * The steps {@link RouteSimplifier} keeps with the given tolerance, as a new instance, or this
+     * instance when no step is dropped.
+     */
+    public synchronized MissionSteps simplified(double toleranceMeters) {
+        if (toleranceMeters <= 0 || size < 3) {
+            return this;
+        }
+        boolean[] anchor = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            anchor[i] = flags[i] != 0 || lat[i] == Coordinates.NONE || lon[i] == Coordinates.NONE;
+        }
+        boolean[] keep = RouteSimplifier.keep(lat, lon, anchor, size, toleranceMeters);
+        MissionSteps kept = new MissionSteps();
+        for (int i = 0; i < size; i++) {
+            if (keep[i]) {
+                kept.add(lat[i], lon[i], (flags[i] & WAYPOINT) != 0, (flags[i] & DESTINATION) != 0);
+            }
+        }
+        if (kept.size == size) {
+            return this;
+        }
+        kept.trim();
+        return kept;
+    }
+
+    public synchronized MissionStep get(int i) {
+        check(i);
+        return new MissionStep(lat[i], lon[i], (flags[i] & WAYPOINT) != 0, (flags[i] & DESTINATION) != 0);
+    }
+
+    public synchronized void clear() {
+        lat = new int[0];
+        lon = new int[0];
+        flags = new byte[0];
+        size = 0;
+    }
+
+    /**
+     * Live list view of the steps. Adding to the view appends; steps cannot be replaced or
+     * removed one by one.
+     */
+    public List<MissionStep> asList() {
+        return new AbstractList<>() {
+
+            @Override
+            public MissionStep get(int index) {
+                return MissionSteps.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return MissionSteps.this.size();
+            }
+
+            @Override
+            public void add(int index, MissionStep element) {
+                if (index != size()) {
+                    throw new UnsupportedOperationException("Steps can only be appended");
+                }
+                MissionSteps.this.add(element);
+            }
+
+            @Override
+            public void clear() {
+                MissionSteps.this.clear();
+            }
+        };
+    }
+
+    private void check(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + ", size " + size);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.redhat.emergency.response.mission.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The encoded polyline format: each coordinate is rounded to {@code precision} decimals and the
+ * differences to the previous point are written as zig-zag varints in printable ASCII, latitude
+ * first. Precision 5 is the common format; 6 is used by some routing engines.
+ * <p>
+ * Steps with a missing coordinate cannot be represented and are left out.
+ */
+public final class Polyline {
+
+    public static final int DEFAULT_PRECISION = 5;
+
+    private static final long[] POWERS = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000};
+
+    private Polyline() {
+    }
+
+    public static String encode(MissionSteps steps, int precision) {
+        long divisor = divisor(precision);
+        StringBuilder out = new StringBuilder();
+        synchronized (steps) {
+            long lastLat = 0;
+            long lastLon = 0;
+            for (int i = 0; i < steps.size(); i++) {
+                int lat = steps.lat(i);
+                int lon = steps.lon(i);
+                if (lat == Coordinates.NONE || lon == Coordinates.NONE) {
+                    continue;
+                }
+                long roundedLat = round(lat, divisor);
+                long roundedLon = round(lon, divisor);
+                write(roundedLat - lastLat, out);
+                write(roundedLon - lastLon, out);
+                lastLat = roundedLat;
+                lastLon = roundedLon;
+            }
+        }
+        return out.toString();
+    }
+
+    public static List<Location> decode(String encoded, int precision) {
+        long divisor = divisor(precision);
+        List<Location> points = new ArrayList<>();
+        long lat = 0;
+        long lon = 0;
+        int[] position = {0};
+        while (position[0] < encoded.length()) {
+            lat += read(encoded, position);
+            lon += read(encoded, position);
+            points.add(Location.fixed((int) (lat * divisor), (int) (lon * divisor)));
+        }
+        return points;
+    }
+
+    private static long divisor(int precision) {
+        if (precision < 1 || precision > Coordinates.SCALE) {
+            throw new IllegalArgumentException("Polyline precision must be between 1 and " + Coordinates.SCALE + ": " + precision);
+        }
+        return POWERS[Coordinates.SCALE - precision];
+    }
+
+    private static long round(int fixed, long divisor) {
+        return fixed < 0 ? -((-(long) fixed + divisor / 2) / divisor) : (fixed + divisor / 2) / divisor;
+    }
+
+    private static void write(long delta, StringBuilder out) {
+        long value = delta < 0 ? ~(delta << 1) : delta << 1;
+        while (value >= 0x20) {
+            out.append((char) ((0x20 | (value & 0x1f)) + 63));
+            value >>= 5;
+        }
+        out.append((char) (value + 63));
+    }
+
+    private static long read(String encoded, int[] position) {
+        long value = 0;
+        int shift = 0;
+        int chunk;
+        do {
+            if (position[0] >= encoded.length()) {
+                throw new IllegalArgumentException("Truncated polyline");
+            }
+            chunk = encoded.charAt(position[0]++) - 63;
+            value |= (long) (chunk & 0x1f) << shift;
+            shift += 5;
+        } while (chunk >= 0x20);
+        return (value & 1) != 0 ? ~(value >> 1) : value >> 1;
+    }
+}
@@ -0,0 +1,267 @@
+package com.redhat.emergency.response.mission.model;
+
+/**
+ * Cursor tracking a responder along the route of a mission.
+ * <p>
+ * The steps are projected once, when the cursor is created, onto a local plane in meters around
+ * the first step (equirectangular, accurate to well under a percent over a city), together with
+ * the prefix sums of the segment lengths. Each position is snapped to the nearest segment by a
+ * search that starts at the segment the previous position was snapped to and walks forward until
+ * {@value #LOOKAHEAD} segments in a row are no closer; ties go to the earliest segment. It only
+ * steps back one segment, and only when that one is clearly closer, so a route that returns along
+ * the road it came by is followed rather than folded back onto its first pass. A responder moving
+ * along the route therefore costs a handful of distance computations per update whatever the
+ * length of the route, and the distance travelled, remaining and left to the incident are
+ * prefix-sum lookups. A position far off the route keeps the cursor where it
+ * was and is reported through {@link #offRouteMeters()}; the route is never searched as a whole.
+ * <p>
+ * The time left is the remaining distance over the responder's observed speed along the route,
+ * smoothed over updates, or over a given default speed until the responder has moved.
+ */
+public final class RouteProgress {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    private static final double METERS_PER_UNIT = Math.toRadians(1) / Math.pow(10, Coordinates.SCALE) * EARTH_RADIUS_METERS;
+
+    private static final int LOOKAHEAD = 8;
+
+    /**
+     * How much closer, in meters, the previous segment has to be for the cursor to move back.
+     */
+    private static final double BACKTRACK_METERS = 10;
+
+    /**
+     * Weight of the latest speed sample in the smoothed speed.
+     */
+    private static final double SPEED_ALPHA = 0.3;
+
+    /**
+     * Below this speed, in m/s, the responder is considered stopped and the default speed is used.
+     */
+    private static final double MIN_SPEED = 1;
+
+    /**
+     * Distance, in meters, within which the incident or the destination counts as reached.
+     */
+    public static final double ARRIVAL_METERS = 50;
+
+    private final int originLat;
+
+    private final int originLon;
+
+    private final double metersPerLonUnit;
+
+    private final double[] x;
+
+    private final double[] y;
+
+    private final double[] cumulative;
+
+    /**
+     * Point index of the incident, the first waypoint, or -1.
+     */
+    private final int waypoint;
+
+    private int segment;
+
+    private double travelled;
+
+    private double offRoute;
+
+    private long lastTime = Long.MIN_VALUE;
+
+    private double lastTravelled;
+
+    private double speed;
+
+    private boolean tracked;
+
+    private long emittedAt = Long.MIN_VALUE;
+
+    private int emittedMilestone;
+
+    private RouteProgress(int[] lat, int[] lon, boolean[] wayPoint, int size) {
+        originLat = size > 0 ? lat[0] : 0;
+        originLon = size > 0 ? lon[0] : 0;
+        metersPerLonUnit = METERS_PER_UNIT * Math.cos(Math.toRadians(Coordinates.toDegrees(originLat)));
+        x = new double[size];
+        y = new double[size];
+        cumulative = new double[size];
+        int waypoint = -1;
+        for (int i = 0; i < size; i++) {
+            x[i] = ((long) lon[i] - originLon) * metersPerLonUnit;
+            y[i] = ((long) lat[i] - originLat) * METERS_PER_UNIT;
+            if (i > 0) {
+                cumulative[i] = cumulative[i - 1] + Math.hypot(x[i] - x[i - 1], y[i] - y[i - 1]);
+            }
+            if (waypoint < 0 && wayPoint[i]) {
+                waypoint = i;
+            }
+        }
+        this.waypoint = waypoint;
+    }
+
+    /**
+     * A cursor at the start of the route, skipping steps without coordinates.
+     */
+    public static RouteProgress of(MissionSteps steps) {
+        synchronized (steps) {
+            int size = steps.size();
+            int[] lat = new int[size];
+            int[] lon = new int[size];
+            boolean[] wayPoint = new boolean[size];
+            int points = 0;
+            for (int i = 0; i < size; i++) {
+                if (steps.lat(i) != Coordinates.NONE && steps.lon(i) != Coordinates.NONE) {
+                    lat[points] = steps.lat(i);
+                    lon[points] = steps.lon(i);
+                    wayPoint[points] = steps.isWayPoint(i);
+                    points++;
+                }
+            }
+            return new RouteProgress(lat, lon, wayPoint, points);
+        }
+    }
+
+    /**
+     * Approximate heap size of the projected route, in bytes.
+     */
+    public long estimatedBytes() {
+        return 96 + 3 * (16 + 8L * x.length);
+    }
+
+    /**
+     * Moves the cursor to the point of the route nearest to a position reported at {@code time},
+     * in epoch milliseconds. Returns false, leaving the cursor alone, when the route has no
+     * segment to snap to.
+     */
+    public synchronized boolean update(int lat, int lon, long time) {
+        if (x.length < 2) {
+            return false;
+        }
+        double px = ((long) lon - originLon) * metersPerLonUnit;
+        double py = ((long) lat - originLat) * METERS_PER_UNIT;
+        int last = x.length - 2;
+        int best = segment;
+        double bestDistance = distanceSquared(segment, px, py);
+        for (int i = segment + 1, misses = 0; i <= last && misses < LOOKAHEAD; i++) {
+            double d = distanceSquared(i, px, py);
+            if (d < bestDistance) {
+                best = i;
+                bestDistance = d;
+                misses = 0;
+            } else {
+                misses++;
+            }
+        }
+        if (segment > 0) {
+            double d = distanceSquared(segment - 1, px, py);
+            if (Math.sqrt(d) + BACKTRACK_METERS < Math.sqrt(bestDistance)) {
+                best = segment - 1;
+                bestDistance = d;
+            }
+        }
+        segment = best;
+        travelled = cumulative[best] + fraction(best, px, py) * (cumulative[best + 1] - cumulative[best]);
+        offRoute = Math.sqrt(bestDistance);
+        if (lastTime != Long.MIN_VALUE && time > lastTime) {
+            double sample = Math.max(0, travelled - lastTravelled) * 1000 / (time - lastTime);
+            speed = tracked ? speed + SPEED_ALPHA * (sample - speed) : sample;
+            tracked = true;
+        }
+        lastTime = time;
+        lastTravelled = travelled;
+        return true;
+    }
+
+    /**
+     * Index, among the steps with coordinates, of the start of the segment the responder is on.
+     */
+    public synchronized int segment() {
+        return segment;
+    }
+
+    public synchronized double travelledMeters() {
+        return travelled;
+    }
+
+    public synchronized double remainingMeters() {
+        return x.length == 0 ? 0 : Math.max(0, cumulative[x.length - 1] - travelled);
+    }
+
+    /**
+     * Distance left to the incident, 0 once passed, or -1 when the route has no waypoint.
+     */
+    public synchronized double toIncidentMeters() {
+        return waypoint < 0 ? -1 : Math.max(0, cumulative[waypoint] - travelled);
+    }
+
+    /**
+     * Distance from the last position to the route.
+     */
+    public synchronized double offRouteMeters() {
+        return offRoute;
+    }
+
+    /**
+     * Smoothed speed along the route, in m/s, or 0 before the responder has moved.
+     */
+    public synchronized double speed() {
+        return speed;
+    }
+
+    /**
+     * Seconds left to the destination at the observed speed, or at {@code defaultSpeed} (m/s)
+     * while the responder is stopped or has not moved yet.
+     */
+    public synchronized long etaSeconds(double defaultSpeed) {
+        double remaining = remainingMeters();
+        return Math.round(remaining / (speed >= MIN_SPEED ? speed : defaultSpeed));
+    }
+
+    /**
+     * Whether a progress event is due at {@code time}: the first one, one when the responder
+     * reaches the incident or the destination, and otherwise at most one per
+     * {@code minIntervalMs}. Marks the event as emitted when it is due.
+     */
+    public synchronized boolean due(long time, long minIntervalMs) {
+        int milestone = milestone();
+        if (emittedAt != Long.MIN_VALUE && milestone == emittedMilestone && time - emittedAt < minIntervalMs) {
+            return false;
+        }
+        emittedAt = time;
+        emittedMilestone = milestone;
+        return true;
+    }
+
+    /**
+     * 0 on the way to the incident, 1 once at or past it, 2 at the destination.
+     */
+    private int milestone() {
+        if (remainingMeters() <= ARRIVAL_METERS) {
+            return 2;
+        }
+        return waypoint >= 0 && cumulative[waypoint] - travelled > ARRIVAL_METERS ? 0 : 1;
+    }
+
+    private double distanceSquared(int i, double px, double py) {
+        double t = fraction(i, px, py);
+        double dx = x[i] + t * (x[i + 1] - x[i]) - px;
+        double dy = y[i] + t * (y[i + 1] - y[i]) - py;
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Position, from 0 to 1, of the projection of the point on segment {@code i}.
+     */
+    private double fraction(int i, double px, double py) {
+        double sx = x[i + 1] - x[i];
+        double sy = y[i + 1] - y[i];
+        double length = sx * sx + sy * sy;
+        if (length == 0) {
+            return 0;
+        }
+        return Math.max(0, Math.min(1, ((px - x[i]) * sx + (py - y[i]) * sy) / length));
+    }
+}
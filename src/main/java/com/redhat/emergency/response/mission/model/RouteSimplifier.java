@@ -0,0 +1,129 @@
+package com.redhat.emergency.response.mission.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Douglas-Peucker simplification of a route.
+ * <p>
+ * A step is dropped when it lies within the tolerance of the straight line between the steps kept
+ * around it. The first and last steps and every waypoint and destination step are always kept, and
+ * each stretch between two of them is simplified on its own, so the simplified route still passes
+ * exactly through them. Steps with a missing coordinate are kept as they are. Distances are measured on a local equirectangular projection of each
+ * segment, which is accurate to well under a meter at road-segment scale, on the fixed-point
+ * coordinates without converting them to decimals.
+ */
+public final class RouteSimplifier {
+
+    private static final double METERS_PER_UNIT = Math.PI * Location.EARTH_RADIUS_METERS / 180 / 10_000_000;
+
+    private static final long FULL_TURN = 360 * 10_000_000L;
+
+    private RouteSimplifier() {
+    }
+
+    /**
+     * The steps kept with the given tolerance, in order. Returns the list itself when no step is
+     * dropped.
+     */
+    public static List<MissionStep> simplify(List<MissionStep> steps, double toleranceMeters) {
+        int size = steps.size();
+        if (toleranceMeters <= 0 || size < 3) {
+            return steps;
+        }
+        int[] lat = new int[size];
+        int[] lon = new int[size];
+        boolean[] anchor = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            MissionStep step = steps.get(i);
+            lat[i] = step.fixedLat();
+            lon[i] = step.fixedLon();
+            anchor[i] = step.isWayPoint() || step.isDestination() || lat[i] == Coordinates.NONE || lon[i] == Coordinates.NONE;
+        }
+        boolean[] keep = keep(lat, lon, anchor, size, toleranceMeters);
+        List<MissionStep> kept = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (keep[i]) {
+                kept.add(steps.get(i));
+            }
+        }
+        return kept.size() == size ? steps : kept;
+    }
+
+    /**
+     * Marks the steps to keep. Anchors, and the first and last step, are always kept. Steps with
+     * a missing coordinate should be passed as anchors.
+     */
+    static boolean[] keep(int[] lat, int[] lon, boolean[] anchor, int size, double toleranceMeters) {
+        boolean[] keep = new boolean[size];
+        if (size == 0) {
+            return keep;
+        }
+        double tolerance = toleranceMeters * toleranceMeters;
+        int[] stack = new int[64];
+        int start = 0;
+        keep[0] = true;
+        for (int end = 1; end < size; end++) {
+            if (!anchor[end] && end != size - 1) {
+                continue;
+            }
+            keep[end] = true;
+            int top = 0;
+            stack[top++] = start;
+            stack[top++] = end;
+            while (top > 0) {
+                int last = stack[--top];
+                int first = stack[--top];
+                int farthest = -1;
+                double max = tolerance;
+                for (int i = first + 1; i < last; i++) {
+                    double d = segmentDistanceSquared(lat, lon, first, last, i);
+                    if (d > max) {
+                        max = d;
+                        farthest = i;
+                    }
+                }
+                if (farthest >= 0) {
+                    keep[farthest] = true;
+                    if (top + 4 > stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    stack[top++] = first;
+                    stack[top++] = farthest;
+                    stack[top++] = farthest;
+                    stack[top++] = last;
+                }
+            }
+            start = end;
+        }
+        return keep;
+    }
+
+    /**
+     * Squared distance in meters from step {@code p} to the segment from step {@code a} to step
+     * {@code b}.
+     */
+    private static double segmentDistanceSquared(int[] lat, int[] lon, int a, int b, int p) {
+        double kx = Math.cos(Math.toRadians(lat[a] / 1e7)) * METERS_PER_UNIT;
+        double bx = wrap((long) lon[b] - lon[a]) * kx;
+        double by = ((long) lat[b] - lat[a]) * METERS_PER_UNIT;
+        double px = wrap((long) lon[p] - lon[a]) * kx;
+        double py = ((long) lat[p] - lat[a]) * METERS_PER_UNIT;
+        double length = bx * bx + by * by;
+        double t = length == 0 ? 0 : Math.max(0, Math.min(1, (px * bx + py * by) / length));
+        double dx = px - t * bx;
+        double dy = py - t * by;
+        return dx * dx + dy * dy;
+    }
+
+    private static long wrap(long deltaLon) {
+        if (deltaLon > FULL_TURN / 2) {
+            return deltaLon - FULL_TURN;
+        }
+        if (deltaLon < -FULL_TURN / 2) {
+            return deltaLon + FULL_TURN;
+        }
+        return deltaLon;
+    }
+}
@@ -0,0 +1,29 @@
+package com.redhat.emergency.response.mission.model;
+
+import java.util.UUID;
+
+/**
+ * The built-in id generators, selected with {@code mission.id.generator}.
+ */
+public enum StandardIdGenerator implements IdGenerator {
+
+    /**
+     * Time-ordered version 7 UUIDs, see {@link TimeOrderedIds}.
+     */
+    TIME_ORDERED {
+        @Override
+        public String next() {
+            return TimeOrderedIds.next();
+        }
+    },
+
+    /**
+     * Random version 4 UUIDs from {@link UUID#randomUUID()}, which share one {@code SecureRandom}.
+     */
+    RANDOM {
+        @Override
+        public String next() {
+            return UUID.randomUUID().toString();
+        }
+    }
+}
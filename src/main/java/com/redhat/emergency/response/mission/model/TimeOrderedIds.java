@@ -0,0 +1,108 @@
+package com.redhat.emergency.response.mission.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Version 7 UUIDs: a 48-bit Unix millisecond timestamp followed by a 12-bit counter and 62
+ * random bits, formatted as the usual 36 character lowercase UUID string.
+ * <p>
+ * Ids are generated from per-thread state and {@link ThreadLocalRandom}, without locks or a shared
+ * {@code SecureRandom}. The ids of one thread are strictly increasing: within a millisecond the
+ * counter, which starts at a random value in its lower half, is incremented, and when it overflows
+ * the timestamp is moved one millisecond ahead. Ids of different threads are ordered by their
+ * millisecond. As the timestamp leads and the hex digits are lowercase, ids sort the same as
+ * strings and as numbers, so a range of creation times is a range of ids, see {@link #lowerBound}.
+ */
+public final class TimeOrderedIds {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private static final long VERSION = 0x7000L;
+
+    private static final long VARIANT = 0x8000000000000000L;
+
+    private static final int COUNTER_MASK = 0xfff;
+
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    private TimeOrderedIds() {
+    }
+
+    public static String next() {
+        return STATE.get().next(System.currentTimeMillis());
+    }
+
+    /**
+     * The smallest time-ordered id of {@code epochMillis}; every id generated at that millisecond
+     * or later sorts at or after it.
+     */
+    public static String lowerBound(long epochMillis) {
+        return format(epochMillis << 16 | VERSION, VARIANT, new byte[36]);
+    }
+
+    /**
+     * The millisecond a time-ordered id was generated at, or -1 when {@code id} is not a version 7
+     * UUID string.
+     */
+    public static long timestamp(String id) {
+        if (id == null || id.length() != 36 || id.charAt(14) != '7' || id.charAt(8) != '-') {
+            return -1;
+        }
+        long millis = 0;
+        for (int i = 0; i < 13; i++) {
+            if (i == 8) {
+                continue;
+            }
+            int digit = Character.digit(id.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            millis = millis << 4 | digit;
+        }
+        return millis;
+    }
+
+    private static String format(long msb, long lsb, byte[] out) {
+        hex(msb >>> 32, 8, out, 0);
+        out[8] = '-';
+        hex(msb >>> 16, 4, out, 9);
+        out[13] = '-';
+        hex(msb, 4, out, 14);
+        out[18] = '-';
+        hex(lsb >>> 48, 4, out, 19);
+        out[23] = '-';
+        hex(lsb, 12, out, 24);
+        return new String(out, 0, 36, StandardCharsets.ISO_8859_1);
+    }
+
+    private static void hex(long value, int digits, byte[] out, int offset) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            out[i] = HEX[(int) value & 0xf];
+            value >>>= 4;
+        }
+    }
+
+    private static final class State {
+
+        private final byte[] buffer = new byte[36];
+
+        private long millis = -1;
+
+        private int counter;
+
+        String next(long now) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (now > millis) {
+                millis = now;
+                counter = random.nextInt(COUNTER_MASK >>> 1);
+            } else if (++counter > COUNTER_MASK) {
+                millis++;
+                counter = random.nextInt(COUNTER_MASK >>> 1);
+            }
+            long msb = millis << 16 | VERSION | counter;
+            long lsb = VARIANT | random.nextLong() >>> 2;
+            return format(msb, lsb, buffer);
+        }
+    }
+}
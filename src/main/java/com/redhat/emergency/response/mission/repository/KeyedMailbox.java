@@ -0,0 +1,88 @@
+package com.redhat.emergency.response.mission.repository;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Runs the tasks submitted for the same key one at a time, in submission order, and tasks for
+ * different keys independently.
+ * <p>
+ * A key only has a mailbox while it has pending work: the first task submitted to an idle key
+ * creates the mailbox and hands it to the executor, later tasks are queued behind it, and the
+ * mailbox removes itself once drained. Submitting only takes the {@link ConcurrentHashMap} bin lock
+ * of the key, so keys do not contend with each other. With a direct executor the submitting thread
+ * runs the mailbox itself, and a thread that finds the key busy leaves its task to the thread
+ * already draining it.
+ */
+final class KeyedMailbox<K> {
+
+    private final Map<K, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    private final Executor executor;
+
+    KeyedMailbox(Executor executor) {
+        this.executor = executor;
+    }
+
+    <T> CompletionStage<T> submit(K key, Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable work = () -> {
+            try {
+                result.complete(task.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        };
+        boolean[] idle = new boolean[1];
+        Mailbox mailbox = mailboxes.compute(key, (k, m) -> {
+            if (m == null) {
+                m = new Mailbox(k);
+                idle[0] = true;
+            }
+            m.tasks.add(work);
+            return m;
+        });
+        if (idle[0]) {
+            executor.execute(mailbox);
+        }
+        return result;
+    }
+
+    /**
+     * Keys with pending work.
+     */
+    int size() {
+        return mailboxes.size();
+    }
+
+    private final class Mailbox implements Runnable {
+
+        private final K key;
+
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+        private Mailbox(K key) {
+            this.key = key;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                // tasks are only added under the bin lock, so an empty queue seen here stays empty
+                if (mailboxes.computeIfPresent(key, (k, m) -> m.tasks.isEmpty() ? null : m) == null) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.redhat.emergency.response.mission.repository;
+
+import com.redhat.emergency.response.mission.model.Mission;
+
+/**
+ * Told about every mission stored in, or changed in place in, the {@link MissionRepository}.
+ * Called on the thread that made the change, after it is visible to readers, so implementations
+ * must be quick and must not block.
+ */
+@FunctionalInterface
+public interface MissionListener {
+
+    void changed(Mission mission);
+}
@@ -1,17 +1,698 @@
 package com.redhat.emergency.response.mission.repository;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
 import com.redhat.emergency.response.mission.model.Mission;
+import com.redhat.emergency.response.mission.model.MissionKey;
+import com.redhat.emergency.response.mission.model.MissionPoint;
+import com.redhat.emergency.response.mission.model.MissionStatus;
+import com.redhat.emergency.response.mission.model.MissionStep;
+import com.redhat.emergency.response.mission.model.TimeOrderedIds;
+import com.redhat.emergency.response.mission.repository.journal.MissionArchive;
+import com.redhat.emergency.response.mission.repository.journal.MissionJournal;
+import com.redhat.emergency.response.mission.repository.journal.SyncPolicy;
 
+/**
+ * Concurrent mission store. Reads never lock; writes for a given key are serialized by the
+ * {@link ConcurrentHashMap} bin lock of that key, and the secondary indexes are updated while
+ * that lock is held so they always agree with the primary map.
+ * <p>
+ * When {@code mission.repository.journal.enabled} is set, every write is also appended to a
+ * {@link MissionJournal} and the repository is rebuilt from it at startup.
+ * <p>
+ * Status changes go through {@link #transition}, which runs them on a per-key mailbox so the
+ * read-check-write of one mission never interleaves with another change to the same mission.
+ * <p>
+ * Missions are also indexed by id in id order. With {@link TimeOrderedIds} that is the order they
+ * were created in, which {@link #findCreatedBetween} scans and snapshots are written in.
+ * <p>
+ * When {@code mission.repository.retention.enabled} is set, completed and failed missions are
+ * evicted once they have been stored in that status for longer than their status' time to live.
+ * Finished missions are queued per status in the order they were stored, so a background sweep
+ * only looks at the head of each queue and evicts at most {@code sweep-batch-size} missions per
+ * pass, each through the mailbox of its key like any other change. Evicted missions are written to
+ * a {@link MissionArchive} when {@code mission.repository.archive.enabled} is set too, where
+ * {@link #findArchived} and {@link #status} still find them, and their removal is journaled.
+ * <p>
+ * {@link MissionListener}s registered with {@link #listen} are told about every mission stored with
+ * {@link #put}, {@link #putAll} or a status change, and about in-place changes reported through
+ * {@link #changed}. Missions restored from the journal and evictions are not reported.
+ */
 @ApplicationScoped
 public class MissionRepository {
 
-    private Map<String, Mission> repository = new HashMap<>();
+    private static final Logger log = Logger.getLogger(MissionRepository.class);
+
+    private final Map<MissionKey, Entry> repository = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<MissionKey>> byIncident = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<MissionKey>> byResponder = new ConcurrentHashMap<>();
+
+    private final Map<MissionStatus, Set<MissionKey>> byStatus = new EnumMap<>(MissionStatus.class);
+
+    private final Map<String, MissionKey> activeByResponder = new ConcurrentHashMap<>();
+
+    private final ConcurrentNavigableMap<String, MissionKey> byId = new ConcurrentSkipListMap<>();
+
+    private final Map<MissionStatus, ConcurrentNavigableMap<String, MissionKey>> byStatusAndId = new EnumMap<>(MissionStatus.class);
+
+    private MissionSpatialIndex spatial = new MissionSpatialIndex(MissionSpatialIndex.DEFAULT_CELL_DEGREES);
+
+    private final KeyedMailbox<MissionKey> mailbox = new KeyedMailbox<>(Runnable::run);
+
+    private final Map<MissionStatus, Queue<Entry>> finished = new EnumMap<>(MissionStatus.class);
+
+    private volatile Map<MissionStatus, Long> timeToLive = Collections.emptyMap();
+
+    private int sweepBatchSize = 500;
+
+    private final LongAdder evicted = new LongAdder();
+
+    /**
+     * Sum of the {@link Entry#bytes} of the stored missions.
+     */
+    private final LongAdder heapBytes = new LongAdder();
+
+    private final List<MissionListener> listeners = new CopyOnWriteArrayList<>();
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    @ConfigProperty(name = "mission.repository.journal.enabled", defaultValue = "false")
+    boolean journalEnabled;
+
+    @ConfigProperty(name = "mission.repository.journal.directory", defaultValue = "data/journal")
+    String journalDirectory;
+
+    @ConfigProperty(name = "mission.repository.journal.segment-size", defaultValue = "67108864")
+    long journalSegmentSize;
+
+    @ConfigProperty(name = "mission.repository.journal.sync", defaultValue = "INTERVAL")
+    SyncPolicy journalSync;
+
+    @ConfigProperty(name = "mission.repository.journal.sync-batch-size", defaultValue = "64")
+    int journalSyncBatchSize;
+
+    @ConfigProperty(name = "mission.repository.journal.sync-interval-ms", defaultValue = "1000")
+    long journalSyncIntervalMs;
+
+    @ConfigProperty(name = "mission.repository.journal.snapshot-interval-ms", defaultValue = "300000")
+    long journalSnapshotIntervalMs;
+
+    /**
+     * Size, in degrees, of the grid cells of the index over active mission locations.
+     */
+    @ConfigProperty(name = "mission.repository.spatial.cell-degrees", defaultValue = "0.01")
+    double spatialCellDegrees;
+
+    @ConfigProperty(name = "mission.repository.retention.enabled", defaultValue = "false")
+    boolean retentionEnabled;
+
+    @ConfigProperty(name = "mission.repository.retention.completed-ttl-ms", defaultValue = "3600000")
+    long completedTtlMs;
+
+    @ConfigProperty(name = "mission.repository.retention.failed-ttl-ms", defaultValue = "3600000")
+    long failedTtlMs;
+
+    @ConfigProperty(name = "mission.repository.retention.sweep-interval-ms", defaultValue = "1000")
+    long sweepIntervalMs;
+
+    /**
+     * Most missions evicted by one pass of the sweep; passes follow each other until fewer are due.
+     */
+    @ConfigProperty(name = "mission.repository.retention.sweep-batch-size", defaultValue = "500")
+    int retentionSweepBatchSize;
+
+    /**
+     * Whether evicted missions are archived; like the journal, the archive directory should be on a
+     * persistent volume writable by the process.
+     */
+    @ConfigProperty(name = "mission.repository.archive.enabled", defaultValue = "false")
+    boolean archiveEnabled;
+
+    @ConfigProperty(name = "mission.repository.archive.directory", defaultValue = "data/archive")
+    String archiveDirectory;
+
+    private MissionJournal journal;
+
+    private MissionArchive archive;
+
+    private ScheduledExecutorService sweeper;
+
+    public MissionRepository() {
+        for (MissionStatus status : MissionStatus.values()) {
+            byStatus.put(status, ConcurrentHashMap.newKeySet());
+            byStatusAndId.put(status, new ConcurrentSkipListMap<>());
+            if (!status.isActive()) {
+                finished.put(status, new ConcurrentLinkedQueue<>());
+            }
+        }
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        spatial = new MissionSpatialIndex(spatialCellDegrees);
+        if (journalEnabled) {
+            open(MissionJournal.builder(Paths.get(journalDirectory))
+                    .segmentSize(journalSegmentSize)
+                    .syncPolicy(journalSync)
+                    .syncBatchSize(journalSyncBatchSize)
+                    .syncIntervalMs(journalSyncIntervalMs)
+                    .snapshotIntervalMs(journalSnapshotIntervalMs)
+                    .build());
+        }
+        if (retentionEnabled) {
+            Map<MissionStatus, Long> timeToLive = new EnumMap<>(MissionStatus.class);
+            timeToLive.put(MissionStatus.COMPLETED, completedTtlMs);
+            timeToLive.put(MissionStatus.FAILED, failedTtlMs);
+            retain(timeToLive, retentionSweepBatchSize, archiveEnabled ? MissionArchive.open(Paths.get(archiveDirectory)) : null);
+            sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "mission-retention");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sweeper.scheduleWithFixedDelay(() -> {
+                try {
+                    while (sweep() >= sweepBatchSize) {
+                        Thread.yield();
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Mission retention sweep failed", e);
+                }
+            }, sweepIntervalMs, sweepIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+        if (journal != null) {
+            journal.close();
+        }
+        if (archive != null) {
+            archive.close();
+        }
+    }
+
+    /**
+     * Evicts missions in the given statuses once they have been stored in that status for longer
+     * than their time to live, into {@code archive} if not null. Missions already finished are
+     * only queued for eviction from their next write on, so retention is set up before the
+     * journal is replayed.
+     */
+    void retain(Map<MissionStatus, Long> timeToLive, int sweepBatchSize, MissionArchive archive) {
+        this.sweepBatchSize = Math.max(1, sweepBatchSize);
+        this.archive = archive;
+        this.timeToLive = new EnumMap<>(timeToLive);
+    }
+
+    void open(MissionJournal journal) throws IOException {
+        journal.open(this::store, this::restoreRemoved, () -> () -> Stream.concat(resolve(byId.values()).stream(),
+                repository.values().stream().map(e -> e.mission).filter(mission -> mission.getId() == null)).iterator());
+        this.journal = journal;
+    }
 
     public void put(Mission mission) {
-        repository.put(mission.getKey(), mission);
+        if (journal == null) {
+            store(mission);
+        } else {
+            Lock lock = journal.appendLock();
+            lock.lock();
+            try {
+                storeAndAppend(mission);
+            } finally {
+                lock.unlock();
+            }
+        }
+        notifyListeners(mission);
+    }
+
+    /**
+     * Stores a batch of missions, in order. With a journal the batch is appended under a single
+     * acquisition of the journal's append lock.
+     */
+    public void putAll(Collection<Mission> missions) {
+        if (journal == null) {
+            missions.forEach(this::store);
+        } else {
+            Lock lock = journal.appendLock();
+            lock.lock();
+            try {
+                missions.forEach(this::storeAndAppend);
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (!listeners.isEmpty()) {
+            missions.forEach(this::notifyListeners);
+        }
+    }
+
+    public void listen(MissionListener listener) {
+        listeners.add(listener);
+    }
+
+    public void unlisten(MissionListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Reports a change made in place to a stored mission, such as a recorded responder location,
+     * to the listeners, and takes its new size into account in {@link #heapBytes()}.
+     */
+    public void changed(Mission mission) {
+        long bytes = mission.estimatedBytes();
+        repository.computeIfPresent(mission.missionKey(), (key, current) -> {
+            if (current.mission == mission) {
+                heapBytes.add(bytes - current.bytes);
+                current.bytes = bytes;
+            }
+            return current;
+        });
+        notifyListeners(mission);
+    }
+
+    private void notifyListeners(Mission mission) {
+        for (MissionListener listener : listeners) {
+            listener.changed(mission);
+        }
+    }
+
+    private void store(Mission mission) {
+        long bytes = mission.estimatedBytes();
+        repository.compute(mission.missionKey(), (k, previous) -> reindex(k, previous, mission, bytes));
+    }
+
+    private void storeAndAppend(Mission mission) {
+        long bytes = mission.estimatedBytes();
+        repository.compute(mission.missionKey(), (k, previous) -> {
+            Entry entry = reindex(k, previous, mission, bytes);
+            journal.append(mission);
+            return entry;
+        });
+    }
+
+    /**
+     * Moves the stored mission to {@code status} if its lifecycle allows it, see
+     * {@link MissionStatus#canMoveTo}. Completes with the updated mission, or empty when there is
+     * no such mission or the change would move it backwards.
+     */
+    public CompletionStage<Optional<Mission>> transition(MissionKey key, MissionStatus status) {
+        return mailbox.submit(key, () -> {
+            Entry entry = repository.get(key);
+            if (entry == null || entry.status == null || !entry.status.canMoveTo(status)) {
+                return Optional.empty();
+            }
+            put(entry.mission.status(status));
+            return Optional.of(entry.mission);
+        });
+    }
+
+    /**
+     * Replaces the steps of a mission started with a degraded route once the real route is known.
+     * Applied through the mailbox, and only while that same mission is stored, still degraded and
+     * active; a mission replaced by a later create command or already finished is left alone.
+     * Completes with the updated mission, or empty when the route was not applied.
+     */
+    public CompletionStage<Optional<Mission>> reroute(Mission mission, List<MissionStep> steps) {
+        MissionKey key = mission.missionKey();
+        return mailbox.submit(key, () -> {
+            Entry entry = repository.get(key);
+            if (entry == null || entry.mission != mission || !mission.isDegraded()
+                    || entry.status == null || !entry.status.isActive()) {
+                return Optional.empty();
+            }
+            put(mission.reroute(steps));
+            return Optional.of(mission);
+        });
+    }
+
+    public Optional<Mission> get(MissionKey key) {
+        Entry entry = repository.get(key);
+        return entry == null ? Optional.empty() : Optional.of(entry.mission);
+    }
+
+    public Optional<Mission> get(String incidentId, String responderId) {
+        return get(MissionKey.of(incidentId, responderId));
+    }
+
+    /**
+     * The status of the mission with {@code key}, in the repository or, once evicted, in the
+     * archive.
+     */
+    public Optional<MissionStatus> status(MissionKey key) {
+        Entry entry = repository.get(key);
+        if (entry != null) {
+            return Optional.ofNullable(entry.status);
+        }
+        return archive == null ? Optional.empty() : archive.status(key);
+    }
+
+    /**
+     * The mission with {@code key} as it was evicted, read back from the archive; empty when it
+     * was never evicted or there is no archive.
+     */
+    public Optional<Mission> findArchived(MissionKey key) {
+        return archive == null ? Optional.empty() : archive.get(key);
+    }
+
+    public Optional<Mission> findById(String id) {
+        MissionKey key = id == null ? null : byId.get(id);
+        return key == null ? Optional.empty() : get(key).filter(mission -> id.equals(mission.getId()));
+    }
+
+    /**
+     * Missions with a {@link TimeOrderedIds time-ordered id} generated from {@code fromMillis},
+     * inclusive, to {@code toMillis}, exclusive, oldest first. Missions with other ids are not
+     * found.
+     */
+    public List<Mission> findCreatedBetween(long fromMillis, long toMillis) {
+        if (fromMillis >= toMillis) {
+            return Collections.emptyList();
+        }
+        Collection<MissionKey> keys = byId.subMap(TimeOrderedIds.lowerBound(fromMillis), TimeOrderedIds.lowerBound(toMillis)).values();
+        return keys.stream().map(repository::get).filter(e -> e != null).map(e -> e.mission)
+                .filter(mission -> TimeOrderedIds.timestamp(mission.getId()) >= 0).collect(Collectors.toList());
+    }
+
+    public List<Mission> findByIncidentId(String incidentId) {
+        return resolve(byIncident.get(incidentId));
+    }
+
+    public List<Mission> findByResponderId(String responderId) {
+        return resolve(byResponder.get(responderId));
+    }
+
+    public List<Mission> findByStatus(MissionStatus status) {
+        return resolve(byStatus.get(status));
+    }
+
+    /**
+     * A page of at most {@code limit} missions in {@code status} with an id after {@code after}, the
+     * first page when {@code null}, in id order, i.e. creation order with {@link TimeOrderedIds}.
+     * Seeks into the id index of the status, so a page costs the same wherever it starts; the id of
+     * the last mission of a page is the cursor to the next one. Missions without an id are counted
+     * by {@link #count(MissionStatus)} but never paged.
+     */
+    public List<Mission> findByStatus(MissionStatus status, String after, int limit) {
+        ConcurrentNavigableMap<String, MissionKey> ids = byStatusAndId.get(status);
+        return (after == null ? ids : ids.tailMap(after, false)).values().stream().map(repository::get)
+                // a mission moving to another status may still be indexed under both
+                .filter(entry -> entry != null && entry.status == status)
+                .limit(limit)
+                .map(entry -> entry.mission).collect(Collectors.toList());
+    }
+
+    /**
+     * The mission a responder is currently working on, i.e. the most recent one in status
+     * {@link MissionStatus#CREATED} or {@link MissionStatus#UPDATED}.
+     */
+    public Optional<Mission> findActiveByResponderId(String responderId) {
+        MissionKey key = activeByResponder.get(responderId);
+        return key == null ? Optional.empty() : get(key);
+    }
+
+    /**
+     * Active missions with a responder, incident or destination location within
+     * {@code radiusMeters} of the given point, nearest first. Restricted to the given kinds of
+     * location when any are passed.
+     */
+    public List<Mission> findActiveWithin(double lat, double lon, double radiusMeters, MissionPoint... points) {
+        return spatial.within(lat, lon, radiusMeters, points);
+    }
+
+    /**
+     * The {@code k} active missions with a responder, incident or destination location nearest
+     * to the given point, nearest first. Restricted to the given kinds of location when any are
+     * passed.
+     */
+    public List<Mission> findNearestActive(double lat, double lon, int k, MissionPoint... points) {
+        return spatial.nearest(lat, lon, k, points);
+    }
+
+    public int size() {
+        return repository.size();
+    }
+
+    public int count(MissionStatus status) {
+        return byStatus.get(status).size();
+    }
+
+    /**
+     * Missions evicted since startup.
+     */
+    public long evicted() {
+        return evicted.sum();
+    }
+
+    /**
+     * Missions in the archive, by key.
+     */
+    public int archived() {
+        return archive == null ? 0 : archive.size();
+    }
+
+    /**
+     * Approximate heap footprint of the stored missions, see {@link Mission#estimatedBytes()}.
+     * Kept up to date as missions are stored, changed in place and removed, so reading it touches
+     * no mission.
+     */
+    public long heapBytes() {
+        return heapBytes.sum();
+    }
+
+    /**
+     * One pass of the retention sweep: evicts up to the batch size of the missions whose time to
+     * live has passed, oldest first. Returns the number of missions evicted.
+     */
+    int sweep() {
+        long now = clock.getAsLong();
+        List<Entry> expired = new ArrayList<>();
+        timeToLive.forEach((status, ttl) -> {
+            Queue<Entry> queue = finished.get(status);
+            Entry head;
+            while (expired.size() < sweepBatchSize && (head = queue.peek()) != null) {
+                if (repository.get(head.key) != head) {
+                    queue.poll();
+                } else if (now - head.stored >= ttl) {
+                    expired.add(queue.poll());
+                } else {
+                    break;
+                }
+            }
+        });
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        if (archive != null) {
+            try {
+                archive.archive(expired.stream().map(e -> e.mission).collect(Collectors.toList()));
+            } catch (IOException e) {
+                log.error("Unable to archive " + expired.size() + " missions, keeping them for the next sweep", e);
+                expired.forEach(entry -> finished.get(entry.status).add(entry));
+                return 0;
+            }
+        }
+        for (Entry entry : expired) {
+            mailbox.submit(entry.key, () -> evict(entry));
+        }
+        return expired.size();
+    }
+
+    /**
+     * Removes {@code entry} if it is still the stored one, with its index entries.
+     */
+    private boolean evict(Entry entry) {
+        if (journal == null) {
+            return remove(entry, false);
+        }
+        Lock lock = journal.appendLock();
+        lock.lock();
+        try {
+            return remove(entry, true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean remove(Entry entry, boolean journaled) {
+        boolean[] removed = new boolean[1];
+        repository.computeIfPresent(entry.key, (key, current) -> {
+            if (current != entry) {
+                return current;
+            }
+            unindex(key, current);
+            unlink(key);
+            heapBytes.add(-current.bytes);
+            if (journaled) {
+                journal.remove(current.mission);
+            }
+            removed[0] = true;
+            return null;
+        });
+        if (removed[0]) {
+            evicted.increment();
+        }
+        return removed[0];
+    }
+
+    /**
+     * Replays a journaled removal: drops the stored mission if it is the one that was removed.
+     */
+    private void restoreRemoved(Mission removed) {
+        repository.computeIfPresent(removed.missionKey(), (key, current) -> {
+            if (!Objects.equals(current.mission.getId(), removed.getId())) {
+                return current;
+            }
+            unindex(key, current);
+            unlink(key);
+            heapBytes.add(-current.bytes);
+            return null;
+        });
+    }
+
+    private Entry reindex(MissionKey key, Entry previous, Mission mission, long bytes) {
+        if (previous != null) {
+            unindex(key, previous);
+            heapBytes.add(-previous.bytes);
+        }
+        Entry entry = new Entry(key, mission, statusOf(mission), clock.getAsLong());
+        entry.bytes = bytes;
+        heapBytes.add(bytes);
+        index(key, entry);
+        if (entry.status != null && timeToLive.containsKey(entry.status)) {
+            finished.get(entry.status).add(entry);
+        }
+        return entry;
+    }
+
+    private void index(MissionKey key, Entry entry) {
+        link(byIncident, key.getIncidentId(), key);
+        link(byResponder, key.getResponderId(), key);
+        if (entry.mission.getId() != null) {
+            byId.put(entry.mission.getId(), key);
+        }
+        if (entry.status != null) {
+            byStatus.get(entry.status).add(key);
+            if (entry.mission.getId() != null) {
+                byStatusAndId.get(entry.status).put(entry.mission.getId(), key);
+            }
+            if (entry.status.isActive()) {
+                activeByResponder.put(key.getResponderId(), key);
+                spatial.put(key, entry.mission);
+            }
+        }
+    }
+
+    private void unindex(MissionKey key, Entry entry) {
+        if (entry.mission.getId() != null) {
+            byId.remove(entry.mission.getId(), key);
+        }
+        if (entry.status != null) {
+            byStatus.get(entry.status).remove(key);
+            if (entry.mission.getId() != null) {
+                byStatusAndId.get(entry.status).remove(entry.mission.getId(), key);
+            }
+            if (entry.status.isActive()) {
+                activeByResponder.remove(key.getResponderId(), key);
+                spatial.remove(key);
+            }
+        }
+    }
+
+    private void unlink(MissionKey key) {
+        unlink(byIncident, key.getIncidentId(), key);
+        unlink(byResponder, key.getResponderId(), key);
+    }
+
+    /**
+     * Adds to and removes from the per-incident and per-responder key sets inside the map's
+     * compute, so a set emptied by an eviction is never removed while another key is added to it.
+     */
+    private static void link(Map<String, Set<MissionKey>> index, String id, MissionKey key) {
+        index.compute(id, (k, keys) -> {
+            Set<MissionKey> set = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+            set.add(key);
+            return set;
+        });
+    }
+
+    private static void unlink(Map<String, Set<MissionKey>> index, String id, MissionKey key) {
+        index.computeIfPresent(id, (k, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private List<Mission> resolve(Collection<MissionKey> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return keys.stream().map(repository::get).filter(e -> e != null).map(e -> e.mission).collect(Collectors.toList());
+    }
+
+    private static MissionStatus statusOf(Mission mission) {
+        return mission.getStatus() == null ? null : MissionStatus.valueOf(mission.getStatus());
+    }
+
+    /**
+     * Primary map value. The status is captured at write time so that a mission object mutated in
+     * place can still be removed from the status index it was filed under; the write time is what
+     * retention measures the age of a finished mission from.
+     */
+    private static final class Entry {
+
+        private final MissionKey key;
+
+        private final Mission mission;
+
+        private final MissionStatus status;
+
+        private final long stored;
+
+        /**
+         * Estimated size of the mission, only written inside a compute of its key.
+         */
+        private long bytes;
+
+        private Entry(MissionKey key, Mission mission, MissionStatus status, long stored) {
+            this.key = key;
+            this.mission = mission;
+            this.status = status;
+            this.stored = stored;
+        }
     }
 }
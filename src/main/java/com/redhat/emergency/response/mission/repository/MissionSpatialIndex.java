@@ -0,0 +1,456 @@
+package com.redhat.emergency.response.mission.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+import com.redhat.emergency.response.mission.model.Location;
+import com.redhat.emergency.response.mission.model.Mission;
+import com.redhat.emergency.response.mission.model.MissionKey;
+import com.redhat.emergency.response.mission.model.MissionPoint;
+
+/**
+ * Uniform-grid index over the responder, incident and destination points of missions.
+ * <p>
+ * Each grid cell packs the points inside it into its own primitive arrays, as unit vectors on the
+ * sphere, so a query reads every cell it visits sequentially. Cells are found through an
+ * open-addressing table keyed by the packed cell number. Coordinates are converted to unit
+ * vectors, and the trigonometry done, once when a mission is indexed. A radius query
+ * visits only the cells overlapping the circle's bounding box and compares the squared chord
+ * length to each candidate against a precomputed threshold: the chord grows with the great-circle
+ * distance, so the test costs three multiplications and no trigonometric or decimal arithmetic.
+ * Nearest queries widen a radius query until enough missions are found.
+ * <p>
+ * Updates take a short write lock; queries share a read lock. Cells are never removed, so memory
+ * follows the area the missions have covered rather than the number of missions.
+ */
+final class MissionSpatialIndex {
+
+    static final double DEFAULT_CELL_DEGREES = 0.01;
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * Location.EARTH_RADIUS_METERS;
+
+    private static final MissionPoint[] POINTS = MissionPoint.values();
+
+    private static final int ALL_POINTS = (1 << POINTS.length) - 1;
+
+    private final double cellDegrees;
+
+    private final int rows;
+
+    private final int columns;
+
+    private final StampedLock lock = new StampedLock();
+
+    private final Map<MissionKey, Placement> placements = new HashMap<>();
+
+    private long[] cellKeys = new long[64];
+
+    private Cell[] cells = new Cell[64];
+
+    private int cellCount;
+
+    MissionSpatialIndex(double cellDegrees) {
+        if (!(cellDegrees > 0) || cellDegrees > 90) {
+            throw new IllegalArgumentException("Grid cell size must be between 0 and 90 degrees: " + cellDegrees);
+        }
+        this.cellDegrees = cellDegrees;
+        this.rows = (int) Math.ceil(180 / cellDegrees);
+        this.columns = (int) Math.ceil(360 / cellDegrees);
+        Arrays.fill(cellKeys, -1);
+    }
+
+    /**
+     * Indexes the points of a mission, replacing the ones indexed for its key before. Points with
+     * a missing coordinate are left out.
+     */
+    void put(MissionKey key, Mission mission) {
+        double[] points = new double[2 * POINTS.length];
+        Arrays.fill(points, Double.NaN);
+        points(points, MissionPoint.RESPONDER, mission.responderLocation());
+        points(points, MissionPoint.INCIDENT, mission.incidentLocation());
+        points(points, MissionPoint.DESTINATION, mission.destinationLocation());
+        long stamp = lock.writeLock();
+        try {
+            remove(placements.remove(key));
+            Placement placement = new Placement(key, mission);
+            for (MissionPoint point : POINTS) {
+                double lat = points[2 * point.ordinal()];
+                if (!Double.isNaN(lat)) {
+                    add(placement, point, lat, points[2 * point.ordinal() + 1]);
+                }
+            }
+            if (placement.count > 0) {
+                placements.put(key, placement);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void remove(MissionKey key) {
+        long stamp = lock.writeLock();
+        try {
+            remove(placements.remove(key));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Number of missions with at least one indexed point.
+     */
+    int size() {
+        long stamp = lock.readLock();
+        try {
+            return placements.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Missions with one of the given points within {@code radiusMeters} of the location, nearest
+     * first. No points given means any point. The missions are the instances last indexed.
+     */
+    List<Mission> within(double lat, double lon, double radiusMeters, MissionPoint... points) {
+        Hits hits = new Hits();
+        long stamp = lock.readLock();
+        try {
+            collect(lat, lon, radiusMeters, mask(points), hits);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return hits.sorted(Integer.MAX_VALUE);
+    }
+
+    /**
+     * The {@code k} missions with one of the given points nearest to the location, nearest first.
+     */
+    List<Mission> nearest(double lat, double lon, int k, MissionPoint... points) {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        int mask = mask(points);
+        double maxRadius = Math.PI * Location.EARTH_RADIUS_METERS;
+        // start well inside one cell and double: dense areas stop early, sparse ones take a few rounds
+        double radius = cellDegrees * METERS_PER_DEGREE / 4;
+        long stamp = lock.readLock();
+        try {
+            while (true) {
+                Hits hits = new Hits();
+                collect(lat, lon, radius, mask, hits);
+                if (hits.size >= k && hits.distinct() >= k || radius >= maxRadius) {
+                    return hits.sorted(k);
+                }
+                radius *= 2;
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private void collect(double lat, double lon, double radiusMeters, int mask, Hits hits) {
+        double chord = 2 * Math.sin(Math.min(Math.PI, radiusMeters / Location.EARTH_RADIUS_METERS) / 2);
+        double threshold = chord * chord;
+        double latRad = Math.toRadians(lat);
+        double lonRad = Math.toRadians(lon);
+        double x = Math.cos(latRad) * Math.cos(lonRad);
+        double y = Math.cos(latRad) * Math.sin(lonRad);
+        double z = Math.sin(latRad);
+
+        double dLat = radiusMeters / METERS_PER_DEGREE;
+        double south = Math.max(-90, lat - dLat);
+        double north = Math.min(90, lat + dLat);
+        double cosEdge = Math.cos(Math.toRadians(Math.max(Math.abs(south), Math.abs(north))));
+        double dLon = cosEdge <= 1e-12 ? 360 : dLat / cosEdge;
+        int row0 = row(south);
+        int row1 = row(north);
+        long firstColumn = (long) Math.floor((lon - dLon + 180) / cellDegrees);
+        long span = dLon >= 180 ? columns : Math.min(columns, (long) Math.floor((lon + dLon + 180) / cellDegrees) - firstColumn + 1);
+
+        if ((row1 - row0 + 1) * span > cellCount) {
+            for (Cell cell : cells) {
+                if (cell != null) {
+                    cell.scan(mask, x, y, z, threshold, hits);
+                }
+            }
+            return;
+        }
+        for (int row = row0; row <= row1; row++) {
+            for (long c = 0; c < span; c++) {
+                Cell cell = cell(cellKey(row, (int) Math.floorMod(firstColumn + c, (long) columns)));
+                if (cell != null) {
+                    cell.scan(mask, x, y, z, threshold, hits);
+                }
+            }
+        }
+    }
+
+    private static void points(double[] points, MissionPoint point, Location location) {
+        if (!Double.isNaN(location.latitude()) && !Double.isNaN(location.longitude())) {
+            points[2 * point.ordinal()] = location.latitude();
+            points[2 * point.ordinal() + 1] = location.longitude();
+        }
+    }
+
+    private static int mask(MissionPoint... points) {
+        if (points.length == 0) {
+            return ALL_POINTS;
+        }
+        int mask = 0;
+        for (MissionPoint point : points) {
+            mask |= 1 << point.ordinal();
+        }
+        return mask;
+    }
+
+    private void add(Placement placement, MissionPoint point, double lat, double lon) {
+        long cellKey = cellKey(row(lat), Math.floorMod((int) Math.floor((lon + 180) / cellDegrees), columns));
+        Cell cell = cell(cellKey);
+        if (cell == null) {
+            cell = new Cell();
+            insertCell(cellKey, cell);
+        }
+        double latRad = Math.toRadians(lat);
+        double lonRad = Math.toRadians(lon);
+        int position = cell.add(placement, point, Math.cos(latRad) * Math.cos(lonRad), Math.cos(latRad) * Math.sin(lonRad),
+                Math.sin(latRad));
+        placement.cells[placement.count] = cell;
+        placement.positions[placement.count++] = position;
+    }
+
+    private void remove(Placement placement) {
+        if (placement == null) {
+            return;
+        }
+        for (int i = 0; i < placement.count; i++) {
+            placement.cells[i].remove(placement.positions[i]);
+        }
+    }
+
+    private int row(double lat) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor((lat + 90) / cellDegrees)));
+    }
+
+    private long cellKey(int row, int column) {
+        return (long) row * columns + column;
+    }
+
+    private Cell cell(long cellKey) {
+        int mask = cellKeys.length - 1;
+        for (int i = hash(cellKey) & mask; ; i = i + 1 & mask) {
+            if (cellKeys[i] == cellKey) {
+                return cells[i];
+            }
+            if (cellKeys[i] == -1) {
+                return null;
+            }
+        }
+    }
+
+    private void insertCell(long cellKey, Cell cell) {
+        if (2 * (cellCount + 1) > cellKeys.length) {
+            long[] oldKeys = cellKeys;
+            Cell[] oldCells = cells;
+            cellKeys = new long[oldKeys.length * 2];
+            cells = new Cell[oldKeys.length * 2];
+            Arrays.fill(cellKeys, -1);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != -1) {
+                    place(oldKeys[i], oldCells[i]);
+                }
+            }
+        }
+        place(cellKey, cell);
+        cellCount++;
+    }
+
+    private void place(long cellKey, Cell cell) {
+        int mask = cellKeys.length - 1;
+        int i = hash(cellKey) & mask;
+        while (cellKeys[i] != -1) {
+            i = i + 1 & mask;
+        }
+        cellKeys[i] = cellKey;
+        cells[i] = cell;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ h >>> 32);
+    }
+
+    /**
+     * Where the points of one mission are stored: a cell and a position in it per point.
+     */
+    private static final class Placement {
+
+        private final MissionKey key;
+
+        private final Mission mission;
+
+        private final Cell[] cells = new Cell[POINTS.length];
+
+        private final int[] positions = new int[POINTS.length];
+
+        private int count;
+
+        private Placement(MissionKey key, Mission mission) {
+            this.key = key;
+            this.mission = mission;
+        }
+
+        private void moved(Cell cell, int from, int to) {
+            for (int i = 0; i < count; i++) {
+                if (cells[i] == cell && positions[i] == from) {
+                    positions[i] = to;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * The points in one grid cell, unordered, in parallel arrays.
+     */
+    private static final class Cell {
+
+        private double[] xs = new double[4];
+
+        private double[] ys = new double[4];
+
+        private double[] zs = new double[4];
+
+        private byte[] kinds = new byte[4];
+
+        private Placement[] owners = new Placement[4];
+
+        private int size;
+
+        int add(Placement owner, MissionPoint point, double x, double y, double z) {
+            if (size == xs.length) {
+                int capacity = size * 2;
+                xs = Arrays.copyOf(xs, capacity);
+                ys = Arrays.copyOf(ys, capacity);
+                zs = Arrays.copyOf(zs, capacity);
+                kinds = Arrays.copyOf(kinds, capacity);
+                owners = Arrays.copyOf(owners, capacity);
+            }
+            xs[size] = x;
+            ys[size] = y;
+            zs[size] = z;
+            kinds[size] = (byte) point.ordinal();
+            owners[size] = owner;
+            return size++;
+        }
+
+        /**
+         * Removes the point at a position by moving the last point into it.
+         */
+        void remove(int position) {
+            int last = --size;
+            if (position != last) {
+                xs[position] = xs[last];
+                ys[position] = ys[last];
+                zs[position] = zs[last];
+                kinds[position] = kinds[last];
+                owners[position] = owners[last];
+                owners[position].moved(this, last, position);
+            }
+            owners[last] = null;
+        }
+
+        void scan(int mask, double x, double y, double z, double threshold, Hits hits) {
+            for (int i = 0; i < size; i++) {
+                double dx = xs[i] - x;
+                double dy = ys[i] - y;
+                double dz = zs[i] - z;
+                double squaredChord = dx * dx + dy * dy + dz * dz;
+                if (squaredChord <= threshold && (mask & 1 << kinds[i]) != 0) {
+                    hits.add(owners[i], squaredChord);
+                }
+            }
+        }
+    }
+
+    /**
+     * Matching points, reduced to the nearest point per mission when sorted. The squared chord
+     * orders points the same way as their distance.
+     */
+    private static final class Hits {
+
+        private Placement[] owners = new Placement[16];
+
+        private double[] scores = new double[16];
+
+        private int size;
+
+        void add(Placement owner, double score) {
+            if (size == owners.length) {
+                owners = Arrays.copyOf(owners, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            owners[size] = owner;
+            scores[size++] = score;
+        }
+
+        int distinct() {
+            PlacementSet seen = new PlacementSet(size);
+            int distinct = 0;
+            for (int i = 0; i < size; i++) {
+                if (seen.add(owners[i])) {
+                    distinct++;
+                }
+            }
+            return distinct;
+        }
+
+        List<Mission> sorted(int limit) {
+            long[] order = new long[size];
+            for (int i = 0; i < size; i++) {
+                // non-negative floats sort like their bit patterns; the low half keeps the index
+                order[i] = (long) Float.floatToIntBits((float) scores[i]) << 32 | i;
+            }
+            Arrays.sort(order);
+            List<Mission> result = new ArrayList<>(Math.min(size, limit));
+            PlacementSet seen = new PlacementSet(size);
+            for (int i = 0; i < size && result.size() < limit; i++) {
+                Placement owner = owners[(int) order[i]];
+                if (seen.add(owner)) {
+                    result.add(owner.mission);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Open-addressing identity set of the missions seen by one query.
+     */
+    private static final class PlacementSet {
+
+        private final Placement[] table;
+
+        PlacementSet(int expected) {
+            table = new Placement[Integer.highestOneBit(Math.max(2, expected) * 2) << 1];
+        }
+
+        boolean add(Placement placement) {
+            int mask = table.length - 1;
+            for (int i = placement.key.hashCode() * 0x9E3779B9 >>> 7 & mask; ; i = i + 1 & mask) {
+                if (table[i] == placement) {
+                    return false;
+                }
+                if (table[i] == null) {
+                    table[i] = placement;
+                    return true;
+                }
+            }
+        }
+    }
+}
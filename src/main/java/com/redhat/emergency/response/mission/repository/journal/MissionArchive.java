@@ -0,0 +1,302 @@
+package com.redhat.emergency.response.mission.repository.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+import org.jboss.logging.Logger;
+
+import com.redhat.emergency.response.mission.model.Mission;
+import com.redhat.emergency.response.mission.model.MissionKey;
+import com.redhat.emergency.response.mission.model.MissionStatus;
+
+/**
+ * Append-only file of the missions evicted from the repository, looked up by key on demand.
+ * <p>
+ * Each record is framed as {@code [int length][int crc32][payload]}, the payload being the
+ * {@link MissionCodec} encoding of the mission followed by its location history. Only an
+ * open-addressing table from a 64-bit hash of the mission key to the offset and status of the
+ * newest record for that key is kept on the heap, 17 bytes per archived mission; it is rebuilt
+ * by scanning the file when the archive is opened. A torn record at the end of the file, one whose
+ * length runs past it, is cut off; a record failing its checksum anywhere else is skipped and
+ * logged, and a record with an invalid length fails the open, since the records after it can not
+ * be found. Records are read back from disk, without caching, when they are looked up. A mission
+ * archived again under the same key supersedes its earlier record, which stays in the file.
+ */
+public class MissionArchive implements Closeable {
+
+    private static final Logger log = Logger.getLogger(MissionArchive.class);
+
+    static final String FILE_NAME = "missions.archive";
+
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final MissionStatus[] STATUSES = MissionStatus.values();
+
+    private final Path file;
+
+    private final FileChannel channel;
+
+    private final MissionCodec.Buffer buffer = new MissionCodec.Buffer(4096);
+
+    private long end;
+
+    private long[] hashes = new long[INITIAL_CAPACITY];
+
+    private long[] offsets = new long[INITIAL_CAPACITY];
+
+    private byte[] statuses = new byte[INITIAL_CAPACITY];
+
+    private int size;
+
+    private MissionArchive(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens the archive in {@code directory}, creating it if needed.
+     */
+    public static MissionArchive open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(FILE_NAME);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MissionArchive archive = new MissionArchive(file, channel);
+        try {
+            archive.load();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return archive;
+    }
+
+    /**
+     * Appends the missions, with their location history, in one write and forces them to disk
+     * before they can be looked up.
+     */
+    public synchronized void archive(Collection<Mission> missions) throws IOException {
+        if (missions.isEmpty()) {
+            return;
+        }
+        buffer.clear();
+        long[] starts = new long[missions.size()];
+        int i = 0;
+        for (Mission mission : missions) {
+            int start = buffer.position();
+            starts[i++] = start;
+            buffer.putInt(0);
+            buffer.putInt(0);
+            MissionCodec.encode(mission, buffer);
+            MissionCodec.encodeHistory(mission.locationHistory(), buffer);
+            int length = buffer.position() - start - HEADER_SIZE;
+            CRC32 crc = new CRC32();
+            crc.update(buffer.array(), start + HEADER_SIZE, length);
+            buffer.putInt(start, length);
+            buffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+        }
+        ByteBuffer records = ByteBuffer.wrap(buffer.array(), 0, buffer.position());
+        long position = end;
+        while (records.hasRemaining()) {
+            position += channel.write(records, position);
+        }
+        channel.force(false);
+        i = 0;
+        for (Mission mission : missions) {
+            index(mission, end + starts[i++]);
+        }
+        end = position;
+    }
+
+    /**
+     * The newest archived mission with {@code key}, with its location history.
+     */
+    public Optional<Mission> get(MissionKey key) {
+        long offset;
+        synchronized (this) {
+            int slot = slot(hash(key));
+            if (hashes[slot] == 0) {
+                return Optional.empty();
+            }
+            offset = offsets[slot];
+        }
+        try {
+            ByteBuffer record = read(offset);
+            if (record == null) {
+                log.warn("Unreadable record at " + offset + " in mission archive '" + file + "'");
+                return Optional.empty();
+            }
+            Mission mission = MissionCodec.decode(record);
+            MissionCodec.decodeHistory(record, mission.locationHistory());
+            return key.equals(mission.missionKey()) ? Optional.of(mission) : Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read mission archive '" + file + "'", e);
+        }
+    }
+
+    /**
+     * The status of the newest archived mission with {@code key}, without reading it from disk.
+     */
+    public synchronized Optional<MissionStatus> status(MissionKey key) {
+        int slot = slot(hash(key));
+        return hashes[slot] == 0 || statuses[slot] == 0 ? Optional.empty() : Optional.of(STATUSES[statuses[slot] - 1]);
+    }
+
+    /**
+     * Number of distinct mission keys archived.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Size of the archive file, in bytes.
+     */
+    public synchronized long bytes() {
+        return end;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Unable to close mission archive '" + file + "'", e);
+        }
+    }
+
+    private void load() throws IOException {
+        long length = channel.size();
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (offset < length) {
+            header.clear();
+            if (!readFully(header, offset) || offset + HEADER_SIZE + header.getInt(0) > length) {
+                log.warn("Truncating mission archive '" + file + "' after the last complete record at " + offset);
+                channel.truncate(offset);
+                break;
+            }
+            int recordLength = header.getInt(0);
+            if (recordLength <= 0) {
+                throw new IOException("Invalid record length " + recordLength + " at " + offset + " in mission archive '" + file + "'");
+            }
+            ByteBuffer record = read(offset);
+            if (record == null) {
+                log.error("Skipping corrupted record at " + offset + " in mission archive '" + file + "'");
+            } else {
+                index(MissionCodec.decode(record), offset);
+            }
+            offset += HEADER_SIZE + recordLength;
+        }
+        end = offset;
+    }
+
+    /**
+     * The payload of the record at {@code offset}, or null when it is torn or corrupted.
+     */
+    private ByteBuffer read(long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (!readFully(header, offset)) {
+            return null;
+        }
+        int length = header.getInt(0);
+        if (length <= 0 || offset + HEADER_SIZE + length > channel.size()) {
+            return null;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        if (!readFully(payload, offset + HEADER_SIZE)) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload.array(), 0, length);
+        if ((int) crc.getValue() != header.getInt(Integer.BYTES)) {
+            return null;
+        }
+        payload.flip();
+        return payload;
+    }
+
+    private boolean readFully(ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            int read = channel.read(target, position + target.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void index(Mission mission, long offset) {
+        if (size + 1 > hashes.length * 3 / 4) {
+            grow();
+        }
+        long hash = hash(mission.missionKey());
+        int slot = slot(hash);
+        if (hashes[slot] == 0) {
+            hashes[slot] = hash;
+            size++;
+        }
+        offsets[slot] = offset;
+        statuses[slot] = mission.getStatus() == null ? 0 : (byte) (MissionStatus.valueOf(mission.getStatus()).ordinal() + 1);
+    }
+
+    /**
+     * The slot holding {@code hash}, or the free slot where it would go.
+     */
+    private int slot(long hash) {
+        int mask = hashes.length - 1;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (hashes[slot] != 0 && hashes[slot] != hash) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldHashes = hashes;
+        long[] oldOffsets = offsets;
+        byte[] oldStatuses = statuses;
+        hashes = new long[oldHashes.length * 2];
+        offsets = new long[oldHashes.length * 2];
+        statuses = new byte[oldHashes.length * 2];
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] != 0) {
+                int slot = slot(oldHashes[i]);
+                hashes[slot] = oldHashes[i];
+                offsets[slot] = oldOffsets[i];
+                statuses[slot] = oldStatuses[i];
+            }
+        }
+    }
+
+    private static long hash(MissionKey key) {
+        long h = hash(0x9e3779b97f4a7c15L, key.getIncidentId());
+        h = hash(h, key.getResponderId());
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    private static long hash(long h, String part) {
+        if (part == null) {
+            return Long.rotateLeft(h ^ 0xffff_ffffL, 31) * 0x4cf5ad432745937fL;
+        }
+        for (int i = 0; i < part.length(); i++) {
+            h = Long.rotateLeft(h ^ part.charAt(i) * 0x87c37b91114253d5L, 31) * 0x4cf5ad432745937fL;
+        }
+        return Long.rotateLeft(h ^ part.length(), 27) * 0x87c37b91114253d5L;
+    }
+}
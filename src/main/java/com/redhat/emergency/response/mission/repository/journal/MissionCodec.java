@@ -0,0 +1,295 @@
+package com.redhat.emergency.response.mission.repository.journal;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.redhat.emergency.response.mission.model.Coordinates;
+import com.redhat.emergency.response.mission.model.Location;
+import com.redhat.emergency.response.mission.model.LocationHistory;
+import com.redhat.emergency.response.mission.model.Mission;
+import com.redhat.emergency.response.mission.model.MissionStatus;
+import com.redhat.emergency.response.mission.model.MissionSteps;
+
+/**
+ * Compact binary encoding of a {@link Mission} used by the journal and its snapshots.
+ * <p>
+ * Lengths and counts are unsigned varints, strings are UTF-8 prefixed with {@code length + 1}
+ * ({@code 0} meaning {@code null}), and coordinates are stored as their fixed-point
+ * {@link Coordinates} int. Coordinates written as scale plus unscaled long or as a string by
+ * earlier versions are still read.
+ */
+final class MissionCodec {
+
+    private static final byte DECIMAL_NULL = 0;
+
+    private static final byte DECIMAL_LONG = 1;
+
+    private static final byte DECIMAL_STRING = 2;
+
+    private static final byte DECIMAL_FIXED = 3;
+
+    private static final byte STEP_WAYPOINT = 1;
+
+    private static final byte STEP_DESTINATION = 2;
+
+    private static final byte STATUS_DEGRADED = (byte) 0x80;
+
+    private static final MissionStatus[] STATUSES = MissionStatus.values();
+
+    private MissionCodec() {
+    }
+
+    static void encode(Mission mission, Buffer out) {
+        writeString(mission.getId(), out);
+        writeString(mission.getIncidentId(), out);
+        writeString(mission.getResponderId(), out);
+        writeLocation(mission.responderLocation(), out);
+        writeLocation(mission.incidentLocation(), out);
+        writeLocation(mission.destinationLocation(), out);
+        byte status = mission.getStatus() == null ? 0 : (byte) (MissionStatus.valueOf(mission.getStatus()).ordinal() + 1);
+        out.put(mission.isDegraded() ? (byte) (status | STATUS_DEGRADED) : status);
+        MissionSteps steps = mission.missionSteps();
+        synchronized (steps) {
+            writeVarint(steps.size(), out);
+            for (int i = 0; i < steps.size(); i++) {
+                writeCoordinate(steps.lat(i), out);
+                writeCoordinate(steps.lon(i), out);
+                out.put((byte) ((steps.isWayPoint(i) ? STEP_WAYPOINT : 0) | (steps.isDestination(i) ? STEP_DESTINATION : 0)));
+            }
+        }
+    }
+
+    static Mission decode(ByteBuffer in) {
+        Mission.Builder builder = Mission.builder()
+                .id(readString(in))
+                .incidentId(readString(in))
+                .responderId(readString(in))
+                .responderStartLocation(readLocation(in))
+                .incidentLocation(readLocation(in))
+                .destinationLocation(readLocation(in));
+        byte status = in.get();
+        if ((status & ~STATUS_DEGRADED) != 0) {
+            builder.status(STATUSES[(status & ~STATUS_DEGRADED) - 1].name());
+        }
+        Mission mission = builder.build().degraded((status & STATUS_DEGRADED) != 0);
+        MissionSteps steps = mission.missionSteps();
+        int count = readVarint(in);
+        for (int i = 0; i < count; i++) {
+            int lat = readCoordinate(in);
+            int lon = readCoordinate(in);
+            byte flags = in.get();
+            steps.add(lat, lon, (flags & STEP_WAYPOINT) != 0, (flags & STEP_DESTINATION) != 0);
+        }
+        steps.trim();
+        return mission;
+    }
+
+    /**
+     * Only the id and key of a mission, for records that refer to a mission without its content.
+     */
+    static void encodeKey(Mission mission, Buffer out) {
+        writeString(mission.getId(), out);
+        writeString(mission.getIncidentId(), out);
+        writeString(mission.getResponderId(), out);
+    }
+
+    static Mission decodeKey(ByteBuffer in) {
+        return Mission.builder().id(readString(in)).incidentId(readString(in)).responderId(readString(in)).build();
+    }
+
+    /**
+     * The positions of a location history, oldest first, each as zigzag varint deltas from the
+     * previous one: a few bytes per position for a responder moving along a road.
+     */
+    static void encodeHistory(LocationHistory history, Buffer out) {
+        synchronized (history) {
+            writeVarint(history.size(), out);
+            long[] previous = new long[3];
+            history.forEach((lat, lon, timestamp) -> {
+                writeZigzag(lat - previous[0], out);
+                writeZigzag(lon - previous[1], out);
+                writeZigzag(timestamp - previous[2], out);
+                previous[0] = lat;
+                previous[1] = lon;
+                previous[2] = timestamp;
+            });
+        }
+    }
+
+    static void decodeHistory(ByteBuffer in, LocationHistory history) {
+        int count = readVarint(in);
+        long lat = 0;
+        long lon = 0;
+        long timestamp = 0;
+        for (int i = 0; i < count; i++) {
+            lat += readZigzag(in);
+            lon += readZigzag(in);
+            timestamp += readZigzag(in);
+            history.append((int) lat, (int) lon, timestamp);
+        }
+    }
+
+    private static void writeString(String value, Buffer out) {
+        if (value == null) {
+            writeVarint(0, out);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length + 1, out);
+        out.put(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = readVarint(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        String value;
+        if (in.hasArray()) {
+            value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    private static void writeLocation(Location location, Buffer out) {
+        writeCoordinate(location.fixedLatitude(), out);
+        writeCoordinate(location.fixedLongitude(), out);
+    }
+
+    private static Location readLocation(ByteBuffer in) {
+        int latitude = readCoordinate(in);
+        return Location.fixed(latitude, readCoordinate(in));
+    }
+
+    private static void writeCoordinate(int value, Buffer out) {
+        if (value == Coordinates.NONE) {
+            out.put(DECIMAL_NULL);
+        } else {
+            out.put(DECIMAL_FIXED);
+            out.putInt(value);
+        }
+    }
+
+    private static int readCoordinate(ByteBuffer in) {
+        byte kind = in.get();
+        switch (kind) {
+            case DECIMAL_NULL:
+                return Coordinates.NONE;
+            case DECIMAL_FIXED:
+                return in.getInt();
+            case DECIMAL_LONG:
+                int scale = in.get();
+                return Coordinates.fromDecimal(new BigDecimal(BigInteger.valueOf(in.getLong()), scale));
+            case DECIMAL_STRING:
+                return Coordinates.fromDecimal(new BigDecimal(readString(in)));
+            default:
+                throw new IllegalStateException("Unknown decimal encoding " + kind);
+        }
+    }
+
+    private static void writeVarint(int value, Buffer out) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static void writeZigzag(long value, Buffer out) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.put((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.put((byte) zigzag);
+    }
+
+    private static long readZigzag(ByteBuffer in) {
+        long zigzag = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            zigzag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Growable heap buffer the codec writes into; reused per thread by the journal so encoding
+     * does not allocate once it has reached the size of the largest mission.
+     */
+    static final class Buffer {
+
+        private ByteBuffer buffer;
+
+        Buffer(int capacity) {
+            buffer = ByteBuffer.allocate(capacity);
+        }
+
+        void clear() {
+            buffer.clear();
+        }
+
+        void put(byte b) {
+            ensure(1);
+            buffer.put(b);
+        }
+
+        void put(byte[] bytes) {
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        void putInt(int i) {
+            ensure(Integer.BYTES);
+            buffer.putInt(i);
+        }
+
+        void putLong(long l) {
+            ensure(Long.BYTES);
+            buffer.putLong(l);
+        }
+
+        void putInt(int index, int i) {
+            buffer.putInt(index, i);
+        }
+
+        int position() {
+            return buffer.position();
+        }
+
+        byte[] array() {
+            return buffer.array();
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+    }
+}
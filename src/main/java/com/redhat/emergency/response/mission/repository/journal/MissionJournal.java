@@ -0,0 +1,513 @@
+package com.redhat.emergency.response.mission.repository.journal;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.jboss.logging.Logger;
+
+import com.redhat.emergency.response.mission.model.Mission;
+
+/**
+ * Append-only, segmented mission log backed by memory-mapped files, with periodic snapshots.
+ * <p>
+ * Each record is framed as {@code [int length][int crc32][byte type][payload]}. The length is
+ * written last, so a record torn by a crash reads back as the end of the segment. A snapshot
+ * named after segment {@code n} holds the full repository state for every record written to
+ * segments before {@code n}; recovery loads the newest snapshot and replays the segments from
+ * {@code n} onwards. The segments a snapshot supersedes are already deleted when it is loaded, so a
+ * snapshot must be whole: one that is corrupted or lacks its end record fails {@link #open}, where a
+ * segment is only read up to its first torn or corrupted record.
+ * <p>
+ * A mission evicted from the repository is recorded with a removal record holding only its id
+ * and key; snapshots only hold the missions still in the repository.
+ */
+public class MissionJournal implements Closeable {
+
+    private static final Logger log = Logger.getLogger(MissionJournal.class);
+
+    static final byte RECORD_PUT = 1;
+
+    static final byte RECORD_REMOVE = 2;
+
+    static final byte RECORD_END = 127;
+
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    private final Path directory;
+
+    private final long segmentSize;
+
+    private final SyncPolicy syncPolicy;
+
+    private final int syncBatchSize;
+
+    private final long syncIntervalMs;
+
+    private final long snapshotIntervalMs;
+
+    private final ReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+
+    private final ThreadLocal<MissionCodec.Buffer> buffers = ThreadLocal.withInitial(() -> new MissionCodec.Buffer(4096));
+
+    private Segment active;
+
+    private long nextSequence;
+
+    private int unsynced;
+
+    private volatile boolean dirty;
+
+    private volatile long recordsSinceSnapshot;
+
+    private ScheduledExecutorService scheduler;
+
+    private MissionJournal(Builder builder) {
+        this.directory = builder.directory;
+        this.segmentSize = builder.segmentSize;
+        this.syncPolicy = builder.syncPolicy;
+        this.syncBatchSize = builder.syncBatchSize;
+        this.syncIntervalMs = builder.syncIntervalMs;
+        this.snapshotIntervalMs = builder.snapshotIntervalMs;
+    }
+
+    public static Builder builder(Path directory) {
+        return new Builder(directory);
+    }
+
+    /**
+     * Rebuilds state from the newest snapshot and the log tail, then opens a fresh segment for
+     * appends and starts the background sync and snapshot tasks.
+     *
+     * @param restore receives every recovered mission, oldest record first
+     * @param snapshotSource supplies the current repository content when a snapshot is taken
+     * @return the number of records replayed
+     */
+    public long open(Consumer<Mission> restore, Supplier<Iterable<Mission>> snapshotSource) throws IOException {
+        return open(restore, removed -> {
+        }, snapshotSource);
+    }
+
+    /**
+     * Same as {@link #open(Consumer, Supplier)}, passing the id and key of every mission recorded
+     * as removed to {@code remove}, in order with the restored missions.
+     */
+    public synchronized long open(Consumer<Mission> restore, Consumer<Mission> remove, Supplier<Iterable<Mission>> snapshotSource)
+            throws IOException {
+        Files.createDirectories(directory);
+        long start = System.nanoTime();
+        long replayed = 0;
+        List<Long> snapshots = sequences(SNAPSHOT_SUFFIX);
+        long firstSegment = 0;
+        if (!snapshots.isEmpty()) {
+            firstSegment = snapshots.get(snapshots.size() - 1);
+            replayed += read(file(firstSegment, SNAPSHOT_SUFFIX), true, restore, remove);
+        }
+        long lastSegment = firstSegment - 1;
+        for (long sequence : sequences(SEGMENT_SUFFIX)) {
+            if (sequence >= firstSegment) {
+                replayed += read(file(sequence, SEGMENT_SUFFIX), false, restore, remove);
+                lastSegment = sequence;
+            }
+        }
+        nextSequence = Math.max(firstSegment, lastSegment + 1);
+        roll(0);
+        log.info("Replayed " + replayed + " mission journal records from '" + directory + "' in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "mission-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (syncPolicy == SyncPolicy.INTERVAL) {
+            scheduler.scheduleWithFixedDelay(this::syncQuietly, syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        if (snapshotIntervalMs > 0) {
+            scheduler.scheduleWithFixedDelay(() -> {
+                if (recordsSinceSnapshot > 0) {
+                    try {
+                        snapshot(snapshotSource.get());
+                    } catch (Exception e) {
+                        log.error("Failed to write mission journal snapshot", e);
+                    }
+                }
+            }, snapshotIntervalMs, snapshotIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        return replayed;
+    }
+
+    /**
+     * Lock that callers hold, shared, around an append and the in-memory update it records. A
+     * snapshot takes it exclusively while rolling the segment, so every record left in the
+     * segments it supersedes is already visible to the snapshot.
+     */
+    public Lock appendLock() {
+        return snapshotLock.readLock();
+    }
+
+    public void append(Mission mission) {
+        appendRecord(encode(RECORD_PUT, mission));
+    }
+
+    /**
+     * Records that {@code mission} was removed from the repository. Like appends, called with the
+     * {@link #appendLock()} held.
+     */
+    public void remove(Mission mission) {
+        appendRecord(encode(RECORD_REMOVE, mission));
+    }
+
+    private void appendRecord(MissionCodec.Buffer buffer) {
+        synchronized (this) {
+            if (active == null) {
+                throw new IllegalStateException("Mission journal is not open");
+            }
+            write(buffer);
+            recordsSinceSnapshot++;
+            if (syncPolicy == SyncPolicy.BATCH && ++unsynced >= syncBatchSize) {
+                unsynced = 0;
+                active.buffer.force();
+            } else {
+                dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Writes the given missions to a new snapshot and deletes the segments and snapshots it
+     * supersedes. Appends continue concurrently in a freshly rolled segment.
+     */
+    public void snapshot(Iterable<Mission> missions) throws IOException {
+        long covered;
+        Lock exclusive = snapshotLock.writeLock();
+        exclusive.lock();
+        try {
+            synchronized (this) {
+                roll(0);
+                covered = active.sequence;
+                recordsSinceSnapshot = 0;
+            }
+        } finally {
+            exclusive.unlock();
+        }
+        Path target = file(covered, SNAPSHOT_SUFFIX);
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        long count = 0;
+        MissionCodec.Buffer buffer = new MissionCodec.Buffer(4096);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer chunk = ByteBuffer.allocateDirect(1 << 20);
+            for (Mission mission : missions) {
+                frame(buffer, RECORD_PUT, mission);
+                writeFully(channel, chunk, buffer);
+                count++;
+            }
+            frame(buffer, RECORD_END, null);
+            writeFully(channel, chunk, buffer);
+            chunk.flip();
+            while (chunk.hasRemaining()) {
+                channel.write(chunk);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // the rename must be durable before the files it supersedes are deleted
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            log.warn("Unable to sync mission journal directory '" + directory + "', keeping the files superseded by '" + target + "'", e);
+            return;
+        }
+        for (long sequence : sequences(SEGMENT_SUFFIX)) {
+            if (sequence < covered) {
+                Files.deleteIfExists(file(sequence, SEGMENT_SUFFIX));
+            }
+        }
+        for (long sequence : sequences(SNAPSHOT_SUFFIX)) {
+            if (sequence < covered) {
+                Files.deleteIfExists(file(sequence, SNAPSHOT_SUFFIX));
+            }
+        }
+        log.debug("Wrote mission journal snapshot '" + target + "' with " + count + " missions");
+    }
+
+    public void sync() {
+        Segment segment;
+        synchronized (this) {
+            segment = active;
+            unsynced = 0;
+            dirty = false;
+        }
+        if (segment != null) {
+            segment.buffer.force();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        synchronized (this) {
+            if (active != null) {
+                active.buffer.force();
+                active = null;
+            }
+        }
+    }
+
+    private void syncQuietly() {
+        if (dirty) {
+            try {
+                sync();
+            } catch (Exception e) {
+                log.error("Failed to sync mission journal", e);
+            }
+        }
+    }
+
+    private MissionCodec.Buffer encode(byte type, Mission mission) {
+        MissionCodec.Buffer buffer = buffers.get();
+        frame(buffer, type, mission);
+        return buffer;
+    }
+
+    private static void frame(MissionCodec.Buffer buffer, byte type, Mission mission) {
+        buffer.clear();
+        buffer.putInt(0);
+        buffer.putInt(0);
+        buffer.put(type);
+        if (type == RECORD_REMOVE) {
+            MissionCodec.encodeKey(mission, buffer);
+        } else if (mission != null) {
+            MissionCodec.encode(mission, buffer);
+        }
+        int length = buffer.position() - HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_SIZE, length);
+        buffer.putInt(0, length);
+        buffer.putInt(Integer.BYTES, (int) crc.getValue());
+    }
+
+    private void write(MissionCodec.Buffer record) {
+        int size = record.position();
+        if (active.buffer.remaining() < size) {
+            roll(size);
+        }
+        MappedByteBuffer target = active.buffer;
+        int position = target.position();
+        target.position(position + Integer.BYTES);
+        target.put(record.array(), Integer.BYTES, size - Integer.BYTES);
+        target.putInt(position, size - HEADER_SIZE);
+    }
+
+    private void roll(int minimumSize) {
+        if (active != null && syncPolicy != SyncPolicy.NONE) {
+            active.buffer.force();
+        }
+        long sequence = nextSequence++;
+        long size = Math.max(segmentSize, minimumSize + Integer.BYTES);
+        try (FileChannel channel = FileChannel.open(file(sequence, SEGMENT_SUFFIX), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            active = new Segment(sequence, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to create mission journal segment " + sequence, e);
+        }
+        unsynced = 0;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer chunk, MissionCodec.Buffer record) throws IOException {
+        int offset = 0;
+        int size = record.position();
+        while (offset < size) {
+            if (!chunk.hasRemaining()) {
+                chunk.flip();
+                while (chunk.hasRemaining()) {
+                    channel.write(chunk);
+                }
+                chunk.clear();
+            }
+            int length = Math.min(chunk.remaining(), size - offset);
+            chunk.put(record.array(), offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Restores the records of a segment, up to its first torn or corrupted record, or of a
+     * snapshot, which must be intact up to its end record.
+     */
+    private static long read(Path file, boolean snapshot, Consumer<Mission> restore, Consumer<Mission> remove) throws IOException {
+        long count = 0;
+        byte[] payload = new byte[4096];
+        CRC32 crc = new CRC32();
+        long remaining = Files.size(file);
+        try (InputStream in = Files.newInputStream(file);
+             DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16))) {
+            while (true) {
+                int length;
+                int checksum;
+                try {
+                    length = data.readInt();
+                    checksum = data.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                remaining -= HEADER_SIZE;
+                if (length <= 0) {
+                    break;
+                }
+                if (length > remaining) {
+                    if (snapshot) {
+                        throw new IOException("Record length " + length + " runs past the end of mission journal snapshot '" + file + "'");
+                    }
+                    log.warn("Truncated record at the end of mission journal file '" + file + "'");
+                    break;
+                }
+                remaining -= length;
+                if (length > payload.length) {
+                    payload = new byte[Math.max(length, payload.length * 2)];
+                }
+                try {
+                    data.readFully(payload, 0, length);
+                } catch (EOFException e) {
+                    log.warn("Truncated record at the end of mission journal file '" + file + "'");
+                    break;
+                }
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    if (snapshot) {
+                        throw new IOException("Corrupted record in mission journal snapshot '" + file + "'");
+                    }
+                    log.warn("Corrupted record in mission journal file '" + file + "', ignoring the rest of the file");
+                    break;
+                }
+                ByteBuffer record = ByteBuffer.wrap(payload, 0, length);
+                byte type = record.get();
+                if (type == RECORD_END) {
+                    return count;
+                }
+                if (type == RECORD_PUT) {
+                    restore.accept(MissionCodec.decode(record));
+                    count++;
+                } else if (type == RECORD_REMOVE) {
+                    remove.accept(MissionCodec.decodeKey(record));
+                    count++;
+                }
+            }
+        }
+        if (snapshot) {
+            throw new IOException("Mission journal snapshot '" + file + "' has no end record");
+        }
+        return count;
+    }
+
+    private List<Long> sequences(String suffix) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Long> sequences = files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.endsWith(suffix))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - suffix.length())))
+                    .sorted()
+                    .collect(Collectors.toCollection(ArrayList::new));
+            return sequences;
+        }
+    }
+
+    private Path file(long sequence, String suffix) {
+        return directory.resolve(String.format("%016d%s", sequence, suffix));
+    }
+
+    private static final class Segment {
+
+        private final long sequence;
+
+        private final MappedByteBuffer buffer;
+
+        private Segment(long sequence, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.buffer = buffer;
+        }
+    }
+
+    public static class Builder {
+
+        private final Path directory;
+
+        private long segmentSize = 64L * 1024 * 1024;
+
+        private SyncPolicy syncPolicy = SyncPolicy.INTERVAL;
+
+        private int syncBatchSize = 64;
+
+        private long syncIntervalMs = 1000;
+
+        private long snapshotIntervalMs = 300_000;
+
+        private Builder(Path directory) {
+            this.directory = directory;
+        }
+
+        public Builder segmentSize(long segmentSize) {
+            this.segmentSize = segmentSize;
+            return this;
+        }
+
+        public Builder syncPolicy(SyncPolicy syncPolicy) {
+            this.syncPolicy = syncPolicy;
+            return this;
+        }
+
+        public Builder syncBatchSize(int syncBatchSize) {
+            this.syncBatchSize = syncBatchSize;
+            return this;
+        }
+
+        public Builder syncIntervalMs(long syncIntervalMs) {
+            this.syncIntervalMs = syncIntervalMs;
+            return this;
+        }
+
+        public Builder snapshotIntervalMs(long snapshotIntervalMs) {
+            this.snapshotIntervalMs = snapshotIntervalMs;
+            return this;
+        }
+
+        public MissionJournal build() {
+            return new MissionJournal(this);
+        }
+    }
+}
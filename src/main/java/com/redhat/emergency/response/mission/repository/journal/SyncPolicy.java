@@ -0,0 +1,13 @@
+package com.redhat.emergency.response.mission.repository.journal;
+
+/**
+ * When appended journal records are forced to disk.
+ */
+public enum SyncPolicy {
+    /** Leave flushing to the operating system page cache. */
+    NONE,
+    /** Force the active segment on the appending thread every {@code sync-batch-size} records. */
+    BATCH,
+    /** Force the active segment from a background thread every {@code sync-interval-ms}. */
+    INTERVAL
+}
@@ -0,0 +1,62 @@
+package com.redhat.emergency.response.mission.source;
+
+import org.eclipse.microprofile.config.Config;
+
+import com.redhat.emergency.response.mission.model.Coordinates;
+import com.redhat.emergency.response.mission.model.Polyline;
+
+/**
+ * How the route of a mission is written in the events sent to one outgoing channel, configured
+ * with {@code mission.event.<channel>.*}:
+ * <ul>
+ * <li>{@code steps-encoding}: {@code ARRAY} writes the steps as JSON objects, {@code POLYLINE} as
+ * an encoded polyline string followed by the indexes of the waypoint and destination steps.</li>
+ * <li>{@code simplify-tolerance-meters}: simplifies the route further for this channel; {@code 0}
+ * sends the route as stored.</li>
+ * <li>{@code polyline-precision}: decimals kept by the polyline encoding.</li>
+ * </ul>
+ */
+public final class EventFormat {
+
+    public enum StepsEncoding {
+        ARRAY, POLYLINE
+    }
+
+    public static final EventFormat DEFAULT = new EventFormat(StepsEncoding.ARRAY, 0, Polyline.DEFAULT_PRECISION);
+
+    private final StepsEncoding stepsEncoding;
+
+    private final double simplifyToleranceMeters;
+
+    private final int polylinePrecision;
+
+    public EventFormat(StepsEncoding stepsEncoding, double simplifyToleranceMeters, int polylinePrecision) {
+        if (polylinePrecision < 1 || polylinePrecision > Coordinates.SCALE) {
+            throw new IllegalArgumentException("Polyline precision must be between 1 and " + Coordinates.SCALE + ": " + polylinePrecision);
+        }
+        this.stepsEncoding = stepsEncoding;
+        this.simplifyToleranceMeters = simplifyToleranceMeters;
+        this.polylinePrecision = polylinePrecision;
+    }
+
+    public static EventFormat forChannel(Config config, String channel) {
+        String prefix = "mission.event." + channel + ".";
+        return new EventFormat(
+                config.getOptionalValue(prefix + "steps-encoding", String.class).map(String::toUpperCase).map(StepsEncoding::valueOf)
+                        .orElse(DEFAULT.stepsEncoding),
+                config.getOptionalValue(prefix + "simplify-tolerance-meters", Double.class).orElse(DEFAULT.simplifyToleranceMeters),
+                config.getOptionalValue(prefix + "polyline-precision", Integer.class).orElse(DEFAULT.polylinePrecision));
+    }
+
+    public StepsEncoding stepsEncoding() {
+        return stepsEncoding;
+    }
+
+    public double simplifyToleranceMeters() {
+        return simplifyToleranceMeters;
+    }
+
+    public int polylinePrecision() {
+        return polylinePrecision;
+    }
+}
@@ -0,0 +1,244 @@
+package com.redhat.emergency.response.mission.source;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Groups the items of a stream into lists that are closed when they reach {@code size} items or
+ * when {@code lingerMs} has passed since their first item, whichever comes first.
+ * <p>
+ * Upstream demand is bounded by the batch size: items buffered here plus items requested from
+ * upstream never exceed {@code size}, and more are only requested once a batch has been
+ * delivered. A slow downstream therefore holds back the source instead of failing the stream,
+ * which the time-based windows of the reactive library do when a window closes without demand.
+ */
+class LingerBatcher<T> implements Publisher<List<T>> {
+
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "mission-batch-linger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Publisher<T> upstream;
+
+    private final int size;
+
+    private final long lingerMs;
+
+    LingerBatcher(Publisher<T> upstream, int size, long lingerMs) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1: " + size);
+        }
+        this.upstream = upstream;
+        this.size = size;
+        this.lingerMs = lingerMs;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super List<T>> downstream) {
+        upstream.subscribe(new BatchSubscriber(downstream));
+    }
+
+    private final class BatchSubscriber implements Subscriber<T>, Subscription {
+
+        private final Subscriber<? super List<T>> downstream;
+
+        private final ArrayDeque<List<T>> ready = new ArrayDeque<>();
+
+        private Subscription subscription;
+
+        private List<T> current;
+
+        private ScheduledFuture<?> linger;
+
+        private long generation;
+
+        private long requested;
+
+        private boolean done;
+
+        private Throwable failure;
+
+        private boolean cancelled;
+
+        private boolean draining;
+
+        private boolean missed;
+
+        BatchSubscriber(Subscriber<? super List<T>> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            downstream.onSubscribe(this);
+            subscription.request(size);
+        }
+
+        @Override
+        public void onNext(T item) {
+            synchronized (this) {
+                if (done || cancelled) {
+                    return;
+                }
+                if (current == null) {
+                    current = new ArrayList<>(size);
+                    long batch = ++generation;
+                    linger = timer.schedule(() -> expire(batch), lingerMs, TimeUnit.MILLISECONDS);
+                }
+                current.add(item);
+                if (current.size() < size) {
+                    return;
+                }
+                close();
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+                failure = t;
+                current = null;
+                ready.clear();
+                cancelLinger();
+            }
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+                if (current != null) {
+                    close();
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                downstream.onError(new IllegalArgumentException("Invalid request: " + n));
+                return;
+            }
+            synchronized (this) {
+                requested = requested + n < 0 ? Long.MAX_VALUE : requested + n;
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                current = null;
+                ready.clear();
+                cancelLinger();
+            }
+            subscription.cancel();
+        }
+
+        private void expire(long batch) {
+            synchronized (this) {
+                if (batch != generation || current == null || cancelled) {
+                    return;
+                }
+                close();
+            }
+            drain();
+        }
+
+        /**
+         * Moves the current batch to the ready queue. Called with the monitor held.
+         */
+        private void close() {
+            ready.add(current);
+            current = null;
+            cancelLinger();
+        }
+
+        private void cancelLinger() {
+            if (linger != null) {
+                linger.cancel(false);
+                linger = null;
+            }
+        }
+
+        /**
+         * Delivers ready batches while there is demand. Only one thread delivers at a time; a
+         * thread that finds another one delivering leaves the work to it.
+         */
+        private void drain() {
+            synchronized (this) {
+                if (draining) {
+                    missed = true;
+                    return;
+                }
+                draining = true;
+            }
+            while (true) {
+                List<T> batch = null;
+                boolean complete = false;
+                Throwable error = null;
+                synchronized (this) {
+                    if (cancelled) {
+                        draining = false;
+                        return;
+                    }
+                    if (failure != null) {
+                        error = failure;
+                        cancelled = true;
+                    } else if (requested > 0 && !ready.isEmpty()) {
+                        batch = ready.poll();
+                        if (requested != Long.MAX_VALUE) {
+                            requested--;
+                        }
+                    } else if (done && ready.isEmpty()) {
+                        complete = true;
+                        cancelled = true;
+                    } else if (missed) {
+                        missed = false;
+                        continue;
+                    } else {
+                        draining = false;
+                        return;
+                    }
+                }
+                if (error != null) {
+                    downstream.onError(error);
+                    return;
+                }
+                if (complete) {
+                    downstream.onComplete();
+                    return;
+                }
+                downstream.onNext(batch);
+                subscription.request(batch.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.redhat.emergency.response.mission.source;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+import com.redhat.emergency.response.mission.model.Mission;
+
+/**
+ * A command read from the mission-command topic: the envelope fields and the mission bound from
+ * its body.
+ */
+public class MissionCommand {
+
+    private final String id;
+
+    private final String messageType;
+
+    private final Mission mission;
+
+    private final long recordTimestamp;
+
+    private final Supplier<CompletionStage<Void>> ack;
+
+    public MissionCommand(String id, String messageType, Mission mission) {
+        this(id, messageType, mission, 0L);
+    }
+
+    public MissionCommand(String id, String messageType, Mission mission, long recordTimestamp) {
+        this(id, messageType, mission, recordTimestamp, () -> CompletableFuture.completedFuture(null));
+    }
+
+    MissionCommand(String id, String messageType, Mission mission, long recordTimestamp, Supplier<CompletionStage<Void>> ack) {
+        this.id = id;
+        this.messageType = messageType;
+        this.mission = mission;
+        this.recordTimestamp = recordTimestamp;
+        this.ack = ack;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getMessageType() {
+        return messageType;
+    }
+
+    public Mission getMission() {
+        return mission;
+    }
+
+    /**
+     * Timestamp, in epoch milliseconds, of the record the command was read from; 0 when unknown.
+     */
+    public long getRecordTimestamp() {
+        return recordTimestamp;
+    }
+
+    /**
+     * Acknowledges the record the command was read from, once the command has been handled.
+     */
+    CompletionStage<Void> ack() {
+        return ack.get();
+    }
+}
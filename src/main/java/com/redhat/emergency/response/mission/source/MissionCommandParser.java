@@ -0,0 +1,333 @@
+package com.redhat.emergency.response.mission.source;
+
+import java.io.IOException;
+import java.util.Optional;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.redhat.emergency.response.mission.model.Coordinates;
+import com.redhat.emergency.response.mission.model.Ids;
+import com.redhat.emergency.response.mission.model.Location;
+import com.redhat.emergency.response.mission.model.Mission;
+import com.redhat.emergency.response.mission.model.StandardIdGenerator;
+
+/**
+ * Single-pass, token-level reader for mission command envelopes.
+ * <p>
+ * The envelope is scanned with a streaming parser: as soon as {@code messageType} is known and is
+ * not a mission command, parsing stops, so unrelated traffic on the shared topic never builds a
+ * tree or a {@link Mission}. When the type is known by the time {@code body} is reached, the body
+ * fields are bound directly into a {@link Mission}; if the body comes first its position is
+ * remembered and it is bound once the type has been checked.
+ * <p>
+ * Commands this instance has already seen, because their partition was revoked and assigned back
+ * to it or because they were published twice, are dropped by a {@link RedeliveryFilter}, keyed on
+ * the envelope {@code id}, or on the command type and mission key for commands without one. An
+ * envelope id is checked before the body is bound, so the body of a duplicate is never read; a
+ * body that precedes the id is only skipped over until the id is known.
+ * <p>
+ * The filter is kept on the heap of one instance. It starts empty after a restart and does not
+ * know the commands another instance handled before a rebalance moved their partition here.
+ * Those redeliveries reach {@link MissionCommandSource}, where the stored status of the mission
+ * guards against them: a create command is rejected once the mission has moved past
+ * {@code CREATED}, and a status change the stored status does not allow is rejected. A create of
+ * a mission still {@code CREATED}, or an update of an {@code UPDATED} one, is applied again and
+ * emits its event again. Across a restart the stored status is only known when the repository
+ * journal is enabled.
+ */
+@ApplicationScoped
+public class MissionCommandParser {
+
+    private static final Logger log = Logger.getLogger(MissionCommandParser.class);
+
+    static final String CREATE_MISSION_COMMAND = "CreateMissionCommand";
+
+    static final String UPDATE_MISSION_COMMAND = "UpdateMissionCommand";
+
+    static final String COMPLETE_MISSION_COMMAND = "CompleteMissionCommand";
+
+    static final String FAIL_MISSION_COMMAND = "FailMissionCommand";
+
+    private static final String[] ACCEPTED_TYPES = { CREATE_MISSION_COMMAND, UPDATE_MISSION_COMMAND, COMPLETE_MISSION_COMMAND,
+            FAIL_MISSION_COMMAND };
+
+    private static final char[][] ACCEPTED_TYPE_CHARS = new char[ACCEPTED_TYPES.length][];
+
+    static {
+        for (int t = 0; t < ACCEPTED_TYPES.length; t++) {
+            ACCEPTED_TYPE_CHARS[t] = ACCEPTED_TYPES[t].toCharArray();
+        }
+    }
+
+    private static final JsonFactory factory = new JsonFactory();
+
+    @Inject
+    PipelineMetrics metrics;
+
+    @ConfigProperty(name = "mission.command.dedup.enabled", defaultValue = "true")
+    boolean dedupEnabled;
+
+    /**
+     * How long the keys of handled commands are remembered.
+     */
+    @ConfigProperty(name = "mission.command.dedup.window-ms", defaultValue = "600000")
+    long dedupWindowMs;
+
+    @ConfigProperty(name = "mission.command.dedup.generations", defaultValue = "4")
+    int dedupGenerations;
+
+    /**
+     * Keys per generation; a generation that fills up is rotated out early.
+     */
+    @ConfigProperty(name = "mission.command.dedup.capacity", defaultValue = "50000")
+    int dedupCapacity;
+
+    /**
+     * Generator of the ids of the missions created from commands and of the events about them.
+     */
+    @ConfigProperty(name = "mission.id.generator", defaultValue = "TIME_ORDERED")
+    StandardIdGenerator idGenerator;
+
+    RedeliveryFilter redeliveries;
+
+    @PostConstruct
+    void init() {
+        if (idGenerator != null) {
+            Ids.use(idGenerator);
+        }
+        if (dedupEnabled) {
+            redeliveries = new RedeliveryFilter(dedupWindowMs, dedupGenerations, dedupCapacity);
+        }
+    }
+
+    public Optional<MissionCommand> parse(String messageAsJson) {
+        try (JsonParser parser = factory.createParser(messageAsJson)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("not a JSON object");
+            }
+            String id = null;
+            String messageType = null;
+            boolean hasBody = false;
+            Optional<Mission> mission = Optional.empty();
+            int bodyStart = -1;
+            int bodyEnd = -1;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "messageType":
+                        int accepted = acceptedType(parser, value);
+                        if (accepted < 0) {
+                            ignored(parser, value);
+                            metrics.ignored();
+                            return Optional.empty();
+                        }
+                        messageType = ACCEPTED_TYPES[accepted];
+                        break;
+                    case "id":
+                        id = value == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+                        parser.skipChildren();
+                        break;
+                    case "body":
+                        hasBody = true;
+                        if (messageType != null && (redeliveries == null || id != null)) {
+                            if (redelivered(id)) {
+                                return Optional.empty();
+                            }
+                            mission = bindMission(parser, value);
+                            if (mission.isEmpty()) {
+                                metrics.invalid();
+                                return Optional.empty();
+                            }
+                        } else {
+                            bodyStart = (int) parser.getTokenLocation().getCharOffset();
+                            parser.skipChildren();
+                            bodyEnd = (int) parser.getCurrentLocation().getCharOffset();
+                        }
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            if (messageType == null) {
+                log.debug("Message with type 'null' is ignored");
+                metrics.ignored();
+                return Optional.empty();
+            }
+            if (!hasBody) {
+                log.debug("Message with type '" + messageType + "' without body is ignored");
+                metrics.ignored();
+                return Optional.empty();
+            }
+            if (bodyStart >= 0) {
+                if (redelivered(id)) {
+                    return Optional.empty();
+                }
+                try (JsonParser body = factory.createParser(messageAsJson.substring(bodyStart, bodyEnd))) {
+                    mission = bindMission(body, body.nextToken());
+                }
+                if (mission.isEmpty()) {
+                    metrics.invalid();
+                }
+            }
+            if (id == null && mission.isPresent() && redelivered(messageType + ":" + mission.get().getKey())) {
+                return Optional.empty();
+            }
+            String commandId = id;
+            String commandType = messageType;
+            return mission.map(m -> new MissionCommand(commandId, commandType, m));
+        } catch (Exception e) {
+            log.warn("Unexpected message which is not JSON or without 'messageType' field.");
+            log.warn("Message: " + messageAsJson);
+            metrics.invalid();
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Whether a command with this key was already seen within the dedup window. A null key is
+     * never a redelivery; commands without an envelope id are checked once their body is bound.
+     */
+    private boolean redelivered(String key) {
+        if (key == null || redeliveries == null || redeliveries.add(key)) {
+            return false;
+        }
+        log.debug("Dropping redelivered mission command " + key);
+        metrics.duplicate();
+        return true;
+    }
+
+    private static int acceptedType(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.VALUE_STRING) {
+            return -1;
+        }
+        char[] text = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        for (int t = 0; t < ACCEPTED_TYPE_CHARS.length; t++) {
+            char[] type = ACCEPTED_TYPE_CHARS[t];
+            if (type.length == length && regionMatches(type, text, offset)) {
+                return t;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionMatches(char[] expected, char[] text, int offset) {
+        for (int i = 0; i < expected.length; i++) {
+            if (expected[i] != text[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void ignored(JsonParser parser, JsonToken value) throws IOException {
+        if (log.isDebugEnabled()) {
+            log.debug("Message with type '" + (value == JsonToken.VALUE_NULL ? null : parser.getValueAsString()) + "' is ignored");
+        }
+    }
+
+    /**
+     * Binds the body object the parser is positioned on into a {@link Mission}, with the same
+     * coercions as Jackson data binding: scalar values are accepted for string fields, and
+     * coordinates may be JSON numbers or numeric strings.
+     */
+    private static Optional<Mission> bindMission(JsonParser parser, JsonToken value) {
+        try {
+            if (value != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Mission body is not a JSON object: " + value);
+            }
+            Mission.Builder builder = Mission.builder();
+            String incidentId = null;
+            String responderId = null;
+            int responderStartLat = Coordinates.NONE;
+            int responderStartLong = Coordinates.NONE;
+            int incidentLat = Coordinates.NONE;
+            int incidentLong = Coordinates.NONE;
+            int destinationLat = Coordinates.NONE;
+            int destinationLong = Coordinates.NONE;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "id":
+                        String id = text(parser, token);
+                        if (id != null) {
+                            builder.id(id);
+                        }
+                        break;
+                    case "incidentId":
+                        incidentId = text(parser, token);
+                        break;
+                    case "responderId":
+                        responderId = text(parser, token);
+                        break;
+                    case "responderStartLat":
+                        responderStartLat = coordinate(parser, token);
+                        break;
+                    case "responderStartLong":
+                        responderStartLong = coordinate(parser, token);
+                        break;
+                    case "incidentLat":
+                        incidentLat = coordinate(parser, token);
+                        break;
+                    case "incidentLong":
+                        incidentLong = coordinate(parser, token);
+                        break;
+                    case "destinationLat":
+                        destinationLat = coordinate(parser, token);
+                        break;
+                    case "destinationLong":
+                        destinationLong = coordinate(parser, token);
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            return Optional.of(builder.incidentId(incidentId)
+                    .responderId(responderId)
+                    .responderStartLocation(Location.fixed(responderStartLat, responderStartLong))
+                    .incidentLocation(Location.fixed(incidentLat, incidentLong))
+                    .destinationLocation(Location.fixed(destinationLat, destinationLong))
+                    .build());
+        } catch (Exception e) {
+            log.error("Exception when deserializing message body into Mission object", e);
+        }
+        return Optional.empty();
+    }
+
+    private static String text(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!token.isScalarValue()) {
+            throw new IllegalArgumentException("Expected a scalar value for '" + parser.getCurrentName() + "' but got " + token);
+        }
+        return parser.getValueAsString();
+    }
+
+    /**
+     * Reads a coordinate into its fixed-point form straight from the token text, without going
+     * through a {@code BigDecimal}.
+     */
+    private static int coordinate(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_NULL:
+                return Coordinates.NONE;
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+            case VALUE_STRING:
+                return Coordinates.parse(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            default:
+                throw new IllegalArgumentException("Expected a number for '" + parser.getCurrentName() + "' but got " + token);
+        }
+    }
+}
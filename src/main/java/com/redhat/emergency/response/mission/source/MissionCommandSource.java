@@ -1,26 +1,44 @@
 package com.redhat.emergency.response.mission.source;
 
-import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.Tag;
 import org.eclipse.microprofile.reactive.messaging.Acknowledgment;
 import org.eclipse.microprofile.reactive.messaging.Incoming;
 import org.eclipse.microprofile.reactive.messaging.Message;
 import org.eclipse.microprofile.reactive.messaging.Outgoing;
 import org.jboss.logging.Logger;
 
+import com.redhat.emergency.response.mission.map.RouteBulkhead;
 import com.redhat.emergency.response.mission.map.RoutePlanner;
 import com.redhat.emergency.response.mission.model.Mission;
 import com.redhat.emergency.response.mission.model.MissionStatus;
+import com.redhat.emergency.response.mission.model.MissionStep;
 import com.redhat.emergency.response.mission.repository.MissionRepository;
 
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
 import io.smallrye.reactive.messaging.kafka.IncomingKafkaRecordMetadata;
 import io.smallrye.reactive.messaging.kafka.KafkaRecord;
-import io.vertx.core.json.JsonObject;
 
 public class MissionCommandSource {
 
@@ -32,70 +50,455 @@ public class MissionCommandSource {
 	@Inject
 	MissionRepository repository;
 
-	@SuppressWarnings("rawtypes")
+	@Inject
+	MissionCommandParser parser;
+
+	@Inject
+	MissionEventSerializer serializer;
+
+	/**
+	 * Number of worker lanes commands are sharded over by mission key. With a single lane commands
+	 * are handled one after the other on the consuming thread.
+	 */
+	@ConfigProperty(name = "mission.command.lanes", defaultValue = "1")
+	int laneCount;
+
+	/**
+	 * Maximum number of commands handled as one batch. Batch mode is off with a size of 1.
+	 */
+	@ConfigProperty(name = "mission.command.batch.size", defaultValue = "1")
+	int batchSize;
+
+	/**
+	 * Longest time a command waits for its batch to fill up.
+	 */
+	@ConfigProperty(name = "mission.command.batch.linger-ms", defaultValue = "20")
+	long batchLingerMs;
+
+	/**
+	 * Where route lookups run: on a dedicated thread pool, on virtual threads where the JDK has
+	 * them, or on the command's own thread.
+	 */
+	@ConfigProperty(name = "mission.routing.execution", defaultValue = "POOL")
+	RouteBulkhead.Execution routingExecution;
+
+	/**
+	 * Route lookups running at once; 0 runs them on the command's own thread without a limit.
+	 */
+	@ConfigProperty(name = "mission.routing.bulkhead.max-concurrent", defaultValue = "8")
+	int routingMaxConcurrent;
+
+	/**
+	 * Route lookups waiting for a free slot before further ones are rejected.
+	 */
+	@ConfigProperty(name = "mission.routing.bulkhead.max-queued", defaultValue = "256")
+	int routingMaxQueued;
+
+	/**
+	 * Time a mission waits for its route before it is started on a straight line; 0 waits for
+	 * every route.
+	 */
+	@ConfigProperty(name = "mission.routing.timeout-ms", defaultValue = "2000")
+	long routingTimeoutMs;
+
+	/**
+	 * How often the offsets of handled commands are committed; 0 commits as soon as a partition's
+	 * offset advances.
+	 */
+	@ConfigProperty(name = "mission.command.commit.interval-ms", defaultValue = "1000")
+	long commitIntervalMs;
+
+	@Inject
+	MetricRegistry registry;
+
+	@Inject
+	PipelineMetrics metrics;
+
+	MissionLanes lanes;
+
+	RouteBulkhead bulkhead;
+
+	OffsetCommitter committer;
+
+	/**
+	 * Route encoding of the events sent to the mission-event channel.
+	 */
+	EventFormat eventFormat = EventFormat.DEFAULT;
+
+	@PostConstruct
+	void init() {
+		eventFormat = EventFormat.forChannel(ConfigProvider.getConfig(), "mission-event");
+		bulkhead = new RouteBulkhead(routeplanner, routingExecution, routingMaxConcurrent, routingMaxQueued, routingTimeoutMs, metrics);
+		metrics.queuedRoutes(bulkhead::queued);
+		if (!OffsetCommitter.supported() && "smallrye-kafka".equals(ConfigProvider.getConfig()
+				.getOptionalValue("mp.messaging.incoming.mission-command.connector", String.class).orElse(null))) {
+			throw new IllegalStateException("The Kafka connector does not expose the consumer of its records,"
+					+ " mission-command offsets can not be committed without committing records still in flight");
+		}
+		committer = new OffsetCommitter(commitIntervalMs);
+		registry.register(Metadata.builder().withName("mission.command.uncommitted")
+				.withDescription("Mission command records still being handled or waiting for an earlier record of their partition")
+				.withType(MetricType.GAUGE).build(),
+				(Gauge<Long>) () -> committer.pending());
+		registry.register(Metadata.builder().withName("mission.command.commit.fallback")
+				.withDescription("Kafka mission command records acknowledged through the connector because their consumer could not be reached")
+				.withType(MetricType.GAUGE).build(),
+				(Gauge<Long>) () -> committer.fallbacks());
+		if (laneCount > 1) {
+			lanes = new MissionLanes(laneCount);
+			for (int i = 0; i < laneCount; i++) {
+				int lane = i;
+				registry.register(Metadata.builder().withName("mission.command.lane.queue-depth")
+						.withDescription("Mission commands waiting for their lane")
+						.withType(MetricType.GAUGE).build(),
+						(Gauge<Integer>) () -> lanes.depth(lane), new Tag("lane", String.valueOf(lane)));
+			}
+		}
+	}
+
+	@PreDestroy
+	void shutdown() {
+		if (lanes != null) {
+			lanes.shutdown();
+		}
+		if (bulkhead != null) {
+			bulkhead.shutdown();
+		}
+		if (committer != null) {
+			committer.shutdown();
+		}
+	}
+
+	/**
+	 * Commands for the same incident and responder are always handled in arrival order and their
+	 * events are emitted in that order. When more than one lane is configured, commands for
+	 * different missions are handled in parallel. A mission started on a straight-line route
+	 * because its route was late gets an updated event once the real route is stored.
+	 * <p>
+	 * A command is acknowledged once it has been handled: when its event has been written, or
+	 * straight away when it produces none. The {@link OffsetCommitter} turns these
+	 * acknowledgements into periodic offset commits, so a crash re-delivers every command that was
+	 * not completely handled.
+	 */
 	@Incoming("mission-command")
     @Outgoing("mission-event")
-    @Acknowledgment(Acknowledgment.Strategy.PRE_PROCESSING)
-	public Uni<Message<String>> process(Message<String> missionCommandMessage) {
+    @Acknowledgment(Acknowledgment.Strategy.MANUAL)
+	public Multi<Message<byte[]>> process(Multi<Message<String>> missionCommandMessages) {
+		Multi<MissionCommand> commands = missionCommandMessages.onItem()
+				.produceMulti(mcm -> Multi.createFrom().optional(accept(mcm))).concatenate();
+		RouteRefinements refinements = new RouteRefinements();
+		if (lanes == null) {
+			return refinements.merge(handle(commands, null, count -> {}, refinements));
+		}
+		return refinements.merge(commands.groupItems().by(c -> lanes.assign(c.getMission().missionKey()))
+				.onItem().produceMulti(lane -> handle(lane, lanes.executor(lane.key()), count -> lanes.done(lane.key(), count), refinements))
+				.merge(lanes.size()));
+	}
+
+	/**
+	 * Handles the commands of one lane in order, one at a time or, in batch mode, one batch at a
+	 * time. Batching happens before the hand-off to the lane executor, so the executor only ever
+	 * waits for complete batches.
+	 */
+	private Multi<Message<byte[]>> handle(Multi<MissionCommand> commands, Executor executor, IntConsumer dequeued,
+			RouteRefinements refinements) {
+		if (batchSize > 1) {
+			Multi<List<MissionCommand>> batches = batch(commands);
+			if (executor != null) {
+				batches = batches.emitOn(executor);
+			}
+			return batches.onItem().invoke(batch -> dequeued.accept(batch.size()))
+					.onItem().produceMulti(batch -> applyAll(batch, refinements)).concatenate();
+		}
+		if (executor != null) {
+			commands = commands.emitOn(executor);
+		}
+		return commands.onItem().invoke(c -> dequeued.accept(1))
+				.onItem().produceUni(command -> applyOne(command, refinements)).concatenate();
+	}
+
+	/**
+	 * Groups commands into batches of at most {@code batchSize}. A batch that does not fill up is
+	 * closed {@code batchLingerMs} after its first command.
+	 */
+	private Multi<List<MissionCommand>> batch(Multi<MissionCommand> commands) {
+		return Multi.createFrom().publisher(new LingerBatcher<>(commands, batchSize, batchLingerMs));
+	}
+
+	Optional<MissionCommand> accept(Message<String> missionCommandMessage) {
+		long start = System.nanoTime();
 		Optional<IncomingKafkaRecordMetadata> metadata = missionCommandMessage.getMetadata(IncomingKafkaRecordMetadata.class);
 		metadata.ifPresent(m -> log.debug("Consumed message from topic '" + m.getTopic() + "'', partition:offset '" + m.getPartition() + ":" + m.getOffset() + "'"));
 		log.debug("Processing message: " + missionCommandMessage.getPayload());
-		return Uni.createFrom().item(missionCommandMessage)
-				.onItem().apply(mcm -> accept(missionCommandMessage.getPayload()))
-				.onItem().apply(o -> o.flatMap(j -> validate(j.getJsonObject("body"))).orElseThrow(() -> new IllegalStateException("Message ignored")))
-				.onItem().apply(m -> m.status(MissionStatus.CREATED))
-				.onItem().produceUni(m -> routeplanner.getDirections(m.responderLocation(), m.destinationLocation(), m.incidentLocation())
-						.map(missionSteps -> {
-							m.getSteps().addAll(missionSteps);
-							return m;
-						}))
-				.onItem().apply(m -> {
-					repository.put(m);
-					return m;
-				})
-				.onItem().apply(m -> {
-					JsonObject message = new JsonObject().put("id", UUID.randomUUID().toString())
-							.put("invokingService", "MissionService")
-							.put("timestamp", Instant.now().toEpochMilli())
-							.put("messageType", "MissionStartedEvent")
-							.put("body", JsonObject.mapFrom(m));
-					return (Message<String>)KafkaRecord.of(m.getIncidentId(), message.encode());
-				})
-				.onFailure().recoverWithUni(() -> Uni.createFrom().nullItem());
+		long recordTimestamp = metadata.map(m -> m.getTimestamp() == null ? 0L : m.getTimestamp().toEpochMilli()).orElse(0L);
+		Supplier<CompletionStage<Void>> ack = committer.track(missionCommandMessage);
+		Optional<MissionCommand> command = parser.parse(missionCommandMessage.getPayload())
+				.filter(c -> validate(c).isPresent())
+				.map(c -> new MissionCommand(c.getId(), c.getMessageType(), c.getMission(), recordTimestamp, ack));
+		metrics.parsed(start);
+		if (command.isEmpty()) {
+			ack.get();
+		}
+		return command;
 	}
 
+	/**
+	 * Applies a command, acknowledging it right away when it produces no event.
+	 */
+	private Uni<Message<byte[]>> applyOne(MissionCommand command, RouteRefinements refinements) {
+		return apply(command, refinements).onItem().invoke(event -> {
+			if (event == null) {
+				command.ack();
+			}
+		});
+	}
+
+	private Uni<Message<byte[]>> apply(MissionCommand command, RouteRefinements refinements) {
+		switch (command.getMessageType()) {
+			case MissionCommandParser.UPDATE_MISSION_COMMAND:
+				return transition(command, MissionStatus.UPDATED, MissionEventSerializer.MISSION_UPDATED_EVENT);
+			case MissionCommandParser.COMPLETE_MISSION_COMMAND:
+				return transition(command, MissionStatus.COMPLETED, MissionEventSerializer.MISSION_COMPLETED_EVENT);
+			case MissionCommandParser.FAIL_MISSION_COMMAND:
+				return transition(command, MissionStatus.FAILED, MissionEventSerializer.MISSION_FAILED_EVENT);
+			default:
+				return start(command, refinements);
+		}
+	}
+
+	/**
+	 * Handles a batch in order: consecutive create commands are started together, lifecycle
+	 * commands one at a time in between, so a create followed by a status change of the same
+	 * mission in one batch is applied in that order.
+	 */
+	private Multi<Message<byte[]>> applyAll(List<MissionCommand> batch, RouteRefinements refinements) {
+		List<List<MissionCommand>> runs = new ArrayList<>();
+		List<MissionCommand> creates = null;
+		for (MissionCommand command : batch) {
+			if (!isCreate(command)) {
+				runs.add(Collections.singletonList(command));
+				creates = null;
+			} else if (creates == null) {
+				creates = new ArrayList<>();
+				creates.add(command);
+				runs.add(creates);
+			} else {
+				creates.add(command);
+			}
+		}
+		if (runs.size() == 1 && creates != null) {
+			return startAll(creates, refinements);
+		}
+		return Multi.createFrom().iterable(runs).onItem()
+				.produceMulti(run -> isCreate(run.get(0)) ? startAll(run, refinements) : applyOne(run.get(0), refinements).toMulti())
+				.concatenate();
+	}
+
+	private Uni<Message<byte[]>> start(MissionCommand command, RouteRefinements refinements) {
+		if (!canStart(command.getMission())) {
+			return Uni.createFrom().nullItem();
+		}
+		return route(command.getMission())
+				.onItem().apply(routed -> {
+					long start = System.nanoTime();
+					repository.put(routed.mission);
+					metrics.stored(start);
+					Message<byte[]> event = event(command, MissionEventSerializer.MISSION_STARTED_EVENT, routed.mission);
+					refine(event, routed, refinements);
+					return event;
+				})
+				.onFailure().recoverWithItem(this::failed);
+	}
 
-	private Optional<JsonObject> accept(String messageAsJson) {
-		try {
-			JsonObject json = new JsonObject(messageAsJson);
-			String messageType = json.getString("messageType");
-			if ("CreateMissionCommand".equals(messageType) && json.containsKey("body")) {
-				return Optional.of(json);
+	/**
+	 * Looks up the routes of a batch concurrently, stores the routed missions with one bulk write
+	 * and emits their events in batch order. A mission whose route lookup fails is dropped from
+	 * the batch.
+	 */
+	private Multi<Message<byte[]>> startAll(List<MissionCommand> creates, RouteRefinements refinements) {
+		List<MissionCommand> batch = new ArrayList<>(creates.size());
+		for (MissionCommand command : creates) {
+			if (canStart(command.getMission())) {
+				batch.add(command);
+			} else {
+				command.ack();
+			}
+		}
+		if (batch.isEmpty()) {
+			return Multi.createFrom().empty();
+		}
+		// Lookups the bulkhead offloads already run concurrently; only those it runs on the caller
+		// need the worker pool.
+		boolean offloaded = bulkhead.execution() != RouteBulkhead.Execution.CALLER;
+		List<Uni<Routed>> routed = batch.stream()
+				.map(c -> offloaded ? route(c.getMission()) : route(c.getMission()).runSubscriptionOn(Infrastructure.getDefaultWorkerPool()))
+				.map(uni -> uni.onFailure().recoverWithItem(this::failed))
+				.collect(Collectors.toList());
+		return Uni.combine().all().unis(routed).combinedWith(results -> {
+			List<Routed> started = new ArrayList<>(results.size());
+			List<Mission> missions = new ArrayList<>(results.size());
+			List<MissionCommand> commands = new ArrayList<>(results.size());
+			for (int i = 0; i < results.size(); i++) {
+				if (results.get(i) != null) {
+					started.add((Routed) results.get(i));
+					missions.add(((Routed) results.get(i)).mission);
+					commands.add(batch.get(i));
+				} else {
+					batch.get(i).ack();
+				}
 			}
-			log.debug("Message with type '" + messageType + "' is ignored");
-		} catch (Exception e) {
-			log.warn("Unexpected message which is not JSON or without 'messageType' field.");
-			log.warn("Message: " + messageAsJson);
-		}
-		return Optional.empty();
-	}
-
-	private Optional<Mission> validate(JsonObject json) {
-		try {
-			Optional<Mission> mission = Optional.of(json.mapTo(Mission.class))
-					.filter(m -> m.getIncidentId() != null && !(m.getIncidentId().isBlank()))
-					.filter(m -> m.getResponderId() != null && !(m.getIncidentId().isBlank()))
-					.filter(m -> m.getIncidentLat() != null && m.getIncidentLong() != null)
-					.filter(m -> m.getResponderStartLat() != null && m.getResponderStartLong() != null)
-					.filter(m -> m.getDestinationLat() != null && m.getDestinationLong() != null);
-			if (mission.isEmpty()) {
-				log.warn("Missing data in Mission object. Ignoring.");
+			long start = System.nanoTime();
+			repository.putAll(missions);
+			metrics.stored(start);
+			List<Message<byte[]>> events = new ArrayList<>(started.size());
+			for (int i = 0; i < started.size(); i++) {
+				Message<byte[]> event = event(commands.get(i), MissionEventSerializer.MISSION_STARTED_EVENT, missions.get(i));
+				refine(event, started.get(i), refinements);
+				events.add(event);
 			}
-			return mission;
-		} catch (Exception e) {
-			log.error("Exception when deserializing message body into Mission object:", e);
+			return events;
+		}).onFailure().recoverWithItem(failure -> {
+			failed(failure);
+			batch.forEach(MissionCommand::ack);
+			return Collections.emptyList();
+		}).toMulti().onItem().produceIterable(events -> events).concatenate();
+	}
+
+	/**
+	 * Looks up the route through the bulkhead. A late, rejected or failed lookup starts the
+	 * mission on a straight line, flagged as degraded.
+	 */
+	private Uni<Routed> route(Mission mission) {
+		return Uni.createFrom().deferred(() -> {
+			long start = System.nanoTime();
+			metrics.routeStarted();
+			mission.status(MissionStatus.CREATED);
+			return bulkhead.getDirections(mission.responderLocation(), mission.destinationLocation(), mission.incidentLocation())
+					.onItem().invoke(route -> metrics.routed(start))
+					.onFailure().invoke(failure -> metrics.routed(start))
+					.map(route -> {
+						mission.getSteps().addAll(route.steps());
+						if (route.isDegraded()) {
+							log.warn("No route for mission " + mission.getKey() + " (" + route.fallback() + "), starting it on a straight line");
+							metrics.fallback(route.fallback());
+							mission.degraded(true);
+						}
+						return new Routed(mission, route.refinement());
+					});
+		});
+	}
+
+	/**
+	 * Once {@code started} has been emitted, waits for the real route of a mission that was
+	 * started on a straight line, stores it and emits an updated event.
+	 */
+	private void refine(Message<byte[]> started, Routed routed, RouteRefinements refinements) {
+		if (routed.refinement == null) {
+			return;
+		}
+		Mission mission = routed.mission;
+		refinements.after(started, () -> routed.refinement
+				.thenCompose(steps -> repository.reroute(mission, steps))
+				.thenApply(updated -> updated.map(this::refined).orElse(null))
+				.exceptionally(failure -> {
+					log.warn("Unable to refine the route of mission " + mission.getKey(), failure);
+					return null;
+				}));
+	}
+
+	private Message<byte[]> refined(Mission m) {
+		metrics.refined();
+		long start = System.nanoTime();
+		byte[] event = serializer.missionEvent(MissionEventSerializer.MISSION_UPDATED_EVENT, m, eventFormat);
+		metrics.serialized(start);
+		return KafkaRecord.of(m.getIncidentId(), event);
+	}
+
+	/**
+	 * A mission that already exists may only be started again while it is still in status
+	 * {@link MissionStatus#CREATED}, which is what a redelivered create command does. Finished
+	 * missions evicted to the archive are looked up there, so they cannot be started again either.
+	 * This, not the parser's redelivery filter, is what stops a create command redelivered after a
+	 * restart or a rebalance from restarting a mission.
+	 */
+	private boolean canStart(Mission mission) {
+		Optional<MissionStatus> status = repository.status(mission.missionKey());
+		if (status.isPresent() && !status.get().canMoveTo(MissionStatus.CREATED)) {
+			log.warn("Mission " + mission.getKey() + " is " + status.get() + ", ignoring create command");
+			metrics.rejected();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Moves an existing mission to {@code status} through the repository's per-mission mailbox
+	 * and emits {@code eventType}. Commands for unknown missions, or that would move a mission
+	 * backwards, produce no event.
+	 */
+	private Uni<Message<byte[]>> transition(MissionCommand command, MissionStatus status, String eventType) {
+		Mission mission = command.getMission();
+		return Uni.createFrom().deferred(() -> {
+			long start = System.nanoTime();
+			return Uni.createFrom().completionStage(repository.transition(mission.missionKey(), status))
+					.onItem().invoke(m -> metrics.stored(start));
+		}).map(updated -> {
+			if (updated.isEmpty()) {
+				log.warn("Mission " + mission.getKey() + " can not be moved to " + status + ", ignoring " + command.getMessageType());
+				metrics.rejected();
+				return null;
+			}
+			return event(command, eventType, updated.get());
+		}).onFailure().recoverWithItem(this::failed);
+	}
+
+	private Message<byte[]> event(MissionCommand command, String eventType, Mission m) {
+		long start = System.nanoTime();
+		byte[] event = serializer.missionEvent(eventType, m, eventFormat);
+		metrics.serialized(start);
+		metrics.produced(command.getRecordTimestamp());
+		return KafkaRecord.of(m.getIncidentId(), event).withAck(command::ack);
+	}
+
+	private <T> T failed(Throwable failure) {
+		log.error("Unable to handle mission command", failure);
+		metrics.failed();
+		return null;
+	}
+
+	private static final class Routed {
+
+		final Mission mission;
+
+		final CompletionStage<List<MissionStep>> refinement;
+
+		Routed(Mission mission, CompletionStage<List<MissionStep>> refinement) {
+			this.mission = mission;
+			this.refinement = refinement;
+		}
+	}
+
+	private static boolean isCreate(MissionCommand command) {
+		return MissionCommandParser.CREATE_MISSION_COMMAND.equals(command.getMessageType());
+	}
+
+	/**
+	 * Create commands need the full mission; lifecycle commands only identify it by incident and
+	 * responder.
+	 */
+	private Optional<Mission> validate(MissionCommand command) {
+		boolean create = isCreate(command);
+		Optional<Mission> mission = Optional.of(command.getMission())
+				.filter(m -> m.getIncidentId() != null && !(m.getIncidentId().isBlank()))
+				.filter(m -> m.getResponderId() != null && !(m.getResponderId().isBlank()))
+				.filter(m -> !create || m.getIncidentLat() != null && m.getIncidentLong() != null)
+				.filter(m -> !create || m.getResponderStartLat() != null && m.getResponderStartLong() != null)
+				.filter(m -> !create || m.getDestinationLat() != null && m.getDestinationLong() != null);
+		if (mission.isEmpty()) {
+			log.warn("Missing data in Mission object. Ignoring.");
+			metrics.invalid();
 		}
-		return Optional.empty();
+		return mission;
 	}
 
 
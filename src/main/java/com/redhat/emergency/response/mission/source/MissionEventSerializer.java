@@ -0,0 +1,515 @@
+package com.redhat.emergency.response.mission.source;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import javax.enterprise.context.ApplicationScoped;
+
+import com.redhat.emergency.response.mission.model.Coordinates;
+import com.redhat.emergency.response.mission.model.Ids;
+import com.redhat.emergency.response.mission.model.Location;
+import com.redhat.emergency.response.mission.model.LocationHistory;
+import com.redhat.emergency.response.mission.model.Mission;
+import com.redhat.emergency.response.mission.model.MissionSteps;
+import com.redhat.emergency.response.mission.model.Polyline;
+import com.redhat.emergency.response.mission.model.RouteProgress;
+
+/**
+ * Writes mission event envelopes as UTF-8 JSON straight into a per-thread scratch buffer.
+ * <p>
+ * The output is byte-for-byte what {@code JsonObject.mapFrom(mission)} wrapped in the event
+ * envelope encodes to: same field order, coordinates in the {@link BigDecimal#toString()} form of
+ * {@link Coordinates#toDecimal} and the same string escaping. No tree, map or intermediate string is built; the only allocation per
+ * event is the returned array.
+ * <p>
+ * An {@link EventFormat} can simplify the route further and write it as an encoded polyline
+ * instead; that output no longer matches data binding.
+ */
+@ApplicationScoped
+public class MissionEventSerializer {
+
+    static final String MISSION_STARTED_EVENT = "MissionStartedEvent";
+
+    static final String MISSION_UPDATED_EVENT = "MissionUpdatedEvent";
+
+    static final String MISSION_COMPLETED_EVENT = "MissionCompletedEvent";
+
+    static final String MISSION_FAILED_EVENT = "MissionFailedEvent";
+
+    static final String MISSION_PROGRESS_EVENT = "MissionProgressEvent";
+
+    static final String INVOKING_SERVICE = "MissionService";
+
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+
+    /**
+     * Buffers grown beyond this size by an unusually large mission are not kept for reuse.
+     */
+    private static final int MAX_POOLED_CAPACITY = 1024 * 1024;
+
+    private static final ThreadLocal<Output> buffers = ThreadLocal.withInitial(() -> new Output(INITIAL_CAPACITY));
+
+    private static final byte[] ENVELOPE_ID = ascii("{\"id\":");
+    private static final byte[] INVOKING_SERVICE_FIELD = ascii(",\"invokingService\":");
+    private static final byte[] TIMESTAMP = ascii(",\"timestamp\":");
+    private static final byte[] MESSAGE_TYPE = ascii(",\"messageType\":");
+    private static final byte[] BODY = ascii(",\"body\":");
+
+    private static final byte[] MISSION_ID = ascii("{\"id\":");
+    private static final byte[] INCIDENT_ID = ascii(",\"incidentId\":");
+    private static final byte[] RESPONDER_ID = ascii(",\"responderId\":");
+    private static final byte[] RESPONDER_START_LAT = ascii(",\"responderStartLat\":");
+    private static final byte[] RESPONDER_START_LONG = ascii(",\"responderStartLong\":");
+    private static final byte[] INCIDENT_LAT = ascii(",\"incidentLat\":");
+    private static final byte[] INCIDENT_LONG = ascii(",\"incidentLong\":");
+    private static final byte[] DESTINATION_LAT = ascii(",\"destinationLat\":");
+    private static final byte[] DESTINATION_LONG = ascii(",\"destinationLong\":");
+    private static final byte[] RESPONDER_LOCATION_HISTORY = ascii(",\"responderLocationHistory\":");
+    private static final byte[] STATUS = ascii(",\"status\":");
+    private static final byte[] STEPS = ascii(",\"steps\":");
+    private static final byte[] DEGRADED = ascii(",\"degraded\":true");
+
+    private static final byte[] WAYPOINT_STEPS = ascii(",\"wayPointSteps\":");
+    private static final byte[] DESTINATION_STEPS = ascii(",\"destinationSteps\":");
+
+    private static final byte[] STEP_LAT = ascii("{\"lat\":");
+    private static final byte[] STEP_LON = ascii(",\"lon\":");
+    private static final byte[] STEP_WAYPOINT = ascii(",\"wayPoint\":");
+    private static final byte[] STEP_DESTINATION = ascii(",\"destination\":");
+
+    private static final byte[] LOCATION_LAT = ascii("{\"lat\":");
+    private static final byte[] LOCATION_LON = ascii(",\"lon\":");
+    private static final byte[] LOCATION_TIMESTAMP = ascii(",\"timestamp\":");
+
+    private static final byte[] PROGRESS_MISSION_ID = ascii("{\"missionId\":");
+    private static final byte[] PROGRESS_LAT = ascii(",\"lat\":");
+    private static final byte[] PROGRESS_LON = ascii(",\"lon\":");
+    private static final byte[] PROGRESS_SEGMENT = ascii(",\"segment\":");
+    private static final byte[] PROGRESS_TRAVELLED = ascii(",\"distanceTravelled\":");
+    private static final byte[] PROGRESS_REMAINING = ascii(",\"distanceRemaining\":");
+    private static final byte[] PROGRESS_TO_INCIDENT = ascii(",\"distanceToIncident\":");
+    private static final byte[] PROGRESS_ETA = ascii(",\"etaSeconds\":");
+    private static final byte[] PROGRESS_OFF_ROUTE = ascii(",\"offRoute\":");
+
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] TRUE = ascii("true");
+    private static final byte[] FALSE = ascii("false");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+
+    public byte[] missionStartedEvent(Mission mission) {
+        return missionEvent(MISSION_STARTED_EVENT, mission);
+    }
+
+    public byte[] missionEvent(String messageType, Mission mission) {
+        return missionEvent(messageType, mission, EventFormat.DEFAULT);
+    }
+
+    public byte[] missionEvent(String messageType, Mission mission, EventFormat format) {
+        return event(Ids.next(), Instant.now().toEpochMilli(), messageType, mission, format);
+    }
+
+    byte[] event(String id, long timestamp, String messageType, Mission mission) {
+        return event(id, timestamp, messageType, mission, EventFormat.DEFAULT);
+    }
+
+    byte[] event(String id, long timestamp, String messageType, Mission mission, EventFormat format) {
+        Output out = buffers.get();
+        out.reset();
+        out.write(ENVELOPE_ID);
+        out.string(id);
+        out.write(INVOKING_SERVICE_FIELD);
+        out.string(INVOKING_SERVICE);
+        out.write(TIMESTAMP);
+        out.number(timestamp);
+        out.write(MESSAGE_TYPE);
+        out.string(messageType);
+        out.write(BODY);
+        mission(out, mission, format);
+        out.write('}');
+        byte[] bytes = out.toByteArray();
+        if (out.capacity() > MAX_POOLED_CAPACITY) {
+            buffers.remove();
+        }
+        return bytes;
+    }
+
+    /**
+     * A {@code MissionProgressEvent} for a responder reported at {@code lat}/{@code lon}: where the
+     * responder is along the route, distances in whole meters, and the time left at the observed
+     * speed or {@code defaultSpeed} (m/s). Positions more than {@code offRouteMeters} from the
+     * route are flagged as off route.
+     */
+    public byte[] progressEvent(Mission mission, RouteProgress progress, int lat, int lon, long timestamp, double defaultSpeed,
+            double offRouteMeters) {
+        Output out = buffers.get();
+        out.reset();
+        out.write(ENVELOPE_ID);
+        out.string(Ids.next());
+        out.write(INVOKING_SERVICE_FIELD);
+        out.string(INVOKING_SERVICE);
+        out.write(TIMESTAMP);
+        out.number(timestamp);
+        out.write(MESSAGE_TYPE);
+        out.string(MISSION_PROGRESS_EVENT);
+        out.write(BODY);
+        out.write(PROGRESS_MISSION_ID);
+        out.string(mission.getId());
+        out.write(INCIDENT_ID);
+        out.string(mission.getIncidentId());
+        out.write(RESPONDER_ID);
+        out.string(mission.getResponderId());
+        out.write(PROGRESS_LAT);
+        out.fixed(lat);
+        out.write(PROGRESS_LON);
+        out.fixed(lon);
+        synchronized (progress) {
+            out.write(PROGRESS_SEGMENT);
+            out.number(progress.segment());
+            out.write(PROGRESS_TRAVELLED);
+            out.number(Math.round(progress.travelledMeters()));
+            out.write(PROGRESS_REMAINING);
+            out.number(Math.round(progress.remainingMeters()));
+            out.write(PROGRESS_TO_INCIDENT);
+            out.number(Math.round(progress.toIncidentMeters()));
+            out.write(PROGRESS_ETA);
+            out.number(progress.etaSeconds(defaultSpeed));
+            out.write(PROGRESS_OFF_ROUTE);
+            out.write(progress.offRouteMeters() > offRouteMeters ? TRUE : FALSE);
+        }
+        out.write('}');
+        out.write('}');
+        return out.toByteArray();
+    }
+
+    private static void mission(Output out, Mission mission, EventFormat format) {
+        out.write(MISSION_ID);
+        out.string(mission.getId());
+        out.write(INCIDENT_ID);
+        out.string(mission.getIncidentId());
+        out.write(RESPONDER_ID);
+        out.string(mission.getResponderId());
+        out.write(RESPONDER_START_LAT);
+        Location responder = mission.responderLocation();
+        out.fixed(responder.fixedLatitude());
+        out.write(RESPONDER_START_LONG);
+        out.fixed(responder.fixedLongitude());
+        Location incident = mission.incidentLocation();
+        out.write(INCIDENT_LAT);
+        out.fixed(incident.fixedLatitude());
+        out.write(INCIDENT_LONG);
+        out.fixed(incident.fixedLongitude());
+        Location destination = mission.destinationLocation();
+        out.write(DESTINATION_LAT);
+        out.fixed(destination.fixedLatitude());
+        out.write(DESTINATION_LONG);
+        out.fixed(destination.fixedLongitude());
+        out.write(RESPONDER_LOCATION_HISTORY);
+        responderLocationHistory(out, mission.locationHistory());
+        out.write(STATUS);
+        out.string(mission.getStatus());
+        out.write(STEPS);
+        MissionSteps steps = mission.missionSteps().simplified(format.simplifyToleranceMeters());
+        if (format.stepsEncoding() == EventFormat.StepsEncoding.POLYLINE) {
+            polyline(out, steps, format.polylinePrecision());
+        } else {
+            steps(out, steps);
+        }
+        if (mission.isDegraded()) {
+            out.write(DEGRADED);
+        }
+        out.write('}');
+    }
+
+    private static void responderLocationHistory(Output out, LocationHistory history) {
+        out.write('[');
+        int start = out.position();
+        history.forEach((lat, lon, timestamp) -> {
+            if (out.position() != start) {
+                out.write(',');
+            }
+            out.write(LOCATION_LAT);
+            out.fixed(lat);
+            out.write(LOCATION_LON);
+            out.fixed(lon);
+            out.write(LOCATION_TIMESTAMP);
+            out.number(timestamp);
+            out.write('}');
+        });
+        out.write(']');
+    }
+
+    private static void steps(Output out, MissionSteps steps) {
+        out.write('[');
+        synchronized (steps) {
+            for (int i = 0; i < steps.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write(STEP_LAT);
+                out.fixed(steps.lat(i));
+                out.write(STEP_LON);
+                out.fixed(steps.lon(i));
+                out.write(STEP_WAYPOINT);
+                out.write(steps.isWayPoint(i) ? TRUE : FALSE);
+                out.write(STEP_DESTINATION);
+                out.write(steps.isDestination(i) ? TRUE : FALSE);
+                out.write('}');
+            }
+        }
+        out.write(']');
+    }
+
+    /**
+     * Writes the steps as a polyline string and the indexes, within the polyline, of the waypoint
+     * and destination steps.
+     */
+    private static void polyline(Output out, MissionSteps steps, int precision) {
+        synchronized (steps) {
+            out.string(Polyline.encode(steps, precision));
+            int[] wayPoints = new int[steps.size()];
+            int[] destinations = new int[steps.size()];
+            int wayPointCount = 0;
+            int destinationCount = 0;
+            int index = 0;
+            for (int i = 0; i < steps.size(); i++) {
+                if (steps.lat(i) == Coordinates.NONE || steps.lon(i) == Coordinates.NONE) {
+                    continue;
+                }
+                if (steps.isWayPoint(i)) {
+                    wayPoints[wayPointCount++] = index;
+                }
+                if (steps.isDestination(i)) {
+                    destinations[destinationCount++] = index;
+                }
+                index++;
+            }
+            out.write(WAYPOINT_STEPS);
+            indexes(out, wayPoints, wayPointCount);
+            out.write(DESTINATION_STEPS);
+            indexes(out, destinations, destinationCount);
+        }
+    }
+
+    private static void indexes(Output out, int[] indexes, int count) {
+        out.write('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.number(indexes[i]);
+        }
+        out.write(']');
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Growable byte buffer with the JSON primitives the serializer needs.
+     */
+    static final class Output {
+
+        private byte[] bytes;
+
+        private int position;
+
+        Output(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void reset() {
+            position = 0;
+        }
+
+        int capacity() {
+            return bytes.length;
+        }
+
+        int position() {
+            return position;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, position);
+        }
+
+        void write(int b) {
+            ensure(1);
+            bytes[position++] = (byte) b;
+        }
+
+        void write(byte[] chunk) {
+            ensure(chunk.length);
+            System.arraycopy(chunk, 0, bytes, position, chunk.length);
+            position += chunk.length;
+        }
+
+        void number(long value) {
+            if (value == Long.MIN_VALUE) {
+                write(ascii(Long.toString(value)));
+                return;
+            }
+            ensure(20);
+            if (value < 0) {
+                bytes[position++] = '-';
+                value = -value;
+            }
+            int digits = 1;
+            for (long v = value; v >= 10; v /= 10) {
+                digits++;
+            }
+            int end = position + digits;
+            for (int i = end - 1; i >= position; i--) {
+                bytes[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            position = end;
+        }
+
+        /**
+         * Writes a fixed-point coordinate as {@link Coordinates#toDecimal} prints it, without
+         * creating the decimal. Values under 10<sup>-6</sup> degrees, which {@code BigDecimal}
+         * prints in exponent notation, go through the decimal.
+         */
+        void fixed(int value) {
+            if (value == Coordinates.NONE) {
+                write(NULL);
+                return;
+            }
+            if (value > -10 && value < 10 && value != 0) {
+                decimal(Coordinates.toDecimal(value));
+                return;
+            }
+            ensure(13);
+            long v = value;
+            if (v < 0) {
+                bytes[position++] = '-';
+                v = -v;
+            }
+            number(v / 10_000_000);
+            int fraction = (int) (v % 10_000_000);
+            if (fraction == 0) {
+                return;
+            }
+            int digits = Coordinates.SCALE;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                digits--;
+            }
+            bytes[position++] = '.';
+            int end = position + digits;
+            for (int i = end - 1; i >= position; i--) {
+                bytes[i] = (byte) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            position = end;
+        }
+
+        /**
+         * Writes a decimal in its {@link BigDecimal#toString()} form, which the decimal caches.
+         */
+        void decimal(BigDecimal value) {
+            if (value == null) {
+                write(NULL);
+                return;
+            }
+            String text = value.toString();
+            int length = text.length();
+            ensure(length);
+            for (int i = 0; i < length; i++) {
+                bytes[position++] = (byte) text.charAt(i);
+            }
+        }
+
+        /**
+         * Writes a quoted string, escaping quotes, backslashes and control characters as Jackson
+         * does and encoding everything else as UTF-8.
+         */
+        void string(String value) {
+            if (value == null) {
+                write(NULL);
+                return;
+            }
+            int length = value.length();
+            ensure(length * 3 + 2);
+            byte[] b = bytes;
+            int p = position;
+            b[p++] = '"';
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    if (c >= 0x20 && c != '"' && c != '\\') {
+                        b[p++] = (byte) c;
+                        continue;
+                    }
+                    position = p;
+                    escape(c, length - i - 1);
+                    b = bytes;
+                    p = position;
+                } else if (c < 0x800) {
+                    b[p++] = (byte) (0xc0 | c >> 6);
+                    b[p++] = (byte) (0x80 | c & 0x3f);
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    b[p++] = (byte) (0xf0 | codePoint >> 18);
+                    b[p++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                    b[p++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                    b[p++] = (byte) (0x80 | codePoint & 0x3f);
+                } else if (Character.isSurrogate(c)) {
+                    b[p++] = '?';
+                } else {
+                    b[p++] = (byte) (0xe0 | c >> 12);
+                    b[p++] = (byte) (0x80 | c >> 6 & 0x3f);
+                    b[p++] = (byte) (0x80 | c & 0x3f);
+                }
+            }
+            b[p++] = '"';
+            position = p;
+        }
+
+        /**
+         * Escapes an ASCII character, keeping room for the worst case of the characters left.
+         */
+        private void escape(char c, int remaining) {
+            ensure(6 + remaining * 3 + 1);
+            bytes[position++] = '\\';
+            switch (c) {
+                case '"':
+                    bytes[position++] = '"';
+                    break;
+                case '\\':
+                    bytes[position++] = '\\';
+                    break;
+                case '\b':
+                    bytes[position++] = 'b';
+                    break;
+                case '\f':
+                    bytes[position++] = 'f';
+                    break;
+                case '\n':
+                    bytes[position++] = 'n';
+                    break;
+                case '\r':
+                    bytes[position++] = 'r';
+                    break;
+                case '\t':
+                    bytes[position++] = 't';
+                    break;
+                default:
+                    bytes[position++] = 'u';
+                    bytes[position++] = '0';
+                    bytes[position++] = '0';
+                    bytes[position++] = HEX[c >> 4];
+                    bytes[position++] = HEX[c & 0xf];
+            }
+        }
+
+        private void ensure(int extra) {
+            if (position + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, position + extra));
+            }
+        }
+    }
+}
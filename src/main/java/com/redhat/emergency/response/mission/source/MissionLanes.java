@@ -0,0 +1,74 @@
+package com.redhat.emergency.response.mission.source;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import com.redhat.emergency.response.mission.model.MissionKey;
+
+/**
+ * Fixed set of single-threaded worker lanes. Work is sharded by {@link MissionKey}, so every
+ * command for the same incident and responder runs on the same lane, in arrival order, while
+ * commands for different missions run in parallel on the other lanes.
+ */
+class MissionLanes {
+
+    private final ExecutorService[] executors;
+
+    private final AtomicIntegerArray depth;
+
+    MissionLanes(int lanes) {
+        executors = new ExecutorService[lanes];
+        depth = new AtomicIntegerArray(lanes);
+        for (int i = 0; i < lanes; i++) {
+            String name = "mission-lane-" + i;
+            executors[i] = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    int size() {
+        return executors.length;
+    }
+
+    /**
+     * Picks the lane for a key and counts the work item as queued on it.
+     */
+    int assign(MissionKey key) {
+        int lane = lane(key);
+        depth.incrementAndGet(lane);
+        return lane;
+    }
+
+    int lane(MissionKey key) {
+        int h = key.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), executors.length);
+    }
+
+    ExecutorService executor(int lane) {
+        return executors[lane];
+    }
+
+    /**
+     * Records that the lane has picked up the given number of work items.
+     */
+    void done(int lane, int count) {
+        depth.addAndGet(lane, -count);
+    }
+
+    /**
+     * Work items assigned to the lane and not picked up yet.
+     */
+    int depth(int lane) {
+        return depth.get(lane);
+    }
+
+    void shutdown() {
+        for (ExecutorService executor : executors) {
+            executor.shutdownNow();
+        }
+    }
+}
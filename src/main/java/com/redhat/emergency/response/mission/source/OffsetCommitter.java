@@ -0,0 +1,308 @@
+package com.redhat.emergency.response.mission.source;
+
+import java.lang.reflect.Field;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.jboss.logging.Logger;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import io.smallrye.reactive.messaging.kafka.IncomingKafkaRecord;
+import io.vertx.kafka.client.common.TopicPartition;
+import io.vertx.kafka.client.consumer.KafkaConsumer;
+import io.vertx.kafka.client.consumer.OffsetAndMetadata;
+
+/**
+ * Commits the offsets of mission-command records once they have been handled, in periodic
+ * batches, for at-least-once delivery without a commit per record.
+ * <p>
+ * Records are tracked per partition in the order they were received. Handling may complete out of
+ * order when commands run on several lanes or are routed concurrently, so a partition's offset
+ * only advances over the contiguous prefix of completed records: a record still in flight holds
+ * back the commit of everything after it. Every {@code intervalMs} the advanced offsets of all
+ * partitions are committed with one request; with an interval of 0 they are committed as soon as
+ * they advance.
+ * <p>
+ * The connector's own acknowledgement commits the consumer's whole fetch position, including
+ * records still in flight, so offsets are committed through the record's consumer instead. This
+ * version of the connector has no commit strategy or rebalance listener to get hold of it, so it is
+ * read from the record's private {@code consumer} field, registered for reflection so that it can
+ * be read in a native image as well. When that field cannot be reached,
+ * {@link #supported()} is false and a Kafka channel must not be started; a Kafka record whose
+ * consumer still cannot be read falls back to the connector's acknowledgement, which is logged as
+ * an error and counted in {@link #fallbacks()}. Records that do not come from Kafka are simply
+ * acknowledged once handled.
+ * <p>
+ * The records of a partition revoked from the consumer are no longer tracked nor committed; they
+ * are the new owner's to commit.
+ * <p>
+ * A partition that is reassigned restarts from its committed offset, and completed records that
+ * were not committed yet are delivered again. When the partition comes back to this instance the
+ * {@link RedeliveryFilter} drops them; otherwise the stored mission status rejects them, see
+ * {@link MissionCommandParser}.
+ */
+@RegisterForReflection(targets = IncomingKafkaRecord.class, methods = false)
+class OffsetCommitter {
+
+    private static final Logger log = Logger.getLogger(OffsetCommitter.class);
+
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    private static final Field RECORD_CONSUMER = consumerField();
+
+    private final Map<TopicPartition, PartitionOffsets> partitions = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService timer;
+
+    private final LongAdder commits = new LongAdder();
+
+    private final LongAdder fallbacks = new LongAdder();
+
+    private volatile KafkaConsumer<?, ?> consumer;
+
+    OffsetCommitter(long intervalMs) {
+        if (intervalMs > 0) {
+            timer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "mission-offset-commit");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.scheduleWithFixedDelay(this::commit, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            timer = null;
+        }
+    }
+
+    /**
+     * Starts tracking a received message. The returned acknowledgement is called once the message
+     * has been handled, i.e. when its event has been written or when it produced no event.
+     */
+    Supplier<CompletionStage<Void>> track(Message<?> message) {
+        if (!(message instanceof IncomingKafkaRecord)) {
+            return message::ack;
+        }
+        IncomingKafkaRecord<?, ?> record = (IncomingKafkaRecord<?, ?>) message;
+        if (consumer == null) {
+            KafkaConsumer<?, ?> recordConsumer = consumer(record);
+            if (recordConsumer == null) {
+                fallbacks.increment();
+                return message::ack;
+            }
+            // the connector sets no rebalance handlers of its own
+            recordConsumer.partitionsRevokedHandler(this::revoked);
+            consumer = recordConsumer;
+        }
+        return track(record.getTopic(), record.getPartition(), record.getOffset());
+    }
+
+    Supplier<CompletionStage<Void>> track(String topic, int partition, long offset) {
+        PartitionOffsets offsets = partitions.computeIfAbsent(new TopicPartition(topic, partition), p -> new PartitionOffsets());
+        Pending pending = offsets.received(offset);
+        return () -> {
+            if (offsets.completed(pending) && timer == null) {
+                commit();
+            }
+            return DONE;
+        };
+    }
+
+    /**
+     * Commits every partition whose offset advanced since its last commit.
+     */
+    void commit() {
+        Map<TopicPartition, OffsetAndMetadata> offsets = committable();
+        KafkaConsumer<?, ?> consumer = this.consumer;
+        if (offsets.isEmpty() || consumer == null) {
+            return;
+        }
+        consumer.commit(offsets, result -> {
+            if (result.succeeded()) {
+                committed(offsets);
+            } else {
+                log.warn("Unable to commit mission-command offsets " + offsets, result.cause());
+            }
+        });
+    }
+
+    Map<TopicPartition, OffsetAndMetadata> committable() {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        partitions.forEach((partition, tracked) -> {
+            long offset = tracked.committable();
+            if (offset >= 0) {
+                offsets.put(partition, new OffsetAndMetadata(offset, null));
+            }
+        });
+        return offsets;
+    }
+
+    void committed(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        commits.increment();
+        offsets.forEach((partition, offset) -> {
+            PartitionOffsets tracked = partitions.get(partition);
+            if (tracked != null) {
+                tracked.committed(offset.getOffset());
+            }
+        });
+    }
+
+    /**
+     * Forgets the records of partitions this consumer no longer owns. Completions of their records
+     * still in flight are ignored.
+     */
+    void revoked(Set<TopicPartition> revoked) {
+        revoked.forEach(partitions::remove);
+    }
+
+    /**
+     * Records, over all partitions, that are still being handled or wait for an earlier record of
+     * their partition to complete.
+     */
+    long pending() {
+        return partitions.values().stream().mapToLong(PartitionOffsets::pending).sum();
+    }
+
+    long commits() {
+        return commits.sum();
+    }
+
+    /**
+     * Kafka records acknowledged through the connector, committing the whole fetch position,
+     * because their consumer could not be reached.
+     */
+    long fallbacks() {
+        return fallbacks.sum();
+    }
+
+    /**
+     * Whether offsets of Kafka records can be committed through their consumer with this version
+     * of the connector.
+     */
+    static boolean supported() {
+        return RECORD_CONSUMER != null;
+    }
+
+    /**
+     * Stops the periodic commits after a last one.
+     */
+    void shutdown() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+        commit();
+    }
+
+    private static Field consumerField() {
+        try {
+            Field field = IncomingKafkaRecord.class.getDeclaredField("consumer");
+            field.setAccessible(true);
+            return field;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.error("Kafka records do not expose their consumer, mission-command offsets can not be committed safely", e);
+            return null;
+        }
+    }
+
+    private KafkaConsumer<?, ?> consumer(IncomingKafkaRecord<?, ?> record) {
+        if (RECORD_CONSUMER == null) {
+            return null;
+        }
+        try {
+            return ((io.vertx.mutiny.kafka.client.consumer.KafkaConsumer<?, ?>) RECORD_CONSUMER.get(record)).getDelegate();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            if (fallbacks.sum() == 0) {
+                log.error("Unable to get the consumer of a Kafka record, mission-command records are acknowledged through the connector,"
+                        + " which commits records still in flight", e);
+            }
+            return null;
+        }
+    }
+
+    private static final class Pending {
+
+        private final long offset;
+
+        private final long generation;
+
+        private boolean done;
+
+        Pending(long offset, long generation) {
+            this.offset = offset;
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * Records of one partition in the order they were received. A record with an offset at or
+     * below one already seen means the partition was reassigned and restarted from its committed
+     * offset, which starts a new generation; completions from the old one are ignored.
+     */
+    private static final class PartitionOffsets {
+
+        private final ArrayDeque<Pending> inFlight = new ArrayDeque<>();
+
+        private long generation;
+
+        private long lastReceived = -1;
+
+        /**
+         * Offset after the last record of the completed prefix, or -1.
+         */
+        private long next = -1;
+
+        private long committed = -1;
+
+        synchronized Pending received(long offset) {
+            if (offset <= lastReceived) {
+                generation++;
+                inFlight.clear();
+                next = -1;
+                committed = -1;
+            }
+            lastReceived = offset;
+            Pending pending = new Pending(offset, generation);
+            inFlight.add(pending);
+            return pending;
+        }
+
+        /**
+         * Marks a record as handled. Returns whether the committable offset advanced.
+         */
+        synchronized boolean completed(Pending pending) {
+            if (pending.generation != generation || pending.done) {
+                return false;
+            }
+            pending.done = true;
+            boolean advanced = false;
+            while (!inFlight.isEmpty() && inFlight.peek().done) {
+                next = inFlight.poll().offset + 1;
+                advanced = true;
+            }
+            return advanced;
+        }
+
+        synchronized long committable() {
+            return next > committed ? next : -1;
+        }
+
+        synchronized void committed(long offset) {
+            if (offset > committed && offset <= next) {
+                committed = offset;
+            }
+        }
+
+        synchronized long pending() {
+            return inFlight.size();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.redhat.emergency.response.mission.source;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Histogram;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Tag;
+import org.eclipse.microprofile.metrics.Timer;
+
+import com.redhat.emergency.response.mission.map.RouteBulkhead;
+import com.redhat.emergency.response.mission.model.MissionStatus;
+import com.redhat.emergency.response.mission.repository.MissionRepository;
+import io.quarkus.runtime.Startup;
+
+/**
+ * Instrumentation of the mission command pipeline, exported on {@code /metrics}.
+ * <p>
+ * Every stage of {@link MissionCommandSource#process} records its latency in a timer tagged with
+ * the stage name; the timers report p50 to p999. Stages are timed with {@link System#nanoTime()}
+ * around the work itself, so the cost on the hot path is two clock reads and a reservoir update.
+ * Route lookups offloaded by the {@link RouteBulkhead} are also timed as the {@code route-queue}
+ * and {@code route-compute} stages: the time a lookup waited for a thread and the time the planner
+ * then took, which together explain the {@code route} stage. The bean is created at start-up so
+ * every metric is on the scrape endpoint before the first command arrives.
+ */
+@Startup
+@ApplicationScoped
+public class PipelineMetrics implements RouteBulkhead.Timings {
+
+    static final String PARSE = "parse";
+    static final String ROUTE = "route";
+    static final String STORE = "store";
+    static final String SERIALIZE = "serialize";
+    static final String ROUTE_QUEUE = "route-queue";
+    static final String ROUTE_COMPUTE = "route-compute";
+
+    @Inject
+    MetricRegistry registry;
+
+    @Inject
+    MissionRepository repository;
+
+    private Timer parse;
+
+    private Timer route;
+
+    private Timer store;
+
+    private Timer serialize;
+
+    private Timer routeWait;
+
+    private Timer routeCompute;
+
+    private volatile IntSupplier routesQueued = () -> 0;
+
+    private Histogram consumeToProduce;
+
+    private Counter ignored;
+
+    private Counter invalid;
+
+    private Counter failed;
+
+    private Counter rejected;
+
+    private Counter duplicate;
+
+    private final Map<RouteBulkhead.Fallback, Counter> fallbacks = new EnumMap<>(RouteBulkhead.Fallback.class);
+
+    private Counter refined;
+
+    private final AtomicInteger routesInFlight = new AtomicInteger();
+
+    static PipelineMetrics create(MetricRegistry registry, MissionRepository repository) {
+        PipelineMetrics metrics = new PipelineMetrics();
+        metrics.registry = registry;
+        metrics.repository = repository;
+        metrics.init();
+        return metrics;
+    }
+
+    @PostConstruct
+    void init() {
+        parse = stage(PARSE);
+        route = stage(ROUTE);
+        store = stage(STORE);
+        serialize = stage(SERIALIZE);
+        routeWait = stage(ROUTE_QUEUE);
+        routeCompute = stage(ROUTE_COMPUTE);
+        consumeToProduce = registry.histogram(Metadata.builder().withName("mission.command.consume-to-produce")
+                .withDescription("Time from the mission-command record timestamp to the mission event being produced")
+                .withType(MetricType.HISTOGRAM).withUnit(MetricUnits.MILLISECONDS).build());
+        ignored = counter("mission.command.ignored", "Records that are not mission commands");
+        invalid = counter("mission.command.invalid", "Mission commands that are malformed or miss required data");
+        failed = counter("mission.command.failed", "Mission commands that failed while routing or storing the mission");
+        duplicate = counter("mission.command.duplicate", "Mission commands dropped as redeliveries of a command seen within the dedup window");
+        rejected = counter("mission.command.rejected", "Mission commands for an unknown mission or that would move a mission backwards");
+        for (RouteBulkhead.Fallback reason : RouteBulkhead.Fallback.values()) {
+            fallbacks.put(reason, registry.counter(Metadata.builder().withName("mission.routing.fallback")
+                    .withDescription("Missions started on a straight-line route, by reason").withType(MetricType.COUNTER).build(),
+                    new Tag("reason", reason.name().toLowerCase())));
+        }
+        refined = counter("mission.routing.refined", "Straight-line routes replaced by the real route after the mission started");
+        registry.register(Metadata.builder().withName("mission.routing.in-flight")
+                .withDescription("Route lookups started and not completed yet").withType(MetricType.GAUGE).build(),
+                (Gauge<Integer>) routesInFlight::get);
+        registry.register(Metadata.builder().withName("mission.routing.queued")
+                .withDescription("Route lookups waiting for a routing thread").withType(MetricType.GAUGE).build(),
+                (Gauge<Integer>) () -> routesQueued.getAsInt());
+        for (MissionStatus status : MissionStatus.values()) {
+            registry.register(Metadata.builder().withName("mission.repository.missions")
+                    .withDescription("Missions in the repository by status").withType(MetricType.GAUGE).build(),
+                    (Gauge<Long>) () -> (long) repository.count(status), new Tag("status", status.name()));
+        }
+        registry.register(Metadata.builder().withName("mission.repository.heap-bytes")
+                .withDescription("Approximate heap footprint of the missions in the repository").withType(MetricType.GAUGE)
+                .withUnit(MetricUnits.BYTES).build(),
+                (Gauge<Long>) repository::heapBytes);
+        registry.register(Metadata.builder().withName("mission.repository.evicted")
+                .withDescription("Finished missions evicted from the repository since startup").withType(MetricType.GAUGE).build(),
+                (Gauge<Long>) repository::evicted);
+        registry.register(Metadata.builder().withName("mission.repository.archived")
+                .withDescription("Missions in the on-disk archive").withType(MetricType.GAUGE).build(),
+                (Gauge<Integer>) repository::archived);
+    }
+
+    void parsed(long startNanos) {
+        parse.update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void routeStarted() {
+        routesInFlight.incrementAndGet();
+    }
+
+    void routed(long startNanos) {
+        routesInFlight.decrementAndGet();
+        route.update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void routeQueued(long nanos) {
+        routeWait.update(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void routeComputed(long nanos) {
+        routeCompute.update(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void queuedRoutes(IntSupplier queued) {
+        routesQueued = queued;
+    }
+
+    void fallback(RouteBulkhead.Fallback reason) {
+        fallbacks.get(reason).inc();
+    }
+
+    void refined() {
+        refined.inc();
+    }
+
+    void stored(long startNanos) {
+        store.update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void serialized(long startNanos) {
+        serialize.update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the time since the command's record was written, when the record carries a
+     * timestamp.
+     */
+    void produced(long recordTimestamp) {
+        if (recordTimestamp > 0) {
+            consumeToProduce.update(Math.max(0, System.currentTimeMillis() - recordTimestamp));
+        }
+    }
+
+    void ignored() {
+        ignored.inc();
+    }
+
+    void invalid() {
+        invalid.inc();
+    }
+
+    void failed() {
+        failed.inc();
+    }
+
+    void rejected() {
+        rejected.inc();
+    }
+
+    void duplicate() {
+        duplicate.inc();
+    }
+
+    private Timer stage(String name) {
+        return registry.timer(Metadata.builder().withName("mission.command.stage")
+                .withDescription("Latency of a mission command pipeline stage").withType(MetricType.TIMER).build(),
+                new Tag("stage", name));
+    }
+
+    private Counter counter(String name, String description) {
+        return registry.counter(Metadata.builder().withName(name).withDescription(description).withType(MetricType.COUNTER).build());
+    }
+}
@@ -0,0 +1,175 @@
+package com.redhat.emergency.response.mission.source;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers the keys of the commands this instance has recently seen so redelivered ones can be
+ * dropped, in memory that is fixed when the filter is created. Nothing is persisted.
+ * <p>
+ * Keys are kept in {@code generations} generations. A new generation is started when the current
+ * one is {@code windowMs / generations} old or holds {@code capacity} keys; it replaces the oldest
+ * one. Generations older than the window are ignored, so a key is remembered for between
+ * {@code windowMs - windowMs / generations} and {@code windowMs}, or less when bursts fill
+ * generations early.
+ * <p>
+ * Each generation is a Bloom filter in front of an open-addressing table of 128-bit key
+ * fingerprints. A new key, the common case, misses every Bloom filter and is recorded without
+ * probing the tables. A Bloom hit is confirmed against the fingerprints, so a false positive of
+ * the filter never drops a command. All memory is allocated up front, at most about 45 bytes per
+ * key of capacity per generation.
+ */
+final class RedeliveryFilter {
+
+    private static final int BLOOM_HASHES = 7;
+
+    private static final int BLOOM_BITS_PER_KEY = 10;
+
+    private final Generation[] generations;
+
+    private final long windowMs;
+
+    private final long generationMs;
+
+    private final int capacity;
+
+    private final LongSupplier clock;
+
+    private int current;
+
+    RedeliveryFilter(long windowMs, int generations, int capacity) {
+        this(windowMs, generations, capacity, System::currentTimeMillis);
+    }
+
+    RedeliveryFilter(long windowMs, int generations, int capacity, LongSupplier clock) {
+        if (windowMs <= 0 || generations < 1 || capacity < 1) {
+            throw new IllegalArgumentException("Invalid redelivery window: " + windowMs + " ms, " + generations + " generations of "
+                    + capacity + " keys");
+        }
+        this.windowMs = windowMs;
+        this.generationMs = Math.max(1, windowMs / generations);
+        this.capacity = capacity;
+        this.clock = clock;
+        this.generations = new Generation[generations];
+        long now = clock.getAsLong();
+        for (int i = 0; i < generations; i++) {
+            this.generations[i] = new Generation(capacity, now - windowMs - 1);
+        }
+        this.generations[0].started = now;
+    }
+
+    /**
+     * Records {@code key}. Returns false when it was already seen within the window.
+     */
+    synchronized boolean add(String key) {
+        long h1 = 0x9e3779b97f4a7c15L;
+        long h2 = 0xc2b2ae3d27d4eb4fL ^ key.length();
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            h1 = Long.rotateLeft(h1 ^ c * 0x87c37b91114253d5L, 31) * 0x4cf5ad432745937fL;
+            h2 = Long.rotateLeft(h2 ^ c * 0x4cf5ad432745937fL, 27) * 0x87c37b91114253d5L;
+        }
+        h1 = mix(h1);
+        h2 = mix(h2 ^ h1);
+        if (h1 == 0) {
+            h1 = 1;
+        }
+        long now = clock.getAsLong();
+        for (Generation generation : generations) {
+            if (now - generation.started <= windowMs && generation.mightContain(h1, h2) && generation.contains(h1, h2)) {
+                return false;
+            }
+        }
+        Generation generation = generations[current];
+        if (now - generation.started >= generationMs || generation.size >= capacity) {
+            current = (current + 1) % generations.length;
+            generation = generations[current];
+            generation.clear(now);
+        }
+        generation.add(h1, h2);
+        return true;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Generation {
+
+        private final long[] bloom;
+
+        private final int bloomMask;
+
+        /**
+         * Fingerprint pairs; a slot whose first half is 0 is free.
+         */
+        private final long[] fingerprints;
+
+        private final int slotMask;
+
+        private int size;
+
+        private long started;
+
+        Generation(int capacity, long started) {
+            int bloomBits = Integer.highestOneBit(Math.max(64, capacity * BLOOM_BITS_PER_KEY - 1)) << 1;
+            this.bloom = new long[bloomBits >>> 6];
+            this.bloomMask = bloomBits - 1;
+            int slots = Integer.highestOneBit(Math.max(2, capacity + capacity / 3) - 1) << 1;
+            this.fingerprints = new long[2 * slots];
+            this.slotMask = slots - 1;
+            this.started = started;
+        }
+
+        boolean mightContain(long h1, long h2) {
+            long h = h1;
+            long step = h2 | 1;
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int bit = (int) h & bloomMask;
+                if ((bloom[bit >>> 6] & (1L << bit)) == 0) {
+                    return false;
+                }
+                h += step;
+            }
+            return true;
+        }
+
+        boolean contains(long h1, long h2) {
+            for (int slot = (int) h2 & slotMask; fingerprints[2 * slot] != 0; slot = (slot + 1) & slotMask) {
+                if (fingerprints[2 * slot] == h1 && fingerprints[2 * slot + 1] == h2) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void add(long h1, long h2) {
+            long h = h1;
+            long step = h2 | 1;
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int bit = (int) h & bloomMask;
+                bloom[bit >>> 6] |= 1L << bit;
+                h += step;
+            }
+            int slot = (int) h2 & slotMask;
+            while (fingerprints[2 * slot] != 0) {
+                slot = (slot + 1) & slotMask;
+            }
+            fingerprints[2 * slot] = h1;
+            fingerprints[2 * slot + 1] = h2;
+            size++;
+        }
+
+        void clear(long now) {
+            Arrays.fill(bloom, 0L);
+            Arrays.fill(fingerprints, 0L);
+            size = 0;
+            started = now;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.redhat.emergency.response.mission.source;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.Tag;
+import org.eclipse.microprofile.reactive.messaging.Channel;
+import org.eclipse.microprofile.reactive.messaging.Emitter;
+import org.eclipse.microprofile.reactive.messaging.Incoming;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.eclipse.microprofile.reactive.messaging.OnOverflow;
+import org.jboss.logging.Logger;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.redhat.emergency.response.mission.model.Coordinates;
+import com.redhat.emergency.response.mission.model.LocationHistory;
+import com.redhat.emergency.response.mission.model.Mission;
+import com.redhat.emergency.response.mission.model.RouteProgress;
+import com.redhat.emergency.response.mission.repository.MissionRepository;
+import io.smallrye.reactive.messaging.kafka.IncomingKafkaRecordMetadata;
+
+/**
+ * Attaches responder GPS updates to the responder's active mission.
+ * <p>
+ * Updates arrive at a far higher rate than mission commands, so each one is read with a streaming
+ * parser straight into primitives and recorded in the mission's {@link LocationHistory}, which
+ * downsamples and bounds it.
+ * <p>
+ * Every update, recorded or not, also moves the mission's {@link RouteProgress} cursor, and a
+ * {@code MissionProgressEvent} is sent to the mission-progress channel when one is due: on the
+ * first update, when the responder reaches the incident or the destination, and otherwise at most
+ * every {@code mission.progress.min-interval-ms} per mission. Progress events are dropped rather
+ * than buffered when the channel cannot keep up; the next one supersedes them anyway.
+ */
+@ApplicationScoped
+public class ResponderLocationSource {
+
+    private static final Logger log = Logger.getLogger(ResponderLocationSource.class);
+
+    private static final JsonFactory factory = new JsonFactory();
+
+    private static final int MAX_LATITUDE = 90 * 10_000_000;
+
+    @ConfigProperty(name = "mission.responder-location.history-capacity", defaultValue = "256")
+    int historyCapacity;
+
+    @ConfigProperty(name = "mission.responder-location.min-distance-meters", defaultValue = "25")
+    double minDistanceMeters;
+
+    @ConfigProperty(name = "mission.responder-location.min-interval-ms", defaultValue = "10000")
+    long minIntervalMs;
+
+    @ConfigProperty(name = "mission.progress.enabled", defaultValue = "true")
+    boolean progressEnabled;
+
+    @ConfigProperty(name = "mission.progress.min-interval-ms", defaultValue = "5000")
+    long progressMinIntervalMs;
+
+    /**
+     * Speed assumed for the time left until the responder has been seen moving.
+     */
+    @ConfigProperty(name = "mission.progress.default-speed-kmh", defaultValue = "40")
+    double progressDefaultSpeedKmh;
+
+    /**
+     * Distance from the route beyond which a responder is reported as off route.
+     */
+    @ConfigProperty(name = "mission.progress.off-route-meters", defaultValue = "100")
+    double progressOffRouteMeters;
+
+    @Inject
+    @Channel("mission-progress")
+    @OnOverflow(OnOverflow.Strategy.DROP)
+    Emitter<byte[]> progressEvents;
+
+    @Inject
+    MissionEventSerializer serializer;
+
+    @Inject
+    MissionRepository repository;
+
+    @Inject
+    MetricRegistry registry;
+
+    private LocationHistory.Sampling sampling;
+
+    private Counter recorded;
+
+    private Counter downsampled;
+
+    private Counter unmatched;
+
+    private Counter invalid;
+
+    private Counter progressSent;
+
+    private Counter progressThrottled;
+
+    @PostConstruct
+    void init() {
+        sampling = new LocationHistory.Sampling(historyCapacity, minDistanceMeters, minIntervalMs);
+        recorded = counter("recorded");
+        downsampled = counter("downsampled");
+        unmatched = counter("unmatched");
+        invalid = counter("invalid");
+        progressSent = progressCounter("sent");
+        progressThrottled = progressCounter("throttled");
+    }
+
+    @Incoming("responder-location-update")
+    public CompletionStage<Void> process(Message<String> message) {
+        long timestamp = message.getMetadata(IncomingKafkaRecordMetadata.class)
+                .map(m -> m.getTimestamp() == null ? null : m.getTimestamp().toEpochMilli())
+                .orElseGet(System::currentTimeMillis);
+        accept(message.getPayload(), timestamp);
+        return message.ack();
+    }
+
+    /**
+     * Records the position in the payload on the responder's active mission. Returns whether it was
+     * recorded.
+     */
+    boolean accept(String payload, long timestamp) {
+        String responderId = null;
+        String incidentId = null;
+        int lat = Coordinates.NONE;
+        int lon = Coordinates.NONE;
+        try (JsonParser parser = factory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "responderId":
+                        responderId = value.isScalarValue() && value != JsonToken.VALUE_NULL ? parser.getValueAsString() : null;
+                        break;
+                    case "incidentId":
+                        incidentId = value.isScalarValue() && value != JsonToken.VALUE_NULL ? parser.getValueAsString() : null;
+                        break;
+                    case "lat":
+                        lat = coordinate(parser, value);
+                        break;
+                    case "lon":
+                        lon = coordinate(parser, value);
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unexpected responder location update: " + payload);
+            invalid.inc();
+            return false;
+        }
+        if (responderId == null || lat == Coordinates.NONE || lon == Coordinates.NONE || Math.abs(lat) > MAX_LATITUDE) {
+            log.debug("Responder location update without responder or position: " + payload);
+            invalid.inc();
+            return false;
+        }
+        String expectedIncident = incidentId;
+        Optional<Mission> mission = repository.findActiveByResponderId(responderId)
+                .filter(m -> expectedIncident == null || expectedIncident.equals(m.getIncidentId()));
+        if (mission.isEmpty()) {
+            unmatched.inc();
+            return false;
+        }
+        if (progressEnabled) {
+            track(mission.get(), lat, lon, timestamp);
+        }
+        if (!mission.get().locationHistory().recordFixed(lat, lon, timestamp, sampling)) {
+            downsampled.inc();
+            return false;
+        }
+        recorded.inc();
+        repository.changed(mission.get());
+        return true;
+    }
+
+    /**
+     * Moves the mission's progress cursor and sends a progress event when one is due.
+     */
+    private void track(Mission mission, int lat, int lon, long timestamp) {
+        RouteProgress progress = mission.progress();
+        if (!progress.update(lat, lon, timestamp)) {
+            return;
+        }
+        if (!progress.due(timestamp, progressMinIntervalMs)) {
+            progressThrottled.inc();
+            return;
+        }
+        progressEvents.send(Message.of(serializer.progressEvent(mission, progress, lat, lon, timestamp,
+                progressDefaultSpeedKmh / 3.6, progressOffRouteMeters)));
+        progressSent.inc();
+    }
+
+    private static int coordinate(JsonParser parser, JsonToken value) throws IOException {
+        switch (value) {
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+            case VALUE_STRING:
+                return Coordinates.parse(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            default:
+                return Coordinates.NONE;
+        }
+    }
+
+    private Counter progressCounter(String outcome) {
+        return registry.counter(Metadata.builder().withName("mission.progress.events")
+                .withDescription("Mission progress events by outcome").withType(MetricType.COUNTER).build(),
+                new Tag("outcome", outcome));
+    }
+
+    private Counter counter(String outcome) {
+        return registry.counter(Metadata.builder().withName("mission.responder-location.updates")
+                .withDescription("Responder location updates by outcome").withType(MetricType.COUNTER).build(),
+                new Tag("outcome", outcome));
+    }
+}
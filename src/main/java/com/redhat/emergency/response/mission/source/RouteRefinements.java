@@ -0,0 +1,76 @@
+package com.redhat.emergency.response.mission.source;
+
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.eclipse.microprofile.reactive.messaging.Message;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+
+/**
+ * Events for missions that were started on a degraded route, emitted once their real route is
+ * stored, merged into the mission event stream.
+ * <p>
+ * A refinement only starts once the started event of its mission has been passed downstream, so
+ * the updated event can never overtake it. The merged stream completes when the commands are
+ * exhausted and no refinement is outstanding.
+ * <p>
+ * Refinements complete on whichever route lookup thread finished them, so several may emit at
+ * once; they go through the serialized emitter of {@code refined} rather than a processor.
+ */
+class RouteRefinements {
+
+    private final Multi<Message<byte[]>> refined = Multi.createFrom().emitter(emitter -> this.emitter = emitter);
+
+    /**
+     * Set when the merged stream is subscribed, before the commands are.
+     */
+    private volatile MultiEmitter<? super Message<byte[]>> emitter;
+
+    private final Map<Message<byte[]>, Supplier<CompletionStage<Message<byte[]>>>> waiting = new ConcurrentHashMap<>();
+
+    /**
+     * Refinements not finished yet, plus one for the command stream.
+     */
+    private final AtomicInteger outstanding = new AtomicInteger(1);
+
+    Multi<Message<byte[]>> merge(Multi<Message<byte[]>> events) {
+        // refined first, so that its emitter is set before the commands can complete
+        return Multi.createBy().merging().streams(refined, events.onCompletion().invoke(this::finished))
+                .onItem().invoke(this::emitted);
+    }
+
+    /**
+     * Runs {@code refinement} after {@code started} has been emitted. The event it completes with,
+     * if not null, is emitted as well.
+     */
+    void after(Message<byte[]> started, Supplier<CompletionStage<Message<byte[]>>> refinement) {
+        outstanding.incrementAndGet();
+        waiting.put(started, refinement);
+    }
+
+    private void emitted(Message<byte[]> event) {
+        if (waiting.isEmpty()) {
+            return;
+        }
+        Supplier<CompletionStage<Message<byte[]>>> refinement = waiting.remove(event);
+        if (refinement != null) {
+            refinement.get().whenComplete((updated, failure) -> {
+                if (updated != null) {
+                    emitter.emit(updated);
+                }
+                finished();
+            });
+        }
+    }
+
+    private void finished() {
+        if (outstanding.decrementAndGet() == 0) {
+            emitter.complete();
+        }
+    }
+}
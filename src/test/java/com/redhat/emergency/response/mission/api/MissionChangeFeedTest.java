@@ -0,0 +1,115 @@
+package com.redhat.emergency.response.mission.api;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.redhat.emergency.response.mission.model.Mission;
+import com.redhat.emergency.response.mission.model.MissionStatus;
+import com.redhat.emergency.response.mission.repository.MissionRepository;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MissionChangeFeedTest {
+
+    private final MissionRepository repository = new MissionRepository();
+
+    private final MissionChangeFeed feed = new MissionChangeFeed();
+
+    private final AtomicInteger signals = new AtomicInteger();
+
+    @BeforeEach
+    void setup() {
+        feed.bufferCapacity = 2;
+        feed.repository = repository;
+        repository.listen(feed);
+    }
+
+    @Test
+    void testChangesAreCoalescedPerMission() {
+        FeedSubscription subscription = feed.subscribe(null, null, signals::incrementAndGet);
+        Mission mission = mission("incident1", "responder1").status(MissionStatus.CREATED);
+        repository.put(mission);
+        repository.put(mission.status(MissionStatus.UPDATED));
+        repository.changed(mission);
+        Mission other = mission("incident2", "responder2").status(MissionStatus.CREATED);
+        repository.put(other);
+        feed.flush();
+
+        assertThat(feed.coalesced(), equalTo(2L));
+        assertThat(signals.get(), equalTo(1));
+        assertThat(subscription.buffered(), equalTo(2));
+
+        // changed again before the consumer read it
+        repository.put(mission.status(MissionStatus.COMPLETED));
+        feed.flush();
+        assertThat(subscription.buffered(), equalTo(2));
+        assertThat(subscription.poll(), sameInstance(mission));
+        assertThat(subscription.poll(), sameInstance(other));
+        assertThat(subscription.poll(), nullValue());
+        assertThat(signals.get(), equalTo(1));
+
+        repository.put(other.status(MissionStatus.UPDATED));
+        feed.flush();
+        assertThat(signals.get(), equalTo(2));
+    }
+
+    @Test
+    void testSubscriptionsOnlyGetMatchingMissions() {
+        FeedSubscription incident = feed.subscribe("incident1", null, signals::incrementAndGet);
+        FeedSubscription responder = feed.subscribe(null, "responder2", signals::incrementAndGet);
+        repository.put(mission("incident1", "responder1").status(MissionStatus.CREATED));
+        repository.put(mission("incident2", "responder2").status(MissionStatus.CREATED));
+        repository.put(mission("incident3", "responder3").status(MissionStatus.CREATED));
+        feed.flush();
+
+        assertThat(incident.poll().getIncidentId(), equalTo("incident1"));
+        assertThat(incident.poll(), nullValue());
+        assertThat(responder.poll().getResponderId(), equalTo("responder2"));
+        assertThat(responder.poll(), nullValue());
+    }
+
+    @Test
+    void testSlowSubscriptionOverflows() {
+        FeedSubscription slow = feed.subscribe(null, null, signals::incrementAndGet);
+        FeedSubscription fast = feed.subscribe(null, null, () -> {});
+        for (int i = 0; i < 3; i++) {
+            repository.put(mission("incident" + i, "responder").status(MissionStatus.CREATED));
+            feed.flush();
+            fast.poll();
+        }
+
+        assertThat(slow.overflowed(), is(true));
+        assertThat(slow.poll(), nullValue());
+        assertThat(signals.get(), equalTo(2));
+        assertThat(fast.overflowed(), is(false));
+        assertThat(feed.subscribers(), equalTo(1));
+    }
+
+    @Test
+    void testNothingIsCollectedWithoutSubscribers() {
+        repository.put(mission("incident1", "responder1").status(MissionStatus.CREATED));
+        FeedSubscription subscription = feed.subscribe(null, null, signals::incrementAndGet);
+        feed.flush();
+        assertThat(subscription.poll(), nullValue());
+
+        feed.unsubscribe(subscription);
+        repository.put(mission("incident2", "responder2").status(MissionStatus.CREATED));
+        feed.flush();
+        assertThat(subscription.poll(), nullValue());
+        assertThat(signals.get(), equalTo(0));
+    }
+
+    private static Mission mission(String incidentId, String responderId) {
+        return new JsonObject().put("incidentId", incidentId).put("responderId", responderId)
+                .put("responderStartLat", "30.12345").put("responderStartLong", "-70.98765")
+                .put("incidentLat", "31.98765").put("incidentLong", "-71.12345")
+                .put("destinationLat", "32.85263").put("destinationLong", "-72.15975")
+                .mapTo(Mission.class);
+    }
+}
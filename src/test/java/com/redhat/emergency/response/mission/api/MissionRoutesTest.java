@@ -0,0 +1,130 @@
+package com.redhat.emergency.response.mission.api;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+
+import com.redhat.emergency.response.mission.model.Mission;
+import com.redhat.emergency.response.mission.model.MissionStatus;
+import com.redhat.emergency.response.mission.repository.MissionRepository;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.RestAssured;
+import io.vertx.core.json.JsonObject;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+public class MissionRoutesTest {
+
+    @Inject
+    MissionRepository repository;
+
+    @TestHTTPResource("/missions/stream")
+    URL stream;
+
+    @Test
+    void testPagedQueries() {
+        String incident = UUID.randomUUID().toString();
+        List<Mission> missions = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Mission mission = mission(incident, "responder" + i).status(i < 3 ? MissionStatus.CREATED : MissionStatus.COMPLETED);
+            missions.add(mission);
+            repository.put(mission);
+        }
+
+        RestAssured.given().queryParam("incidentId", incident).queryParam("after", missions.get(0).getId()).queryParam("limit", 2)
+                .get("/missions").then().statusCode(200)
+                .body("total", Matchers.equalTo(5))
+                .body("next", Matchers.equalTo(missions.get(2).getId()))
+                .body("missions.id", Matchers.contains(missions.get(1).getId(), missions.get(2).getId()));
+        RestAssured.given().queryParam("incidentId", incident).queryParam("after", missions.get(2).getId()).queryParam("limit", 3)
+                .get("/missions").then().statusCode(200)
+                .body("next", Matchers.nullValue())
+                .body("missions.id", Matchers.contains(missions.get(3).getId(), missions.get(4).getId()));
+        RestAssured.given().queryParam("incidentId", incident).queryParam("status", "completed")
+                .get("/missions").then().statusCode(200)
+                .body("total", Matchers.equalTo(2))
+                .body("missions.responderId", Matchers.contains("responder3", "responder4"));
+        RestAssured.given().queryParam("status", "CREATED").queryParam("limit", 1)
+                .get("/missions").then().statusCode(200)
+                .body("total", Matchers.greaterThanOrEqualTo(3))
+                .body("missions.size()", Matchers.equalTo(1));
+
+        RestAssured.given().get("/missions").then().statusCode(400);
+        RestAssured.given().queryParam("status", "UNKNOWN").get("/missions").then().statusCode(400);
+        RestAssured.given().queryParam("status", "CREATED").queryParam("limit", -1).get("/missions").then().statusCode(400);
+    }
+
+    @Test
+    void testGetByKey() {
+        String incident = UUID.randomUUID().toString();
+        Mission mission = mission(incident, "responder1").status(MissionStatus.CREATED);
+        repository.put(mission);
+
+        RestAssured.given().get("/missions/" + incident + "/responder1").then().statusCode(200)
+                .body("id", Matchers.equalTo(mission.getId()));
+        RestAssured.given().get("/missions/" + incident + "/responder2").then().statusCode(404);
+    }
+
+    @Test
+    void testStreamSendsSnapshotThenChanges() throws Exception {
+        String incident = UUID.randomUUID().toString();
+        Mission mission = mission(incident, "responder1").status(MissionStatus.CREATED);
+        repository.put(mission);
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(stream + "?incidentId=" + incident).openConnection();
+        connection.setReadTimeout(10_000);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+            assertThat(connection.getContentType(), equalTo("text/event-stream"));
+            assertThat(reader.readLine(), equalTo("event: snapshot"));
+            assertThat(reader.readLine(), equalTo("id: " + mission.getId()));
+            assertThat(new JsonObject(reader.readLine().substring("data: ".length())).getString("status"),
+                    equalTo(MissionStatus.CREATED.name()));
+            reader.readLine();
+            assertThat(reader.readLine(), equalTo("event: ready"));
+            reader.readLine();
+            reader.readLine();
+
+            CompletableFuture<String> update = CompletableFuture.supplyAsync(() -> {
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        // the two changes are usually coalesced into one
+                        if (line.startsWith("data: ") && MissionStatus.COMPLETED.name()
+                                .equals(new JsonObject(line.substring("data: ".length())).getString("status"))) {
+                            return MissionStatus.COMPLETED.name();
+                        }
+                    }
+                    return null;
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            repository.put(mission.status(MissionStatus.UPDATED));
+            repository.put(mission.status(MissionStatus.COMPLETED));
+            assertThat(update.get(10, TimeUnit.SECONDS), equalTo(MissionStatus.COMPLETED.name()));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static Mission mission(String incidentId, String responderId) {
+        return new JsonObject().put("incidentId", incidentId).put("responderId", responderId)
+                .put("responderStartLat", "30.12345").put("responderStartLong", "-70.98765")
+                .put("incidentLat", "31.98765").put("incidentLong", "-71.12345")
+                .put("destinationLat", "32.85263").put("destinationLong", "-72.15975")
+                .mapTo(Mission.class);
+    }
+}
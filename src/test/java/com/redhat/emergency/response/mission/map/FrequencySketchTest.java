@@ -0,0 +1,60 @@
+package com.redhat.emergency.response.mission.map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+public class FrequencySketchTest {
+
+    private static final int CAPACITY = 1024;
+
+    private static final int SAMPLE_SIZE = 10 * CAPACITY;
+
+    @Test
+    void testCountersAreHalvedEverySample() {
+        FrequencySketch sketch = new FrequencySketch(CAPACITY);
+        for (int i = 0; i < SAMPLE_SIZE - 1; i++) {
+            sketch.increment(1);
+        }
+        assertThat(sketch.frequency(1), equalTo(SAMPLE_SIZE - 1));
+
+        sketch.increment(1);
+        assertThat(sketch.frequency(1), equalTo(SAMPLE_SIZE / 2));
+    }
+
+    @Test
+    void testConcurrentIncrementsAreAllCounted() throws Exception {
+        FrequencySketch sketch = new FrequencySketch(CAPACITY);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 5 * SAMPLE_SIZE / 8; i++) {
+                        sketch.increment(1);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        // five whole samples were counted, so the next sample starts from zero
+        for (int i = 0; i < SAMPLE_SIZE - 1; i++) {
+            sketch.increment(2);
+        }
+        assertThat(sketch.frequency(2), equalTo(SAMPLE_SIZE - 1));
+        sketch.increment(2);
+        assertThat(sketch.frequency(2), equalTo(SAMPLE_SIZE / 2));
+    }
+}
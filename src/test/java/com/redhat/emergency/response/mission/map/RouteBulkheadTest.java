@@ -0,0 +1,173 @@
+package com.redhat.emergency.response.mission.map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.redhat.emergency.response.mission.model.Location;
+import com.redhat.emergency.response.mission.model.MissionStep;
+import io.smallrye.mutiny.Uni;
+
+public class RouteBulkheadTest {
+
+    private static final Location ORIGIN = Location.of(40.1, -80.9);
+
+    private static final Location DESTINATION = Location.of(50.1, -90.9);
+
+    private static final Location WAYPOINT = Location.of(30.1, -70.9);
+
+    private static final List<MissionStep> ROUTE = List.of(MissionStep.builder(ORIGIN).build(), MissionStep.builder(41.0, -79.0).build(),
+            MissionStep.builder(WAYPOINT).wayPoint(true).build(), MissionStep.builder(DESTINATION).destination(true).build());
+
+    @Test
+    void testLateRouteFallsBackToStraightLineAndIsRefined() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RouteBulkhead bulkhead = new RouteBulkhead(planner(release), 2, 4, 50);
+        try {
+            RouteBulkhead.Route route = bulkhead.getDirections(ORIGIN, DESTINATION, WAYPOINT).await().atMost(Duration.ofSeconds(5));
+
+            assertThat(route.fallback(), equalTo(RouteBulkhead.Fallback.TIMEOUT));
+            assertThat(route.steps(), equalTo(RoutePlanner.straightLine(ORIGIN, DESTINATION, WAYPOINT)));
+            assertThat(route.steps().get(1).isWayPoint(), equalTo(true));
+            assertThat(route.steps().get(2).isDestination(), equalTo(true));
+
+            release.countDown();
+            assertThat(route.refinement().toCompletableFuture().get(5, TimeUnit.SECONDS), equalTo(ROUTE));
+        } finally {
+            bulkhead.shutdown();
+        }
+    }
+
+    @Test
+    void testLookupsBeyondTheQueueAreRejected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RouteBulkhead bulkhead = new RouteBulkhead(planner(release), 1, 1, 0);
+        try {
+            CompletableFuture<RouteBulkhead.Route> running = bulkhead.getDirections(ORIGIN, DESTINATION, WAYPOINT).subscribeAsCompletionStage();
+            CompletableFuture<RouteBulkhead.Route> queued = bulkhead.getDirections(ORIGIN, DESTINATION, WAYPOINT).subscribeAsCompletionStage();
+            RouteBulkhead.Route rejected = bulkhead.getDirections(ORIGIN, DESTINATION, WAYPOINT).await().indefinitely();
+
+            assertThat(rejected.fallback(), equalTo(RouteBulkhead.Fallback.REJECTED));
+            assertThat(rejected.refinement(), nullValue());
+
+            release.countDown();
+            assertThat(running.get(5, TimeUnit.SECONDS).isDegraded(), equalTo(false));
+            assertThat(queued.get(5, TimeUnit.SECONDS).steps(), equalTo(ROUTE));
+        } finally {
+            bulkhead.shutdown();
+        }
+    }
+
+    @Test
+    void testFailedLookupFallsBackToStraightLine() {
+        RoutePlanner planner = Mockito.mock(RoutePlanner.class);
+        Mockito.when(planner.getDirections(Mockito.any(Location.class), Mockito.any(Location.class), Mockito.any(Location.class)))
+                .thenReturn(Uni.createFrom().failure(new IllegalStateException("no graph")));
+        RouteBulkhead bulkhead = new RouteBulkhead(planner, 0, 0, 0);
+
+        RouteBulkhead.Route route = bulkhead.getDirections(ORIGIN, DESTINATION, WAYPOINT).await().indefinitely();
+
+        assertThat(route.fallback(), equalTo(RouteBulkhead.Fallback.FAILED));
+        assertThat(route.steps().size(), equalTo(3));
+        assertThat(route.refinement(), nullValue());
+    }
+
+    @Test
+    void testQueueWaitAndComputeTimeAreReported() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> queued = new CopyOnWriteArrayList<>();
+        List<Long> computed = new CopyOnWriteArrayList<>();
+        RouteBulkhead bulkhead = new RouteBulkhead(planner(release), RouteBulkhead.Execution.POOL, 1, 1, 0, timings(queued, computed));
+        try {
+            CompletableFuture<RouteBulkhead.Route> running = bulkhead.getDirections(ORIGIN, DESTINATION, WAYPOINT).subscribeAsCompletionStage();
+            CompletableFuture<RouteBulkhead.Route> waiting = bulkhead.getDirections(ORIGIN, DESTINATION, WAYPOINT).subscribeAsCompletionStage();
+            assertThat(bulkhead.queued(), equalTo(1));
+            Thread.sleep(100);
+            release.countDown();
+            running.get(5, TimeUnit.SECONDS);
+            waiting.get(5, TimeUnit.SECONDS);
+
+            assertThat(queued.size(), equalTo(2));
+            assertThat(computed.size(), equalTo(2));
+            // the second lookup waited for the first one to be computed
+            assertThat(queued.get(1) >= TimeUnit.MILLISECONDS.toNanos(50), equalTo(true));
+            assertThat(computed.get(0) >= TimeUnit.MILLISECONDS.toNanos(50), equalTo(true));
+            assertThat(bulkhead.queued(), equalTo(0));
+        } finally {
+            bulkhead.shutdown();
+        }
+    }
+
+    @Test
+    void testVirtualThreadsAreBoundedLikeThePool() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RouteBulkhead bulkhead = new RouteBulkhead(planner(release), RouteBulkhead.Execution.VIRTUAL, 1, 1, 0, RouteBulkhead.Timings.NONE);
+        try {
+            assertThat(bulkhead.execution(), equalTo(Runtime.version().feature() >= 21 ? RouteBulkhead.Execution.VIRTUAL
+                    : RouteBulkhead.Execution.POOL));
+            CompletableFuture<RouteBulkhead.Route> running = bulkhead.getDirections(ORIGIN, DESTINATION, WAYPOINT).subscribeAsCompletionStage();
+            CompletableFuture<RouteBulkhead.Route> queued = bulkhead.getDirections(ORIGIN, DESTINATION, WAYPOINT).subscribeAsCompletionStage();
+            RouteBulkhead.Route rejected = bulkhead.getDirections(ORIGIN, DESTINATION, WAYPOINT).await().indefinitely();
+
+            assertThat(rejected.fallback(), equalTo(RouteBulkhead.Fallback.REJECTED));
+            release.countDown();
+            assertThat(running.get(5, TimeUnit.SECONDS).steps(), equalTo(ROUTE));
+            assertThat(queued.get(5, TimeUnit.SECONDS).steps(), equalTo(ROUTE));
+        } finally {
+            bulkhead.shutdown();
+        }
+    }
+
+    @Test
+    void testCallerExecutionRunsOnTheCallersThread() {
+        RoutePlanner planner = Mockito.mock(RoutePlanner.class);
+        Thread caller = Thread.currentThread();
+        Mockito.when(planner.getDirections(Mockito.any(Location.class), Mockito.any(Location.class), Mockito.any(Location.class)))
+                .thenAnswer(invocation -> Uni.createFrom().item(() -> Thread.currentThread() == caller ? ROUTE : List.<MissionStep>of()));
+        RouteBulkhead bulkhead = new RouteBulkhead(planner, RouteBulkhead.Execution.CALLER, 4, 4, 0, RouteBulkhead.Timings.NONE);
+
+        assertThat(bulkhead.getDirections(ORIGIN, DESTINATION, WAYPOINT).await().indefinitely().steps(), equalTo(ROUTE));
+    }
+
+    private static RouteBulkhead.Timings timings(List<Long> queued, List<Long> computed) {
+        return new RouteBulkhead.Timings() {
+            @Override
+            public void routeQueued(long nanos) {
+                queued.add(nanos);
+            }
+
+            @Override
+            public void routeComputed(long nanos) {
+                computed.add(nanos);
+            }
+        };
+    }
+
+    /**
+     * A planner whose lookups hold their thread until {@code release} opens, like a route search
+     * does.
+     */
+    private static RoutePlanner planner(CountDownLatch release) {
+        RoutePlanner planner = Mockito.mock(RoutePlanner.class);
+        Mockito.when(planner.getDirections(Mockito.any(Location.class), Mockito.any(Location.class), Mockito.any(Location.class)))
+                .thenAnswer(invocation -> Uni.createFrom().item(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return ROUTE;
+                }));
+        return planner;
+    }
+}
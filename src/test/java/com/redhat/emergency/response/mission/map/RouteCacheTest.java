@@ -0,0 +1,92 @@
+package com.redhat.emergency.response.mission.map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.redhat.emergency.response.mission.model.Location;
+import com.redhat.emergency.response.mission.model.MissionStep;
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.Test;
+
+public class RouteCacheTest {
+
+    @Test
+    void testNearbyQueriesHitTheCache() {
+        RouteCache cache = new RouteCache(6, 100);
+        AtomicInteger computations = new AtomicInteger();
+
+        List<MissionStep> first = cache.get(location("40.12345", "-80.98765"), location("50.0", "-90.0"), location("30.0", "-70.0"),
+                () -> route(computations)).await().indefinitely();
+        List<MissionStep> second = cache.get(location("40.12349", "-80.98769"), location("50.00001", "-90.0"), location("30.0", "-70.00001"),
+                () -> route(computations)).await().indefinitely();
+        cache.get(location("41.0", "-80.98765"), location("50.0", "-90.0"), location("30.0", "-70.0"),
+                () -> route(computations)).await().indefinitely();
+
+        assertThat(second, sameInstance(first));
+        assertThat(computations.get(), equalTo(2));
+        assertThat(cache.hits(), equalTo(1L));
+        assertThat(cache.misses(), equalTo(2L));
+        assertThat(cache.size(), equalTo(2));
+    }
+
+    @Test
+    void testConcurrentMissesShareOneComputation() {
+        RouteCache cache = new RouteCache(7, 100);
+        CompletableFuture<List<MissionStep>> pending = new CompletableFuture<>();
+        AtomicInteger computations = new AtomicInteger();
+
+        CompletableFuture<List<MissionStep>> first = cache.get(location("1", "1"), location("2", "2"), location("3", "3"), () -> {
+            computations.incrementAndGet();
+            return Uni.createFrom().completionStage(pending);
+        }).subscribeAsCompletionStage();
+        CompletableFuture<List<MissionStep>> second = cache.get(location("1", "1"), location("2", "2"), location("3", "3"), () -> {
+            computations.incrementAndGet();
+            return Uni.createFrom().completionStage(pending);
+        }).subscribeAsCompletionStage();
+        pending.complete(Collections.singletonList(new MissionStep()));
+
+        assertThat(first.join(), equalTo(second.join()));
+        assertThat(computations.get(), equalTo(1));
+        assertThat(cache.coalesced(), equalTo(1L));
+    }
+
+    @Test
+    void testFrequentRoutesSurviveEviction() {
+        RouteCache cache = new RouteCache(7, 2);
+        AtomicInteger computations = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            cache.get(location("1", "1"), location("2", "2"), location("3", "3"), () -> route(computations)).await().indefinitely();
+            cache.get(location("4", "4"), location("5", "5"), location("6", "6"), () -> route(computations)).await().indefinitely();
+        }
+        for (int i = 0; i < 20; i++) {
+            String lat = String.valueOf(10 + i);
+            cache.get(location(lat, "1"), location("2", "2"), location("3", "3"), () -> route(computations)).await().indefinitely();
+        }
+        int before = computations.get();
+
+        cache.get(location("1", "1"), location("2", "2"), location("3", "3"), () -> route(computations)).await().indefinitely();
+        cache.get(location("4", "4"), location("5", "5"), location("6", "6"), () -> route(computations)).await().indefinitely();
+
+        assertThat(computations.get(), equalTo(before));
+        assertThat(cache.size(), equalTo(2));
+        assertThat(cache.rejections(), equalTo(20L));
+    }
+
+    private static Uni<List<MissionStep>> route(AtomicInteger computations) {
+        return Uni.createFrom().item(() -> {
+            computations.incrementAndGet();
+            return Collections.singletonList(new MissionStep());
+        });
+    }
+
+    private static Location location(String lat, String lon) {
+        return Location.of(new BigDecimal(lat), new BigDecimal(lon));
+    }
+}
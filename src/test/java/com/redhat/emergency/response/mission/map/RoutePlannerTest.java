@@ -0,0 +1,127 @@
+package com.redhat.emergency.response.mission.map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.redhat.emergency.response.mission.map.graph.LandmarkRouter;
+import com.redhat.emergency.response.mission.map.graph.RoadNetworkLoader;
+import com.redhat.emergency.response.mission.model.Location;
+import com.redhat.emergency.response.mission.model.MissionStep;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class RoutePlannerTest {
+
+    @Test
+    void testDirectionsWithoutRoadNetwork() {
+        RoutePlanner planner = new RoutePlanner();
+
+        List<MissionStep> steps = planner.getDirections(location("0.0", "0.0"), location("0.0", "0.03"), location("0.0", "0.01"))
+                .await().indefinitely();
+
+        assertThat(steps.size(), equalTo(0));
+    }
+
+    @Test
+    void testDirectionsThroughWaypoint(@TempDir Path directory) throws IOException {
+        Path graph = directory.resolve("graph.csv");
+        Files.writeString(graph, "node,1,0.0,0.0\n"
+                + "node,2,0.0,0.01\n"
+                + "node,3,0.0,0.02\n"
+                + "node,4,0.0,0.03\n"
+                + "edge,1,2,1100\n"
+                + "edge,2,3,1100\n"
+                + "edge,3,4,1100\n");
+        RoutePlanner planner = new RoutePlanner();
+        planner.router = new LandmarkRouter(RoadNetworkLoader.load(graph), 2);
+
+        List<MissionStep> steps = planner.getDirections(location("0.0001", "0.0"), location("0.0001", "0.0301"), location("0.0001", "0.0101"))
+                .await().indefinitely();
+
+        assertThat(steps.size(), equalTo(4));
+        assertThat(steps.get(0).getLon(), equalTo(BigDecimal.ZERO));
+        assertThat(steps.get(1).isWayPoint(), equalTo(true));
+        assertThat(steps.get(1).getLon(), equalTo(new BigDecimal("0.0101")));
+        assertThat(steps.get(2).getLon(), equalTo(BigDecimal.valueOf(0.02)));
+        assertThat(steps.get(2).isWayPoint(), equalTo(false));
+        assertThat(steps.get(3).isDestination(), equalTo(true));
+        assertThat(steps.get(3).getLon(), equalTo(new BigDecimal("0.0301")));
+    }
+
+    @Test
+    void testDistanceMatrixMatchesRoutes(@TempDir Path directory) throws IOException {
+        Random random = new Random(5);
+        int size = 20;
+        StringBuilder graph = new StringBuilder();
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                graph.append("node,").append(r * size + c).append(',').append(r * 0.001).append(',').append(c * 0.001).append('\n');
+            }
+        }
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                int node = r * size + c;
+                if (c + 1 < size) {
+                    graph.append("edge,").append(node).append(',').append(node + 1).append(',').append(50 + random.nextInt(100))
+                            .append(',').append(20 + random.nextInt(80)).append(random.nextInt(8) == 0 ? ",oneway" : "").append('\n');
+                }
+                if (r + 1 < size) {
+                    graph.append("edge,").append(node).append(',').append(node + size).append(',').append(50 + random.nextInt(100))
+                            .append(',').append(20 + random.nextInt(80)).append('\n');
+                }
+            }
+        }
+        Path file = directory.resolve("grid.csv");
+        Files.writeString(file, graph);
+        RoutePlanner planner = new RoutePlanner();
+        planner.router = new LandmarkRouter(RoadNetworkLoader.load(file), 4);
+        List<Location> few = new ArrayList<>();
+        List<Location> many = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            few.add(Location.of(random.nextInt(size) * 0.001, random.nextInt(size) * 0.001));
+        }
+        for (int i = 0; i < 40; i++) {
+            many.add(Location.of(random.nextInt(size) * 0.001, random.nextInt(size) * 0.001));
+        }
+        many.add(Location.of(BigDecimal.ONE, null));
+
+        for (boolean forward : new boolean[] { true, false }) {
+            List<Location> origins = forward ? few : many;
+            List<Location> destinations = forward ? many : few;
+            DistanceMatrix matrix = planner.getDistanceMatrix(origins, destinations).await().indefinitely();
+            assertThat(matrix.origins(), equalTo(origins.size()));
+            assertThat(matrix.destinations(), equalTo(destinations.size()));
+            for (int i = 0; i < origins.size(); i++) {
+                for (int j = 0; j < destinations.size(); j++) {
+                    Location origin = origins.get(i);
+                    Location destination = destinations.get(j);
+                    if (origin.getLongitude() == null || destination.getLongitude() == null) {
+                        assertThat(matrix.isReachable(i, j), equalTo(false));
+                        continue;
+                    }
+                    LandmarkRouter.Path path = planner.router.route(planner.router.nearestNode(origin.latitude(), origin.longitude()),
+                            planner.router.nearestNode(destination.latitude(), destination.longitude()));
+                    if (path == null) {
+                        assertThat(matrix.travelTimeMs(i, j), equalTo(-1L));
+                        continue;
+                    }
+                    assertThat(matrix.travelTimeMs(i, j), equalTo((long) path.travelTimeMs()));
+                    assertThat(matrix.meters(i, j), closeTo(path.meters(), 0.5));
+                }
+            }
+        }
+    }
+
+    private static Location location(String lat, String lon) {
+        return Location.of(new BigDecimal(lat), new BigDecimal(lon));
+    }
+}
@@ -0,0 +1,80 @@
+package com.redhat.emergency.response.mission.map.graph;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class LandmarkRouterTest {
+
+    @Test
+    void testShortestPathOnSmallGraph() throws IOException {
+        RoadNetwork network = load("node,10,0.0,0.0\n"
+                + "node,11,0.0,0.01\n"
+                + "node,12,0.0,0.02\n"
+                + "node,13,0.01,0.01\n"
+                + "# slow direct road, fast detour\n"
+                + "edge,10,12,2000,10\n"
+                + "edge,10,11,1000,100\n"
+                + "edge,11,12,1000,100\n"
+                + "edge,12,13,500,50,oneway\n");
+        LandmarkRouter router = new LandmarkRouter(network, 2);
+
+        LandmarkRouter.Path path = router.route(0, 2);
+        assertThat(path.nodes(), equalTo(new int[] { 0, 1, 2 }));
+        assertThat(path.travelTimeMs(), equalTo(72000));
+        assertThat(path.meters(), equalTo(2000.0));
+
+        assertThat(router.route(3, 2), nullValue());
+        assertThat(router.route(2, 3).nodes(), equalTo(new int[] { 2, 3 }));
+        assertThat(router.nearestNode(0.0001, 0.0199), equalTo(2));
+    }
+
+    @Test
+    void testLandmarksMatchDijkstra() throws IOException {
+        Random random = new Random(42);
+        int size = 30;
+        StringBuilder graph = new StringBuilder();
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                graph.append("node,").append(r * size + c).append(',').append(r * 0.001).append(',').append(c * 0.001).append('\n');
+            }
+        }
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                int node = r * size + c;
+                if (c + 1 < size) {
+                    graph.append("edge,").append(node).append(',').append(node + 1).append(',').append(50 + random.nextInt(100))
+                            .append(',').append(20 + random.nextInt(80)).append(random.nextInt(10) == 0 ? ",oneway" : "").append('\n');
+                }
+                if (r + 1 < size) {
+                    graph.append("edge,").append(node).append(',').append(node + size).append(',').append(50 + random.nextInt(100))
+                            .append(',').append(20 + random.nextInt(80)).append('\n');
+                }
+            }
+        }
+        RoadNetwork network = load(graph.toString());
+        LandmarkRouter dijkstra = new LandmarkRouter(network, 0);
+        LandmarkRouter alt = new LandmarkRouter(network, 8);
+
+        for (int i = 0; i < 200; i++) {
+            int source = random.nextInt(network.nodeCount());
+            int target = random.nextInt(network.nodeCount());
+            LandmarkRouter.Path expected = dijkstra.route(source, target);
+            LandmarkRouter.Path actual = alt.route(source, target);
+            assertThat(actual.travelTimeMs(), equalTo(expected.travelTimeMs()));
+            assertThat(actual.nodes()[0], equalTo(source));
+            assertThat(actual.nodes()[actual.nodes().length - 1], equalTo(target));
+        }
+    }
+
+    private static RoadNetwork load(String content) throws IOException {
+        return RoadNetworkLoader.load(new BufferedReader(new StringReader(content)));
+    }
+}
@@ -0,0 +1,46 @@
+package com.redhat.emergency.response.mission.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class CoordinatesTest {
+
+    @Test
+    void testParseMatchesDecimalConversion() {
+        String[] texts = {"0", "-0", "40.12345", "-80.98765", "179.99999995", "-0.00000005", "0.00000004", "12.", ".5",
+                " 1.50 ", "1E+2", "-1.5e-3", "90.000000049"};
+        for (String text : texts) {
+            assertThat(text, parse(text), equalTo(Coordinates.fromDecimal(new BigDecimal(text.trim()))));
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            BigDecimal degrees = BigDecimal.valueOf(random.nextDouble() * 360 - 180).setScale(random.nextInt(12), RoundingMode.DOWN);
+            assertThat(degrees.toPlainString(), parse(degrees.toPlainString()), equalTo(Coordinates.fromDecimal(degrees)));
+        }
+        assertThat(parse("  "), equalTo(Coordinates.NONE));
+        assertThrows(IllegalArgumentException.class, () -> parse("180.0000001"));
+        assertThrows(NumberFormatException.class, () -> parse("-"));
+        assertThrows(NumberFormatException.class, () -> parse("4O.1"));
+    }
+
+    @Test
+    void testDecimalRoundTrip() {
+        assertThat(Coordinates.toDecimal(Coordinates.fromDecimal(new BigDecimal("40.12345"))), equalTo(new BigDecimal("40.12345")));
+        assertThat(Coordinates.toDecimal(Coordinates.fromDecimal(new BigDecimal("-80.00"))), equalTo(new BigDecimal("-80")));
+        assertThat(Coordinates.toDecimal(Coordinates.fromDecimal(new BigDecimal("1E+2"))), equalTo(new BigDecimal("100")));
+        assertThat(Coordinates.toDecimal(Coordinates.fromDecimal(new BigDecimal("0.123456789"))), equalTo(new BigDecimal("0.1234568")));
+        assertThat(Coordinates.toDecimal(Coordinates.fromDecimal(null)), equalTo(null));
+        assertThat(Coordinates.toDegrees(Coordinates.fromDegrees(-33.8688197)), equalTo(-33.8688197));
+    }
+
+    private static int parse(String text) {
+        return Coordinates.parse(text.toCharArray(), 0, text.length());
+    }
+}
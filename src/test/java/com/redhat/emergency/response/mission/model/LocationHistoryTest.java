@@ -0,0 +1,82 @@
+package com.redhat.emergency.response.mission.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+public class LocationHistoryTest {
+
+    @Test
+    void testDropsPositionsCloseInDistanceAndTime() {
+        LocationHistory history = new LocationHistory();
+        LocationHistory.Sampling sampling = new LocationHistory.Sampling(16, 25, 10_000);
+
+        assertThat(history.record(40.0, -80.0, 0, sampling), equalTo(true));
+        // ~11 meters away, one second later
+        assertThat(history.record(40.0001, -80.0, 1_000, sampling), equalTo(false));
+        // ~111 meters away
+        assertThat(history.record(40.001, -80.0, 2_000, sampling), equalTo(true));
+        // not moved, but the interval has passed
+        assertThat(history.record(40.001, -80.0, 12_000, sampling), equalTo(true));
+        assertThat(timestamps(history), contains(0L, 2_000L, 12_000L));
+    }
+
+    @Test
+    void testOverwritesOldestPositionsOnceFull() {
+        LocationHistory history = new LocationHistory();
+        LocationHistory.Sampling sampling = new LocationHistory.Sampling(20, 0, 0);
+
+        for (int i = 0; i < 50; i++) {
+            history.record(i, -i, i, sampling);
+        }
+
+        assertThat(history.size(), equalTo(20));
+        List<Long> timestamps = timestamps(history);
+        assertThat(timestamps.get(0), equalTo(30L));
+        assertThat(timestamps.get(19), equalTo(49L));
+        assertThat(history.asList().get(0).getLat().doubleValue(), closeTo(30, 0));
+    }
+
+    @Test
+    void testShrinksToSmallerCapacity() {
+        LocationHistory history = new LocationHistory();
+        for (int i = 0; i < 10; i++) {
+            history.record(i, i, i, new LocationHistory.Sampling(10, 0, 0));
+        }
+
+        history.record(10, 10, 10, new LocationHistory.Sampling(4, 0, 0));
+
+        assertThat(timestamps(history), contains(7L, 8L, 9L, 10L));
+    }
+
+    @Test
+    void testJsonRoundTrip() {
+        Mission mission = Mission.builder().incidentId("incident").responderId("responder").build();
+        LocationHistory.Sampling sampling = new LocationHistory.Sampling(8, 0, 0);
+        mission.locationHistory().record(40.12345, -80.98765, 1000, sampling);
+        mission.locationHistory().record(40.2, -81, 2000, sampling);
+
+        Mission copy = JsonObject.mapFrom(mission).mapTo(Mission.class);
+
+        assertThat(copy.getResponderLocationHistory().size(), equalTo(2));
+        ResponderLocationHistory first = copy.getResponderLocationHistory().get(0);
+        assertThat(first.getLat(), equalTo(new BigDecimal("40.12345")));
+        assertThat(first.getLon(), equalTo(new BigDecimal("-80.98765")));
+        assertThat(first.getTimestamp(), equalTo(1000L));
+        assertThat(timestamps(copy.locationHistory()), contains(1000L, 2000L));
+    }
+
+    private static List<Long> timestamps(LocationHistory history) {
+        List<Long> timestamps = new ArrayList<>();
+        history.forEach((lat, lon, timestamp) -> timestamps.add(timestamp));
+        return timestamps;
+    }
+}
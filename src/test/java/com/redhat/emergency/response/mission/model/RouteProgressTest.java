@@ -0,0 +1,128 @@
+package com.redhat.emergency.response.mission.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+
+import org.junit.jupiter.api.Test;
+
+public class RouteProgressTest {
+
+    /**
+     * Meters per 0.001 degree of latitude.
+     */
+    private static final double STEP = 111.195;
+
+    @Test
+    void testSnapsPositionsAlongTheRoute() {
+        // ten steps north, the incident halfway
+        RouteProgress progress = RouteProgress.of(route(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
+
+        assertThat(progress.update(fixed(40.0025), fixed(-80.0001), 0), equalTo(true));
+
+        assertThat(progress.segment(), equalTo(2));
+        assertThat(progress.travelledMeters(), closeTo(2.5 * STEP, 1));
+        assertThat(progress.remainingMeters(), closeTo(7.5 * STEP, 1));
+        assertThat(progress.toIncidentMeters(), closeTo(2.5 * STEP, 1));
+        assertThat(progress.offRouteMeters(), closeTo(8.5, 0.5));
+
+        progress.update(fixed(40.0075), fixed(-80.0), 1_000);
+        assertThat(progress.segment(), equalTo(7));
+        assertThat(progress.toIncidentMeters(), equalTo(0.0));
+        assertThat(progress.remainingMeters(), closeTo(2.5 * STEP, 1));
+    }
+
+    @Test
+    void testFollowsARouteBackAlongTheSameRoad() {
+        // out to the incident and back the same way
+        RouteProgress progress = RouteProgress.of(route(0, 1, 2, 3, 4, 5, 4, 3, 2, 1, 0));
+
+        progress.update(fixed(40.002), fixed(-80.0), 0);
+        assertThat(progress.travelledMeters(), closeTo(2 * STEP, 1));
+        progress.update(fixed(40.005), fixed(-80.0), 10_000);
+        assertThat(progress.toIncidentMeters(), closeTo(0, 1));
+        progress.update(fixed(40.003), fixed(-80.0), 20_000);
+        assertThat(progress.travelledMeters(), closeTo(7 * STEP, 1));
+        // jitter back towards the incident stays on the way back
+        progress.update(fixed(40.0031), fixed(-80.0), 21_000);
+        assertThat(progress.travelledMeters(), closeTo(6.9 * STEP, 1));
+        progress.update(fixed(40.0005), fixed(-80.0), 30_000);
+        assertThat(progress.remainingMeters(), closeTo(0.5 * STEP, 1));
+    }
+
+    @Test
+    void testPositionOffTheRouteIsMeasured() {
+        RouteProgress progress = RouteProgress.of(route(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
+        progress.update(fixed(40.003), fixed(-80.0), 0);
+
+        // a kilometer east
+        progress.update(fixed(40.003), fixed(-79.98826), 1_000);
+
+        assertThat(progress.travelledMeters(), closeTo(3 * STEP, 1));
+        assertThat(progress.offRouteMeters(), closeTo(1_000, 5));
+    }
+
+    @Test
+    void testEtaUsesTheObservedSpeed() {
+        RouteProgress progress = RouteProgress.of(route(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
+        progress.update(fixed(40.0), fixed(-80.0), 0);
+        assertThat((double) progress.etaSeconds(10), closeTo(10 * STEP / 10, 1));
+
+        progress.update(fixed(40.002), fixed(-80.0), 10_000);
+        assertThat(progress.speed(), closeTo(2 * STEP / 10, 0.1));
+        assertThat((double) progress.etaSeconds(10), closeTo(8 * STEP / (2 * STEP / 10), 1));
+
+        // stopped: the observed speed decays below a walking pace
+        for (int i = 2; i < 20; i++) {
+            progress.update(fixed(40.002), fixed(-80.0), i * 10_000);
+        }
+        assertThat((double) progress.etaSeconds(10), closeTo(8 * STEP / 10, 1));
+    }
+
+    @Test
+    void testEventsAreThrottledExceptAtMilestones() {
+        RouteProgress progress = RouteProgress.of(route(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
+        progress.update(fixed(40.001), fixed(-80.0), 0);
+        assertThat(progress.due(0, 5_000), equalTo(true));
+        progress.update(fixed(40.002), fixed(-80.0), 1_000);
+        assertThat(progress.due(1_000, 5_000), equalTo(false));
+        // at the incident
+        progress.update(fixed(40.005), fixed(-80.0), 2_000);
+        assertThat(progress.due(2_000, 5_000), equalTo(true));
+        progress.update(fixed(40.006), fixed(-80.0), 3_000);
+        assertThat(progress.due(3_000, 5_000), equalTo(false));
+        assertThat(progress.due(7_000, 5_000), equalTo(true));
+        // at the destination
+        progress.update(fixed(40.01), fixed(-80.0), 8_000);
+        assertThat(progress.due(8_000, 5_000), equalTo(true));
+    }
+
+    @Test
+    void testRouteWithoutSegments() {
+        MissionSteps steps = new MissionSteps();
+        steps.add(fixed(40.0), fixed(-80.0), false, true);
+        RouteProgress progress = RouteProgress.of(steps);
+
+        assertThat(progress.update(fixed(40.0), fixed(-80.0), 0), equalTo(false));
+        assertThat(progress.remainingMeters(), equalTo(0.0));
+        assertThat(progress.toIncidentMeters(), equalTo(-1.0));
+    }
+
+    /**
+     * Steps at 40.00x degrees north on the -80 meridian, the step at 40.005 being the incident.
+     */
+    private static MissionSteps route(int... thousandths) {
+        MissionSteps steps = new MissionSteps();
+        boolean incident = false;
+        for (int i = 0; i < thousandths.length; i++) {
+            boolean wayPoint = !incident && thousandths[i] == 5;
+            incident |= wayPoint;
+            steps.add(fixed(40 + thousandths[i] / 1000.0), fixed(-80.0), wayPoint, i == thousandths.length - 1);
+        }
+        return steps;
+    }
+
+    private static int fixed(double degrees) {
+        return Coordinates.fromDegrees(degrees);
+    }
+}
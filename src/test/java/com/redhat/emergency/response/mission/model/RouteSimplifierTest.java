@@ -0,0 +1,92 @@
+package com.redhat.emergency.response.mission.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class RouteSimplifierTest {
+
+    @Test
+    void testKeepsWaypointAndDestinationOnStraightLine() {
+        List<MissionStep> steps = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            steps.add(MissionStep.builder(40.0, -80.0 + i * 0.001).wayPoint(i == 37).destination(i == 100).build());
+        }
+
+        List<MissionStep> simplified = RouteSimplifier.simplify(steps, 1);
+
+        assertThat(simplified.size(), equalTo(3));
+        assertThat(simplified.get(0), equalTo(steps.get(0)));
+        assertThat(simplified.get(1).isWayPoint(), equalTo(true));
+        assertThat(simplified.get(2).isDestination(), equalTo(true));
+        assertThat(RouteSimplifier.simplify(steps, 0), equalTo(steps));
+    }
+
+    @Test
+    void testDroppedStepsStayWithinTolerance() {
+        Random random = new Random(11);
+        MissionSteps steps = new MissionSteps();
+        double lat = 40.0;
+        double lon = -80.0;
+        double heading = 0;
+        for (int i = 0; i < 2000; i++) {
+            heading += (random.nextDouble() - 0.5) * 0.2;
+            lat += Math.cos(heading) * 0.0002 + (random.nextDouble() - 0.5) * 0.00002;
+            lon += Math.sin(heading) * 0.0002 + (random.nextDouble() - 0.5) * 0.00002;
+            steps.add(Coordinates.fromDegrees(lat), Coordinates.fromDegrees(lon), i == 1000, i == 1999);
+        }
+        double tolerance = 10;
+
+        MissionSteps simplified = steps.simplified(tolerance);
+
+        assertThat(simplified.size(), lessThan(steps.size() / 2));
+        int kept = 0;
+        for (int i = 0; i < steps.size(); i++) {
+            if (kept < simplified.size() && steps.lat(i) == simplified.lat(kept) && steps.lon(i) == simplified.lon(kept)) {
+                assertThat(simplified.isWayPoint(kept), equalTo(steps.isWayPoint(i)));
+                kept++;
+                continue;
+            }
+            assertThat(steps.isWayPoint(i) || steps.isDestination(i), equalTo(false));
+            double distance = distanceToSegment(steps, i, simplified, kept - 1, kept);
+            assertThat(distance, lessThanOrEqualTo(tolerance * 1.01));
+        }
+        assertThat(kept, equalTo(simplified.size()));
+    }
+
+    @Test
+    void testPolylineRoundTrip() {
+        MissionSteps steps = new MissionSteps();
+        steps.add(Coordinates.fromDegrees(38.5), Coordinates.fromDegrees(-120.2), false, false);
+        steps.add(Coordinates.fromDegrees(40.7), Coordinates.fromDegrees(-120.95), false, false);
+        steps.add(Coordinates.fromDegrees(43.252), Coordinates.fromDegrees(-126.453), false, true);
+
+        String encoded = Polyline.encode(steps, 5);
+
+        assertThat(encoded, equalTo("_p~iF~ps|U_ulLnnqC_mqNvxq`@"));
+        List<Location> decoded = Polyline.decode(encoded, 5);
+        assertThat(decoded.size(), equalTo(3));
+        assertThat(decoded.get(2).latitude(), equalTo(43.252));
+        assertThat(decoded.get(2).longitude(), equalTo(-126.453));
+        assertThat(Polyline.decode(Polyline.encode(steps, 7), 7).get(1).longitude(), equalTo(-120.95));
+    }
+
+    private static double distanceToSegment(MissionSteps steps, int p, MissionSteps simplified, int a, int b) {
+        double lat0 = Coordinates.toDegrees(simplified.lat(a));
+        double k = Math.cos(Math.toRadians(lat0)) * Math.PI * Location.EARTH_RADIUS_METERS / 180;
+        double m = Math.PI * Location.EARTH_RADIUS_METERS / 180;
+        double bx = (Coordinates.toDegrees(simplified.lon(b)) - Coordinates.toDegrees(simplified.lon(a))) * k;
+        double by = (Coordinates.toDegrees(simplified.lat(b)) - lat0) * m;
+        double px = (Coordinates.toDegrees(steps.lon(p)) - Coordinates.toDegrees(simplified.lon(a))) * k;
+        double py = (Coordinates.toDegrees(steps.lat(p)) - lat0) * m;
+        double t = Math.max(0, Math.min(1, (px * bx + py * by) / (bx * bx + by * by)));
+        return Math.hypot(px - t * bx, py - t * by);
+    }
+}
@@ -0,0 +1,78 @@
+package com.redhat.emergency.response.mission.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+public class TimeOrderedIdsTest {
+
+    @Test
+    void testIdsAreVersion7UuidStrings() {
+        long before = System.currentTimeMillis();
+        String id = TimeOrderedIds.next();
+        long after = System.currentTimeMillis();
+
+        UUID uuid = UUID.fromString(id);
+        assertThat(uuid.toString(), equalTo(id));
+        assertThat(uuid.version(), equalTo(7));
+        assertThat(uuid.variant(), equalTo(2));
+        long timestamp = TimeOrderedIds.timestamp(id);
+        assertThat(before <= timestamp && timestamp <= after + 1, equalTo(true));
+        assertThat(TimeOrderedIds.timestamp(UUID.randomUUID().toString()), equalTo(-1L));
+    }
+
+    @Test
+    void testIdsOfOneThreadAreIncreasing() {
+        String previous = TimeOrderedIds.next();
+        for (int i = 0; i < 100_000; i++) {
+            String id = TimeOrderedIds.next();
+            assertThat(id.compareTo(previous), greaterThan(0));
+            assertThat(UUID.fromString(id).compareTo(UUID.fromString(previous)) != 0, equalTo(true));
+            previous = id;
+        }
+    }
+
+    @Test
+    void testIdsAreUniqueAcrossThreads() throws Exception {
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 50_000; i++) {
+                        ids.add(TimeOrderedIds.next());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(ids.size(), equalTo(400_000));
+    }
+
+    @Test
+    void testLowerBoundSortsBeforeTheIdsOfItsMillisecond() {
+        String id = TimeOrderedIds.next();
+        long timestamp = TimeOrderedIds.timestamp(id);
+
+        assertThat(TimeOrderedIds.lowerBound(timestamp).compareTo(id), lessThanOrEqualTo(0));
+        assertThat(TimeOrderedIds.lowerBound(timestamp + 1).compareTo(id), greaterThan(0));
+        assertThat(TimeOrderedIds.timestamp(TimeOrderedIds.lowerBound(timestamp)), equalTo(timestamp));
+    }
+}
@@ -0,0 +1,74 @@
+package com.redhat.emergency.response.mission.repository;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.Test;
+
+public class KeyedMailboxTest {
+
+    @Test
+    void testTasksForOneKeyNeverOverlapAndKeepTheirOrder() throws Exception {
+        KeyedMailbox<Integer> mailbox = new KeyedMailbox<>(Runnable::run);
+        int keys = 16;
+        AtomicIntegerArray running = new AtomicIntegerArray(keys);
+        int[][] seen = new int[keys][8];
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<CompletionStage<Boolean>> results = new ArrayList<>();
+        try {
+            List<Future<?>> submitters = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                submitters.add(executor.submit(() -> {
+                    List<CompletionStage<Boolean>> own = new ArrayList<>();
+                    for (int i = 0; i < 2000; i++) {
+                        int key = i % keys;
+                        int seq = i / keys;
+                        own.add(mailbox.submit(key, () -> {
+                            boolean alone = running.incrementAndGet(key) == 1;
+                            boolean ordered = seen[key][thread] == seq;
+                            seen[key][thread] = seq + 1;
+                            running.decrementAndGet(key);
+                            return alone && ordered;
+                        }));
+                    }
+                    synchronized (results) {
+                        results.addAll(own);
+                    }
+                }));
+            }
+            for (Future<?> submitter : submitters) {
+                submitter.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        CompletableFuture.allOf(results.stream().map(CompletionStage::toCompletableFuture).toArray(CompletableFuture[]::new)).join();
+        assertThat(results.stream().allMatch(r -> r.toCompletableFuture().join()), equalTo(true));
+        assertThat(mailbox.size(), equalTo(0));
+    }
+
+    @Test
+    void testFailedTaskDoesNotBlockTheKey() {
+        KeyedMailbox<String> mailbox = new KeyedMailbox<>(Runnable::run);
+
+        CompletionStage<Object> failed = mailbox.submit("key", () -> {
+            throw new IllegalStateException("boom");
+        });
+        CompletionStage<String> next = mailbox.submit("key", () -> "next");
+
+        assertThat(failed.toCompletableFuture().isCompletedExceptionally(), equalTo(true));
+        assertThat(next.toCompletableFuture().join(), equalTo("next"));
+        assertThat(mailbox.size(), equalTo(0));
+    }
+}
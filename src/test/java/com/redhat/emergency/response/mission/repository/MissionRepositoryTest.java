@@ -0,0 +1,336 @@
+package com.redhat.emergency.response.mission.repository;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.redhat.emergency.response.mission.model.Mission;
+import com.redhat.emergency.response.mission.model.MissionKey;
+import com.redhat.emergency.response.mission.model.MissionPoint;
+import com.redhat.emergency.response.mission.model.MissionStatus;
+import com.redhat.emergency.response.mission.repository.journal.MissionArchive;
+import com.redhat.emergency.response.mission.repository.journal.MissionJournal;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MissionRepositoryTest {
+
+    @Test
+    void testPutAndGet() {
+        MissionRepository repository = new MissionRepository();
+        Mission mission = mission("incident1", "responder1").status(MissionStatus.CREATED);
+
+        repository.put(mission);
+
+        assertThat(repository.size(), equalTo(1));
+        assertThat(repository.get("incident1", "responder1").get(), sameInstance(mission));
+        assertThat(repository.get(MissionKey.of("incident1", "responder1")).get(), sameInstance(mission));
+        assertThat(repository.get("incident1", "responder2").isPresent(), is(false));
+    }
+
+    @Test
+    void testHeapBytesFollowTheStoredMissions() {
+        MissionRepository repository = new MissionRepository();
+        Mission first = mission("incident1", "responder1").status(MissionStatus.CREATED);
+        Mission second = mission("incident2", "responder2").status(MissionStatus.CREATED);
+        repository.put(first);
+        repository.put(second);
+        assertThat(repository.heapBytes(), equalTo(first.estimatedBytes() + second.estimatedBytes()));
+
+        for (int i = 0; i < 100; i++) {
+            first.locationHistory().append(i, i, i);
+        }
+        repository.changed(first);
+        assertThat(repository.heapBytes(), equalTo(first.estimatedBytes() + second.estimatedBytes()));
+
+        // a mission that is no longer the stored one is not counted
+        Mission replacement = mission("incident2", "responder2").status(MissionStatus.CREATED);
+        repository.put(replacement);
+        repository.changed(second);
+        assertThat(repository.heapBytes(), equalTo(first.estimatedBytes() + replacement.estimatedBytes()));
+    }
+
+    @Test
+    void testSecondaryIndexes() {
+        MissionRepository repository = new MissionRepository();
+        repository.put(mission("incident1", "responder1").status(MissionStatus.CREATED));
+        repository.put(mission("incident1", "responder2").status(MissionStatus.CREATED));
+        repository.put(mission("incident2", "responder1").status(MissionStatus.COMPLETED));
+
+        assertThat(repository.findByIncidentId("incident1").size(), equalTo(2));
+        assertThat(repository.findByResponderId("responder1").size(), equalTo(2));
+        assertThat(repository.findByStatus(MissionStatus.CREATED).size(), equalTo(2));
+        assertThat(repository.count(MissionStatus.COMPLETED), equalTo(1));
+        assertThat(repository.findByIncidentId("unknown").isEmpty(), is(true));
+    }
+
+    @Test
+    void testStatusChangeMovesIndexEntry() {
+        MissionRepository repository = new MissionRepository();
+        Mission mission = mission("incident1", "responder1").status(MissionStatus.CREATED);
+        repository.put(mission);
+        assertThat(repository.findActiveByResponderId("responder1").get(), sameInstance(mission));
+
+        repository.put(mission.status(MissionStatus.COMPLETED));
+
+        assertThat(repository.count(MissionStatus.CREATED), equalTo(0));
+        assertThat(repository.count(MissionStatus.COMPLETED), equalTo(1));
+        assertThat(repository.findActiveByResponderId("responder1").isPresent(), is(false));
+    }
+
+    @Test
+    void testPageByStatusAfterId() {
+        MissionRepository repository = new MissionRepository();
+        List<Mission> created = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Mission mission = mission("incident" + i, "responder" + i).status(i % 2 == 0 ? MissionStatus.CREATED : MissionStatus.COMPLETED);
+            if (i % 2 == 0) {
+                created.add(mission);
+            }
+            repository.put(mission);
+        }
+
+        assertThat(repository.findByStatus(MissionStatus.CREATED, null, 2), equalTo(created.subList(0, 2)));
+        assertThat(repository.findByStatus(MissionStatus.CREATED, created.get(1).getId(), 2), equalTo(created.subList(2, 4)));
+        assertThat(repository.findByStatus(MissionStatus.CREATED, created.get(3).getId(), 2), equalTo(created.subList(4, 5)));
+        assertThat(repository.findByStatus(MissionStatus.CREATED, created.get(4).getId(), 2).isEmpty(), is(true));
+
+        // a mission leaves the pages of its previous status
+        repository.put(created.get(0).status(MissionStatus.COMPLETED));
+        assertThat(repository.findByStatus(MissionStatus.CREATED, null, 2), equalTo(created.subList(1, 3)));
+        assertThat(repository.findByStatus(MissionStatus.COMPLETED, null, 1), equalTo(List.of(created.get(0))));
+    }
+
+    @Test
+    void testConcurrentPuts() throws Exception {
+        MissionRepository repository = new MissionRepository();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        repository.put(mission("incident" + i, "responder" + thread).status(MissionStatus.CREATED));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(repository.size(), equalTo(8000));
+        assertThat(repository.count(MissionStatus.CREATED), equalTo(8000));
+        assertThat(repository.findByResponderId("responder3").size(), equalTo(1000));
+        assertThat(repository.findByIncidentId("incident42").size(), equalTo(8));
+    }
+
+    @Test
+    void testTransitionsOnlyMoveForward() {
+        MissionRepository repository = new MissionRepository();
+        MissionKey key = MissionKey.of("incident1", "responder1");
+        repository.put(mission("incident1", "responder1").status(MissionStatus.CREATED));
+
+        assertThat(status(repository.transition(key, MissionStatus.UPDATED)), equalTo(MissionStatus.UPDATED.name()));
+        assertThat(status(repository.transition(key, MissionStatus.CREATED)), nullValue());
+        assertThat(status(repository.transition(key, MissionStatus.COMPLETED)), equalTo(MissionStatus.COMPLETED.name()));
+        assertThat(status(repository.transition(key, MissionStatus.FAILED)), nullValue());
+        assertThat(status(repository.transition(MissionKey.of("incident2", "responder1"), MissionStatus.UPDATED)), nullValue());
+
+        assertThat(repository.count(MissionStatus.COMPLETED), equalTo(1));
+        assertThat(repository.findActiveByResponderId("responder1").isPresent(), is(false));
+    }
+
+    @Test
+    void testProximityQueriesOnlySeeActiveMissions() {
+        MissionRepository repository = new MissionRepository();
+        repository.put(mission("incident1", "responder1").status(MissionStatus.CREATED));
+        repository.put(mission("incident2", "responder2").status(MissionStatus.CREATED));
+        repository.put(mission("incident3", "responder3").status(MissionStatus.COMPLETED));
+
+        assertThat(repository.findActiveWithin(31.98765, -71.12345, 100).size(), equalTo(2));
+        assertThat(repository.findNearestActive(32.85263, -72.15975, 5, MissionPoint.DESTINATION).size(), equalTo(2));
+
+        repository.transition(MissionKey.of("incident1", "responder1"), MissionStatus.FAILED);
+
+        assertThat(repository.findActiveWithin(31.98765, -71.12345, 100).get(0).getIncidentId(), equalTo("incident2"));
+        assertThat(repository.findActiveWithin(31.98765, -71.12345, 100).size(), equalTo(1));
+    }
+
+    @Test
+    void testConcurrentTransitions() throws Exception {
+        MissionRepository repository = new MissionRepository();
+        for (int i = 0; i < 100; i++) {
+            repository.put(mission("incident" + i, "responder" + i).status(MissionStatus.CREATED));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> completions = new ArrayList<>();
+        try {
+            for (int t = 0; t < 8; t++) {
+                for (int i = 0; i < 100; i++) {
+                    MissionKey key = MissionKey.of("incident" + i, "responder" + i);
+                    MissionStatus target = t % 2 == 0 ? MissionStatus.COMPLETED : MissionStatus.FAILED;
+                    completions.add(executor.submit(() -> repository.transition(key, target).toCompletableFuture().get().isPresent()));
+                }
+            }
+            int moved = 0;
+            for (Future<Boolean> completion : completions) {
+                moved += completion.get() ? 1 : 0;
+            }
+            assertThat(moved, equalTo(100));
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(repository.count(MissionStatus.COMPLETED) + repository.count(MissionStatus.FAILED), equalTo(100));
+        assertThat(repository.count(MissionStatus.CREATED), equalTo(0));
+    }
+
+    @Test
+    void testRestoreFromJournal(@TempDir Path directory) throws Exception {
+        MissionRepository repository = new MissionRepository();
+        repository.open(MissionJournal.builder(directory).snapshotIntervalMs(0).build());
+        Mission mission = mission("incident1", "responder1").status(MissionStatus.CREATED);
+        repository.put(mission);
+        repository.put(mission("incident2", "responder1").status(MissionStatus.CREATED));
+        repository.put(mission.status(MissionStatus.COMPLETED));
+        repository.close();
+
+        MissionRepository restored = new MissionRepository();
+        restored.open(MissionJournal.builder(directory).snapshotIntervalMs(0).build());
+        restored.close();
+
+        assertThat(restored.size(), equalTo(2));
+        assertThat(restored.get("incident1", "responder1").get().getStatus(), equalTo(MissionStatus.COMPLETED.name()));
+        assertThat(restored.findActiveByResponderId("responder1").get().getIncidentId(), equalTo("incident2"));
+    }
+
+    @Test
+    void testFindByIdAndCreationTime() {
+        MissionRepository repository = new MissionRepository();
+        long start = System.currentTimeMillis();
+        List<Mission> missions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Mission mission = mission("incident" + i, "responder" + i).status(MissionStatus.CREATED);
+            missions.add(mission);
+            repository.put(mission);
+        }
+        Mission random = Mission.builder().id(UUID.randomUUID().toString()).incidentId("incident").responderId("responder")
+                .status(MissionStatus.CREATED.name()).build();
+        repository.put(random);
+
+        assertThat(repository.findById(missions.get(42).getId()).get(), sameInstance(missions.get(42)));
+        assertThat(repository.findById(random.getId()).get(), sameInstance(random));
+        assertThat(repository.findById("unknown").isPresent(), is(false));
+        assertThat(repository.findCreatedBetween(start, System.currentTimeMillis() + 1), equalTo(missions));
+        assertThat(repository.findCreatedBetween(start - 10_000, start).isEmpty(), is(true));
+
+        Mission replacement = mission("incident42", "responder42").status(MissionStatus.CREATED);
+        repository.put(replacement);
+        assertThat(repository.findById(missions.get(42).getId()).isPresent(), is(false));
+        assertThat(repository.findById(replacement.getId()).get(), sameInstance(replacement));
+    }
+
+    @Test
+    void testFinishedMissionsAreEvictedToTheArchiveAfterTheirTtl(@TempDir Path directory) throws Exception {
+        long[] now = {1_000};
+        MissionRepository repository = new MissionRepository();
+        repository.clock = () -> now[0];
+        Map<MissionStatus, Long> timeToLive = new EnumMap<>(MissionStatus.class);
+        timeToLive.put(MissionStatus.COMPLETED, 100L);
+        timeToLive.put(MissionStatus.FAILED, 500L);
+        repository.retain(timeToLive, 2, MissionArchive.open(directory.resolve("archive")));
+        repository.open(MissionJournal.builder(directory.resolve("journal")).snapshotIntervalMs(0).build());
+        for (int i = 0; i < 3; i++) {
+            Mission mission = mission("incident" + i, "responder").status(MissionStatus.CREATED);
+            repository.put(mission);
+            repository.put(mission.status(MissionStatus.COMPLETED));
+        }
+        repository.put(mission("incident3", "responder").status(MissionStatus.FAILED));
+        repository.put(mission("incident4", "responder").status(MissionStatus.CREATED));
+        long heapBytes = repository.heapBytes();
+
+        now[0] += 99;
+        assertThat(repository.sweep(), equalTo(0));
+        now[0] += 1;
+        assertThat(repository.sweep(), equalTo(2));
+        assertThat(repository.sweep(), equalTo(1));
+        assertThat(repository.sweep(), equalTo(0));
+
+        assertThat(repository.size(), equalTo(2));
+        assertThat(repository.evicted(), equalTo(3L));
+        assertThat(repository.archived(), equalTo(3));
+        assertThat(repository.heapBytes() < heapBytes, is(true));
+        assertThat(repository.findByIncidentId("incident0").isEmpty(), is(true));
+        assertThat(repository.findByResponderId("responder").size(), equalTo(2));
+        assertThat(repository.count(MissionStatus.COMPLETED), equalTo(0));
+        assertThat(repository.get("incident1", "responder").isPresent(), is(false));
+        assertThat(repository.status(MissionKey.of("incident1", "responder")).get(), equalTo(MissionStatus.COMPLETED));
+        assertThat(repository.findArchived(MissionKey.of("incident1", "responder")).get().getStatus(),
+                equalTo(MissionStatus.COMPLETED.name()));
+        assertThat(repository.status(MissionKey.of("incident3", "responder")).get(), equalTo(MissionStatus.FAILED));
+
+        now[0] += 400;
+        assertThat(repository.sweep(), equalTo(1));
+        assertThat(repository.findByStatus(MissionStatus.FAILED).isEmpty(), is(true));
+        repository.close();
+
+        MissionRepository restored = new MissionRepository();
+        restored.retain(timeToLive, 2, MissionArchive.open(directory.resolve("archive")));
+        restored.open(MissionJournal.builder(directory.resolve("journal")).snapshotIntervalMs(0).build());
+        restored.close();
+
+        assertThat(restored.size(), equalTo(1));
+        assertThat(restored.get("incident4", "responder").isPresent(), is(true));
+        assertThat(restored.archived(), equalTo(4));
+        assertThat(restored.status(MissionKey.of("incident0", "responder")).get(), equalTo(MissionStatus.COMPLETED));
+    }
+
+    @Test
+    void testReplacedMissionIsNotEvicted() throws Exception {
+        long[] now = {1_000};
+        MissionRepository repository = new MissionRepository();
+        repository.clock = () -> now[0];
+        repository.retain(Collections.singletonMap(MissionStatus.COMPLETED, 100L), 10, null);
+        Mission mission = mission("incident1", "responder1").status(MissionStatus.COMPLETED);
+        repository.put(mission);
+        Mission recreated = mission("incident1", "responder1").status(MissionStatus.CREATED);
+        repository.put(recreated);
+
+        now[0] += 1_000;
+        assertThat(repository.sweep(), equalTo(0));
+        assertThat(repository.get("incident1", "responder1").get(), sameInstance(recreated));
+        assertThat(repository.findByIncidentId("incident1").size(), equalTo(1));
+    }
+
+    private static String status(CompletionStage<Optional<Mission>> transition) {
+        return transition.toCompletableFuture().join().map(Mission::getStatus).orElse(null);
+    }
+
+    private static Mission mission(String incidentId, String responderId) {
+        return new JsonObject().put("incidentId", incidentId).put("responderId", responderId)
+                .put("responderStartLat", "30.12345").put("responderStartLong", "-70.98765")
+                .put("incidentLat", "31.98765").put("incidentLong", "-71.12345")
+                .put("destinationLat", "32.85263").put("destinationLong", "-72.15975")
+                .mapTo(Mission.class);
+    }
+}
@@ -0,0 +1,106 @@
+package com.redhat.emergency.response.mission.repository;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import com.redhat.emergency.response.mission.model.Location;
+import com.redhat.emergency.response.mission.model.Mission;
+import com.redhat.emergency.response.mission.model.MissionPoint;
+import org.junit.jupiter.api.Test;
+
+public class MissionSpatialIndexTest {
+
+    @Test
+    void testQueriesMatchLinearScan() {
+        MissionSpatialIndex index = new MissionSpatialIndex(0.01);
+        Random random = new Random(42);
+        List<Mission> missions = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Mission mission = mission("incident" + i, "responder" + i,
+                    34 + random.nextDouble() * 0.5, -78 + random.nextDouble() * 0.5,
+                    34 + random.nextDouble() * 0.5, -78 + random.nextDouble() * 0.5);
+            missions.add(mission);
+            index.put(mission.missionKey(), mission);
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            index.remove(missions.get(i).missionKey());
+        }
+        List<Mission> indexed = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            if (i >= 1000 || i % 2 == 1) {
+                indexed.add(missions.get(i));
+            }
+        }
+
+        for (int q = 0; q < 50; q++) {
+            double lat = 34 + random.nextDouble() * 0.5;
+            double lon = -78 + random.nextDouble() * 0.5;
+            double radius = 200 + random.nextDouble() * 3000;
+
+            assertThat(index.within(lat, lon, radius), equalTo(
+                    indexed.stream().filter(m -> distance(m, lat, lon) <= radius)
+                            .sorted(Comparator.comparingDouble(m -> distance(m, lat, lon)))
+                            .collect(Collectors.toList())));
+            assertThat(index.nearest(lat, lon, 10, MissionPoint.INCIDENT), equalTo(
+                    indexed.stream().sorted(Comparator.comparingDouble(m -> incidentDistance(m, lat, lon))).limit(10)
+                            .collect(Collectors.toList())));
+        }
+    }
+
+    @Test
+    void testSearchWrapsAroundTheAntimeridian() {
+        MissionSpatialIndex index = new MissionSpatialIndex(0.01);
+        Mission east = mission("incident1", "responder1", -16.5, 179.999, -16.5, 179.999);
+        Mission west = mission("incident2", "responder2", -16.5, -179.999, -16.5, -179.999);
+        index.put(east.missionKey(), east);
+        index.put(west.missionKey(), west);
+
+        assertThat(index.within(-16.5, 179.9995, 500), contains(east, west));
+        assertThat(index.nearest(-16.5, -179.9999, 2), contains(west, east));
+    }
+
+    @Test
+    void testReplacingAndRemovingMissions() {
+        MissionSpatialIndex index = new MissionSpatialIndex(0.01);
+        Mission mission = mission("incident1", "responder1", 34.1, -78.1, 34.5, -78.5);
+        index.put(mission.missionKey(), mission);
+        Mission moved = mission("incident1", "responder1", 10, 10, 10.5, 10.5);
+        index.put(moved.missionKey(), moved);
+
+        assertThat(index.size(), equalTo(1));
+        assertThat(index.within(34.1, -78.1, 1000), empty());
+        assertThat(index.within(10, 10, 1000, MissionPoint.RESPONDER), contains(moved));
+        assertThat(index.within(10, 10, 1000, MissionPoint.INCIDENT), empty());
+
+        index.remove(moved.missionKey());
+
+        assertThat(index.size(), equalTo(0));
+        assertThat(index.nearest(10, 10, 1), empty());
+    }
+
+    private static double distance(Mission mission, double lat, double lon) {
+        return Math.min(Location.distanceMeters(mission.getResponderStartLat().doubleValue(), mission.getResponderStartLong().doubleValue(), lat, lon),
+                incidentDistance(mission, lat, lon));
+    }
+
+    private static double incidentDistance(Mission mission, double lat, double lon) {
+        return Location.distanceMeters(mission.getIncidentLat().doubleValue(), mission.getIncidentLong().doubleValue(), lat, lon);
+    }
+
+    private static Mission mission(String incidentId, String responderId, double responderLat, double responderLon,
+            double incidentLat, double incidentLon) {
+        return Mission.builder().incidentId(incidentId).responderId(responderId)
+                .responderStartLocation(BigDecimal.valueOf(responderLat), BigDecimal.valueOf(responderLon))
+                .incidentLocation(BigDecimal.valueOf(incidentLat), BigDecimal.valueOf(incidentLon))
+                .build();
+    }
+}
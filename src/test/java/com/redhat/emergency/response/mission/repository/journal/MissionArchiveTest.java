@@ -0,0 +1,149 @@
+package com.redhat.emergency.response.mission.repository.journal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.redhat.emergency.response.mission.model.Mission;
+import com.redhat.emergency.response.mission.model.MissionKey;
+import com.redhat.emergency.response.mission.model.MissionStatus;
+import com.redhat.emergency.response.mission.model.MissionStep;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MissionArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testArchiveAndReopen() throws IOException {
+        List<Mission> missions = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Mission mission = mission("incident" + i, "responder" + i).status(i % 2 == 0 ? MissionStatus.COMPLETED : MissionStatus.FAILED);
+            mission.locationHistory().append(30_123_450 + i, -70_987_650 - i, 1_600_000_000_000L + i);
+            mission.locationHistory().append(30_123_460 + i, -70_987_600 - i, 1_600_000_005_000L + i);
+            missions.add(mission);
+        }
+        try (MissionArchive archive = MissionArchive.open(directory)) {
+            archive.archive(missions.subList(0, 1000));
+            archive.archive(missions.subList(1000, 2000));
+            assertThat(archive.size(), equalTo(2000));
+        }
+
+        try (MissionArchive archive = MissionArchive.open(directory)) {
+            assertThat(archive.size(), equalTo(2000));
+            Mission archived = archive.get(MissionKey.of("incident1234", "responder1234")).get();
+            Mission original = missions.get(1234);
+            assertThat(archived.getId(), equalTo(original.getId()));
+            assertThat(archived.getStatus(), equalTo(MissionStatus.COMPLETED.name()));
+            assertThat(archived.getSteps().size(), equalTo(2));
+            assertThat(archived.getResponderLocationHistory().size(), equalTo(2));
+            assertThat(archived.getResponderLocationHistory().get(1).getTimestamp(),
+                    equalTo(original.getResponderLocationHistory().get(1).getTimestamp()));
+            assertThat(archived.getResponderLocationHistory().get(1).getLat(),
+                    equalTo(original.getResponderLocationHistory().get(1).getLat()));
+            assertThat(archive.status(MissionKey.of("incident7", "responder7")).get(), equalTo(MissionStatus.FAILED));
+            assertThat(archive.get(MissionKey.of("incident7", "responder8")).isPresent(), is(false));
+            assertThat(archive.status(MissionKey.of("unknown", "unknown")).isPresent(), is(false));
+        }
+    }
+
+    @Test
+    void testNewestRecordWins() throws IOException {
+        Mission first = mission("incident1", "responder1").status(MissionStatus.FAILED);
+        Mission second = mission("incident1", "responder1").status(MissionStatus.COMPLETED);
+        try (MissionArchive archive = MissionArchive.open(directory)) {
+            archive.archive(Collections.singletonList(first));
+            archive.archive(Collections.singletonList(second));
+            assertThat(archive.get(MissionKey.of("incident1", "responder1")).get().getId(), equalTo(second.getId()));
+        }
+        try (MissionArchive archive = MissionArchive.open(directory)) {
+            assertThat(archive.size(), equalTo(1));
+            assertThat(archive.status(MissionKey.of("incident1", "responder1")).get(), equalTo(MissionStatus.COMPLETED));
+        }
+    }
+
+    @Test
+    void testTornTailIsTruncated() throws IOException {
+        long length;
+        try (MissionArchive archive = MissionArchive.open(directory)) {
+            archive.archive(Arrays.asList(mission("incident1", "responder1").status(MissionStatus.COMPLETED),
+                    mission("incident2", "responder2").status(MissionStatus.COMPLETED)));
+            length = archive.bytes();
+        }
+        try (FileChannel channel = FileChannel.open(directory.resolve(MissionArchive.FILE_NAME), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 1, 0, 42, 42}), length);
+        }
+
+        try (MissionArchive archive = MissionArchive.open(directory)) {
+            assertThat(archive.size(), equalTo(2));
+            assertThat(archive.bytes(), equalTo(length));
+            archive.archive(Collections.singletonList(mission("incident3", "responder3").status(MissionStatus.FAILED)));
+        }
+        try (MissionArchive archive = MissionArchive.open(directory)) {
+            assertThat(archive.size(), equalTo(3));
+            assertThat(archive.get(MissionKey.of("incident3", "responder3")).isPresent(), is(true));
+        }
+    }
+
+    @Test
+    void testCorruptedRecordBeforeTheTailIsSkipped() throws IOException {
+        try (MissionArchive archive = MissionArchive.open(directory)) {
+            archive.archive(Arrays.asList(mission("incident1", "responder1").status(MissionStatus.COMPLETED),
+                    mission("incident2", "responder2").status(MissionStatus.COMPLETED),
+                    mission("incident3", "responder3").status(MissionStatus.FAILED)));
+        }
+        long length;
+        try (FileChannel channel = FileChannel.open(directory.resolve(MissionArchive.FILE_NAME), StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            length = channel.size();
+            // flip a byte in the payload of the first record
+            ByteBuffer payload = ByteBuffer.allocate(1);
+            channel.read(payload, 12);
+            channel.write(ByteBuffer.wrap(new byte[] { (byte) ~payload.get(0) }), 12);
+        }
+
+        try (MissionArchive archive = MissionArchive.open(directory)) {
+            assertThat(archive.bytes(), equalTo(length));
+            assertThat(archive.size(), equalTo(2));
+            assertThat(archive.get(MissionKey.of("incident1", "responder1")).isPresent(), is(false));
+            assertThat(archive.get(MissionKey.of("incident3", "responder3")).get().getStatus(), equalTo(MissionStatus.FAILED.name()));
+        }
+    }
+
+    @Test
+    void testInvalidRecordLengthFailsTheOpen() throws IOException {
+        try (MissionArchive archive = MissionArchive.open(directory)) {
+            archive.archive(Arrays.asList(mission("incident1", "responder1").status(MissionStatus.COMPLETED),
+                    mission("incident2", "responder2").status(MissionStatus.COMPLETED)));
+        }
+        try (FileChannel channel = FileChannel.open(directory.resolve(MissionArchive.FILE_NAME), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES), 0);
+        }
+
+        assertThrows(IOException.class, () -> MissionArchive.open(directory));
+    }
+
+    private static Mission mission(String incidentId, String responderId) {
+        return Mission.builder().incidentId(incidentId).responderId(responderId)
+                .responderStartLocation(new BigDecimal("30.12345"), new BigDecimal("-70.98765"))
+                .incidentLocation(new BigDecimal("31.98765"), new BigDecimal("-71.12345"))
+                .destinationLocation(new BigDecimal("32.85263"), new BigDecimal("-72.15975"))
+                .steps(Arrays.asList(MissionStep.builder(new BigDecimal("30.5"), new BigDecimal("-70.5")).wayPoint(true).build(),
+                        MissionStep.builder(new BigDecimal("32.85263"), new BigDecimal("-72.15975")).destination(true).build()))
+                .build();
+    }
+}
@@ -0,0 +1,145 @@
+package com.redhat.emergency.response.mission.repository.journal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.redhat.emergency.response.mission.model.Mission;
+import com.redhat.emergency.response.mission.model.MissionStatus;
+import com.redhat.emergency.response.mission.model.MissionStep;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MissionJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testAppendAndReplay() throws IOException {
+        MissionJournal journal = journal();
+        journal.open(m -> {}, Collections::emptyList);
+        Mission mission = mission("incident1", "responder1");
+        journal.append(mission);
+        journal.append(mission("incident2", "responder2"));
+        journal.close();
+
+        List<Mission> replayed = new ArrayList<>();
+        MissionJournal reopened = journal();
+        long count = reopened.open(replayed::add, Collections::emptyList);
+        reopened.close();
+
+        assertThat(count, equalTo(2L));
+        Mission restored = replayed.get(0);
+        assertThat(restored.getId(), equalTo(mission.getId()));
+        assertThat(restored.getKey(), equalTo(mission.getKey()));
+        assertThat(restored.getStatus(), equalTo(MissionStatus.CREATED.name()));
+        assertThat(restored.getResponderStartLat(), equalTo(mission.getResponderStartLat()));
+        assertThat(restored.getDestinationLong(), equalTo(mission.getDestinationLong()));
+        assertThat(restored.getSteps().size(), equalTo(2));
+        assertThat(restored.getSteps().get(1).isDestination(), equalTo(true));
+        assertThat(restored.getSteps().get(0).getLat(), equalTo(new BigDecimal("30.5")));
+    }
+
+    @Test
+    void testRollsSegments() throws IOException {
+        MissionJournal journal = MissionJournal.builder(directory).segmentSize(512).syncPolicy(SyncPolicy.NONE).snapshotIntervalMs(0).build();
+        journal.open(m -> {}, Collections::emptyList);
+        for (int i = 0; i < 100; i++) {
+            journal.append(mission("incident" + i, "responder"));
+        }
+        journal.close();
+
+        List<Mission> replayed = new ArrayList<>();
+        journal().open(replayed::add, Collections::emptyList);
+
+        assertThat(replayed.size(), equalTo(100));
+        assertThat(replayed.get(99).getIncidentId(), equalTo("incident99"));
+    }
+
+    @Test
+    void testSnapshotSupersedesSegments() throws IOException {
+        MissionJournal journal = journal();
+        journal.open(m -> {}, Collections::emptyList);
+        Mission first = mission("incident1", "responder1");
+        Mission second = mission("incident2", "responder2");
+        journal.append(first);
+        journal.append(second);
+        journal.snapshot(Arrays.asList(first, second));
+        journal.append(mission("incident3", "responder3"));
+        journal.close();
+
+        List<Mission> replayed = new ArrayList<>();
+        long count = journal().open(replayed::add, Collections::emptyList);
+
+        assertThat(count, equalTo(3L));
+        assertThat(replayed.stream().map(Mission::getIncidentId).collect(Collectors.toList()),
+                equalTo(Arrays.asList("incident1", "incident2", "incident3")));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.filter(p -> p.toString().endsWith(".snap")).count(), equalTo(1L));
+        }
+    }
+
+    @Test
+    void testDamagedSnapshotFailsTheOpen() throws IOException {
+        MissionJournal journal = journal();
+        journal.open(m -> {}, Collections::emptyList);
+        Mission first = mission("incident1", "responder1");
+        journal.append(first);
+        journal.snapshot(Arrays.asList(first, mission("incident2", "responder2")));
+        journal.close();
+        Path snapshot;
+        try (Stream<Path> files = Files.list(directory)) {
+            snapshot = files.filter(p -> p.toString().endsWith(".snap")).findFirst().get();
+        }
+        byte[] intact = Files.readAllBytes(snapshot);
+
+        // a flipped bit in the first record
+        byte[] corrupted = intact.clone();
+        corrupted[12] ^= 1;
+        Files.write(snapshot, corrupted);
+        assertThrows(IOException.class, () -> journal().open(m -> {}, Collections::emptyList));
+
+        // a length running past the end of the file
+        byte[] oversized = intact.clone();
+        ByteBuffer.wrap(oversized).putInt(0, Integer.MAX_VALUE);
+        Files.write(snapshot, oversized);
+        assertThrows(IOException.class, () -> journal().open(m -> {}, Collections::emptyList));
+
+        // no end record: the end record is a header and its type byte
+        Files.write(snapshot, Arrays.copyOf(intact, intact.length - 9));
+        assertThrows(IOException.class, () -> journal().open(m -> {}, Collections::emptyList));
+
+        Files.write(snapshot, intact);
+        List<Mission> replayed = new ArrayList<>();
+        journal().open(replayed::add, Collections::emptyList);
+        assertThat(replayed.size(), equalTo(2));
+    }
+
+    private MissionJournal journal() {
+        return MissionJournal.builder(directory).syncPolicy(SyncPolicy.BATCH).syncBatchSize(1).snapshotIntervalMs(0).build();
+    }
+
+    private static Mission mission(String incidentId, String responderId) {
+        return Mission.builder().incidentId(incidentId).responderId(responderId)
+                .responderStartLocation(new BigDecimal("30.12345"), new BigDecimal("-70.98765"))
+                .incidentLocation(new BigDecimal("31.98765"), new BigDecimal("-71.12345"))
+                .destinationLocation(new BigDecimal("32.85263"), new BigDecimal("-72.15975"))
+                .steps(Arrays.asList(MissionStep.builder(new BigDecimal("30.5"), new BigDecimal("-70.5")).wayPoint(true).build(),
+                        MissionStep.builder(new BigDecimal("32.85263"), new BigDecimal("-72.15975")).destination(true).build()))
+                .build()
+                .status(MissionStatus.CREATED);
+    }
+}
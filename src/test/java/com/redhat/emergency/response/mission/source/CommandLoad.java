@@ -0,0 +1,175 @@
+package com.redhat.emergency.response.mission.source;
+
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Synthetic mission-command topic traffic for the soak test: {@code CreateMissionCommand}s mixed
+ * with malformed commands and other services' messages, in the proportions given.
+ * <p>
+ * Incidents fall in an area around Wilmington, NC. A share {@code clusterRatio} of them is drawn
+ * around one of {@code clusters} fixed hotspots, normally distributed with a standard deviation of
+ * {@code clusterRadiusMeters}, and the rest uniformly over the area. Responders start anywhere in
+ * the area and are drawn from a pool of {@code responders} ids, so missions reuse responders the
+ * way they do in a real incident. Every envelope has a distinct id. The same seed generates the
+ * same traffic.
+ */
+final class CommandLoad {
+
+    enum Kind {
+        CREATE, INVALID, OTHER
+    }
+
+    private static final double CENTER_LAT = 34.2109;
+
+    private static final double CENTER_LON = -77.8861;
+
+    private static final double SPAN_LAT = 0.12;
+
+    private static final double SPAN_LON = 0.15;
+
+    private static final double METERS_PER_DEGREE = 111_320;
+
+    private static final double[][] DESTINATIONS = { { 34.1706, -77.949 }, { 34.2461, -77.9519 }, { 34.1784, -77.8264 } };
+
+    private final SplittableRandom random;
+
+    private final double invalidRatio;
+
+    private final double otherRatio;
+
+    private final double clusterRatio;
+
+    private final double clusterRadiusMeters;
+
+    private final int responders;
+
+    private final double[][] hotspots;
+
+    private long sequence;
+
+    CommandLoad(long seed, double invalidRatio, double otherRatio, int clusters, double clusterRatio, double clusterRadiusMeters,
+            int responders) {
+        if (invalidRatio < 0 || otherRatio < 0 || invalidRatio + otherRatio > 1 || responders < 1) {
+            throw new IllegalArgumentException("Invalid command mix: " + invalidRatio + " invalid, " + otherRatio + " other, "
+                    + responders + " responders");
+        }
+        this.random = new SplittableRandom(seed);
+        this.invalidRatio = invalidRatio;
+        this.otherRatio = otherRatio;
+        this.clusterRatio = clusters > 0 ? clusterRatio : 0;
+        this.clusterRadiusMeters = clusterRadiusMeters;
+        this.responders = responders;
+        this.hotspots = new double[Math.max(clusters, 0)][];
+        for (int i = 0; i < hotspots.length; i++) {
+            hotspots[i] = uniform();
+        }
+    }
+
+    static final class Command {
+
+        final Kind kind;
+
+        final String payload;
+
+        Command(Kind kind, String payload) {
+            this.kind = kind;
+            this.payload = payload;
+        }
+    }
+
+    Command next() {
+        sequence++;
+        double kind = random.nextDouble();
+        if (kind < invalidRatio) {
+            return new Command(Kind.INVALID, invalid());
+        }
+        if (kind < invalidRatio + otherRatio) {
+            return new Command(Kind.OTHER, other());
+        }
+        return new Command(Kind.CREATE, create());
+    }
+
+    private String create() {
+        double[] incident = random.nextDouble() < clusterRatio ? clustered() : uniform();
+        double[] responder = uniform();
+        double[] destination = DESTINATIONS[random.nextInt(DESTINATIONS.length)];
+        StringBuilder body = new StringBuilder(384).append("{\"incidentId\":\"").append(uuid())
+                .append("\",\"responderId\":\"").append(random.nextInt(responders)).append('"');
+        coordinate(body, "responderStartLat", responder[0]);
+        coordinate(body, "responderStartLong", responder[1]);
+        coordinate(body, "incidentLat", incident[0]);
+        coordinate(body, "incidentLong", incident[1]);
+        coordinate(body, "destinationLat", destination[0]);
+        coordinate(body, "destinationLong", destination[1]);
+        body.append(",\"processId\":\"").append(sequence).append("\"}");
+        return envelope("CreateMissionCommand", body);
+    }
+
+    private String invalid() {
+        switch (random.nextInt(4)) {
+            case 0:
+                return envelope("CreateMissionCommand", new StringBuilder("{\"incidentId\":\"").append(uuid())
+                        .append("\",\"responderId\":\"").append(random.nextInt(responders)).append("\"}"));
+            case 1:
+                return envelope("CreateMissionCommand", new StringBuilder("{\"incidentId\":\"").append(uuid())
+                        .append("\",\"responderId\":\"1\",\"responderStartLat\":\"north\",\"responderStartLong\":\"-77.8\","
+                                + "\"incidentLat\":\"34.2\",\"incidentLong\":\"-77.9\",\"destinationLat\":\"34.1\",\"destinationLong\":\"-77.9\"}"));
+            case 2:
+                String create = create();
+                return create.substring(0, create.length() / 2);
+            default:
+                return "Mission for incident at " + uniform()[0] + "," + uniform()[1];
+        }
+    }
+
+    private String other() {
+        double[] location = random.nextDouble() < clusterRatio ? clustered() : uniform();
+        if (random.nextBoolean()) {
+            StringBuilder body = new StringBuilder("{\"id\":\"").append(uuid()).append('"');
+            body.append(",\"lat\":").append(round(location[0])).append(",\"lon\":").append(round(location[1]));
+            body.append(",\"numberOfPeople\":").append(1 + random.nextInt(10)).append(",\"medicalNeeded\":")
+                    .append(random.nextBoolean()).append(",\"victimName\":\"Jane Doe\",\"victimPhoneNumber\":\"(651) 555-0100\","
+                            + "\"status\":\"REPORTED\"}");
+            return envelope("IncidentReportedEvent", body);
+        }
+        StringBuilder body = new StringBuilder("{\"responder\":{\"id\":\"").append(random.nextInt(responders)).append('"');
+        body.append(",\"latitude\":").append(round(location[0])).append(",\"longitude\":").append(round(location[1]));
+        body.append(",\"available\":true}}");
+        return envelope("UpdateResponderCommand", body);
+    }
+
+    private String envelope(String messageType, CharSequence body) {
+        return new StringBuilder(body.length() + 160).append("{\"id\":\"").append(uuid()).append("\",\"messageType\":\"")
+                .append(messageType).append("\",\"invokingService\":\"IncidentProcessService\",\"timestamp\":")
+                .append(System.currentTimeMillis()).append(",\"body\":").append(body).append('}').toString();
+    }
+
+    private double[] uniform() {
+        return new double[] { CENTER_LAT + (random.nextDouble() - 0.5) * SPAN_LAT, CENTER_LON + (random.nextDouble() - 0.5) * SPAN_LON };
+    }
+
+    private double[] clustered() {
+        double[] hotspot = hotspots[random.nextInt(hotspots.length)];
+        double lat = hotspot[0] + gaussian() * clusterRadiusMeters / METERS_PER_DEGREE;
+        double lon = hotspot[1] + gaussian() * clusterRadiusMeters / (METERS_PER_DEGREE * Math.cos(Math.toRadians(hotspot[0])));
+        return new double[] { lat, lon };
+    }
+
+    private double gaussian() {
+        double u = 1 - random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    private String uuid() {
+        return new UUID(random.nextLong() & ~0xf000L | 0x4000L, random.nextLong() & 0x3fffffffffffffffL | 0x8000000000000000L).toString();
+    }
+
+    private static void coordinate(StringBuilder out, String name, double value) {
+        out.append(",\"").append(name).append("\":\"").append(round(value)).append('"');
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1e5) / 1e5;
+    }
+}
@@ -0,0 +1,40 @@
+package com.redhat.emergency.response.mission.source;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.Test;
+
+public class LingerBatcherTest {
+
+    @Test
+    void testSlowConsumerReceivesEveryItemInOrder() {
+        List<Integer> items = IntStream.range(0, 500).boxed().collect(Collectors.toList());
+
+        List<List<Integer>> batches = Multi.createFrom().publisher(new LingerBatcher<>(Multi.createFrom().iterable(items), 16, 1))
+                .onItem().produceUni(batch -> Uni.createFrom().item(batch).onItem().delayIt().by(Duration.ofMillis(2)))
+                .concatenate()
+                .collectItems().asList().await().atMost(Duration.ofSeconds(30));
+
+        assertThat(batches.stream().flatMap(List::stream).collect(Collectors.toList()), equalTo(items));
+        batches.forEach(batch -> assertThat(batch.size(), lessThanOrEqualTo(16)));
+    }
+
+    @Test
+    void testPartialBatchIsClosedAfterLinger() {
+        Multi<Integer> neverCompletes = Multi.createFrom().emitter(emitter -> emitter.emit(1).emit(2).emit(3));
+
+        List<Integer> batch = Multi.createFrom().publisher(new LingerBatcher<>(neverCompletes, 16, 50))
+                .collectItems().first().await().atMost(Duration.ofSeconds(10));
+
+        assertThat(batch, equalTo(List.of(1, 2, 3)));
+    }
+}
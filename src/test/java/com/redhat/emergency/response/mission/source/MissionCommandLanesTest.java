@@ -0,0 +1,228 @@
+package com.redhat.emergency.response.mission.source;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.microprofile.metrics.Tag;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import com.redhat.emergency.response.mission.map.RouteBulkhead;
+import com.redhat.emergency.response.mission.map.RoutePlanner;
+import com.redhat.emergency.response.mission.model.Location;
+import com.redhat.emergency.response.mission.model.MissionStatus;
+import com.redhat.emergency.response.mission.model.MissionStep;
+import com.redhat.emergency.response.mission.repository.MissionRepository;
+
+import io.smallrye.metrics.MetricsRegistryImpl;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+
+public class MissionCommandLanesTest {
+
+	private final MissionCommandSource source = new MissionCommandSource();
+
+	@BeforeEach
+	void init() {
+		source.registry = new MetricsRegistryImpl();
+		source.repository = new MissionRepository();
+		source.metrics = PipelineMetrics.create(source.registry, source.repository);
+		source.parser = new MissionCommandParser();
+		source.parser.metrics = source.metrics;
+		source.serializer = new MissionEventSerializer();
+		source.routeplanner = Mockito.mock(RoutePlanner.class);
+		source.laneCount = 4;
+		source.batchSize = 1;
+		source.batchLingerMs = 10;
+		source.routingExecution = RouteBulkhead.Execution.POOL;
+		Mockito.when(source.routeplanner.getDirections(Mockito.any(Location.class), Mockito.any(Location.class), Mockito.any(Location.class)))
+				.thenAnswer(invocation -> Uni.createFrom().item(() -> {
+					try {
+						Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return Collections.emptyList();
+				}));
+	}
+
+	@AfterEach
+	void shutdown() {
+		source.shutdown();
+	}
+
+	@Test
+	void testCommandsForOneMissionKeepTheirOrder() {
+		source.init();
+		assertOrderedPerMission();
+	}
+
+	@Test
+	void testBatchesKeepOrderPerMission() {
+		source.batchSize = 16;
+		source.init();
+		assertOrderedPerMission();
+		assertThat(source.repository.size(), equalTo(8));
+	}
+
+	@Test
+	void testLifecycleCommandsNeverMoveMissionsBackwards() {
+		source.batchSize = 16;
+		source.init();
+		AtomicInteger acked = new AtomicInteger();
+		List<Message<String>> commands = new ArrayList<>();
+		String[] types = { "Create", "Update", "Complete", "Update", "Fail", "Create" };
+		for (String type : types) {
+			for (int responder = 0; responder < 8; responder++) {
+				String incidentId = "incident" + responder % 2;
+				String responderId = "responder" + responder;
+				commands.add(Message.of(type.equals("Create") ? command(incidentId, responderId, responderId)
+						: "{\"messageType\":\"" + type + "MissionCommand\",\"body\":{\"incidentId\":\"" + incidentId
+								+ "\",\"responderId\":\"" + responderId + "\"}}", () -> {
+							acked.incrementAndGet();
+							return CompletableFuture.completedFuture(null);
+						}));
+			}
+		}
+
+		List<Message<byte[]>> events = source.process(Multi.createFrom().iterable(commands))
+				.collectItems().asList().await().indefinitely();
+
+		Map<String, List<String>> perMission = new HashMap<>();
+		for (Message<byte[]> event : events) {
+			JsonObject json = new JsonObject(Buffer.buffer(event.getPayload()));
+			perMission.computeIfAbsent(json.getJsonObject("body").getString("id"), k -> new ArrayList<>()).add(json.getString("messageType"));
+		}
+		assertThat(perMission.size(), equalTo(8));
+		for (List<String> missionEvents : perMission.values()) {
+			assertThat(missionEvents, equalTo(List.of("MissionStartedEvent", "MissionUpdatedEvent", "MissionCompletedEvent")));
+		}
+		assertThat(source.repository.count(MissionStatus.COMPLETED), equalTo(8));
+		assertThat(source.registry.counter("mission.command.rejected").getCount(), equalTo(24L));
+		// commands without an event are acknowledged once handled, the others once their event is
+		assertThat(acked.get(), equalTo(24));
+		events.forEach(Message::ack);
+		assertThat(acked.get(), equalTo(48));
+	}
+
+	@Test
+	void testRedeliveryAfterRestartIsRejectedByTheStoredStatus() {
+		source.init();
+		source.parser.redeliveries = new RedeliveryFilter(60_000, 4, 100);
+		List<String> commands = List.of("{\"id\":\"c1\"," + command("incident1", "responder1", "mission1").substring(1),
+				"{\"id\":\"c2\",\"messageType\":\"CompleteMissionCommand\",\"body\":{\"incidentId\":\"incident1\",\"responderId\":\"responder1\"}}");
+
+		List<String> first = new ArrayList<>(commands);
+		first.add(commands.get(1));
+		assertThat(process(first).size(), equalTo(2));
+		assertThat(source.registry.counter("mission.command.duplicate").getCount(), equalTo(1L));
+
+		// a restarted instance, or the one a rebalance moved the partition to, has not seen the commands
+		source.parser.redeliveries = new RedeliveryFilter(60_000, 4, 100);
+		assertThat(process(commands).size(), equalTo(0));
+		assertThat(source.registry.counter("mission.command.duplicate").getCount(), equalTo(1L));
+		assertThat(source.registry.counter("mission.command.rejected").getCount(), equalTo(2L));
+		assertThat(source.repository.count(MissionStatus.COMPLETED), equalTo(1));
+	}
+
+	@Test
+	void testLateRoutesStartOnStraightLineAndAreRefined() {
+		source.routingMaxConcurrent = 2;
+		source.routingMaxQueued = 16;
+		source.routingTimeoutMs = 20;
+		List<MissionStep> route = List.of(MissionStep.builder(40.1, -80.9).build(), MissionStep.builder(35.0, -75.0).build(),
+				MissionStep.builder(30.1, -70.9).wayPoint(true).build(), MissionStep.builder(40.0, -80.0).build(),
+				MissionStep.builder(50.1, -90.9).destination(true).build());
+		Mockito.when(source.routeplanner.getDirections(Mockito.any(Location.class), Mockito.any(Location.class), Mockito.any(Location.class)))
+				.thenAnswer(invocation -> Uni.createFrom().item(() -> {
+					try {
+						Thread.sleep(100);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return route;
+				}));
+		source.init();
+		List<Message<String>> commands = new ArrayList<>();
+		for (int responder = 0; responder < 4; responder++) {
+			commands.add(Message.of(command("incident", "responder" + responder, "mission" + responder)));
+		}
+
+		List<Message<byte[]>> events = source.process(Multi.createFrom().iterable(commands))
+				.collectItems().asList().await().indefinitely();
+
+		Map<String, List<JsonObject>> perMission = new HashMap<>();
+		for (Message<byte[]> event : events) {
+			JsonObject json = new JsonObject(Buffer.buffer(event.getPayload()));
+			perMission.computeIfAbsent(json.getJsonObject("body").getString("id"), k -> new ArrayList<>()).add(json);
+		}
+		assertThat(perMission.size(), equalTo(4));
+		for (List<JsonObject> missionEvents : perMission.values()) {
+			assertThat(missionEvents.size(), equalTo(2));
+			JsonObject started = missionEvents.get(0);
+			JsonObject updated = missionEvents.get(1);
+			assertThat(started.getString("messageType"), equalTo("MissionStartedEvent"));
+			assertThat(started.getJsonObject("body").getBoolean("degraded"), equalTo(true));
+			assertThat(started.getJsonObject("body").getJsonArray("steps").size(), equalTo(3));
+			assertThat(updated.getString("messageType"), equalTo("MissionUpdatedEvent"));
+			assertThat(updated.getJsonObject("body").containsKey("degraded"), equalTo(false));
+			assertThat(updated.getJsonObject("body").getJsonArray("steps").size(), equalTo(5));
+		}
+		assertThat(source.repository.get("incident", "responder0").get().isDegraded(), equalTo(false));
+		assertThat(source.registry.counter("mission.routing.fallback", new Tag("reason", "timeout")).getCount(), equalTo(4L));
+		assertThat(source.registry.counter("mission.routing.refined").getCount(), equalTo(4L));
+	}
+
+	private void assertOrderedPerMission() {
+		List<Message<String>> commands = new ArrayList<>();
+		for (int seq = 0; seq < 10; seq++) {
+			for (int responder = 0; responder < 8; responder++) {
+				commands.add(Message.of(command("incident" + responder % 2, "responder" + responder, responder + "-" + seq)));
+			}
+		}
+		commands.add(Message.of("{\"messageType\":\"IncidentReportedEvent\"}"));
+
+		List<Message<byte[]>> events = source.process(Multi.createFrom().iterable(commands))
+				.collectItems().asList().await().indefinitely();
+
+		assertThat(events.size(), equalTo(80));
+		Map<String, Integer> last = new HashMap<>();
+		for (Message<byte[]> event : events) {
+			String[] id = new JsonObject(Buffer.buffer(event.getPayload())).getJsonObject("body").getString("id").split("-");
+			int seq = Integer.parseInt(id[1]);
+			assertThat(seq, equalTo(last.getOrDefault(id[0], -1) + 1));
+			last.put(id[0], seq);
+		}
+		for (int lane = 0; lane < 4; lane++) {
+			assertThat(source.lanes.depth(lane), equalTo(0));
+		}
+		assertThat(source.registry.counter("mission.command.ignored").getCount(), equalTo(1L));
+		assertThat(source.registry.timer("mission.command.stage", new Tag("stage", "route")).getCount(), equalTo(80L));
+		assertThat(source.registry.timer("mission.command.stage", new Tag("stage", "serialize")).getCount(), equalTo(80L));
+	}
+
+	private List<Message<byte[]>> process(List<String> commands) {
+		return source.process(Multi.createFrom().iterable(commands).map(Message::of))
+				.collectItems().asList().await().indefinitely();
+	}
+
+	private static String command(String incidentId, String responderId, String missionId) {
+		return "{\"messageType\":\"CreateMissionCommand\",\"body\":{\"id\":\"" + missionId + "\",\"incidentId\":\"" + incidentId
+				+ "\",\"responderId\":\"" + responderId + "\",\"responderStartLat\":\"40.1\",\"responderStartLong\":\"-80.9\","
+				+ "\"incidentLat\":\"30.1\",\"incidentLong\":\"-70.9\",\"destinationLat\":\"50.1\",\"destinationLong\":\"-90.9\"}}";
+	}
+}
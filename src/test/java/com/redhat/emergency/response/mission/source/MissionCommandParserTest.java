@@ -0,0 +1,135 @@
+package com.redhat.emergency.response.mission.source;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import com.redhat.emergency.response.mission.model.Mission;
+import com.redhat.emergency.response.mission.repository.MissionRepository;
+import io.smallrye.metrics.MetricsRegistryImpl;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MissionCommandParserTest {
+
+    private final MetricRegistry registry = new MetricsRegistryImpl();
+
+    private final MissionCommandParser parser = new MissionCommandParser();
+
+    @BeforeEach
+    void init() {
+        parser.metrics = PipelineMetrics.create(registry, new MissionRepository());
+    }
+
+    private static final String BODY = "{\"incidentId\":\"incident123\",\"responderId\":\"responder123\",\"responderStartLat\":\"40.12345\","
+            + "\"responderStartLong\":-80.98765,\"incidentLat\":\"30.12345\",\"incidentLong\":\"-70.98765\","
+            + "\"destinationLat\":50.12345,\"destinationLong\":\"-90.98765\",\"processId\":\"0\",\"steps\":[{\"lat\":1}]}";
+
+    @Test
+    void testParseCreateMissionCommand() {
+        String payload = "{\"id\":\"91cf5e82\",\"messageType\":\"CreateMissionCommand\",\"invokingService\":\"IncidentProcessService\","
+                + "\"timestamp\":1593363522344,\"body\":" + BODY + "}";
+
+        Optional<MissionCommand> command = parser.parse(payload);
+
+        assertThat(command.isPresent(), is(true));
+        assertThat(command.get().getId(), equalTo("91cf5e82"));
+        assertThat(command.get().getMessageType(), equalTo("CreateMissionCommand"));
+        Mission mission = command.get().getMission();
+        assertThat(mission.getId().length(), equalTo(36));
+        assertThat(mission.getIncidentId(), equalTo("incident123"));
+        assertThat(mission.getResponderId(), equalTo("responder123"));
+        assertThat(mission.getResponderStartLat(), equalTo(new BigDecimal("40.12345")));
+        assertThat(mission.getResponderStartLong(), equalTo(new BigDecimal("-80.98765")));
+        assertThat(mission.getIncidentLat(), equalTo(new BigDecimal("30.12345")));
+        assertThat(mission.getIncidentLong(), equalTo(new BigDecimal("-70.98765")));
+        assertThat(mission.getDestinationLat(), equalTo(new BigDecimal("50.12345")));
+        assertThat(mission.getDestinationLong(), equalTo(new BigDecimal("-90.98765")));
+        assertThat(mission.getSteps().size(), equalTo(0));
+    }
+
+    @Test
+    void testParseLifecycleCommands() {
+        for (String type : new String[] { "UpdateMissionCommand", "CompleteMissionCommand", "FailMissionCommand" }) {
+            Optional<MissionCommand> command = parser.parse("{\"messageType\":\"" + type
+                    + "\",\"body\":{\"incidentId\":\"incident1\",\"responderId\":\"responder1\"}}");
+
+            assertThat(command.isPresent(), is(true));
+            assertThat(command.get().getMessageType(), equalTo(type));
+            assertThat(command.get().getMission().getKey(), equalTo("incident1:responder1"));
+        }
+    }
+
+    @Test
+    void testParseBodyBeforeMessageType() {
+        String payload = "{\"body\":" + BODY + ",\"messageType\":\"CreateMissionCommand\",\"id\":\"91cf5e82\"}";
+
+        Optional<MissionCommand> command = parser.parse(payload);
+
+        assertThat(command.isPresent(), is(true));
+        assertThat(command.get().getId(), equalTo("91cf5e82"));
+        assertThat(command.get().getMission().getIncidentId(), equalTo("incident123"));
+        assertThat(command.get().getMission().getDestinationLat(), equalTo(new BigDecimal("50.12345")));
+    }
+
+    @Test
+    void testRedeliveredCommandsAreDropped() {
+        parser.redeliveries = new RedeliveryFilter(60_000, 4, 100);
+        String payload = "{\"id\":\"91cf5e82\",\"messageType\":\"CreateMissionCommand\",\"body\":" + BODY + "}";
+        String lifecycle = "{\"messageType\":\"CompleteMissionCommand\",\"body\":{\"incidentId\":\"incident123\",\"responderId\":\"responder123\"}}";
+
+        assertThat(parser.parse(payload).isPresent(), is(true));
+        assertThat(parser.parse(payload).isPresent(), is(false));
+        assertThat(parser.parse("{\"body\":" + BODY + ",\"messageType\":\"CreateMissionCommand\",\"id\":\"91cf5e82\"}").isPresent(), is(false));
+        // the body of a duplicate is never bound, so a broken one does not count as invalid
+        assertThat(parser.parse("{\"id\":\"91cf5e82\",\"messageType\":\"CreateMissionCommand\",\"body\":{\"incidentLat\":{}}}").isPresent(), is(false));
+        assertThat(parser.parse("{\"messageType\":\"CreateMissionCommand\",\"body\":" + BODY + "}").isPresent(), is(true));
+        assertThat(parser.parse("{\"messageType\":\"CreateMissionCommand\",\"body\":" + BODY + "}").isPresent(), is(false));
+        assertThat(parser.parse(lifecycle).isPresent(), is(true));
+        assertThat(parser.parse(lifecycle).isPresent(), is(false));
+        assertThat(registry.counter("mission.command.duplicate").getCount(), equalTo(5L));
+        assertThat(registry.counter("mission.command.invalid").getCount(), equalTo(0L));
+    }
+
+    @Test
+    void testIgnoreOtherMessageTypes() {
+        assertThat(parser.parse("{\"messageType\":\"IncidentReportedEvent\",\"body\":" + BODY + "}").isPresent(), is(false));
+        assertThat(parser.parse("{\"body\":" + BODY + ",\"messageType\":\"IncidentReportedEvent\"}").isPresent(), is(false));
+        assertThat(parser.parse("{\"messageType\":\"IncidentReportedEvent\",\"body\":{ broken").isPresent(), is(false));
+        assertThat(parser.parse("{\"body\":" + BODY + "}").isPresent(), is(false));
+        assertThat(registry.counter("mission.command.ignored").getCount(), equalTo(4L));
+        assertThat(registry.counter("mission.command.invalid").getCount(), equalTo(0L));
+    }
+
+    @Test
+    void testCommandWithoutBodyIsIgnored() {
+        assertThat(parser.parse("{\"messageType\":\"CreateMissionCommand\"}").isPresent(), is(false));
+        assertThat(parser.parse("{\"id\":\"91cf5e82\",\"messageType\":\"CompleteMissionCommand\"}").isPresent(), is(false));
+        assertThat(registry.counter("mission.command.ignored").getCount(), equalTo(2L));
+        assertThat(registry.counter("mission.command.invalid").getCount(), equalTo(0L));
+    }
+
+    @Test
+    void testInvalidPayloads() {
+        assertThat(parser.parse("not json").isPresent(), is(false));
+        assertThat(parser.parse("[1,2,3]").isPresent(), is(false));
+        assertThat(parser.parse("{\"messageType\":\"CreateMissionCommand\",\"body\":\"text\"}").isPresent(), is(false));
+        assertThat(parser.parse("{\"messageType\":\"CreateMissionCommand\",\"body\":{\"incidentLat\":{}}}").isPresent(), is(false));
+        assertThat(registry.counter("mission.command.invalid").getCount(), equalTo(4L));
+    }
+
+    @Test
+    void testMissingFieldsAreLeftNull() {
+        Optional<MissionCommand> command = parser.parse("{\"messageType\":\"CreateMissionCommand\",\"body\":{\"incidentId\":\"incident1\",\"responderId\":15}}");
+
+        assertThat(command.isPresent(), is(true));
+        assertThat(command.get().getId(), nullValue());
+        assertThat(command.get().getMission().getResponderId(), equalTo("15"));
+        assertThat(command.get().getMission().getIncidentLat(), nullValue());
+    }
+}
@@ -0,0 +1,360 @@
+package com.redhat.emergency.response.mission.source;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import javax.enterprise.inject.Any;
+import javax.inject.Inject;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.redhat.emergency.response.mission.repository.MissionRepository;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.smallrye.reactive.messaging.connectors.InMemoryConnector;
+import io.smallrye.reactive.messaging.connectors.InMemorySink;
+import io.smallrye.reactive.messaging.connectors.InMemorySource;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Open-loop load and soak test of the whole mission-command pipeline, on the in-memory connectors
+ * of {@link MissionCommandSourceTest} with the real parser, route planner and repository. Only runs
+ * with {@code -Dsoak}, see the {@code soak} Maven profile:
+ *
+ * <pre>
+ * mvn -Psoak test -Dsoak.rate=2000 -Dsoak.duration-seconds=300
+ * </pre>
+ *
+ * Commands from {@link CommandLoad} are sent on a fixed schedule of {@code soak.rate} per second,
+ * whether or not the pipeline keeps up. A command's latency runs from the time it was scheduled
+ * for, not the time it was actually sent, up to its acknowledgement: for a mission the moment its
+ * event is written to the sink, for anything else the moment it is dropped. A stalled pipeline
+ * therefore shows up in the percentiles of every command scheduled during the stall (no
+ * coordinated omission). A warmup phase of {@code soak.warmup-seconds} runs first and is not
+ * measured.
+ * <p>
+ * Throughput, latency percentiles per kind of command, retained heap growth (used heap after a
+ * full GC at the start and at the end of the measurement), peak heap, GC pauses as reported by the
+ * collectors' notifications and the pipeline counters are written as JSON to {@code soak.report}.
+ * The test fails when commands are still unacknowledged {@code soak.drain-seconds} after the last
+ * one was sent, or when the overall p99 exceeds {@code soak.max-p99-ms}, if set.
+ * <p>
+ * Mission settings such as {@code mission.command.lanes} or {@code mission.routing.graph.file} can
+ * be passed as system properties as well.
+ */
+@QuarkusTest
+@EnabledIfSystemProperty(named = "soak", matches = ".*")
+public class MissionCommandSoakTest {
+
+    private static final Logger log = Logger.getLogger(MissionCommandSoakTest.class);
+
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9, 99.99 };
+
+    private static final String[] COUNTERS = { "mission.command.ignored", "mission.command.invalid", "mission.command.failed",
+            "mission.command.duplicate", "mission.command.rejected", "mission.routing.refined" };
+
+    @Inject
+    @Any
+    InMemoryConnector connector;
+
+    @Inject
+    MissionRepository repository;
+
+    @Inject
+    MetricRegistry registry;
+
+    @Test
+    void soak() throws Exception {
+        long rate = Long.getLong("soak.rate", 500);
+        long durationSeconds = Long.getLong("soak.duration-seconds", 60);
+        long warmupSeconds = Long.getLong("soak.warmup-seconds", 10);
+        long drainSeconds = Long.getLong("soak.drain-seconds", 30);
+        double invalidRatio = Double.parseDouble(System.getProperty("soak.invalid-ratio", "0.02"));
+        double otherRatio = Double.parseDouble(System.getProperty("soak.other-ratio", "0.2"));
+        int clusters = Integer.getInteger("soak.clusters", 5);
+        double clusterRatio = Double.parseDouble(System.getProperty("soak.cluster-ratio", "0.7"));
+        double clusterRadiusMeters = Double.parseDouble(System.getProperty("soak.cluster-radius-meters", "500"));
+        int responders = Integer.getInteger("soak.responders", 200);
+        CommandLoad load = new CommandLoad(Long.getLong("soak.seed", 42), invalidRatio, otherRatio, clusters, clusterRatio,
+                clusterRadiusMeters, responders);
+        Path report = Paths.get(System.getProperty("soak.report", "target/soak-report.json"));
+
+        InMemorySource<Message<String>> commands = connector.source("mission-command");
+        InMemorySink<byte[]> events = connector.sink("mission-event");
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        AtomicLong peakHeap = new AtomicLong();
+
+        // The in-memory sink keeps every event in a copy-on-write list, which is emptied regularly
+        // so it does not dominate the heap and the cost of writing an event.
+        ScheduledExecutorService background = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "mission-soak-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        background.scheduleAtFixedRate(() -> {
+            events.clear();
+            peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+        }, 100, 100, TimeUnit.MILLISECONDS);
+        try {
+            Phase warmup = new Phase(load, commands, rate);
+            warmup.run(TimeUnit.SECONDS.toNanos(warmupSeconds));
+            warmup.drain(TimeUnit.SECONDS.toNanos(drainSeconds));
+
+            // The baseline is taken between the phases so its full GC is not measured as latency.
+            long heapStart = retainedHeap(memory);
+            int missionsStart = repository.size();
+            Map<String, Long> countersStart = counters();
+            GcPauses pauses = new GcPauses();
+            pauses.start();
+            peakHeap.set(0);
+            Phase measured = new Phase(load, commands, rate);
+            measured.run(TimeUnit.SECONDS.toNanos(durationSeconds));
+            long unacknowledged = measured.drain(TimeUnit.SECONDS.toNanos(drainSeconds));
+            pauses.stop();
+            long heapPeak = peakHeap.get();
+            long heapEnd = retainedHeap(memory);
+
+            JsonObject result = new JsonObject()
+                    .put("settings", new JsonObject().put("rate", rate).put("durationSeconds", durationSeconds)
+                            .put("warmupSeconds", warmupSeconds).put("drainSeconds", drainSeconds)
+                            .put("invalidRatio", invalidRatio).put("otherRatio", otherRatio).put("clusters", clusters)
+                            .put("clusterRatio", clusterRatio).put("clusterRadiusMeters", clusterRadiusMeters)
+                            .put("responders", responders)
+                            .put("availableProcessors", Runtime.getRuntime().availableProcessors()))
+                    .put("warmupSent", warmup.sent)
+                    .put("sent", measured.sent)
+                    .put("acknowledged", measured.acknowledged.sum())
+                    .put("unacknowledged", unacknowledged)
+                    .put("throughput", new JsonObject().put("offeredPerSecond", rate)
+                            .put("sentPerSecond", measured.sentPerSecond())
+                            .put("completedPerSecond", measured.completedPerSecond()))
+                    .put("latencyMillis", measured.latencyReport())
+                    .put("heap", new JsonObject().put("retainedStartBytes", heapStart).put("retainedEndBytes", heapEnd)
+                            .put("retainedGrowthBytes", heapEnd - heapStart).put("peakBytes", heapPeak)
+                            .put("maxBytes", memory.getHeapMemoryUsage().getMax()))
+                    .put("gc", pauses.report())
+                    .put("repository", new JsonObject().put("missionsStart", missionsStart).put("missionsEnd", repository.size()))
+                    .put("pipeline", delta(countersStart, counters()));
+            if (report.getParent() != null) {
+                Files.createDirectories(report.getParent());
+            }
+            Files.write(report, result.encodePrettily().getBytes(StandardCharsets.UTF_8));
+            log.info("Soak test report written to " + report.toAbsolutePath() + "\n" + result.encodePrettily());
+
+            assertThat(unacknowledged, equalTo(0L));
+            String maxP99 = System.getProperty("soak.max-p99-ms");
+            if (maxP99 != null) {
+                assertThat(measured.all.percentile(99) / 1000.0, lessThanOrEqualTo(Double.parseDouble(maxP99)));
+            }
+        } finally {
+            background.shutdownNow();
+            events.clear();
+        }
+    }
+
+    private static JsonObject latencyReport(LatencyHistogram histogram) {
+        JsonObject report = new JsonObject().put("count", histogram.count()).put("mean", histogram.mean() / 1000);
+        for (double percentile : PERCENTILES) {
+            report.put("p" + (percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile)),
+                    histogram.percentile(percentile) / 1000.0);
+        }
+        return report.put("max", histogram.max() / 1000.0);
+    }
+
+    private static long retainedHeap(MemoryMXBean memory) {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private Map<String, Long> counters() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (String name : COUNTERS) {
+            Counter counter = registry.getCounters().get(new MetricID(name));
+            values.put(name, counter == null ? 0 : counter.getCount());
+        }
+        return values;
+    }
+
+    private static JsonObject delta(Map<String, Long> start, Map<String, Long> end) {
+        JsonObject delta = new JsonObject();
+        end.forEach((name, value) -> delta.put(name, value - start.getOrDefault(name, 0L)));
+        return delta;
+    }
+
+    /**
+     * Commands sent on a fixed schedule for a while, and the latency of each from the time it was
+     * scheduled for to its acknowledgement.
+     */
+    private static final class Phase {
+
+        private final CommandLoad load;
+
+        private final InMemorySource<Message<String>> commands;
+
+        private final long period;
+
+        private final Map<CommandLoad.Kind, LatencyHistogram> latencies = new EnumMap<>(CommandLoad.Kind.class);
+
+        private final LatencyHistogram all = new LatencyHistogram();
+
+        private final LongAdder acknowledged = new LongAdder();
+
+        private final AtomicLong lastAcknowledged = new AtomicLong();
+
+        private long started;
+
+        private long stopped;
+
+        private long sent;
+
+        Phase(CommandLoad load, InMemorySource<Message<String>> commands, long rate) {
+            this.load = load;
+            this.commands = commands;
+            this.period = TimeUnit.SECONDS.toNanos(1) / rate;
+            for (CommandLoad.Kind kind : CommandLoad.Kind.values()) {
+                latencies.put(kind, new LatencyHistogram());
+            }
+        }
+
+        void run(long durationNanos) {
+            started = System.nanoTime();
+            long end = started + durationNanos;
+            for (long scheduled = started; scheduled < end; scheduled += period) {
+                CommandLoad.Command command = load.next();
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                long intended = scheduled;
+                LatencyHistogram latency = latencies.get(command.kind);
+                AtomicBoolean done = new AtomicBoolean();
+                commands.send(Message.of(command.payload, () -> {
+                    if (done.compareAndSet(false, true)) {
+                        long now = System.nanoTime();
+                        latency.record((now - intended) / 1000);
+                        all.record((now - intended) / 1000);
+                        acknowledged.increment();
+                        lastAcknowledged.accumulateAndGet(now, Math::max);
+                    }
+                    return CompletableFuture.completedFuture(null);
+                }));
+                sent++;
+            }
+            stopped = System.nanoTime();
+        }
+
+        /**
+         * Waits for the commands sent to be acknowledged. Returns how many still are not.
+         */
+        long drain(long timeoutNanos) throws InterruptedException {
+            long deadline = System.nanoTime() + timeoutNanos;
+            while (acknowledged.sum() < sent && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            return sent - acknowledged.sum();
+        }
+
+        double sentPerSecond() {
+            return sent * 1e9 / (stopped - started);
+        }
+
+        double completedPerSecond() {
+            return acknowledged.sum() * 1e9 / (Math.max(stopped, lastAcknowledged.get()) - started);
+        }
+
+        JsonObject latencyReport() {
+            JsonObject report = new JsonObject().put("all", MissionCommandSoakTest.latencyReport(all));
+            latencies.forEach((kind, histogram) -> report.put(kind.name().toLowerCase(), MissionCommandSoakTest.latencyReport(histogram)));
+            return report;
+        }
+    }
+
+    /**
+     * GC pauses between {@link #start()} and {@link #stop()}, from the notifications the garbage
+     * collectors send at the end of each collection. The duration is the pause for stop-the-world
+     * collectors such as G1 and Parallel; concurrent collectors report their whole cycle.
+     */
+    private static final class GcPauses implements NotificationListener {
+
+        private final List<NotificationEmitter> emitters = new ArrayList<>();
+
+        private final LatencyHistogram pauses = new LatencyHistogram();
+
+        private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+
+        private final Map<String, LongAdder> millis = new ConcurrentHashMap<>();
+
+        void start() {
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (collector instanceof NotificationEmitter) {
+                    ((NotificationEmitter) collector).addNotificationListener(this, null, null);
+                    emitters.add((NotificationEmitter) collector);
+                }
+            }
+        }
+
+        void stop() throws Exception {
+            for (NotificationEmitter emitter : emitters) {
+                emitter.removeNotificationListener(this);
+            }
+            emitters.clear();
+        }
+
+        @Override
+        public void handleNotification(Notification notification, Object handback) {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                return;
+            }
+            GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            long duration = info.getGcInfo().getDuration();
+            pauses.record(duration);
+            String name = info.getGcName() + " (" + info.getGcAction() + ")";
+            counts.computeIfAbsent(name, n -> new LongAdder()).increment();
+            millis.computeIfAbsent(name, n -> new LongAdder()).add(duration);
+        }
+
+        JsonObject report() {
+            JsonObject collectors = new JsonObject();
+            counts.forEach((name, count) -> collectors.put(name,
+                    new JsonObject().put("count", count.sum()).put("totalMillis", millis.get(name).sum())));
+            return new JsonObject().put("count", pauses.count())
+                    .put("totalMillis", millis.values().stream().mapToLong(LongAdder::sum).sum())
+                    .put("p99Millis", pauses.percentile(99))
+                    .put("maxMillis", pauses.max())
+                    .put("collectors", collectors);
+        }
+    }
+}
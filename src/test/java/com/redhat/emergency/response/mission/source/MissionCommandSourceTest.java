@@ -19,6 +19,7 @@ import com.redhat.emergency.response.mission.repository.MissionRepository;
 
 import io.quarkus.test.junit.QuarkusTest;
 import io.quarkus.test.junit.mockito.InjectMock;
+import io.restassured.RestAssured;
 import io.smallrye.mutiny.Uni;
 import io.smallrye.reactive.messaging.connectors.InMemoryConnector;
 import io.smallrye.reactive.messaging.connectors.InMemorySink;
@@ -42,9 +43,9 @@ public class MissionCommandSourceTest {
 	}
 
 	@Test
-	void testProcessMessage() {
+	void testProcessMessage() throws InterruptedException {
 		//Set up
-		InMemorySink<String> missionEvents = connector.sink("mission-event");
+		InMemorySink<byte[]> missionEvents = connector.sink("mission-event");
 		InMemorySource<String> missionCommand = connector.source("mission-command");
 
 		MissionStep missionStep1 = new MissionStep();
@@ -62,7 +63,11 @@ public class MissionCommandSourceTest {
 
 		missionCommand.send(payload);
 
-		// verify
+		// verify: routes are looked up on the routing bulkhead, so the event arrives asynchronously
+		long deadline = System.currentTimeMillis() + 5000;
+		while (missionEvents.received().isEmpty() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
 		MatcherAssert.assertThat(missionEvents.received().size(), Matchers.equalTo(1));
 
 		Mockito.verify(routePlanner).getDirections(Mockito.any(Location.class), Mockito.any(Location.class), Mockito.any(Location.class));
@@ -70,4 +75,13 @@ public class MissionCommandSourceTest {
 
 	}
 
+	@Test
+	void testPipelineMetricsAreExported() {
+		RestAssured.given().accept("text/plain").get("/metrics/application")
+				.then().statusCode(200)
+				.body(Matchers.containsString("application_mission_command_stage_seconds{stage=\"parse\",quantile=\"0.999\"}"))
+				.body(Matchers.containsString("application_mission_command_ignored_total"))
+				.body(Matchers.containsString("application_mission_repository_missions{status=\"CREATED\"}"));
+	}
+
 }
@@ -0,0 +1,82 @@
+package com.redhat.emergency.response.mission.source;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.redhat.emergency.response.mission.model.LocationHistory;
+import com.redhat.emergency.response.mission.model.Mission;
+import com.redhat.emergency.response.mission.model.MissionStatus;
+import com.redhat.emergency.response.mission.model.MissionStep;
+import com.redhat.emergency.response.mission.model.Polyline;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+public class MissionEventSerializerTest {
+
+    private final MissionEventSerializer serializer = new MissionEventSerializer();
+
+    @Test
+    void testMatchesJsonObjectEncoding() {
+        Mission mission = Mission.builder().id("a1b2").incidentId("incident\"1\"\\").responderId("r\u00e9sponder \u20ac \ud83d\ude91\n\u0001")
+                .responderStartLocation(new BigDecimal("40.12345"), new BigDecimal("-80"))
+                .incidentLocation(new BigDecimal("0.00001"), new BigDecimal("1E+2"))
+                .destinationLocation(null, new BigDecimal("1.50"))
+                .build();
+        mission.status(MissionStatus.CREATED);
+        LocationHistory.Sampling sampling = new LocationHistory.Sampling(16, 0, 0);
+        mission.locationHistory().record(40.12345, -80.0, 1593363522344L, sampling);
+        mission.locationHistory().record(40.2, -80.00001, 1593363532344L, sampling);
+        for (int i = 0; i < 200; i++) {
+            mission.getSteps().add(MissionStep.builder(BigDecimal.valueOf(30 + i * 0.001), BigDecimal.valueOf(-70 - i * 0.001))
+                    .wayPoint(i == 100).destination(i == 199).build());
+        }
+
+        byte[] bytes = serializer.event("91cf5e82", 1593363522344L, MissionEventSerializer.MISSION_STARTED_EVENT, mission);
+
+        String expected = new JsonObject().put("id", "91cf5e82")
+                .put("invokingService", "MissionService")
+                .put("timestamp", 1593363522344L)
+                .put("messageType", "MissionStartedEvent")
+                .put("body", JsonObject.mapFrom(mission)).encode();
+        assertThat(new String(bytes, StandardCharsets.UTF_8), equalTo(expected));
+    }
+
+    @Test
+    void testBufferIsReusedAcrossEvents() {
+        Mission large = Mission.builder().id("large").incidentId("incident").responderId("responder").build();
+        for (int i = 0; i < 5000; i++) {
+            large.getSteps().add(MissionStep.builder(BigDecimal.valueOf(i % 90), BigDecimal.valueOf(-i % 180)).build());
+        }
+        Mission small = Mission.builder().id("small").incidentId("incident").responderId("responder").build();
+
+        serializer.event("1", -42L, "MissionStartedEvent", large);
+        byte[] bytes = serializer.event("2", 0L, "MissionStartedEvent", small);
+
+        JsonObject event = new JsonObject(new String(bytes, StandardCharsets.UTF_8));
+        assertThat(event.getLong("timestamp"), equalTo(0L));
+        assertThat(event.getJsonObject("body").getString("id"), equalTo("small"));
+        assertThat(event.getJsonObject("body").getJsonArray("steps").size(), equalTo(0));
+    }
+
+    @Test
+    void testPolylineStepsEncoding() {
+        Mission mission = Mission.builder().id("route").incidentId("incident").responderId("responder").build();
+        for (int i = 0; i <= 100; i++) {
+            mission.getSteps().add(MissionStep.builder(40.0, -80.0 + i * 0.001).wayPoint(i == 40).destination(i == 100).build());
+        }
+        EventFormat format = new EventFormat(EventFormat.StepsEncoding.POLYLINE, 1, 5);
+
+        byte[] bytes = serializer.event("3", 0L, "MissionStartedEvent", mission, format);
+
+        JsonObject body = new JsonObject(new String(bytes, StandardCharsets.UTF_8)).getJsonObject("body");
+        assertThat(Polyline.decode(body.getString("steps"), 5).size(), equalTo(3));
+        assertThat(Polyline.decode(body.getString("steps"), 5).get(1).longitude(), equalTo(-79.96));
+        assertThat(body.getJsonArray("wayPointSteps").getList(), equalTo(List.of(1)));
+        assertThat(body.getJsonArray("destinationSteps").getList(), equalTo(List.of(2)));
+        assertThat(mission.getSteps().size(), equalTo(101));
+    }
+}
@@ -0,0 +1,114 @@
+package com.redhat.emergency.response.mission.source;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.vertx.kafka.client.common.TopicPartition;
+import io.vertx.kafka.client.consumer.OffsetAndMetadata;
+
+public class OffsetCommitterTest {
+
+    private static final TopicPartition P0 = new TopicPartition("mission-command", 0);
+
+    private static final TopicPartition P1 = new TopicPartition("mission-command", 1);
+
+    private final OffsetCommitter committer = new OffsetCommitter(60_000);
+
+    @AfterEach
+    void shutdown() {
+        committer.shutdown();
+    }
+
+    @Test
+    void testConnectorExposesTheRecordConsumer() {
+        // fails when a connector upgrade hides the consumer offsets are committed through
+        assertThat(OffsetCommitter.supported(), equalTo(true));
+    }
+
+    @Test
+    void testRevokedPartitionIsNoLongerTrackedNorCommitted() {
+        Supplier<CompletionStage<Void>> p0 = committer.track("mission-command", 0, 7);
+        committer.track("mission-command", 0, 8);
+        committer.track("mission-command", 1, 3).get();
+
+        committer.revoked(Set.of(P0));
+        assertThat(committer.pending(), equalTo(0L));
+
+        p0.get();
+        assertThat(committer.committable().keySet(), equalTo(Set.of(P1)));
+    }
+
+    @Test
+    void testOnlyTheContiguousCompletedPrefixIsCommitted() {
+        List<Supplier<CompletionStage<Void>>> p0 = new ArrayList<>();
+        for (long offset = 10; offset < 15; offset++) {
+            p0.add(committer.track("mission-command", 0, offset));
+        }
+        Supplier<CompletionStage<Void>> p1 = committer.track("mission-command", 1, 3);
+
+        p0.get(1).get();
+        p0.get(3).get();
+        assertThat(committer.committable().isEmpty(), equalTo(true));
+
+        p0.get(0).get();
+        p1.get();
+        Map<TopicPartition, OffsetAndMetadata> offsets = committer.committable();
+        assertThat(offsets.get(P0).getOffset(), equalTo(12L));
+        assertThat(offsets.get(P1).getOffset(), equalTo(4L));
+        assertThat(committer.pending(), equalTo(3L));
+
+        committer.committed(offsets);
+        assertThat(committer.committable().isEmpty(), equalTo(true));
+
+        p0.get(2).get();
+        assertThat(committer.committable().get(P0).getOffset(), equalTo(14L));
+        p0.get(4).get();
+        assertThat(committer.committable().get(P0).getOffset(), equalTo(15L));
+        assertThat(committer.pending(), equalTo(0L));
+    }
+
+    @Test
+    void testRandomCompletionOrderCommitsEverything() {
+        List<Supplier<CompletionStage<Void>>> acks = new ArrayList<>();
+        for (long offset = 0; offset < 1000; offset++) {
+            acks.add(committer.track("mission-command", 0, offset));
+        }
+        Collections.shuffle(acks, new Random(7));
+        long last = -1;
+        for (Supplier<CompletionStage<Void>> ack : acks) {
+            ack.get();
+            OffsetAndMetadata offset = committer.committable().get(P0);
+            if (offset != null) {
+                assertThat(offset.getOffset() >= last, equalTo(true));
+                last = offset.getOffset();
+            }
+        }
+        assertThat(last, equalTo(1000L));
+    }
+
+    @Test
+    void testReassignedPartitionStartsOver() {
+        Supplier<CompletionStage<Void>> stale = committer.track("mission-command", 0, 20);
+        committer.track("mission-command", 0, 21).get();
+
+        // redelivered from the committed offset after a rebalance
+        Supplier<CompletionStage<Void>> redelivered = committer.track("mission-command", 0, 20);
+        stale.get();
+        assertThat(committer.committable().isEmpty(), equalTo(true));
+
+        redelivered.get();
+        assertThat(committer.committable().get(P0).getOffset(), equalTo(21L));
+    }
+}
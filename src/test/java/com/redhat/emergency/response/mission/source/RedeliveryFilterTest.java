@@ -0,0 +1,61 @@
+package com.redhat.emergency.response.mission.source;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+public class RedeliveryFilterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+
+    @Test
+    void testKeysAreForgottenAfterTheWindow() {
+        RedeliveryFilter filter = new RedeliveryFilter(1000, 4, 100, clock::get);
+
+        assertThat(filter.add("a"), is(true));
+        assertThat(filter.add("a"), is(false));
+        clock.addAndGet(400);
+        assertThat(filter.add("b"), is(true));
+        clock.addAndGet(500);
+        assertThat(filter.add("a"), is(false));
+        assertThat(filter.add("b"), is(false));
+        clock.addAndGet(200);
+        assertThat(filter.add("a"), is(true));
+        assertThat(filter.add("b"), is(false));
+        clock.addAndGet(5000);
+        assertThat(filter.add("b"), is(true));
+    }
+
+    @Test
+    void testFullGenerationsRotateEarly() {
+        RedeliveryFilter filter = new RedeliveryFilter(60_000, 2, 10, clock::get);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(filter.add("key" + i), is(true));
+        }
+        for (int i = 10; i < 20; i++) {
+            assertThat(filter.add("key" + i), is(true));
+        }
+        assertThat(filter.add("key0"), is(false));
+        assertThat(filter.add("key20"), is(true));
+        assertThat(filter.add("key0"), is(true));
+        assertThat(filter.add("key15"), is(false));
+    }
+
+    @Test
+    void testBloomFalsePositivesNeverDropNewKeys() {
+        RedeliveryFilter filter = new RedeliveryFilter(60_000, 4, 50_000, clock::get);
+        int dropped = 0;
+        for (int i = 0; i < 200_000; i++) {
+            if (!filter.add(UUID.randomUUID().toString())) {
+                dropped++;
+            }
+        }
+        assertThat(dropped, equalTo(0));
+    }
+}
@@ -0,0 +1,145 @@
+package com.redhat.emergency.response.mission.source;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import com.redhat.emergency.response.mission.model.Mission;
+import com.redhat.emergency.response.mission.model.MissionStatus;
+import com.redhat.emergency.response.mission.model.MissionStep;
+import com.redhat.emergency.response.mission.repository.MissionRepository;
+import io.smallrye.metrics.MetricsRegistryImpl;
+import io.vertx.core.json.JsonObject;
+import org.eclipse.microprofile.metrics.MetricID;
+import org.eclipse.microprofile.metrics.Tag;
+import org.eclipse.microprofile.reactive.messaging.Emitter;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ResponderLocationSourceTest {
+
+    private ResponderLocationSource source;
+
+    private final List<JsonObject> progressEvents = new ArrayList<>();
+
+    private Mission mission;
+
+    @BeforeEach
+    void init() {
+        MissionRepository repository = new MissionRepository();
+        mission = Mission.builder().incidentId("incident1").responderId("responder1")
+                .responderStartLocation(new BigDecimal("40"), new BigDecimal("-80"))
+                .steps(Arrays.asList(MissionStep.builder(40.0, -80.0).build(), MissionStep.builder(40.1, -80.1).wayPoint(true).build(),
+                        MissionStep.builder(40.2, -80.2).destination(true).build()))
+                .build();
+        mission.status(MissionStatus.CREATED);
+        repository.put(mission);
+
+        source = new ResponderLocationSource();
+        source.repository = repository;
+        source.registry = new MetricsRegistryImpl();
+        source.historyCapacity = 4;
+        source.minDistanceMeters = 25;
+        source.minIntervalMs = 10_000;
+        source.progressEnabled = true;
+        source.progressMinIntervalMs = 5_000;
+        source.progressDefaultSpeedKmh = 36;
+        source.progressOffRouteMeters = 100;
+        source.progressEvents = new Emitter<>() {
+            @Override
+            public CompletionStage<Void> send(byte[] payload) {
+                progressEvents.add(new JsonObject(new String(payload, StandardCharsets.UTF_8)));
+                return CompletableFuture.completedFuture(null);
+            }
+
+            @Override
+            public <M extends Message<? extends byte[]>> void send(M message) {
+                send(message.getPayload());
+            }
+
+            @Override
+            public void complete() {
+            }
+
+            @Override
+            public void error(Exception e) {
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return false;
+            }
+
+            @Override
+            public boolean isRequested() {
+                return true;
+            }
+        };
+        source.serializer = new MissionEventSerializer();
+        source.init();
+    }
+
+    @Test
+    void testRecordsPositionsOnActiveMission() {
+        assertThat(source.accept("{\"responderId\":\"responder1\",\"incidentId\":\"incident1\",\"lat\":40.1,\"lon\":-80.1}", 1000), equalTo(true));
+        assertThat(source.accept("{\"lat\":\"40.2\",\"lon\":\"-80.2\",\"human\":{\"name\":\"x\"},\"responderId\":\"responder1\"}", 2000), equalTo(true));
+        assertThat(source.accept("{\"responderId\":\"responder1\",\"lat\":40.2,\"lon\":-80.2}", 3000), equalTo(false));
+
+        assertThat(mission.getResponderLocationHistory().size(), equalTo(2));
+        assertThat(mission.getResponderLocationHistory().get(1).getLat(), equalTo(new BigDecimal("40.2")));
+        assertThat(count("recorded"), equalTo(2L));
+        assertThat(count("downsampled"), equalTo(1L));
+    }
+
+    @Test
+    void testIgnoresUnknownAndInvalidUpdates() {
+        assertThat(source.accept("{\"responderId\":\"responder2\",\"lat\":40.1,\"lon\":-80.1}", 1000), equalTo(false));
+        assertThat(source.accept("{\"responderId\":\"responder1\",\"incidentId\":\"incident2\",\"lat\":40.1,\"lon\":-80.1}", 1000), equalTo(false));
+        assertThat(source.accept("{\"responderId\":\"responder1\",\"lat\":40.1}", 1000), equalTo(false));
+        assertThat(source.accept("not json", 1000), equalTo(false));
+
+        assertThat(mission.getResponderLocationHistory().size(), equalTo(0));
+        assertThat(count("unmatched"), equalTo(2L));
+        assertThat(count("invalid"), equalTo(2L));
+    }
+
+    @Test
+    void testSendsThrottledProgressEvents() {
+        source.accept("{\"responderId\":\"responder1\",\"lat\":40.05,\"lon\":-80.05}", 1_000);
+        source.accept("{\"responderId\":\"responder1\",\"lat\":40.06,\"lon\":-80.06}", 2_000);
+        source.accept("{\"responderId\":\"responder1\",\"lat\":40.1,\"lon\":-80.1}", 3_000);
+        source.accept("{\"responderId\":\"responder1\",\"lat\":40.12,\"lon\":-80.12}", 9_000);
+
+        assertThat(progressEvents.size(), equalTo(3));
+        JsonObject first = progressEvents.get(0);
+        assertThat(first.getString("messageType"), equalTo("MissionProgressEvent"));
+        JsonObject body = first.getJsonObject("body");
+        assertThat(body.getString("missionId"), equalTo(mission.getId()));
+        assertThat(body.getString("responderId"), equalTo("responder1"));
+        assertThat(body.getInteger("segment"), equalTo(0));
+        assertThat(body.getBoolean("offRoute"), equalTo(false));
+        long remaining = body.getLong("distanceRemaining");
+        // halfway along the first of two equal legs
+        assertThat((double) body.getLong("distanceToIncident") * 3, closeTo(remaining, remaining / 100.0));
+        // 10 m/s until the responder is seen moving
+        assertThat(body.getLong("etaSeconds"), equalTo(Math.round(remaining / 10.0)));
+
+        assertThat(progressEvents.get(1).getJsonObject("body").getLong("distanceToIncident"), equalTo(0L));
+        assertThat(progressEvents.get(2).getJsonObject("body").getInteger("segment"), equalTo(1));
+        assertThat(source.registry.getCounters().get(new MetricID("mission.progress.events", new Tag("outcome", "throttled"))).getCount(),
+                equalTo(1L));
+    }
+
+    private long count(String outcome) {
+        return source.registry.getCounters().get(new MetricID("mission.responder-location.updates", new Tag("outcome", outcome))).getCount();
+    }
+}
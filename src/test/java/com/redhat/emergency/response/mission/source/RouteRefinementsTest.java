@@ -0,0 +1,67 @@
+package com.redhat.emergency.response.mission.source;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.reactive.messaging.Message;
+
+import io.smallrye.mutiny.Multi;
+import org.junit.jupiter.api.Test;
+
+public class RouteRefinementsTest {
+
+    @Test
+    void testRefinementsCompletingTogetherAreEachEmittedOnce() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 200; round++) {
+                RouteRefinements refinements = new RouteRefinements();
+                List<Message<byte[]>> started = new ArrayList<>();
+                List<Message<byte[]>> updated = new ArrayList<>();
+                CountDownLatch requested = new CountDownLatch(64);
+                CountDownLatch go = new CountDownLatch(1);
+                for (int i = 0; i < 64; i++) {
+                    Message<byte[]> event = Message.of(new byte[] { (byte) i });
+                    Message<byte[]> refined = Message.of(new byte[] { (byte) i });
+                    started.add(event);
+                    updated.add(refined);
+                    refinements.after(event, () -> {
+                        CompletableFuture<Message<byte[]>> lookup = new CompletableFuture<>();
+                        pool.execute(() -> {
+                            try {
+                                go.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            lookup.complete(refined);
+                        });
+                        requested.countDown();
+                        return lookup;
+                    });
+                }
+
+                CompletableFuture<List<Message<byte[]>>> emitted = refinements.merge(Multi.createFrom().iterable(started))
+                        .collectItems().asList().subscribeAsCompletionStage();
+                assertThat(requested.await(10, TimeUnit.SECONDS), equalTo(true));
+                go.countDown();
+
+                List<Message<byte[]>> all = new ArrayList<>(started);
+                all.addAll(updated);
+                assertThat(emitted.get(10, TimeUnit.SECONDS), containsInAnyOrder(all.toArray()));
+            }
+        } finally {
+            pool.shutdownNow();
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}